@@ -0,0 +1,38 @@
+package com.cobamovil.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalTime;
+
+@Component
+@ConfigurationProperties(prefix = "app.booking")
+public class BookingProperties {
+    // Working hours offered to customers: services must start and finish inside them
+    private LocalTime workdayStart = LocalTime.of(8, 0);
+    private LocalTime workdayEnd = LocalTime.of(18, 0);
+    // Longest date range a single slot search may cover
+    private int slotSearchMaxDays = 31;
+    // How far ahead the occurrences of recurring series are turned into bookings
+    private int seriesHorizonDays = 42;
+    // Checkout holds: how long a held slot stays blocked, and how many holds a customer may keep
+    private int holdTtlSeconds = 300;
+    private int maxHoldsPerUser = 3;
+    // How long a slot offered to a waitlisted customer stays held for them
+    private int waitlistOfferMinutes = 30;
+
+    public LocalTime getWorkdayStart() { return workdayStart; }
+    public void setWorkdayStart(LocalTime workdayStart) { this.workdayStart = workdayStart; }
+    public LocalTime getWorkdayEnd() { return workdayEnd; }
+    public void setWorkdayEnd(LocalTime workdayEnd) { this.workdayEnd = workdayEnd; }
+    public int getSlotSearchMaxDays() { return slotSearchMaxDays; }
+    public void setSlotSearchMaxDays(int slotSearchMaxDays) { this.slotSearchMaxDays = slotSearchMaxDays; }
+    public int getSeriesHorizonDays() { return seriesHorizonDays; }
+    public void setSeriesHorizonDays(int seriesHorizonDays) { this.seriesHorizonDays = seriesHorizonDays; }
+    public int getHoldTtlSeconds() { return holdTtlSeconds; }
+    public void setHoldTtlSeconds(int holdTtlSeconds) { this.holdTtlSeconds = holdTtlSeconds; }
+    public int getMaxHoldsPerUser() { return maxHoldsPerUser; }
+    public void setMaxHoldsPerUser(int maxHoldsPerUser) { this.maxHoldsPerUser = maxHoldsPerUser; }
+    public int getWaitlistOfferMinutes() { return waitlistOfferMinutes; }
+    public void setWaitlistOfferMinutes(int waitlistOfferMinutes) { this.waitlistOfferMinutes = waitlistOfferMinutes; }
+}
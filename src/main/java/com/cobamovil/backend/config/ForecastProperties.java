@@ -0,0 +1,29 @@
+package com.cobamovil.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.forecast")
+public class ForecastProperties {
+    // Days of booking history the model is trained on, and days ahead it predicts
+    private int historyDays = 364;
+    private int horizonDays = 28;
+    // Geohash precision of the demand zones (5 ~ 5 km cells)
+    private int zonePrecision = 5;
+    // Zone/service series with fewer bookings than this are pooled per service type
+    private int minSeriesBookings = 20;
+    // Share of a groomer's workday spent on services (the rest is driving and breaks)
+    private double groomerUtilization = 0.7;
+
+    public int getHistoryDays() { return historyDays; }
+    public void setHistoryDays(int historyDays) { this.historyDays = historyDays; }
+    public int getHorizonDays() { return horizonDays; }
+    public void setHorizonDays(int horizonDays) { this.horizonDays = horizonDays; }
+    public int getZonePrecision() { return zonePrecision; }
+    public void setZonePrecision(int zonePrecision) { this.zonePrecision = zonePrecision; }
+    public int getMinSeriesBookings() { return minSeriesBookings; }
+    public void setMinSeriesBookings(int minSeriesBookings) { this.minSeriesBookings = minSeriesBookings; }
+    public double getGroomerUtilization() { return groomerUtilization; }
+    public void setGroomerUtilization(double groomerUtilization) { this.groomerUtilization = groomerUtilization; }
+}
@@ -116,6 +116,21 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
     }
 
+    // Dos cambios simultáneos sobre la misma ruta (versión de RoutePlan)
+    @ExceptionHandler(org.springframework.orm.ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, Object>> handleOptimisticLock(org.springframework.orm.ObjectOptimisticLockingFailureException ex, WebRequest request) {
+        logger.warn("Conflicto de concurrencia en {}: {}", request.getDescription(false), ex.getMessage());
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", LocalDateTime.now());
+        response.put("status", HttpStatus.CONFLICT.value());
+        response.put("error", "Conflicto de concurrencia");
+        response.put("message", "La ruta fue actualizada por otra operación. Recarga e inténtalo de nuevo.");
+        response.put("path", request.getDescription(false));
+
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+    }
+
     // Manejo de errores generales de runtime
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<Map<String, Object>> handleRuntimeException(RuntimeException ex, WebRequest request) {
@@ -0,0 +1,73 @@
+package com.cobamovil.backend.config;
+
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The one HTTP client for calls to external providers (Twilio, Resend, Google Maps, Gemini).
+ * Connections are pooled per host and kept alive between calls; responses are gzip-decoded by the
+ * client. Pool totals are published as httpcomponents.httpclient.pool.* tagged httpclient=outbound.
+ * The circuit breakers and bulkheads OutboundHttp puts around each integration live in the two
+ * registries here, exported as resilience4j.circuitbreaker.* and resilience4j.bulkhead.*.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager outboundConnectionManager(HttpClientProperties props, MeterRegistry registry) {
+        PoolingHttpClientConnectionManager pool = PoolingHttpClientConnectionManagerBuilder.create()
+                .setPoolConcurrencyPolicy(PoolConcurrencyPolicy.STRICT)
+                .setMaxConnTotal(props.getMaxTotal())
+                .setMaxConnPerRoute(props.getMaxPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(props.getConnectTimeoutMillis()))
+                        .setSocketTimeout(Timeout.ofMilliseconds(props.getReadTimeoutMillis()))
+                        .setValidateAfterInactivity(TimeValue.ofMilliseconds(props.getValidateAfterMillis()))
+                        .build())
+                .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(pool, "outbound").bindTo(registry);
+        return pool;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient outboundHttpClient(PoolingHttpClientConnectionManager outboundConnectionManager, HttpClientProperties props) {
+        return HttpClients.custom()
+                .setConnectionManager(outboundConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(props.getPoolWaitMillis()))
+                        .setResponseTimeout(Timeout.ofMilliseconds(props.getReadTimeoutMillis()))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(props.getIdleEvictSeconds()))
+                .build();
+    }
+
+    @Bean
+    public CircuitBreakerRegistry outboundCircuitBreakers(MeterRegistry registry) {
+        CircuitBreakerRegistry breakers = CircuitBreakerRegistry.ofDefaults();
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(breakers).bindTo(registry);
+        return breakers;
+    }
+
+    @Bean
+    public BulkheadRegistry outboundBulkheads(MeterRegistry registry) {
+        BulkheadRegistry bulkheads = BulkheadRegistry.ofDefaults();
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheads).bindTo(registry);
+        return bulkheads;
+    }
+}
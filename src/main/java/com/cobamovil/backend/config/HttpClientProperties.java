@@ -0,0 +1,66 @@
+package com.cobamovil.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.http")
+public class HttpClientProperties {
+    // Pooled connections in total and per host (route)
+    private int maxTotal = 50;
+    private int maxPerRoute = 10;
+    // Time to open a connection, to wait for a free pooled one, and for the response
+    private long connectTimeoutMillis = 3000;
+    private long poolWaitMillis = 2000;
+    private long readTimeoutMillis = 10_000;
+    // Gemini answers take longer than the other providers
+    private long aiReadTimeoutMillis = 60_000;
+    // Idle connections are closed after this long; a reused one idle longer than validateAfter is checked first
+    private long idleEvictSeconds = 30;
+    private long validateAfterMillis = 2000;
+    // Circuit breaker per integration, over the last windowSize calls: it opens for openSeconds when
+    // failureRatePercent of them failed (exception, 5xx or 429) or slowCallRatePercent took over half
+    // the read timeout, then lets halfOpenCalls through to decide whether to close
+    private int windowSize = 20;
+    private int minimumCalls = 10;
+    private float failureRatePercent = 50;
+    private float slowCallRatePercent = 80;
+    private int openSeconds = 30;
+    private int halfOpenCalls = 3;
+    // Calls in flight per integration; one more is rejected at once instead of holding a thread
+    private int maxConcurrentCalls = 10;
+    private int aiMaxConcurrentCalls = 4;
+
+    public int getMaxTotal() { return maxTotal; }
+    public void setMaxTotal(int maxTotal) { this.maxTotal = maxTotal; }
+    public int getMaxPerRoute() { return maxPerRoute; }
+    public void setMaxPerRoute(int maxPerRoute) { this.maxPerRoute = maxPerRoute; }
+    public long getConnectTimeoutMillis() { return connectTimeoutMillis; }
+    public void setConnectTimeoutMillis(long connectTimeoutMillis) { this.connectTimeoutMillis = connectTimeoutMillis; }
+    public long getPoolWaitMillis() { return poolWaitMillis; }
+    public void setPoolWaitMillis(long poolWaitMillis) { this.poolWaitMillis = poolWaitMillis; }
+    public long getReadTimeoutMillis() { return readTimeoutMillis; }
+    public void setReadTimeoutMillis(long readTimeoutMillis) { this.readTimeoutMillis = readTimeoutMillis; }
+    public long getAiReadTimeoutMillis() { return aiReadTimeoutMillis; }
+    public void setAiReadTimeoutMillis(long aiReadTimeoutMillis) { this.aiReadTimeoutMillis = aiReadTimeoutMillis; }
+    public long getIdleEvictSeconds() { return idleEvictSeconds; }
+    public void setIdleEvictSeconds(long idleEvictSeconds) { this.idleEvictSeconds = idleEvictSeconds; }
+    public long getValidateAfterMillis() { return validateAfterMillis; }
+    public void setValidateAfterMillis(long validateAfterMillis) { this.validateAfterMillis = validateAfterMillis; }
+    public int getWindowSize() { return windowSize; }
+    public void setWindowSize(int windowSize) { this.windowSize = windowSize; }
+    public int getMinimumCalls() { return minimumCalls; }
+    public void setMinimumCalls(int minimumCalls) { this.minimumCalls = minimumCalls; }
+    public float getFailureRatePercent() { return failureRatePercent; }
+    public void setFailureRatePercent(float failureRatePercent) { this.failureRatePercent = failureRatePercent; }
+    public float getSlowCallRatePercent() { return slowCallRatePercent; }
+    public void setSlowCallRatePercent(float slowCallRatePercent) { this.slowCallRatePercent = slowCallRatePercent; }
+    public int getOpenSeconds() { return openSeconds; }
+    public void setOpenSeconds(int openSeconds) { this.openSeconds = openSeconds; }
+    public int getHalfOpenCalls() { return halfOpenCalls; }
+    public void setHalfOpenCalls(int halfOpenCalls) { this.halfOpenCalls = halfOpenCalls; }
+    public int getMaxConcurrentCalls() { return maxConcurrentCalls; }
+    public void setMaxConcurrentCalls(int maxConcurrentCalls) { this.maxConcurrentCalls = maxConcurrentCalls; }
+    public int getAiMaxConcurrentCalls() { return aiMaxConcurrentCalls; }
+    public void setAiMaxConcurrentCalls(int aiMaxConcurrentCalls) { this.aiMaxConcurrentCalls = aiMaxConcurrentCalls; }
+}
@@ -0,0 +1,72 @@
+package com.cobamovil.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.notifications")
+public class NotificationProperties {
+    // Threads sending outbox messages, and messages claimed per poll (also the cap on messages in flight)
+    private int workers = 4;
+    private int batchSize = 50;
+    private long pollMillis = 1000;
+    // Attempts before a message is given up, with exponential backoff between them
+    private int maxAttempts = 8;
+    private int backoffSeconds = 30;
+    private int maxBackoffSeconds = 3600;
+    // A claimed message not settled within this time (instance died mid-send) is claimed again
+    private int leaseSeconds = 120;
+    // Days sent and failed messages are kept
+    private int retentionDays = 14;
+    // Messages to the same recipient and channel within this window go out as one digest
+    private int coalesceSeconds = 10;
+    // Token buckets per channel (Twilio WhatsApp sender and Resend API limits) and per recipient
+    private double whatsappPerSecond = 1;
+    private int whatsappBurst = 5;
+    private double emailPerSecond = 2;
+    private int emailBurst = 2;
+    private double recipientPerHour = 12;
+    private int recipientBurst = 3;
+    // Delivery log: records buffered in memory (more are dropped), and a flush every logFlushMillis
+    // or as soon as logBatchSize records are waiting
+    private int logQueueCapacity = 10000;
+    private int logBatchSize = 200;
+    private long logFlushMillis = 500;
+
+    public int getWorkers() { return workers; }
+    public void setWorkers(int workers) { this.workers = workers; }
+    public int getBatchSize() { return batchSize; }
+    public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+    public long getPollMillis() { return pollMillis; }
+    public void setPollMillis(long pollMillis) { this.pollMillis = pollMillis; }
+    public int getMaxAttempts() { return maxAttempts; }
+    public void setMaxAttempts(int maxAttempts) { this.maxAttempts = maxAttempts; }
+    public int getBackoffSeconds() { return backoffSeconds; }
+    public void setBackoffSeconds(int backoffSeconds) { this.backoffSeconds = backoffSeconds; }
+    public int getMaxBackoffSeconds() { return maxBackoffSeconds; }
+    public void setMaxBackoffSeconds(int maxBackoffSeconds) { this.maxBackoffSeconds = maxBackoffSeconds; }
+    public int getLeaseSeconds() { return leaseSeconds; }
+    public void setLeaseSeconds(int leaseSeconds) { this.leaseSeconds = leaseSeconds; }
+    public int getRetentionDays() { return retentionDays; }
+    public void setRetentionDays(int retentionDays) { this.retentionDays = retentionDays; }
+    public int getCoalesceSeconds() { return coalesceSeconds; }
+    public void setCoalesceSeconds(int coalesceSeconds) { this.coalesceSeconds = coalesceSeconds; }
+    public double getWhatsappPerSecond() { return whatsappPerSecond; }
+    public void setWhatsappPerSecond(double whatsappPerSecond) { this.whatsappPerSecond = whatsappPerSecond; }
+    public int getWhatsappBurst() { return whatsappBurst; }
+    public void setWhatsappBurst(int whatsappBurst) { this.whatsappBurst = whatsappBurst; }
+    public double getEmailPerSecond() { return emailPerSecond; }
+    public void setEmailPerSecond(double emailPerSecond) { this.emailPerSecond = emailPerSecond; }
+    public int getEmailBurst() { return emailBurst; }
+    public void setEmailBurst(int emailBurst) { this.emailBurst = emailBurst; }
+    public double getRecipientPerHour() { return recipientPerHour; }
+    public void setRecipientPerHour(double recipientPerHour) { this.recipientPerHour = recipientPerHour; }
+    public int getRecipientBurst() { return recipientBurst; }
+    public void setRecipientBurst(int recipientBurst) { this.recipientBurst = recipientBurst; }
+    public int getLogQueueCapacity() { return logQueueCapacity; }
+    public void setLogQueueCapacity(int logQueueCapacity) { this.logQueueCapacity = logQueueCapacity; }
+    public int getLogBatchSize() { return logBatchSize; }
+    public void setLogBatchSize(int logBatchSize) { this.logBatchSize = logBatchSize; }
+    public long getLogFlushMillis() { return logFlushMillis; }
+    public void setLogFlushMillis(long logFlushMillis) { this.logFlushMillis = logFlushMillis; }
+}
@@ -0,0 +1,57 @@
+package com.cobamovil.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.routing")
+public class RoutingProperties {
+    // Wall-clock budget for the 2-opt / Or-opt improvement phase of a single route
+    private long timeBudgetMs = 200;
+    // Longest chain of consecutive stops that Or-opt tries to relocate
+    private int maxOrOptSegment = 3;
+    // Time window around each booking's requested time: the groomer may start this early / this late
+    private int windowEarlyMinutes = 15;
+    private int windowLateMinutes = 15;
+    // Average urban driving speed used when no road travel time is available
+    private double averageSpeedKmh = 30.0;
+    // Travel-time cache: geohash precision (7 ~ 150 m), time-of-day bucket, in-memory size and TTL of both tiers
+    private int cacheGeohashPrecision = 7;
+    private int cacheBucketMinutes = 60;
+    private int cacheMaxEntries = 20_000;
+    private int cacheTtlDays = 30;
+    // Live ETAs: GPS pings kept per groomer and the ETA shift (minutes) that triggers a customer update
+    private int livePingBufferSize = 120;
+    private int etaShiftThresholdMinutes = 5;
+    // Route re-plans waiting for the background re-planner; more are dropped until it catches up
+    private int replanQueueCapacity = 1000;
+    // Local OpenStreetMap extract (.osm.pbf) for offline road travel times; empty disables the engine
+    private String osmPbfPath;
+
+    public long getTimeBudgetMs() { return timeBudgetMs; }
+    public void setTimeBudgetMs(long timeBudgetMs) { this.timeBudgetMs = timeBudgetMs; }
+    public int getMaxOrOptSegment() { return maxOrOptSegment; }
+    public void setMaxOrOptSegment(int maxOrOptSegment) { this.maxOrOptSegment = maxOrOptSegment; }
+    public int getWindowEarlyMinutes() { return windowEarlyMinutes; }
+    public void setWindowEarlyMinutes(int windowEarlyMinutes) { this.windowEarlyMinutes = windowEarlyMinutes; }
+    public int getWindowLateMinutes() { return windowLateMinutes; }
+    public void setWindowLateMinutes(int windowLateMinutes) { this.windowLateMinutes = windowLateMinutes; }
+    public double getAverageSpeedKmh() { return averageSpeedKmh; }
+    public void setAverageSpeedKmh(double averageSpeedKmh) { this.averageSpeedKmh = averageSpeedKmh; }
+    public int getCacheGeohashPrecision() { return cacheGeohashPrecision; }
+    public void setCacheGeohashPrecision(int cacheGeohashPrecision) { this.cacheGeohashPrecision = cacheGeohashPrecision; }
+    public int getCacheBucketMinutes() { return cacheBucketMinutes; }
+    public void setCacheBucketMinutes(int cacheBucketMinutes) { this.cacheBucketMinutes = cacheBucketMinutes; }
+    public int getCacheMaxEntries() { return cacheMaxEntries; }
+    public void setCacheMaxEntries(int cacheMaxEntries) { this.cacheMaxEntries = cacheMaxEntries; }
+    public int getCacheTtlDays() { return cacheTtlDays; }
+    public void setCacheTtlDays(int cacheTtlDays) { this.cacheTtlDays = cacheTtlDays; }
+    public int getLivePingBufferSize() { return livePingBufferSize; }
+    public void setLivePingBufferSize(int livePingBufferSize) { this.livePingBufferSize = livePingBufferSize; }
+    public int getEtaShiftThresholdMinutes() { return etaShiftThresholdMinutes; }
+    public void setEtaShiftThresholdMinutes(int etaShiftThresholdMinutes) { this.etaShiftThresholdMinutes = etaShiftThresholdMinutes; }
+    public int getReplanQueueCapacity() { return replanQueueCapacity; }
+    public void setReplanQueueCapacity(int replanQueueCapacity) { this.replanQueueCapacity = replanQueueCapacity; }
+    public String getOsmPbfPath() { return osmPbfPath; }
+    public void setOsmPbfPath(String osmPbfPath) { this.osmPbfPath = osmPbfPath; }
+}
@@ -0,0 +1,26 @@
+package com.cobamovil.backend.config;
+
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Refuses to start without the bookings_groomer_no_overlap exclusion constraint. Slot locks only
+ * cover this instance; series inserts, batch status changes and other instances depend on the
+ * constraint alone to keep a groomer's bookings from overlapping.
+ */
+@Configuration
+public class SlotConstraintCheck {
+    @Bean
+    CommandLineRunner requireSlotConstraint(JdbcTemplate jdbc) {
+        return args -> {
+            Integer found = jdbc.queryForObject(
+                    "SELECT count(*) FROM pg_constraint WHERE conname = 'bookings_groomer_no_overlap'", Integer.class);
+            if (found == null || found == 0) {
+                throw new IllegalStateException("Constraint bookings_groomer_no_overlap is missing on bookings; "
+                        + "run the Flyway migrations (V24) before starting");
+            }
+        };
+    }
+}
@@ -2,16 +2,24 @@ package com.cobamovil.backend.controller;
 
 import com.cobamovil.backend.dto.BookingCreateDTO;
 import com.cobamovil.backend.dto.BookingResponseDTO;
+import com.cobamovil.backend.dto.BookingStatusBatchDTO;
 import com.cobamovil.backend.dto.AvailabilityResponseDTO;
+import com.cobamovil.backend.dto.FreeSlotsDTO;
+import com.cobamovil.backend.dto.SlotHoldDTO;
 import com.cobamovil.backend.entity.BookingStatus;
 import com.cobamovil.backend.entity.ServiceType;
 import com.cobamovil.backend.service.BookingService;
+import com.cobamovil.backend.service.FleetPlanningService;
+import com.cobamovil.backend.service.LiveEtaService;
+import com.cobamovil.backend.service.SlotSearchService;
 import jakarta.validation.Valid;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -22,9 +30,16 @@ import java.util.List;
 public class BookingController {
 
     private final BookingService bookingService;
+    private final FleetPlanningService fleetPlanningService;
+    private final LiveEtaService liveEtaService;
+    private final SlotSearchService slotSearchService;
 
-    public BookingController(BookingService bookingService) {
+    public BookingController(BookingService bookingService, FleetPlanningService fleetPlanningService,
+                             LiveEtaService liveEtaService, SlotSearchService slotSearchService) {
         this.bookingService = bookingService;
+        this.fleetPlanningService = fleetPlanningService;
+        this.liveEtaService = liveEtaService;
+        this.slotSearchService = slotSearchService;
     }
 
     @PostMapping
@@ -49,15 +64,21 @@ public class BookingController {
     @PreAuthorize("hasAuthority('ADMIN') or hasRole('ADMIN') or hasAuthority('GROOMER') or hasRole('GROOMER')")
     public ResponseEntity<com.cobamovil.backend.dto.RoutePlanDTO> optimizedRoute(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
                                                                                  @RequestParam(required = false) Long groomerId) {
-        var ids = groomerId == null ? bookingService.optimizedIdsForDay(date) : bookingService.optimizedIdsForDayAndGroomer(date, groomerId);
-        var etas = bookingService.etasForOrderedIds(ids);
-        return ResponseEntity.ok(new com.cobamovil.backend.dto.RoutePlanDTO(date.toString(), ids, etas));
+        return ResponseEntity.ok(bookingService.routeForDay(date, groomerId));
+    }
+
+    // Time-window aware order for a groomer's day (or the whole day when groomerId is omitted)
+    @GetMapping("/admin/schedule")
+    @PreAuthorize("hasAuthority('ADMIN') or hasRole('ADMIN') or hasAuthority('GROOMER') or hasRole('GROOMER')")
+    public ResponseEntity<com.cobamovil.backend.dto.RouteScheduleDTO> schedule(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+                                                                               @RequestParam(required = false) Long groomerId) {
+        return ResponseEntity.ok(bookingService.scheduleForDay(date, groomerId));
     }
 
     @PutMapping("/admin/route")
     @PreAuthorize("hasAuthority('ADMIN') or hasRole('ADMIN') or hasAuthority('GROOMER') or hasRole('GROOMER')")
     public ResponseEntity<Void> saveRoute(@RequestBody com.cobamovil.backend.dto.RoutePlanDTO dto) {
-        bookingService.saveRoutePlan(LocalDate.parse(dto.getDate()), dto.getBookingIdsInOrder());
+        bookingService.saveRoutePlan(LocalDate.parse(dto.getDate()), dto.getGroomerId(), dto.getBookingIdsInOrder());
         return ResponseEntity.noContent().build();
     }
 
@@ -66,10 +87,16 @@ public class BookingController {
     @PreAuthorize("hasAuthority('ADMIN') or hasRole('ADMIN') or hasAuthority('GROOMER') or hasRole('GROOMER')")
     public ResponseEntity<com.cobamovil.backend.dto.RoutePlanDTO> startRoute(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
                                                                              @RequestParam(required = false) Long groomerId) {
-        var ids = groomerId == null ? bookingService.optimizedIdsForDay(date) : bookingService.optimizedIdsForDayAndGroomer(date, groomerId);
-        bookingService.saveRoutePlan(date, ids);
-        var etas = bookingService.etasForOrderedIds(ids);
-        return ResponseEntity.ok(new com.cobamovil.backend.dto.RoutePlanDTO(date.toString(), ids, etas));
+        var plan = bookingService.routeForDay(date, groomerId);
+        bookingService.saveRoutePlan(date, groomerId, plan.getBookingIdsInOrder());
+        return ResponseEntity.ok(plan);
+    }
+
+    // Assign all approved bookings of the day across groomers and persist one route per groomer
+    @PostMapping("/route/fleet")
+    @PreAuthorize("hasAuthority('ADMIN') or hasRole('ADMIN')")
+    public ResponseEntity<com.cobamovil.backend.dto.FleetPlanDTO> planFleet(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return ResponseEntity.ok(fleetPlanningService.planDay(date));
     }
 
     @PutMapping("/{id}/status")
@@ -78,6 +105,13 @@ public class BookingController {
         return ResponseEntity.ok(bookingService.updateStatus(id, status));
     }
 
+    // Several status changes at once, e.g. a groomer closing out the day; all or nothing
+    @PutMapping("/status")
+    @PreAuthorize("hasAuthority('ADMIN') or hasRole('ADMIN') or hasAuthority('GROOMER') or hasRole('GROOMER')")
+    public ResponseEntity<List<BookingResponseDTO>> updateStatuses(@Valid @RequestBody BookingStatusBatchDTO dto) {
+        return ResponseEntity.ok(bookingService.updateStatuses(dto.getChanges()));
+    }
+
     @PutMapping("/{id}/reschedule")
     public ResponseEntity<BookingResponseDTO> reschedule(Authentication auth,
                                                          @PathVariable Long id,
@@ -93,12 +127,48 @@ public class BookingController {
         return ResponseEntity.noContent().build();
     }
 
+    // Live arrival estimates for the customer's booking as server-sent "eta" events
+    @GetMapping(value = "/{id}/eta/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter etaStream(Authentication auth, @PathVariable Long id) {
+        return liveEtaService.subscribe(id, auth.getName());
+    }
+
+    // Keeps a slot for a few minutes during checkout; pass the token as holdToken on create
+    @PostMapping("/holds")
+    public ResponseEntity<SlotHoldDTO> hold(Authentication auth, @Valid @RequestBody SlotHoldDTO dto) {
+        return ResponseEntity.ok(bookingService.holdSlot(dto, auth.getName()));
+    }
+
+    @DeleteMapping("/holds/{token}")
+    public ResponseEntity<Void> releaseHold(Authentication auth, @PathVariable String token) {
+        bookingService.releaseHold(token, auth.getName());
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping("/availability")
     public ResponseEntity<AvailabilityResponseDTO> checkAvailability(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime time,
-            @RequestParam ServiceType serviceType
+            @RequestParam ServiceType serviceType,
+            @RequestParam(required = false) Double latitude,
+            @RequestParam(required = false) Double longitude
+    ) {
+        return ResponseEntity.ok(bookingService.checkAvailability(date, time, serviceType, latitude, longitude));
+    }
+
+    // Every free start time per groomer in [from, to], in one call instead of probing /availability
+    @GetMapping("/availability/slots")
+    public ResponseEntity<List<FreeSlotsDTO>> freeSlots(
+            Authentication auth,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam ServiceType serviceType,
+            @RequestParam(required = false) Long groomerId,
+            @RequestParam(required = false) Integer stepMinutes,
+            @RequestParam(required = false) Double latitude,
+            @RequestParam(required = false) Double longitude
     ) {
-        return ResponseEntity.ok(bookingService.checkAvailability(date, time, serviceType));
+        String holder = auth != null ? auth.getName() : null;
+        return ResponseEntity.ok(slotSearchService.search(from, to, serviceType, groomerId, stepMinutes, holder, latitude, longitude));
     }
 }
@@ -0,0 +1,37 @@
+package com.cobamovil.backend.controller;
+
+import com.cobamovil.backend.dto.BookingSeriesDTO;
+import com.cobamovil.backend.service.BookingSeriesService;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/bookings/series")
+public class BookingSeriesController {
+
+    private final BookingSeriesService seriesService;
+
+    public BookingSeriesController(BookingSeriesService seriesService) {
+        this.seriesService = seriesService;
+    }
+
+    @PostMapping
+    public ResponseEntity<BookingSeriesDTO> create(Authentication auth, @Valid @RequestBody BookingSeriesDTO dto) {
+        return ResponseEntity.ok(seriesService.create(auth.getName(), dto));
+    }
+
+    @GetMapping("/me")
+    public ResponseEntity<List<BookingSeriesDTO>> mine(Authentication auth) {
+        return ResponseEntity.ok(seriesService.mine(auth.getName()));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> cancel(Authentication auth, @PathVariable Long id) {
+        seriesService.cancel(id, auth.getName());
+        return ResponseEntity.noContent().build();
+    }
+}
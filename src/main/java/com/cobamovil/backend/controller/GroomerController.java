@@ -1,12 +1,16 @@
 package com.cobamovil.backend.controller;
 
 import com.cobamovil.backend.dto.GroomerCreateDTO;
+import com.cobamovil.backend.dto.EtaUpdateDTO;
 import com.cobamovil.backend.dto.GroomerProfileDTO;
+import com.cobamovil.backend.dto.LocationPingDTO;
 import com.cobamovil.backend.entity.CutRecord;
 import com.cobamovil.backend.service.GroomerService;
+import com.cobamovil.backend.service.LiveEtaService;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -15,7 +19,11 @@ import java.util.List;
 @RequestMapping("/api/groomers")
 public class GroomerController {
     private final GroomerService groomerService;
-    public GroomerController(GroomerService groomerService) { this.groomerService = groomerService; }
+    private final LiveEtaService liveEtaService;
+    public GroomerController(GroomerService groomerService, LiveEtaService liveEtaService) {
+        this.groomerService = groomerService;
+        this.liveEtaService = liveEtaService;
+    }
 
     // Public list of groomers (for selection when booking)
     @GetMapping
@@ -27,6 +35,13 @@ public class GroomerController {
     @GetMapping("/{userId}/history")
     public ResponseEntity<List<CutRecord>> history(@PathVariable Long userId) { return ResponseEntity.ok(groomerService.getHistory(userId)); }
 
+    // GPS ping from the groomer's device; answers with the updated ETAs for the rest of today's route
+    @PostMapping("/me/location")
+    @PreAuthorize("hasAuthority('GROOMER') or hasRole('GROOMER')")
+    public ResponseEntity<List<EtaUpdateDTO>> location(@Valid @RequestBody LocationPingDTO dto, Authentication auth) {
+        return ResponseEntity.ok(liveEtaService.recordPing(auth.getName(), dto));
+    }
+
     // Admin creates/upserts profiles and users with role GROOMER
     @PostMapping("/admin")
     @PreAuthorize("hasAuthority('ADMIN') or hasRole('ADMIN')")
@@ -1,13 +1,17 @@
 package com.cobamovil.backend.controller;
 
+import com.cobamovil.backend.dto.DemandForecastDTO;
 import com.cobamovil.backend.entity.BookingStatus;
 import com.cobamovil.backend.entity.ServiceType;
 import com.cobamovil.backend.repository.BookingRepository;
+import com.cobamovil.backend.service.DemandForecastService;
+import com.cobamovil.backend.service.ServiceCatalog;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.*;
 
@@ -16,9 +20,14 @@ import java.util.*;
 @PreAuthorize("hasAuthority('ADMIN') or hasRole('ADMIN')")
 public class ReportController {
     private final BookingRepository bookingRepository;
+    private final ServiceCatalog serviceCatalog;
+    private final DemandForecastService forecastService;
 
-    public ReportController(BookingRepository bookingRepository) {
+    public ReportController(BookingRepository bookingRepository, ServiceCatalog serviceCatalog,
+                            DemandForecastService forecastService) {
         this.bookingRepository = bookingRepository;
+        this.serviceCatalog = serviceCatalog;
+        this.forecastService = forecastService;
     }
 
     @GetMapping("/services-summary")
@@ -27,22 +36,40 @@ public class ReportController {
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
         Map<String, Object> out = new LinkedHashMap<>();
         Map<String, Long> perService = new LinkedHashMap<>();
-        for (ServiceType st : ServiceType.values()) perService.put(st.name(), 0L);
+        Map<String, Long> minutesPerService = new LinkedHashMap<>();
+        for (ServiceType st : ServiceType.values()) {
+            perService.put(st.name(), 0L);
+            minutesPerService.put(st.name(), 0L);
+        }
         long totalCompleted = 0L;
-        LocalDate day = from;
-        while (!day.isAfter(to)) {
-            var list = bookingRepository.findByDate(day);
-            for (var b : list) {
-                if (b.getStatus() == BookingStatus.COMPLETED) {
-                    totalCompleted++;
-                    perService.compute(b.getServiceType().name(), (k, v) -> v + 1);
-                }
-            }
-            day = day.plusDays(1);
+        BigDecimal revenue = BigDecimal.ZERO;
+        for (var b : bookingRepository.findByDateBetweenAndStatusIn(from, to, EnumSet.of(BookingStatus.COMPLETED))) {
+            totalCompleted++;
+            perService.compute(b.getServiceType().name(), (k, v) -> v + 1);
+            minutesPerService.compute(b.getServiceType().name(), (k, v) -> v + b.getDurationMinutes());
+            revenue = revenue.add(serviceCatalog.price(b.getServiceType()));
         }
         out.put("totalCompleted", totalCompleted);
         out.put("byServiceType", perService);
+        out.put("minutesByServiceType", minutesPerService);
+        // At current catalog prices
+        out.put("estimatedRevenue", revenue);
         return ResponseEntity.ok(out);
     }
-}
 
+    // Predicted demand and recommended groomers per day; defaults to the next two weeks
+    @GetMapping("/forecast")
+    public ResponseEntity<List<DemandForecastDTO>> forecast(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate start = from != null ? from : LocalDate.now();
+        return ResponseEntity.ok(forecastService.forecast(start, to != null ? to : start.plusDays(13)));
+    }
+
+    // Retrains now instead of waiting for the nightly job
+    @PostMapping("/forecast/train")
+    public ResponseEntity<Void> trainForecast() {
+        forecastService.train();
+        return ResponseEntity.noContent().build();
+    }
+}
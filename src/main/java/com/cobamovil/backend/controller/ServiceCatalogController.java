@@ -0,0 +1,32 @@
+package com.cobamovil.backend.controller;
+
+import com.cobamovil.backend.dto.ServiceCatalogDTO;
+import com.cobamovil.backend.entity.ServiceType;
+import com.cobamovil.backend.service.ServiceCatalog;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/services")
+public class ServiceCatalogController {
+    private final ServiceCatalog serviceCatalog;
+
+    public ServiceCatalogController(ServiceCatalog serviceCatalog) {
+        this.serviceCatalog = serviceCatalog;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<ServiceCatalogDTO>> list() {
+        return ResponseEntity.ok(serviceCatalog.list());
+    }
+
+    @PutMapping("/{serviceType}")
+    @PreAuthorize("hasAuthority('ADMIN') or hasRole('ADMIN')")
+    public ResponseEntity<ServiceCatalogDTO> update(@PathVariable ServiceType serviceType, @Valid @RequestBody ServiceCatalogDTO dto) {
+        return ResponseEntity.ok(serviceCatalog.update(serviceType, dto));
+    }
+}
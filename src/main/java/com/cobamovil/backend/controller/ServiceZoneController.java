@@ -0,0 +1,42 @@
+package com.cobamovil.backend.controller;
+
+import com.cobamovil.backend.dto.ServiceZoneDTO;
+import com.cobamovil.backend.service.ServiceZones;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/zones")
+@PreAuthorize("hasAuthority('ADMIN') or hasRole('ADMIN')")
+public class ServiceZoneController {
+    private final ServiceZones serviceZones;
+
+    public ServiceZoneController(ServiceZones serviceZones) {
+        this.serviceZones = serviceZones;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<ServiceZoneDTO>> list() {
+        return ResponseEntity.ok(serviceZones.list());
+    }
+
+    @PostMapping
+    public ResponseEntity<ServiceZoneDTO> create(@Valid @RequestBody ServiceZoneDTO dto) {
+        return ResponseEntity.ok(serviceZones.create(dto));
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<ServiceZoneDTO> update(@PathVariable Long id, @Valid @RequestBody ServiceZoneDTO dto) {
+        return ResponseEntity.ok(serviceZones.update(id, dto));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> delete(@PathVariable Long id) {
+        serviceZones.delete(id);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,37 @@
+package com.cobamovil.backend.controller;
+
+import com.cobamovil.backend.dto.WaitlistEntryDTO;
+import com.cobamovil.backend.service.WaitlistService;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/waitlist")
+public class WaitlistController {
+
+    private final WaitlistService waitlistService;
+
+    public WaitlistController(WaitlistService waitlistService) {
+        this.waitlistService = waitlistService;
+    }
+
+    @PostMapping
+    public ResponseEntity<WaitlistEntryDTO> register(Authentication auth, @Valid @RequestBody WaitlistEntryDTO dto) {
+        return ResponseEntity.ok(waitlistService.register(auth.getName(), dto));
+    }
+
+    @GetMapping("/me")
+    public ResponseEntity<List<WaitlistEntryDTO>> mine(Authentication auth) {
+        return ResponseEntity.ok(waitlistService.mine(auth.getName()));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> cancel(Authentication auth, @PathVariable Long id) {
+        waitlistService.cancel(id, auth.getName());
+        return ResponseEntity.noContent().build();
+    }
+}
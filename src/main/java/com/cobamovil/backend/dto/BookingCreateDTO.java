@@ -23,6 +23,7 @@ public class BookingCreateDTO {
     private Double latitude;
     private Double longitude;
     private String notes;
+    private String holdToken; // optional, from POST /api/bookings/holds
 
     public Long getPetId() { return petId; }
     public void setPetId(Long petId) { this.petId = petId; }
@@ -42,4 +43,6 @@ public class BookingCreateDTO {
     public void setNotes(String notes) { this.notes = notes; }
     public Long getGroomerId() { return groomerId; }
     public void setGroomerId(Long groomerId) { this.groomerId = groomerId; }
+    public String getHoldToken() { return holdToken; }
+    public void setHoldToken(String holdToken) { this.holdToken = holdToken; }
 }
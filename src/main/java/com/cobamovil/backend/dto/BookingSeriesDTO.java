@@ -0,0 +1,77 @@
+package com.cobamovil.backend.dto;
+
+import com.cobamovil.backend.entity.ServiceType;
+import jakarta.validation.constraints.FutureOrPresent;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+public class BookingSeriesDTO {
+    private Long id;
+    @NotNull
+    private Long petId;
+    @NotNull
+    private ServiceType serviceType;
+    private Long groomerId; // optional preferred groomer
+    @NotBlank
+    private String rule;    // e.g. FREQ=WEEKLY;INTERVAL=3
+    @NotNull @FutureOrPresent
+    private LocalDate startDate;
+    @NotNull
+    private LocalTime time;
+    private String address;
+    private Double latitude;
+    private Double longitude;
+    private String notes;
+    private boolean active;                 // read-only
+    private LocalDate materializedThrough;  // read-only
+    private List<LocalDate> bookedDates;    // read-only: upcoming occurrences that hold a booking
+    private List<Conflict> conflicts;       // read-only: upcoming occurrences that could not be booked
+
+    public static class Conflict {
+        private LocalDate date;
+        private String reason;
+
+        public Conflict() {}
+        public Conflict(LocalDate date, String reason) { this.date = date; this.reason = reason; }
+
+        public LocalDate getDate() { return date; }
+        public void setDate(LocalDate date) { this.date = date; }
+        public String getReason() { return reason; }
+        public void setReason(String reason) { this.reason = reason; }
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getPetId() { return petId; }
+    public void setPetId(Long petId) { this.petId = petId; }
+    public ServiceType getServiceType() { return serviceType; }
+    public void setServiceType(ServiceType serviceType) { this.serviceType = serviceType; }
+    public Long getGroomerId() { return groomerId; }
+    public void setGroomerId(Long groomerId) { this.groomerId = groomerId; }
+    public String getRule() { return rule; }
+    public void setRule(String rule) { this.rule = rule; }
+    public LocalDate getStartDate() { return startDate; }
+    public void setStartDate(LocalDate startDate) { this.startDate = startDate; }
+    public LocalTime getTime() { return time; }
+    public void setTime(LocalTime time) { this.time = time; }
+    public String getAddress() { return address; }
+    public void setAddress(String address) { this.address = address; }
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
+    public String getNotes() { return notes; }
+    public void setNotes(String notes) { this.notes = notes; }
+    public boolean isActive() { return active; }
+    public void setActive(boolean active) { this.active = active; }
+    public LocalDate getMaterializedThrough() { return materializedThrough; }
+    public void setMaterializedThrough(LocalDate materializedThrough) { this.materializedThrough = materializedThrough; }
+    public List<LocalDate> getBookedDates() { return bookedDates; }
+    public void setBookedDates(List<LocalDate> bookedDates) { this.bookedDates = bookedDates; }
+    public List<Conflict> getConflicts() { return conflicts; }
+    public void setConflicts(List<Conflict> conflicts) { this.conflicts = conflicts; }
+}
@@ -0,0 +1,28 @@
+package com.cobamovil.backend.dto;
+
+import com.cobamovil.backend.entity.BookingStatus;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+public class BookingStatusBatchDTO {
+    @NotEmpty @Valid
+    private List<Change> changes;
+
+    public static class Change {
+        @NotNull
+        private Long id;
+        @NotNull
+        private BookingStatus status;
+
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+        public BookingStatus getStatus() { return status; }
+        public void setStatus(BookingStatus status) { this.status = status; }
+    }
+
+    public List<Change> getChanges() { return changes; }
+    public void setChanges(List<Change> changes) { this.changes = changes; }
+}
@@ -0,0 +1,53 @@
+package com.cobamovil.backend.dto;
+
+import com.cobamovil.backend.entity.ServiceType;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+
+public class DemandForecastDTO {
+    private LocalDate date;
+    private DayOfWeek dayOfWeek;
+    private double predictedBookings;
+    private double predictedMinutes;
+    private int recommendedGroomers;
+    private List<Zone> zones;
+
+    public static class Zone {
+        private String zone; // geohash cell, or "*" for pooled sparse zones
+        private ServiceType serviceType;
+        private double bookings;
+        private double minutes;
+
+        public Zone() {}
+        public Zone(String zone, ServiceType serviceType, double bookings, double minutes) {
+            this.zone = zone;
+            this.serviceType = serviceType;
+            this.bookings = bookings;
+            this.minutes = minutes;
+        }
+
+        public String getZone() { return zone; }
+        public void setZone(String zone) { this.zone = zone; }
+        public ServiceType getServiceType() { return serviceType; }
+        public void setServiceType(ServiceType serviceType) { this.serviceType = serviceType; }
+        public double getBookings() { return bookings; }
+        public void setBookings(double bookings) { this.bookings = bookings; }
+        public double getMinutes() { return minutes; }
+        public void setMinutes(double minutes) { this.minutes = minutes; }
+    }
+
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
+    public DayOfWeek getDayOfWeek() { return dayOfWeek; }
+    public void setDayOfWeek(DayOfWeek dayOfWeek) { this.dayOfWeek = dayOfWeek; }
+    public double getPredictedBookings() { return predictedBookings; }
+    public void setPredictedBookings(double predictedBookings) { this.predictedBookings = predictedBookings; }
+    public double getPredictedMinutes() { return predictedMinutes; }
+    public void setPredictedMinutes(double predictedMinutes) { this.predictedMinutes = predictedMinutes; }
+    public int getRecommendedGroomers() { return recommendedGroomers; }
+    public void setRecommendedGroomers(int recommendedGroomers) { this.recommendedGroomers = recommendedGroomers; }
+    public List<Zone> getZones() { return zones; }
+    public void setZones(List<Zone> zones) { this.zones = zones; }
+}
@@ -0,0 +1,23 @@
+package com.cobamovil.backend.dto;
+
+import java.time.LocalTime;
+
+public class EtaUpdateDTO {
+    private Long bookingId;
+    private LocalTime estimatedArrival;
+    private Integer minutesAway;
+
+    public EtaUpdateDTO() {}
+    public EtaUpdateDTO(Long bookingId, LocalTime estimatedArrival, Integer minutesAway) {
+        this.bookingId = bookingId;
+        this.estimatedArrival = estimatedArrival;
+        this.minutesAway = minutesAway;
+    }
+
+    public Long getBookingId() { return bookingId; }
+    public void setBookingId(Long bookingId) { this.bookingId = bookingId; }
+    public LocalTime getEstimatedArrival() { return estimatedArrival; }
+    public void setEstimatedArrival(LocalTime estimatedArrival) { this.estimatedArrival = estimatedArrival; }
+    public Integer getMinutesAway() { return minutesAway; }
+    public void setMinutesAway(Integer minutesAway) { this.minutesAway = minutesAway; }
+}
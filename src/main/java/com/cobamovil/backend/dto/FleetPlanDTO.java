@@ -0,0 +1,18 @@
+package com.cobamovil.backend.dto;
+
+import java.util.List;
+
+public class FleetPlanDTO {
+    private String date; // ISO yyyy-MM-dd
+    private List<RouteScheduleDTO> routes; // one per groomer
+    private List<Long> infeasibleBookingIds; // no groomer can reach them inside their time window
+
+    public FleetPlanDTO() {}
+
+    public String getDate() { return date; }
+    public void setDate(String date) { this.date = date; }
+    public List<RouteScheduleDTO> getRoutes() { return routes; }
+    public void setRoutes(List<RouteScheduleDTO> routes) { this.routes = routes; }
+    public List<Long> getInfeasibleBookingIds() { return infeasibleBookingIds; }
+    public void setInfeasibleBookingIds(List<Long> infeasibleBookingIds) { this.infeasibleBookingIds = infeasibleBookingIds; }
+}
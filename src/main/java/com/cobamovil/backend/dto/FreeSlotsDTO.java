@@ -0,0 +1,25 @@
+package com.cobamovil.backend.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+public class FreeSlotsDTO {
+    private LocalDate date;
+    private Long groomerId;
+    private List<LocalTime> startTimes; // every start time at which the service fits without overlap
+
+    public FreeSlotsDTO() {}
+    public FreeSlotsDTO(LocalDate date, Long groomerId, List<LocalTime> startTimes) {
+        this.date = date;
+        this.groomerId = groomerId;
+        this.startTimes = startTimes;
+    }
+
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
+    public Long getGroomerId() { return groomerId; }
+    public void setGroomerId(Long groomerId) { this.groomerId = groomerId; }
+    public List<LocalTime> getStartTimes() { return startTimes; }
+    public void setStartTimes(List<LocalTime> startTimes) { this.startTimes = startTimes; }
+}
@@ -0,0 +1,18 @@
+package com.cobamovil.backend.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+public class LocationPingDTO {
+    @NotNull
+    private Double latitude;
+    @NotNull
+    private Double longitude;
+    private Long timestamp; // optional: device epoch millis; server time when omitted
+
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
+    public Long getTimestamp() { return timestamp; }
+    public void setTimestamp(Long timestamp) { this.timestamp = timestamp; }
+}
@@ -4,6 +4,7 @@ import java.util.List;
 
 public class RoutePlanDTO {
     private String date; // ISO yyyy-MM-dd
+    private Long groomerId; // optional: plan for a single groomer instead of the whole day
     private List<Long> bookingIdsInOrder;
     private List<Integer> etasMinutes; // optional: cumulative ETA per stop in minutes
 
@@ -13,6 +14,8 @@ public class RoutePlanDTO {
 
     public String getDate() { return date; }
     public void setDate(String date) { this.date = date; }
+    public Long getGroomerId() { return groomerId; }
+    public void setGroomerId(Long groomerId) { this.groomerId = groomerId; }
     public List<Long> getBookingIdsInOrder() { return bookingIdsInOrder; }
     public void setBookingIdsInOrder(List<Long> bookingIdsInOrder) { this.bookingIdsInOrder = bookingIdsInOrder; }
     public List<Integer> getEtasMinutes() { return etasMinutes; }
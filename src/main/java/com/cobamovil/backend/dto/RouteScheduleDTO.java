@@ -0,0 +1,28 @@
+package com.cobamovil.backend.dto;
+
+import java.time.LocalTime;
+import java.util.List;
+
+public class RouteScheduleDTO {
+    private String date; // ISO yyyy-MM-dd
+    private Long groomerId; // null when the whole day was scheduled as a single route
+    private List<Long> bookingIdsInOrder;
+    private List<LocalTime> plannedStartTimes; // service start per stop, same order as bookingIdsInOrder
+    private List<Long> infeasibleBookingIds; // cannot be reached inside their time window
+    private int driveMinutes;
+
+    public RouteScheduleDTO() {}
+
+    public String getDate() { return date; }
+    public void setDate(String date) { this.date = date; }
+    public Long getGroomerId() { return groomerId; }
+    public void setGroomerId(Long groomerId) { this.groomerId = groomerId; }
+    public List<Long> getBookingIdsInOrder() { return bookingIdsInOrder; }
+    public void setBookingIdsInOrder(List<Long> bookingIdsInOrder) { this.bookingIdsInOrder = bookingIdsInOrder; }
+    public List<LocalTime> getPlannedStartTimes() { return plannedStartTimes; }
+    public void setPlannedStartTimes(List<LocalTime> plannedStartTimes) { this.plannedStartTimes = plannedStartTimes; }
+    public List<Long> getInfeasibleBookingIds() { return infeasibleBookingIds; }
+    public void setInfeasibleBookingIds(List<Long> infeasibleBookingIds) { this.infeasibleBookingIds = infeasibleBookingIds; }
+    public int getDriveMinutes() { return driveMinutes; }
+    public void setDriveMinutes(int driveMinutes) { this.driveMinutes = driveMinutes; }
+}
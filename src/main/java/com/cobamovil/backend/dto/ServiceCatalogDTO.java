@@ -0,0 +1,49 @@
+package com.cobamovil.backend.dto;
+
+import com.cobamovil.backend.entity.ServiceType;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public class ServiceCatalogDTO {
+    private ServiceType serviceType; // read-only: taken from the path on update
+    @Min(1)
+    private int durationMinutes;
+    @Min(0)
+    private int bufferMinutes;
+    @DecimalMin("0")
+    private BigDecimal price;
+    @Valid
+    private List<Modifier> modifiers; // null on update keeps the current modifiers
+
+    public ServiceType getServiceType() { return serviceType; }
+    public void setServiceType(ServiceType serviceType) { this.serviceType = serviceType; }
+    public int getDurationMinutes() { return durationMinutes; }
+    public void setDurationMinutes(int durationMinutes) { this.durationMinutes = durationMinutes; }
+    public int getBufferMinutes() { return bufferMinutes; }
+    public void setBufferMinutes(int bufferMinutes) { this.bufferMinutes = bufferMinutes; }
+    public BigDecimal getPrice() { return price; }
+    public void setPrice(BigDecimal price) { this.price = price; }
+    public List<Modifier> getModifiers() { return modifiers; }
+    public void setModifiers(List<Modifier> modifiers) { this.modifiers = modifiers; }
+
+    // Extra minutes when the pet's breed matches and/or its weight is in [minWeightKg, maxWeightKg)
+    public static class Modifier {
+        private String breed;
+        private Double minWeightKg;
+        private Double maxWeightKg;
+        private int extraMinutes;
+
+        public String getBreed() { return breed; }
+        public void setBreed(String breed) { this.breed = breed; }
+        public Double getMinWeightKg() { return minWeightKg; }
+        public void setMinWeightKg(Double minWeightKg) { this.minWeightKg = minWeightKg; }
+        public Double getMaxWeightKg() { return maxWeightKg; }
+        public void setMaxWeightKg(Double maxWeightKg) { this.maxWeightKg = maxWeightKg; }
+        public int getExtraMinutes() { return extraMinutes; }
+        public void setExtraMinutes(int extraMinutes) { this.extraMinutes = extraMinutes; }
+    }
+}
@@ -0,0 +1,46 @@
+package com.cobamovil.backend.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.*;
+
+import java.util.List;
+
+public class ServiceZoneDTO {
+    private Long id;                // read-only
+    @NotBlank @Size(max = 80)
+    private String name;
+    @NotNull @Size(min = 3, max = 500) @Valid
+    private List<Vertex> vertices;  // in order around the zone; the ring closes itself
+    private boolean active = true;
+    private List<Long> groomerIds;  // null on update keeps the current groomers
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public List<Vertex> getVertices() { return vertices; }
+    public void setVertices(List<Vertex> vertices) { this.vertices = vertices; }
+    public boolean isActive() { return active; }
+    public void setActive(boolean active) { this.active = active; }
+    public List<Long> getGroomerIds() { return groomerIds; }
+    public void setGroomerIds(List<Long> groomerIds) { this.groomerIds = groomerIds; }
+
+    public static class Vertex {
+        @NotNull @DecimalMin("-90") @DecimalMax("90")
+        private Double lat;
+        @NotNull @DecimalMin("-180") @DecimalMax("180")
+        private Double lng;
+
+        public Vertex() { }
+
+        public Vertex(Double lat, Double lng) {
+            this.lat = lat;
+            this.lng = lng;
+        }
+
+        public Double getLat() { return lat; }
+        public void setLat(Double lat) { this.lat = lat; }
+        public Double getLng() { return lng; }
+        public void setLng(Double lng) { this.lng = lng; }
+    }
+}
@@ -0,0 +1,44 @@
+package com.cobamovil.backend.dto;
+
+import com.cobamovil.backend.entity.ServiceType;
+import jakarta.validation.constraints.FutureOrPresent;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+public class SlotHoldDTO {
+    private String token;           // read-only: pass as holdToken when creating the booking
+    @NotNull
+    private Long petId;
+    @NotNull
+    private ServiceType serviceType;
+    private Long groomerId;         // optional selected groomer; filled with the held one
+    @NotNull @FutureOrPresent
+    private LocalDate date;
+    @NotNull
+    private LocalTime time;
+    private Double latitude;        // optional address, to pick a groomer of its zone
+    private Double longitude;
+    private LocalDateTime expiresAt; // read-only
+
+    public String getToken() { return token; }
+    public void setToken(String token) { this.token = token; }
+    public Long getPetId() { return petId; }
+    public void setPetId(Long petId) { this.petId = petId; }
+    public ServiceType getServiceType() { return serviceType; }
+    public void setServiceType(ServiceType serviceType) { this.serviceType = serviceType; }
+    public Long getGroomerId() { return groomerId; }
+    public void setGroomerId(Long groomerId) { this.groomerId = groomerId; }
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
+    public LocalTime getTime() { return time; }
+    public void setTime(LocalTime time) { this.time = time; }
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
@@ -0,0 +1,54 @@
+package com.cobamovil.backend.dto;
+
+import com.cobamovil.backend.entity.ServiceType;
+import com.cobamovil.backend.entity.WaitlistStatus;
+import jakarta.validation.constraints.FutureOrPresent;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+public class WaitlistEntryDTO {
+    private Long id;
+    @NotNull
+    private Long petId;
+    @NotNull
+    private ServiceType serviceType;
+    @NotNull @FutureOrPresent
+    private LocalDate date;
+    @NotNull
+    private LocalTime windowStart; // earliest acceptable start
+    @NotNull
+    private LocalTime windowEnd;   // latest acceptable start
+    private String address;
+    private Double latitude;
+    private Double longitude;
+    private WaitlistStatus status;   // read-only
+    private Long offeredGroomerId;   // read-only
+    private LocalTime offeredTime;   // read-only
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getPetId() { return petId; }
+    public void setPetId(Long petId) { this.petId = petId; }
+    public ServiceType getServiceType() { return serviceType; }
+    public void setServiceType(ServiceType serviceType) { this.serviceType = serviceType; }
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
+    public LocalTime getWindowStart() { return windowStart; }
+    public void setWindowStart(LocalTime windowStart) { this.windowStart = windowStart; }
+    public LocalTime getWindowEnd() { return windowEnd; }
+    public void setWindowEnd(LocalTime windowEnd) { this.windowEnd = windowEnd; }
+    public String getAddress() { return address; }
+    public void setAddress(String address) { this.address = address; }
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
+    public WaitlistStatus getStatus() { return status; }
+    public void setStatus(WaitlistStatus status) { this.status = status; }
+    public Long getOfferedGroomerId() { return offeredGroomerId; }
+    public void setOfferedGroomerId(Long offeredGroomerId) { this.offeredGroomerId = offeredGroomerId; }
+    public LocalTime getOfferedTime() { return offeredTime; }
+    public void setOfferedTime(LocalTime offeredTime) { this.offeredTime = offeredTime; }
+}
@@ -38,6 +38,10 @@ public class Booking {
     @NotNull
     private LocalTime time;
 
+    // Minutes the groomer is busy from time on; guarded per groomer by bookings_groomer_no_overlap
+    @Column(name = "duration_minutes", nullable = false)
+    private Integer durationMinutes;
+
     // Address
     @Column(length = 200)
     private String address;
@@ -57,6 +61,14 @@ public class Booking {
     @Column(length = 500)
     private String notes;
 
+    // Set when the booking is an occurrence of a BookingSeries
+    @Column(name = "series_id")
+    private Long seriesId;
+
+    // ServiceZone the address fell in at creation; null outside every zone
+    @Column(name = "zone_id")
+    private Long zoneId;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -76,6 +88,8 @@ public class Booking {
     public void setDate(LocalDate date) { this.date = date; }
     public LocalTime getTime() { return time; }
     public void setTime(LocalTime time) { this.time = time; }
+    public int getDurationMinutes() { return durationMinutes != null ? durationMinutes : serviceType.getDurationMinutes(); }
+    public void setDurationMinutes(Integer durationMinutes) { this.durationMinutes = durationMinutes; }
     public String getAddress() { return address; }
     public void setAddress(String address) { this.address = address; }
     public Double getLatitude() { return latitude; }
@@ -88,6 +102,10 @@ public class Booking {
     public void setAssignedGroomer(User assignedGroomer) { this.assignedGroomer = assignedGroomer; }
     public String getNotes() { return notes; }
     public void setNotes(String notes) { this.notes = notes; }
+    public Long getSeriesId() { return seriesId; }
+    public void setSeriesId(Long seriesId) { this.seriesId = seriesId; }
+    public Long getZoneId() { return zoneId; }
+    public void setZoneId(Long zoneId) { this.zoneId = zoneId; }
     public LocalDateTime getCreatedAt() { return createdAt; }
     public LocalDateTime getUpdatedAt() { return updatedAt; }
 }
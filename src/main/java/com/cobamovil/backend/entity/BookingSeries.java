@@ -0,0 +1,93 @@
+package com.cobamovil.backend.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * A repeating booking, such as a bath every three weeks. Its occurrences become ordinary bookings
+ * (bookings.series_id) a few weeks ahead at a time; materializedThrough is how far that has got.
+ */
+@Entity
+@Table(name = "booking_series")
+public class BookingSeries {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "customer_id", nullable = false)
+    private User customer;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "pet_id", nullable = false)
+    private Pet pet;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "service_type", nullable = false, length = 30)
+    private ServiceType serviceType;
+
+    // Preferred groomer; when null each occurrence goes to the least loaded free one
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "groomer_id")
+    private User groomer;
+
+    // RRULE subset, e.g. FREQ=WEEKLY;INTERVAL=3
+    @Column(name = "rrule", nullable = false, length = 200)
+    private String rule;
+
+    @Column(name = "start_date", nullable = false)
+    private LocalDate startDate;
+
+    @Column(nullable = false)
+    private LocalTime time;
+
+    @Column(length = 200)
+    private String address;
+
+    private Double latitude;
+    private Double longitude;
+
+    @Column(length = 500)
+    private String notes;
+
+    @Column(nullable = false)
+    private boolean active = true;
+
+    @Column(name = "materialized_through")
+    private LocalDate materializedThrough;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public Long getId() { return id; }
+    public User getCustomer() { return customer; }
+    public void setCustomer(User customer) { this.customer = customer; }
+    public Pet getPet() { return pet; }
+    public void setPet(Pet pet) { this.pet = pet; }
+    public ServiceType getServiceType() { return serviceType; }
+    public void setServiceType(ServiceType serviceType) { this.serviceType = serviceType; }
+    public User getGroomer() { return groomer; }
+    public void setGroomer(User groomer) { this.groomer = groomer; }
+    public String getRule() { return rule; }
+    public void setRule(String rule) { this.rule = rule; }
+    public LocalDate getStartDate() { return startDate; }
+    public void setStartDate(LocalDate startDate) { this.startDate = startDate; }
+    public LocalTime getTime() { return time; }
+    public void setTime(LocalTime time) { this.time = time; }
+    public String getAddress() { return address; }
+    public void setAddress(String address) { this.address = address; }
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
+    public String getNotes() { return notes; }
+    public void setNotes(String notes) { this.notes = notes; }
+    public boolean isActive() { return active; }
+    public void setActive(boolean active) { this.active = active; }
+    public LocalDate getMaterializedThrough() { return materializedThrough; }
+    public void setMaterializedThrough(LocalDate materializedThrough) { this.materializedThrough = materializedThrough; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
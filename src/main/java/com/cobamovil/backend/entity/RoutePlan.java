@@ -2,24 +2,86 @@ package com.cobamovil.backend.entity;
 
 import jakarta.persistence.*;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
-@Table(name = "route_plans", uniqueConstraints = @UniqueConstraint(columnNames = {"date"}))
+@Table(name = "route_plans")
 public class RoutePlan {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private LocalDate date;
 
-    @Column(name = "order_csv", length = 4000)
-    private String orderCsv; // comma-separated booking IDs
+    // Groomer that drives this route; null for the day-wide plan
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "groomer_id")
+    private User groomer;
+
+    // Optimistic lock: concurrent re-plans of the same route fail instead of interleaving stops
+    @Version
+    private Long version;
+
+    // Touched on every route change so that stop-only updates still bump the version
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @OneToMany(mappedBy = "plan", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("seq")
+    private List<RoutePlanStop> stops = new ArrayList<>();
 
     public Long getId() { return id; }
     public LocalDate getDate() { return date; }
     public void setDate(LocalDate date) { this.date = date; }
-    public String getOrderCsv() { return orderCsv; }
-    public void setOrderCsv(String orderCsv) { this.orderCsv = orderCsv; }
-}
+    public User getGroomer() { return groomer; }
+    public void setGroomer(User groomer) { this.groomer = groomer; }
+    public Long getVersion() { return version; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public List<RoutePlanStop> getStops() { return stops; }
 
+    public List<Long> getBookingIds() {
+        List<Long> ids = new ArrayList<>(stops.size());
+        for (RoutePlanStop s : stops) ids.add(s.getBooking().getId());
+        return ids;
+    }
+
+    // Planned ETAs in stop order, or null when any stop has none
+    public List<Integer> getEtas() {
+        List<Integer> etas = new ArrayList<>(stops.size());
+        for (RoutePlanStop s : stops) {
+            if (s.getEtaMinutes() == null) return null;
+            etas.add(s.getEtaMinutes());
+        }
+        return etas;
+    }
+
+    /**
+     * Replaces the route. Existing rows are updated in place by position and only the tail is
+     * inserted or deleted, so (plan_id, seq) stays unique at every flush. etas and distances may
+     * be null.
+     */
+    public void replaceStops(List<Booking> ordered, List<Integer> etas, List<Double> distances) {
+        int n = ordered.size();
+        updatedAt = LocalDateTime.now();
+        while (stops.size() > n) stops.remove(stops.size() - 1);
+        for (int i = 0; i < n; i++) {
+            RoutePlanStop s;
+            if (i < stops.size()) {
+                s = stops.get(i);
+            } else {
+                s = new RoutePlanStop();
+                s.setPlan(this);
+                s.setSeq(i);
+                stops.add(s);
+            }
+            Booking b = ordered.get(i);
+            s.setBooking(b);
+            s.setGroomer(groomer != null ? groomer : b.getAssignedGroomer());
+            s.setEtaMinutes(etas != null ? etas.get(i) : null);
+            s.setDistanceKm(distances != null ? distances.get(i) : null);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.cobamovil.backend.entity;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "route_plan_stops",
+        uniqueConstraints = @UniqueConstraint(name = "uq_route_plan_stops_plan_seq", columnNames = {"plan_id", "seq"}))
+public class RoutePlanStop {
+    // Sequence ids (not IDENTITY) so Hibernate can batch the inserts of a whole route
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "route_plan_stops_seq")
+    @SequenceGenerator(name = "route_plan_stops_seq", sequenceName = "route_plan_stops_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "plan_id", nullable = false)
+    private RoutePlan plan;
+
+    // Groomer serving this stop (the plan's groomer, or the booking's on a day-wide plan)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "groomer_id")
+    private User groomer;
+
+    @Column(nullable = false)
+    private int seq; // 0-based position in the route
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "booking_id", nullable = false)
+    private Booking booking;
+
+    @Column(name = "eta_minutes")
+    private Integer etaMinutes; // minutes from the first stop; a groomer's route also counts service and waits
+
+    @Column(name = "distance_km")
+    private Double distanceKm; // straight-line distance from the previous stop
+
+    public Long getId() { return id; }
+    public RoutePlan getPlan() { return plan; }
+    public void setPlan(RoutePlan plan) { this.plan = plan; }
+    public User getGroomer() { return groomer; }
+    public void setGroomer(User groomer) { this.groomer = groomer; }
+    public int getSeq() { return seq; }
+    public void setSeq(int seq) { this.seq = seq; }
+    public Booking getBooking() { return booking; }
+    public void setBooking(Booking booking) { this.booking = booking; }
+    public Integer getEtaMinutes() { return etaMinutes; }
+    public void setEtaMinutes(Integer etaMinutes) { this.etaMinutes = etaMinutes; }
+    public Double getDistanceKm() { return distanceKm; }
+    public void setDistanceKm(Double distanceKm) { this.distanceKm = distanceKm; }
+}
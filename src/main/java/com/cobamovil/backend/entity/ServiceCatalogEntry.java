@@ -0,0 +1,46 @@
+package com.cobamovil.backend.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Entity
+@Table(name = "service_catalog")
+public class ServiceCatalogEntry {
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "service_type", length = 30)
+    private ServiceType serviceType;
+
+    @Column(name = "duration_minutes", nullable = false)
+    private int durationMinutes;
+
+    // Setup and clean-up after the job, kept blocked on the groomer's calendar
+    @Column(name = "buffer_minutes", nullable = false)
+    private int bufferMinutes;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal price = BigDecimal.ZERO;
+
+    @OneToMany(mappedBy = "service", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("id")
+    private List<ServiceDurationModifier> modifiers = new ArrayList<>();
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt = LocalDateTime.now();
+
+    public ServiceType getServiceType() { return serviceType; }
+    public void setServiceType(ServiceType serviceType) { this.serviceType = serviceType; }
+    public int getDurationMinutes() { return durationMinutes; }
+    public void setDurationMinutes(int durationMinutes) { this.durationMinutes = durationMinutes; }
+    public int getBufferMinutes() { return bufferMinutes; }
+    public void setBufferMinutes(int bufferMinutes) { this.bufferMinutes = bufferMinutes; }
+    public BigDecimal getPrice() { return price; }
+    public void setPrice(BigDecimal price) { this.price = price; }
+    public List<ServiceDurationModifier> getModifiers() { return modifiers; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
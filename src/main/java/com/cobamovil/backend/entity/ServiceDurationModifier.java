@@ -0,0 +1,43 @@
+package com.cobamovil.backend.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Extra minutes for a service when the pet matches: a breed (case-insensitive) and/or a weight
+ * range [minWeightKg, maxWeightKg). Null bounds are open.
+ */
+@Entity
+@Table(name = "service_duration_modifiers")
+public class ServiceDurationModifier {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "service_type", nullable = false)
+    private ServiceCatalogEntry service;
+
+    @Column(length = 60)
+    private String breed;
+
+    @Column(name = "min_weight_kg")
+    private Double minWeightKg;
+
+    @Column(name = "max_weight_kg")
+    private Double maxWeightKg;
+
+    @Column(name = "extra_minutes", nullable = false)
+    private int extraMinutes;
+
+    public Long getId() { return id; }
+    public ServiceCatalogEntry getService() { return service; }
+    public void setService(ServiceCatalogEntry service) { this.service = service; }
+    public String getBreed() { return breed; }
+    public void setBreed(String breed) { this.breed = breed; }
+    public Double getMinWeightKg() { return minWeightKg; }
+    public void setMinWeightKg(Double minWeightKg) { this.minWeightKg = minWeightKg; }
+    public Double getMaxWeightKg() { return maxWeightKg; }
+    public void setMaxWeightKg(Double maxWeightKg) { this.maxWeightKg = maxWeightKg; }
+    public int getExtraMinutes() { return extraMinutes; }
+    public void setExtraMinutes(int extraMinutes) { this.extraMinutes = extraMinutes; }
+}
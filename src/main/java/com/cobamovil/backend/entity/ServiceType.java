@@ -1,9 +1,16 @@
 package com.cobamovil.backend.entity;
 
 public enum ServiceType {
-    BATH,
-    HAIRCUT,
-    NAIL_TRIM,
-    FULL_GROOMING
-}
+    BATH(45),
+    HAIRCUT(60),
+    NAIL_TRIM(20),
+    FULL_GROOMING(90);
+
+    private final int durationMinutes;
 
+    ServiceType(int durationMinutes) {
+        this.durationMinutes = durationMinutes;
+    }
+
+    public int getDurationMinutes() { return durationMinutes; }
+}
@@ -0,0 +1,51 @@
+package com.cobamovil.backend.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A polygon of the coverage area served by its own groomers. Bookings are tagged with the zone
+ * their address falls in, and each zone is planned on its own.
+ */
+@Entity
+@Table(name = "service_zones")
+public class ServiceZone {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 80)
+    private String name;
+
+    // "lat lng" vertices separated by commas, see ServiceZones.parsePolygon
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String polygon;
+
+    @Column(nullable = false)
+    private boolean active = true;
+
+    @ManyToMany
+    @JoinTable(name = "groomer_zones",
+            joinColumns = @JoinColumn(name = "zone_id"),
+            inverseJoinColumns = @JoinColumn(name = "groomer_id"))
+    private Set<User> groomers = new HashSet<>();
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt = LocalDateTime.now();
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public String getPolygon() { return polygon; }
+    public void setPolygon(String polygon) { this.polygon = polygon; }
+    public boolean isActive() { return active; }
+    public void setActive(boolean active) { this.active = active; }
+    public Set<User> getGroomers() { return groomers; }
+    public void setGroomers(Set<User> groomers) { this.groomers = groomers; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,96 @@
+package com.cobamovil.backend.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+@Entity
+@Table(name = "waitlist_entries")
+public class WaitlistEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "customer_id", nullable = false)
+    private User customer;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "pet_id", nullable = false)
+    private Pet pet;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "service_type", nullable = false, length = 30)
+    private ServiceType serviceType;
+
+    @Column(nullable = false)
+    private LocalDate date;
+
+    // Acceptable start times, inclusive
+    @Column(name = "window_start", nullable = false)
+    private LocalTime windowStart;
+
+    @Column(name = "window_end", nullable = false)
+    private LocalTime windowEnd;
+
+    // Blocked minutes for this pet and service when the entry was made
+    @Column(name = "duration_minutes", nullable = false)
+    private int durationMinutes;
+
+    @Column(length = 200)
+    private String address;
+
+    private Double latitude;
+    private Double longitude;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private WaitlistStatus status = WaitlistStatus.WAITING;
+
+    // Slot offered when a matching one opened
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "offered_groomer_id")
+    private User offeredGroomer;
+
+    @Column(name = "offered_time")
+    private LocalTime offeredTime;
+
+    @Column(name = "offered_at")
+    private LocalDateTime offeredAt;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public Long getId() { return id; }
+    public User getCustomer() { return customer; }
+    public void setCustomer(User customer) { this.customer = customer; }
+    public Pet getPet() { return pet; }
+    public void setPet(Pet pet) { this.pet = pet; }
+    public ServiceType getServiceType() { return serviceType; }
+    public void setServiceType(ServiceType serviceType) { this.serviceType = serviceType; }
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
+    public LocalTime getWindowStart() { return windowStart; }
+    public void setWindowStart(LocalTime windowStart) { this.windowStart = windowStart; }
+    public LocalTime getWindowEnd() { return windowEnd; }
+    public void setWindowEnd(LocalTime windowEnd) { this.windowEnd = windowEnd; }
+    public int getDurationMinutes() { return durationMinutes; }
+    public void setDurationMinutes(int durationMinutes) { this.durationMinutes = durationMinutes; }
+    public String getAddress() { return address; }
+    public void setAddress(String address) { this.address = address; }
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
+    public WaitlistStatus getStatus() { return status; }
+    public void setStatus(WaitlistStatus status) { this.status = status; }
+    public User getOfferedGroomer() { return offeredGroomer; }
+    public void setOfferedGroomer(User offeredGroomer) { this.offeredGroomer = offeredGroomer; }
+    public LocalTime getOfferedTime() { return offeredTime; }
+    public void setOfferedTime(LocalTime offeredTime) { this.offeredTime = offeredTime; }
+    public LocalDateTime getOfferedAt() { return offeredAt; }
+    public void setOfferedAt(LocalDateTime offeredAt) { this.offeredAt = offeredAt; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
@@ -0,0 +1,8 @@
+package com.cobamovil.backend.entity;
+
+public enum WaitlistStatus {
+    WAITING,
+    OFFERED,
+    BOOKED,
+    CANCELLED
+}
@@ -4,9 +4,11 @@ import com.cobamovil.backend.entity.Booking;
 import com.cobamovil.backend.entity.BookingStatus;
 import com.cobamovil.backend.entity.Pet;
 import com.cobamovil.backend.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,6 +16,15 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     List<Booking> findByCustomerOrderByDateAscTimeAsc(User customer);
     List<Booking> findByDateAndStatus(LocalDate date, BookingStatus status);
     List<Booking> findByDate(LocalDate date);
+    List<Booking> findByDateAndStatusIn(LocalDate date, Collection<BookingStatus> statuses);
+    List<Booking> findByDateBetweenAndStatusIn(LocalDate from, LocalDate to, Collection<BookingStatus> statuses);
+    List<Booking> findByDateInAndStatusIn(Collection<LocalDate> dates, Collection<BookingStatus> statuses);
+    List<Booking> findBySeriesIdAndDateGreaterThanEqualAndStatus(Long seriesId, LocalDate from, BookingStatus status);
+    List<Booking> findBySeriesIdInAndDateGreaterThanEqualAndStatusIn(Collection<Long> seriesIds, LocalDate from, Collection<BookingStatus> statuses);
+
+    // Bookings with the customer, pet and groomer already loaded, for bulk changes
+    @EntityGraph(attributePaths = {"customer", "pet", "assignedGroomer"})
+    List<Booking> findByIdIn(Collection<Long> ids);
 
     Optional<Booking> findTopByPetOrderByDateDescTimeDesc(Pet pet);
 }
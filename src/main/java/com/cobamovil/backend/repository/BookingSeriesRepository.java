@@ -0,0 +1,21 @@
+package com.cobamovil.backend.repository;
+
+import com.cobamovil.backend.entity.BookingSeries;
+import com.cobamovil.backend.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface BookingSeriesRepository extends JpaRepository<BookingSeries, Long> {
+    List<BookingSeries> findByCustomerOrderByCreatedAtDesc(User customer);
+
+    // Active series not yet materialized through the given date, with what the batch needs
+    @EntityGraph(attributePaths = {"customer", "pet", "groomer"})
+    @Query("SELECT s FROM BookingSeries s WHERE s.active = true AND " +
+           "(s.materializedThrough IS NULL OR s.materializedThrough < :through)")
+    List<BookingSeries> findDue(@Param("through") LocalDate through);
+}
@@ -1,12 +1,16 @@
 package com.cobamovil.backend.repository;
 
 import com.cobamovil.backend.entity.RoutePlan;
+import com.cobamovil.backend.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 public interface RoutePlanRepository extends JpaRepository<RoutePlan, Long> {
-    Optional<RoutePlan> findByDate(LocalDate date);
+    // Day-wide plan (all groomers in one route)
+    Optional<RoutePlan> findByDateAndGroomerIsNull(LocalDate date);
+    Optional<RoutePlan> findByDateAndGroomer(LocalDate date, User groomer);
+    List<RoutePlan> findByDate(LocalDate date);
 }
-
@@ -0,0 +1,13 @@
+package com.cobamovil.backend.repository;
+
+import com.cobamovil.backend.entity.ServiceCatalogEntry;
+import com.cobamovil.backend.entity.ServiceType;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface ServiceCatalogRepository extends JpaRepository<ServiceCatalogEntry, ServiceType> {
+    @EntityGraph(attributePaths = "modifiers")
+    List<ServiceCatalogEntry> findAllBy();
+}
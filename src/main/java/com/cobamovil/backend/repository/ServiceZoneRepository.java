@@ -0,0 +1,15 @@
+package com.cobamovil.backend.repository;
+
+import com.cobamovil.backend.entity.ServiceZone;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ServiceZoneRepository extends JpaRepository<ServiceZone, Long> {
+    @EntityGraph(attributePaths = "groomers")
+    List<ServiceZone> findAllByOrderByIdAsc();
+
+    Optional<ServiceZone> findByNameIgnoreCase(String name);
+}
@@ -0,0 +1,16 @@
+package com.cobamovil.backend.repository;
+
+import com.cobamovil.backend.entity.User;
+import com.cobamovil.backend.entity.WaitlistEntry;
+import com.cobamovil.backend.entity.WaitlistStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+    List<WaitlistEntry> findByDateAndStatus(LocalDate date, WaitlistStatus status);
+    List<WaitlistEntry> findByStatusAndOfferedAtBefore(WaitlistStatus status, LocalDateTime offeredAt);
+    List<WaitlistEntry> findByCustomerAndDateGreaterThanEqualOrderByDateAscWindowStartAsc(User customer, LocalDate from);
+}
@@ -1,5 +1,6 @@
 package com.cobamovil.backend.service;
 
+import com.cobamovil.backend.config.HttpClientProperties;
 import com.cobamovil.backend.dto.CareWeekPlanResponseDTO;
 import com.cobamovil.backend.dto.NormalizeNotesRequestDTO;
 import com.cobamovil.backend.dto.NormalizeNotesResponseDTO;
@@ -21,6 +22,7 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
@@ -41,14 +43,18 @@ public class AiRecommendationService {
     private final PetRepository petRepository;
     private final BookingRepository bookingRepository;
     private final ObjectMapper objectMapper;
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final RestTemplate restTemplate;
 
     public AiRecommendationService(PetRepository petRepository,
                                    BookingRepository bookingRepository,
-                                   ObjectMapper objectMapper) {
+                                   ObjectMapper objectMapper,
+                                   OutboundHttp outboundHttp,
+                                   HttpClientProperties httpProps) {
         this.petRepository = petRepository;
         this.bookingRepository = bookingRepository;
         this.objectMapper = objectMapper;
+        this.restTemplate = outboundHttp.restTemplate("gemini", "generativelanguage.googleapis.com",
+                Duration.ofMillis(httpProps.getAiReadTimeoutMillis()), httpProps.getAiMaxConcurrentCalls());
     }
 
     public PetAiRecommendationResponse recommendForPet(Long petId, Long currentUserId) {
@@ -0,0 +1,241 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.entity.Booking;
+import com.cobamovil.backend.entity.BookingStatus;
+import com.cobamovil.backend.repository.BookingRepository;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Intervals of the bookings that hold a slot (pending, approved or on route) per day and groomer,
+ * as minute offsets from midnight. A day is loaded with one query the first time it is asked about
+ * and then kept current from booking events, so overlap checks are a binary search over primitive
+ * arrays instead of a database round trip. Intervals are closed: a booking ending at 10:00
+ * conflicts with one starting at 10:00.
+ */
+@Service
+public class BookingIntervalIndex {
+    static final long UNASSIGNED = 0L;
+    static final Set<BookingStatus> HOLDS_SLOT = EnumSet.of(BookingStatus.PENDING, BookingStatus.APPROVED, BookingStatus.ON_ROUTE);
+
+    private final BookingRepository bookingRepository;
+    private final Map<LocalDate, Map<Long, Intervals>> days = new ConcurrentHashMap<>();
+
+    public BookingIntervalIndex(BookingRepository bookingRepository) {
+        this.bookingRepository = bookingRepository;
+    }
+
+    /**
+     * Whether [time, time + durationMinutes] overlaps a booking of this groomer (null: unassigned
+     * bookings), leaving out ignoreBookingId so a booking being moved does not clash with itself.
+     */
+    public boolean overlaps(LocalDate date, Long groomerId, LocalTime time, int durationMinutes, Long ignoreBookingId) {
+        Intervals in = day(date).get(groomerId != null ? groomerId : UNASSIGNED);
+        if (in == null) return false;
+        if (ignoreBookingId != null) in = in.without(ignoreBookingId);
+        int start = minuteOf(time);
+        return in.overlaps(start, start + durationMinutes);
+    }
+
+    /**
+     * The free stretch of a groomer's day containing minute, bounded by the end of the booking
+     * before it and the start of the booking after it; null if minute is inside a booking.
+     */
+    public Gap gapAround(LocalDate date, Long groomerId, int minute) {
+        Intervals in = day(date).getOrDefault(groomerId != null ? groomerId : UNASSIGNED, Intervals.EMPTY);
+        int lo = 0, hi = in.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (in.start[mid] <= minute) lo = mid + 1; else hi = mid;
+        }
+        int prev = lo - 1;
+        if (prev >= 0 && in.maxEnd[prev] >= minute) return null;
+        return new Gap(prev >= 0 ? in.maxEnd[prev] : -1, lo < in.size() ? in.start[lo] : Integer.MAX_VALUE,
+                prev >= 0 ? in.bookingId[prev] : -1, lo < in.size() ? in.bookingId[lo] : -1);
+    }
+
+    private Map<Long, Intervals> day(LocalDate date) {
+        return days.computeIfAbsent(date, this::load);
+    }
+
+    private Map<Long, Intervals> load(LocalDate date) {
+        Map<Long, List<Booking>> byGroomer = new HashMap<>();
+        for (Booking b : bookingRepository.findByDateAndStatusIn(date, HOLDS_SLOT)) {
+            byGroomer.computeIfAbsent(groomerOf(b), k -> new ArrayList<>()).add(b);
+        }
+        Map<Long, Intervals> out = new HashMap<>();
+        byGroomer.forEach((g, list) -> out.put(g, Intervals.of(list)));
+        return out;
+    }
+
+    // Re-reads the booking after commit so time, service and groomer are current, then moves it.
+    // Runs before other listeners so they see the updated day.
+    @Order(0)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onStatusChanged(BookingStatusChangedEvent event) {
+        Booking b = bookingRepository.findById(event.getBookingId()).orElse(null);
+        remove(event.getDate(), event.getBookingId());
+        if (event.getPreviousDate() != null) remove(event.getPreviousDate(), event.getBookingId());
+        if (b != null && HOLDS_SLOT.contains(b.getStatus())) {
+            remove(b.getDate(), b.getId());
+            days.computeIfPresent(b.getDate(), (d, groomers) -> {
+                Map<Long, Intervals> copy = new HashMap<>(groomers);
+                copy.merge(groomerOf(b), Intervals.of(List.of(b)), Intervals::with);
+                return copy;
+            });
+        }
+    }
+
+    /**
+     * Drops a day so it is reloaded on next use, once the current transaction (if any) commits.
+     * For bulk changes that do not publish booking events, such as groomer reassignment.
+     */
+    public void invalidate(LocalDate date) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() { days.remove(date); }
+            });
+        } else {
+            days.remove(date);
+        }
+    }
+
+    // Past days are never checked again
+    @Scheduled(cron = "0 5 0 * * *")
+    public void evictPastDays() {
+        days.keySet().removeIf(d -> d.isBefore(LocalDate.now()));
+    }
+
+    private void remove(LocalDate date, Long bookingId) {
+        days.computeIfPresent(date, (d, groomers) -> {
+            Map<Long, Intervals> copy = null;
+            for (Map.Entry<Long, Intervals> e : groomers.entrySet()) {
+                Intervals rest = e.getValue().without(bookingId);
+                if (rest == e.getValue()) continue;
+                if (copy == null) copy = new HashMap<>(groomers);
+                copy.put(e.getKey(), rest);
+            }
+            return copy != null ? copy : groomers;
+        });
+    }
+
+    private static Long groomerOf(Booking b) {
+        return b.getAssignedGroomer() != null ? b.getAssignedGroomer().getId() : UNASSIGNED;
+    }
+
+    private static int minuteOf(LocalTime t) {
+        return t.getHour() * 60 + t.getMinute();
+    }
+
+    /**
+     * Free time between two bookings: starts after afterMinute and ends before beforeMinute are
+     * clear (-1 / MAX_VALUE when the day is open on that side).
+     */
+    public static final class Gap {
+        final int afterMinute;
+        final int beforeMinute;
+        final long previousBookingId;
+        final long nextBookingId;
+
+        Gap(int afterMinute, int beforeMinute, long previousBookingId, long nextBookingId) {
+            this.afterMinute = afterMinute;
+            this.beforeMinute = beforeMinute;
+            this.previousBookingId = previousBookingId;
+            this.nextBookingId = nextBookingId;
+        }
+    }
+
+    /**
+     * Immutable intervals sorted by start, with a running maximum of end times: the last interval
+     * starting at or before the query end is found by binary search, and the query overlaps
+     * something exactly when the running maximum there reaches the query start.
+     */
+    static final class Intervals {
+        static final Intervals EMPTY = new Intervals(new int[0], new int[0], new long[0]);
+
+        final int[] start;
+        final int[] end;
+        final long[] bookingId;
+        final int[] maxEnd;
+
+        Intervals(int[] start, int[] end, long[] bookingId) {
+            this.start = start;
+            this.end = end;
+            this.bookingId = bookingId;
+            maxEnd = new int[start.length];
+            for (int i = 0; i < start.length; i++) maxEnd[i] = i == 0 ? end[0] : Math.max(maxEnd[i - 1], end[i]);
+        }
+
+        static Intervals of(List<Booking> bookings) {
+            int n = bookings.size();
+            long[] keyed = new long[n];
+            for (int i = 0; i < n; i++) keyed[i] = ((long) minuteOf(bookings.get(i).getTime()) << 32) | i;
+            Arrays.sort(keyed);
+            int[] s = new int[n], e = new int[n];
+            long[] ids = new long[n];
+            for (int k = 0; k < n; k++) {
+                Booking b = bookings.get((int) keyed[k]);
+                s[k] = (int) (keyed[k] >>> 32);
+                e[k] = s[k] + b.getDurationMinutes();
+                ids[k] = b.getId();
+            }
+            return new Intervals(s, e, ids);
+        }
+
+        int size() { return start.length; }
+
+        boolean overlaps(int qStart, int qEnd) {
+            int lo = 0, hi = start.length - 1, last = -1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (start[mid] <= qEnd) { last = mid; lo = mid + 1; } else { hi = mid - 1; }
+            }
+            return last >= 0 && maxEnd[last] >= qStart;
+        }
+
+        Intervals with(Intervals other) {
+            int n = size() + other.size();
+            int[] s = new int[n], e = new int[n];
+            long[] ids = new long[n];
+            for (int i = 0, j = 0, k = 0; k < n; k++) {
+                boolean mine = j >= other.size() || (i < size() && start[i] <= other.start[j]);
+                Intervals src = mine ? this : other;
+                int at = mine ? i++ : j++;
+                s[k] = src.start[at];
+                e[k] = src.end[at];
+                ids[k] = src.bookingId[at];
+            }
+            return new Intervals(s, e, ids);
+        }
+
+        Intervals without(long id) {
+            int at = -1;
+            for (int i = 0; i < bookingId.length; i++) if (bookingId[i] == id) { at = i; break; }
+            if (at < 0) return this;
+            if (size() == 1) return EMPTY;
+            int[] s = new int[size() - 1], e = new int[size() - 1];
+            long[] ids = new long[size() - 1];
+            System.arraycopy(start, 0, s, 0, at);
+            System.arraycopy(start, at + 1, s, at, s.length - at);
+            System.arraycopy(end, 0, e, 0, at);
+            System.arraycopy(end, at + 1, e, at, e.length - at);
+            System.arraycopy(bookingId, 0, ids, 0, at);
+            System.arraycopy(bookingId, at + 1, ids, at, ids.length - at);
+            return new Intervals(s, e, ids);
+        }
+    }
+}
@@ -0,0 +1,413 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.config.BookingProperties;
+import com.cobamovil.backend.dto.BookingSeriesDTO;
+import com.cobamovil.backend.entity.*;
+import com.cobamovil.backend.repository.BookingRepository;
+import com.cobamovil.backend.repository.BookingSeriesRepository;
+import com.cobamovil.backend.repository.PetRepository;
+import com.cobamovil.backend.repository.UserRepository;
+import com.cobamovil.backend.service.BookingIntervalIndex.Intervals;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Recurring bookings. Occurrences are turned into ordinary pending bookings over a rolling horizon,
+ * in batches: every occurrence of the batch is checked against one query for all the dates involved
+ * (and against the occurrences placed before it), the accepted ones are written with a single JDBC
+ * batch, and an occurrence that cannot be placed is recorded as a conflict instead of failing the
+ * series. The insert skips rows rejected by bookings_groomer_no_overlap, so a slot taken
+ * concurrently by another request also ends up as a conflict.
+ */
+@Service
+public class BookingSeriesService {
+    private static final Logger log = LoggerFactory.getLogger(BookingSeriesService.class);
+    private static final String SLOT_TAKEN = "Ese horario ya ha sido reservado.";
+
+    private final BookingSeriesRepository seriesRepository;
+    private final BookingRepository bookingRepository;
+    private final UserRepository userRepository;
+    private final PetRepository petRepository;
+    private final CoverageAreaService coverageAreaService;
+    private final ServiceCatalog serviceCatalog;
+    private final BookingIntervalIndex intervalIndex;
+    private final NotificationService notificationService;
+    private final ApplicationEventPublisher events;
+    private final NamedParameterJdbcTemplate jdbc;
+    private final BookingProperties props;
+    private final ServiceZones serviceZones;
+    private final SlotHoldService slotHolds;
+
+    public BookingSeriesService(BookingSeriesRepository seriesRepository,
+                                BookingRepository bookingRepository,
+                                UserRepository userRepository,
+                                PetRepository petRepository,
+                                CoverageAreaService coverageAreaService,
+                                ServiceCatalog serviceCatalog,
+                                BookingIntervalIndex intervalIndex,
+                                NotificationService notificationService,
+                                ApplicationEventPublisher events,
+                                NamedParameterJdbcTemplate jdbc,
+                                BookingProperties props,
+                                ServiceZones serviceZones,
+                                SlotHoldService slotHolds) {
+        this.seriesRepository = seriesRepository;
+        this.bookingRepository = bookingRepository;
+        this.userRepository = userRepository;
+        this.petRepository = petRepository;
+        this.coverageAreaService = coverageAreaService;
+        this.serviceCatalog = serviceCatalog;
+        this.intervalIndex = intervalIndex;
+        this.notificationService = notificationService;
+        this.events = events;
+        this.jdbc = jdbc;
+        this.props = props;
+        this.serviceZones = serviceZones;
+        this.slotHolds = slotHolds;
+    }
+
+    /**
+     * Creates the series and books its occurrences within the horizon right away; the response
+     * lists which dates were booked and which conflicted.
+     */
+    @Transactional
+    public BookingSeriesDTO create(String username, BookingSeriesDTO dto) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+        Pet pet = petRepository.findById(dto.getPetId())
+                .orElseThrow(() -> new EntityNotFoundException("Pet not found"));
+        if (!pet.getOwner().getId().equals(user.getId())) {
+            throw new IllegalArgumentException("Pet does not belong to user");
+        }
+        if (dto.getLatitude() != null && dto.getLongitude() != null &&
+                !coverageAreaService.isWithinCoverage(dto.getLatitude(), dto.getLongitude())) {
+            throw new IllegalArgumentException("Address out of coverage area");
+        }
+        RecurrenceRule.parse(dto.getRule());
+        User groomer = null;
+        if (dto.getGroomerId() != null) {
+            groomer = userRepository.findById(dto.getGroomerId()).orElseThrow(() -> new EntityNotFoundException("Groomer not found"));
+            if (!"GROOMER".equalsIgnoreCase(groomer.getRole())) throw new IllegalArgumentException("Selected user is not a groomer");
+        }
+        BookingSeries s = new BookingSeries();
+        s.setCustomer(user);
+        s.setPet(pet);
+        s.setServiceType(dto.getServiceType());
+        s.setGroomer(groomer);
+        s.setRule(dto.getRule().trim());
+        s.setStartDate(dto.getStartDate());
+        s.setTime(dto.getTime());
+        s.setAddress(dto.getAddress());
+        s.setLatitude(dto.getLatitude());
+        s.setLongitude(dto.getLongitude());
+        s.setNotes(dto.getNotes());
+        BookingSeries saved = seriesRepository.save(s);
+        Result r = materialize(List.of(saved), horizon()).get(saved.getId());
+        List<BookingSeriesDTO.Conflict> conflicts = new ArrayList<>();
+        r.conflicts.forEach((d, reason) -> conflicts.add(new BookingSeriesDTO.Conflict(d, reason)));
+        return toDto(saved, r.booked, conflicts);
+    }
+
+    @Transactional(readOnly = true)
+    public List<BookingSeriesDTO> mine(String username) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+        List<BookingSeries> series = seriesRepository.findByCustomerOrderByCreatedAtDesc(user);
+        if (series.isEmpty()) return List.of();
+        LocalDate today = LocalDate.now();
+        List<Long> ids = series.stream().map(BookingSeries::getId).toList();
+        Map<Long, List<LocalDate>> booked = new HashMap<>();
+        for (Booking b : bookingRepository.findBySeriesIdInAndDateGreaterThanEqualAndStatusIn(ids, today, BookingIntervalIndex.HOLDS_SLOT)) {
+            booked.computeIfAbsent(b.getSeriesId(), k -> new ArrayList<>()).add(b.getDate());
+        }
+        Map<Long, List<BookingSeriesDTO.Conflict>> conflicts = new HashMap<>();
+        jdbc.query("SELECT series_id, date, reason FROM booking_series_conflicts WHERE series_id IN (:ids) AND date >= :today ORDER BY date",
+                new MapSqlParameterSource("ids", ids).addValue("today", Date.valueOf(today)),
+                rs -> {
+                    conflicts.computeIfAbsent(rs.getLong(1), k -> new ArrayList<>())
+                            .add(new BookingSeriesDTO.Conflict(rs.getDate(2).toLocalDate(), rs.getString(3)));
+                });
+        return series.stream().map(s -> {
+            List<LocalDate> dates = booked.getOrDefault(s.getId(), new ArrayList<>());
+            Collections.sort(dates);
+            return toDto(s, dates, conflicts.getOrDefault(s.getId(), List.of()));
+        }).collect(Collectors.toList());
+    }
+
+    /**
+     * Stops the series and cancels its upcoming occurrences that are still pending.
+     */
+    @Transactional
+    public void cancel(Long id, String username) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+        BookingSeries s = seriesRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Booking series not found"));
+        if (!s.getCustomer().getId().equals(user.getId())) {
+            throw new org.springframework.security.access.AccessDeniedException("You do not own this booking series");
+        }
+        s.setActive(false);
+        seriesRepository.save(s);
+        List<Booking> pending = bookingRepository.findBySeriesIdAndDateGreaterThanEqualAndStatus(id, LocalDate.now(), BookingStatus.PENDING);
+        for (Booking b : pending) b.setStatus(BookingStatus.REJECTED);
+        bookingRepository.saveAll(pending);
+        Set<RouteChangedEvent> routes = new LinkedHashSet<>();
+        for (Booking b : pending) {
+            Long groomerId = b.getAssignedGroomer() != null ? b.getAssignedGroomer().getId() : null;
+            events.publishEvent(new BookingStatusChangedEvent(b.getId(), groomerId, b.getDate(), b.getDate(), b.getTime(),
+                    BookingStatus.PENDING, BookingStatus.REJECTED));
+            routes.add(new RouteChangedEvent(b.getDate(), groomerId));
+        }
+        routes.forEach(events::publishEvent);
+        notificationService.notifyBookingEvent(user, "BOOKING_SERIES_CANCELED", "WHATSAPP");
+    }
+
+    // Extends every active series up to the horizon
+    @Scheduled(cron = "0 20 0 * * *")
+    @Transactional
+    public void materializeDue() {
+        LocalDate through = horizon();
+        List<BookingSeries> due = seriesRepository.findDue(through);
+        if (due.isEmpty()) return;
+        Map<Long, Result> results = materialize(due, through);
+        int booked = 0, conflicts = 0;
+        for (Result r : results.values()) { booked += r.booked.size(); conflicts += r.conflicts.size(); }
+        log.info("Materialized {} booking series through {}: {} bookings, {} conflicts", due.size(), through, booked, conflicts);
+    }
+
+    private LocalDate horizon() {
+        return LocalDate.now().plusDays(props.getSeriesHorizonDays());
+    }
+
+    private Map<Long, Result> materialize(List<BookingSeries> series, LocalDate through) {
+        LocalDateTime now = LocalDateTime.now();
+        List<BookingSeries> ordered = new ArrayList<>(series);
+        ordered.sort(Comparator.comparing(BookingSeries::getId)); // older series get first pick
+        Map<Long, Result> results = new HashMap<>();
+        List<Occurrence> wanted = new ArrayList<>();
+        for (BookingSeries s : ordered) {
+            results.put(s.getId(), new Result());
+            RecurrenceRule rule = RecurrenceRule.parse(s.getRule());
+            LocalDate from = s.getStartDate().isAfter(now.toLocalDate()) ? s.getStartDate() : now.toLocalDate();
+            if (s.getMaterializedThrough() != null && !s.getMaterializedThrough().isBefore(from)) {
+                from = s.getMaterializedThrough().plusDays(1);
+            }
+            if (!from.isAfter(through)) {
+                int duration = serviceCatalog.blockedMinutes(s.getServiceType(), s.getPet());
+                for (LocalDate d : rule.occurrences(s.getStartDate(), from, through)) {
+                    if (d.equals(now.toLocalDate()) && !s.getTime().isAfter(now.toLocalTime())) continue;
+                    wanted.add(new Occurrence(s, d, duration));
+                }
+            }
+            s.setMaterializedThrough(through);
+            LocalDate last = rule.lastOccurrence(s.getStartDate());
+            if (last != null && !last.isAfter(through)) s.setActive(false);
+        }
+        seriesRepository.saveAll(ordered);
+        if (wanted.isEmpty()) return results;
+
+        List<User> groomers = userRepository.findByRole("GROOMER");
+        Map<Long, User> groomerById = groomers.stream().collect(Collectors.toMap(User::getId, g -> g));
+        Set<LocalDate> dates = wanted.stream().map(o -> o.date).collect(Collectors.toSet());
+        List<SlotHoldService.Hold> holds = new ArrayList<>();
+        for (LocalDate d : dates) holds.addAll(slotHolds.onDate(d));
+        Days days = Days.load(bookingRepository.findByDateInAndStatusIn(dates, BookingIntervalIndex.HOLDS_SLOT), holds);
+        List<Occurrence> accepted = new ArrayList<>();
+        for (Occurrence o : wanted) {
+            o.zoneId = serviceZones.zoneOf(o.series.getLatitude(), o.series.getLongitude());
+            List<Long> candidates;
+            if (o.series.getGroomer() != null) candidates = List.of(o.series.getGroomer().getId());
+            else if (groomers.isEmpty()) candidates = Collections.singletonList(null);
+            else candidates = days.byLoad(o.date, groomerById.keySet()).stream()
+                        .filter(g -> serviceZones.serves(o.zoneId, g)).toList();
+            int start = o.series.getTime().getHour() * 60 + o.series.getTime().getMinute();
+            Long chosen = null;
+            boolean found = false;
+            for (Long g : candidates) {
+                if (days.taken(o.date, g, start, start + o.duration)) continue;
+                days.add(o.date, g, start, start + o.duration);
+                chosen = g;
+                found = true;
+                break;
+            }
+            if (!found) {
+                results.get(o.series.getId()).conflicts.put(o.date, SLOT_TAKEN);
+                continue;
+            }
+            o.groomerId = chosen;
+            accepted.add(o);
+        }
+
+        int[] counts = insert(accepted);
+        Set<LocalDate> touched = new HashSet<>();
+        Map<Long, Set<Long>> notifyGroomers = new HashMap<>();
+        for (int i = 0; i < accepted.size(); i++) {
+            Occurrence o = accepted.get(i);
+            Result r = results.get(o.series.getId());
+            if (counts[i] == 0) { // lost to a concurrent booking
+                r.conflicts.put(o.date, SLOT_TAKEN);
+                continue;
+            }
+            r.booked.add(o.date);
+            touched.add(o.date);
+            if (o.groomerId != null) notifyGroomers.computeIfAbsent(o.series.getId(), k -> new HashSet<>()).add(o.groomerId);
+        }
+        recordConflicts(results);
+        touched.forEach(intervalIndex::invalidate);
+
+        // One notification per series and party instead of one per booking
+        for (BookingSeries s : ordered) {
+            if (results.get(s.getId()).booked.isEmpty()) continue;
+            notificationService.notifyBookingEvent(s.getCustomer(), "BOOKING_SERIES_CREATED", "EMAIL");
+            for (Long g : notifyGroomers.getOrDefault(s.getId(), Set.of())) {
+                notificationService.notifyBookingEvent(groomerById.get(g), "BOOKING_CREATED", "WHATSAPP");
+            }
+        }
+        return results;
+    }
+
+    private int[] insert(List<Occurrence> accepted) {
+        if (accepted.isEmpty()) return new int[0];
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        SqlParameterSource[] batch = accepted.stream().map(o -> new MapSqlParameterSource()
+                .addValue("customer", o.series.getCustomer().getId())
+                .addValue("pet", o.series.getPet().getId())
+                .addValue("service", o.series.getServiceType().name())
+                .addValue("date", Date.valueOf(o.date))
+                .addValue("time", Time.valueOf(o.series.getTime()))
+                .addValue("duration", o.duration)
+                .addValue("address", o.series.getAddress())
+                .addValue("lat", o.series.getLatitude())
+                .addValue("lng", o.series.getLongitude())
+                .addValue("status", BookingStatus.PENDING.name())
+                .addValue("groomer", o.groomerId)
+                .addValue("notes", o.series.getNotes())
+                .addValue("series", o.series.getId())
+                .addValue("zone", o.zoneId)
+                .addValue("now", now)).toArray(SqlParameterSource[]::new);
+        int[] counts = jdbc.batchUpdate("INSERT INTO bookings (customer_id, pet_id, service_type, date, time, duration_minutes, " +
+                "address, latitude, longitude, status, assigned_groomer_id, notes, series_id, zone_id, created_at, updated_at) " +
+                "VALUES (:customer, :pet, :service, :date, :time, :duration, :address, :lat, :lng, :status, :groomer, :notes, " +
+                ":series, :zone, :now, :now) ON CONFLICT DO NOTHING", batch);
+        for (int i = 0; i < counts.length; i++) if (counts[i] == Statement.SUCCESS_NO_INFO) counts[i] = 1;
+        return counts;
+    }
+
+    private void recordConflicts(Map<Long, Result> results) {
+        List<SqlParameterSource> rows = new ArrayList<>();
+        results.forEach((id, r) -> r.conflicts.forEach((d, reason) -> rows.add(new MapSqlParameterSource()
+                .addValue("series", id).addValue("date", Date.valueOf(d)).addValue("reason", reason))));
+        if (rows.isEmpty()) return;
+        jdbc.batchUpdate("INSERT INTO booking_series_conflicts (series_id, date, reason) VALUES (:series, :date, :reason) " +
+                "ON CONFLICT (series_id, date) DO UPDATE SET reason = EXCLUDED.reason", rows.toArray(SqlParameterSource[]::new));
+    }
+
+    private BookingSeriesDTO toDto(BookingSeries s, List<LocalDate> booked, List<BookingSeriesDTO.Conflict> conflicts) {
+        BookingSeriesDTO dto = new BookingSeriesDTO();
+        dto.setId(s.getId());
+        dto.setPetId(s.getPet().getId());
+        dto.setServiceType(s.getServiceType());
+        dto.setGroomerId(s.getGroomer() != null ? s.getGroomer().getId() : null);
+        dto.setRule(s.getRule());
+        dto.setStartDate(s.getStartDate());
+        dto.setTime(s.getTime());
+        dto.setAddress(s.getAddress());
+        dto.setLatitude(s.getLatitude());
+        dto.setLongitude(s.getLongitude());
+        dto.setNotes(s.getNotes());
+        dto.setActive(s.isActive());
+        dto.setMaterializedThrough(s.getMaterializedThrough());
+        dto.setBookedDates(booked);
+        dto.setConflicts(conflicts);
+        return dto;
+    }
+
+    private static final class Occurrence {
+        final BookingSeries series;
+        final LocalDate date;
+        final int duration;
+        Long groomerId;
+        Long zoneId;
+
+        Occurrence(BookingSeries series, LocalDate date, int duration) {
+            this.series = series;
+            this.date = date;
+            this.duration = duration;
+        }
+    }
+
+    private static final class Result {
+        final List<LocalDate> booked = new ArrayList<>();
+        final SortedMap<LocalDate, String> conflicts = new TreeMap<>();
+    }
+
+    /**
+     * Slot-holding intervals and booking counts per date and groomer for the dates of one batch,
+     * updated as occurrences are placed so they cannot collide with each other. Live checkout holds
+     * are busy time too, but do not count towards a groomer's load.
+     */
+    static final class Days {
+        private final Map<LocalDate, Map<Long, Intervals>> busy = new HashMap<>();
+        private final Map<LocalDate, Map<Long, Integer>> load = new HashMap<>();
+
+        static Days load(List<Booking> bookings, List<SlotHoldService.Hold> holds) {
+            Days days = new Days();
+            Map<LocalDate, Map<Long, List<Booking>>> grouped = new HashMap<>();
+            for (Booking b : bookings) {
+                Long g = b.getAssignedGroomer() != null ? b.getAssignedGroomer().getId() : BookingIntervalIndex.UNASSIGNED;
+                grouped.computeIfAbsent(b.getDate(), k -> new HashMap<>()).computeIfAbsent(g, k -> new ArrayList<>()).add(b);
+            }
+            grouped.forEach((date, byGroomer) -> byGroomer.forEach((g, list) -> {
+                days.busy.computeIfAbsent(date, k -> new HashMap<>()).put(g, Intervals.of(list));
+                days.load.computeIfAbsent(date, k -> new HashMap<>()).put(g, list.size());
+            }));
+            for (SlotHoldService.Hold h : holds) days.block(h.getDate(), h.getGroomerId(), h.start, h.end);
+            return days;
+        }
+
+        // Unassigned bookings may still go to anyone, so they block every groomer
+        boolean taken(LocalDate date, Long groomerId, int start, int end) {
+            Map<Long, Intervals> day = busy.getOrDefault(date, Map.of());
+            long key = groomerId != null ? groomerId : BookingIntervalIndex.UNASSIGNED;
+            return day.getOrDefault(key, Intervals.EMPTY).overlaps(start, end)
+                    || (groomerId != null && day.getOrDefault(BookingIntervalIndex.UNASSIGNED, Intervals.EMPTY).overlaps(start, end));
+        }
+
+        void add(LocalDate date, Long groomerId, int start, int end) {
+            block(date, groomerId, start, end);
+            load.computeIfAbsent(date, k -> new HashMap<>())
+                    .merge(groomerId != null ? groomerId : BookingIntervalIndex.UNASSIGNED, 1, Integer::sum);
+        }
+
+        private void block(LocalDate date, Long groomerId, int start, int end) {
+            long key = groomerId != null ? groomerId : BookingIntervalIndex.UNASSIGNED;
+            busy.computeIfAbsent(date, k -> new HashMap<>())
+                    .merge(key, new Intervals(new int[]{start}, new int[]{end}, new long[]{-1}), Intervals::with);
+        }
+
+        List<Long> byLoad(LocalDate date, Collection<Long> groomerIds) {
+            Map<Long, Integer> day = load.getOrDefault(date, Map.of());
+            List<Long> out = new ArrayList<>(groomerIds);
+            out.sort(Comparator.comparingInt((Long g) -> day.getOrDefault(g, 0)).thenComparing(g -> g));
+            return out;
+        }
+    }
+}
@@ -8,19 +8,31 @@ import com.cobamovil.backend.repository.RoutePlanRepository;
 import com.cobamovil.backend.repository.PetRepository;
 import com.cobamovil.backend.repository.UserRepository;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 @Service
 public class BookingService {
+    private static final String SLOT_TAKEN = "Ese horario ya ha sido reservado. Por favor, elige otro.";
+    private static final String NOT_YOUR_BOOKING = "No puedes modificar reservas que no est\u00E9n asignadas a tu perfil de peluquero.";
+    private static final int MAX_STATUS_BATCH = 500;
+    private static final String HOLD_EXPIRED = "Tu reserva temporal del horario expir\u00F3. Verifica la disponibilidad e int\u00E9ntalo de nuevo.";
 
     private final BookingRepository bookingRepository;
     private final PetRepository petRepository;
@@ -30,7 +42,13 @@ public class BookingService {
     private final NotificationService notificationService;
     private final RoutePlanRepository routePlanRepository;
     private final com.cobamovil.backend.repository.CutRecordRepository cutRecordRepository;
-    private final DistanceMatrixService distanceMatrixService;
+    private final ApplicationEventPublisher events;
+    private final BookingIntervalIndex intervalIndex;
+    private final BookingSlotLocks slotLocks;
+    private final ServiceCatalog serviceCatalog;
+    private final NamedParameterJdbcTemplate jdbc;
+    private final SlotHoldService slotHolds;
+    private final ServiceZones serviceZones;
 
     public BookingService(BookingRepository bookingRepository,
                           PetRepository petRepository,
@@ -40,7 +58,13 @@ public class BookingService {
                           NotificationService notificationService,
                           RoutePlanRepository routePlanRepository,
                           com.cobamovil.backend.repository.CutRecordRepository cutRecordRepository,
-                          DistanceMatrixService distanceMatrixService) {
+                          ApplicationEventPublisher events,
+                          BookingIntervalIndex intervalIndex,
+                          BookingSlotLocks slotLocks,
+                          ServiceCatalog serviceCatalog,
+                          NamedParameterJdbcTemplate jdbc,
+                          SlotHoldService slotHolds,
+                          ServiceZones serviceZones) {
         this.bookingRepository = bookingRepository;
         this.petRepository = petRepository;
         this.userRepository = userRepository;
@@ -49,7 +73,13 @@ public class BookingService {
         this.notificationService = notificationService;
         this.routePlanRepository = routePlanRepository;
         this.cutRecordRepository = cutRecordRepository;
-        this.distanceMatrixService = distanceMatrixService;
+        this.events = events;
+        this.intervalIndex = intervalIndex;
+        this.slotLocks = slotLocks;
+        this.serviceCatalog = serviceCatalog;
+        this.jdbc = jdbc;
+        this.slotHolds = slotHolds;
+        this.serviceZones = serviceZones;
     }
 
     @Transactional
@@ -66,38 +96,144 @@ public class BookingService {
                 !coverageAreaService.isWithinCoverage(dto.getLatitude(), dto.getLongitude())) {
             throw new IllegalArgumentException("Address out of coverage area");
         }
-        // Validate overlap with approved bookings (single groomer assumption)
-        validateAvailability(dto.getDate(), dto.getTime(), dto.getServiceType());
         Booking booking = new Booking();
         booking.setCustomer(user);
         booking.setPet(pet);
         booking.setServiceType(dto.getServiceType());
+        booking.setDurationMinutes(serviceCatalog.blockedMinutes(dto.getServiceType(), pet));
         booking.setDate(dto.getDate());
         booking.setTime(dto.getTime());
         booking.setAddress(dto.getAddress());
         booking.setLatitude(dto.getLatitude());
         booking.setLongitude(dto.getLongitude());
+        booking.setZoneId(serviceZones.zoneOf(dto.getLatitude(), dto.getLongitude()));
         booking.setNotes(dto.getNotes());
         booking.setStatus(BookingStatus.PENDING);
-        // Assign a groomer: use selection when provided; fallback to first available
-        if (dto.getGroomerId() != null) {
-            User g = userRepository.findById(dto.getGroomerId()).orElseThrow(() -> new EntityNotFoundException("Groomer not found"));
+        // A hold from checkout fixes the groomer; the customer's own holds never block them
+        Long groomerId = dto.getGroomerId();
+        if (dto.getHoldToken() != null) {
+            SlotHoldService.Hold hold = slotHolds.find(dto.getHoldToken());
+            if (hold == null || !hold.getHolder().equals(username) || !hold.getDate().equals(dto.getDate())
+                    || !hold.getTime().equals(dto.getTime()) || hold.getServiceType() != dto.getServiceType()
+                    || (groomerId != null && !groomerId.equals(hold.getGroomerId()))) {
+                throw new IllegalStateException(HOLD_EXPIRED);
+            }
+            groomerId = hold.getGroomerId();
+            releaseHoldAfterCommit(hold.getToken());
+        }
+        // Assign a groomer free at that time: the selected one, otherwise the least loaded free one
+        // among those serving the booking's zone.
+        // The groomer-day stays locked until commit so a concurrent request cannot take the same slot.
+        int duration = booking.getDurationMinutes();
+        if (groomerId != null) {
+            User g = userRepository.findById(groomerId).orElseThrow(() -> new EntityNotFoundException("Groomer not found"));
             if (!"GROOMER".equalsIgnoreCase(g.getRole())) throw new IllegalArgumentException("Selected user is not a groomer");
+            reserveSlot(g.getId(), dto.getDate(), dto.getTime(), duration, null, username);
             booking.setAssignedGroomer(g);
             notificationService.notifyBookingEvent(g, "BOOKING_CREATED", "WHATSAPP");
         } else {
-            var groomers = userRepository.findByRole("GROOMER");
-            if (groomers != null && !groomers.isEmpty()) {
-                booking.setAssignedGroomer(groomers.get(0));
-                notificationService.notifyBookingEvent(groomers.get(0), "BOOKING_CREATED", "WHATSAPP");
+            User g = leastLoadedFreeGroomer(dto.getDate(), dto.getTime(), duration, username, booking.getZoneId());
+            if (g != null) {
+                booking.setAssignedGroomer(g);
+                notificationService.notifyBookingEvent(g, "BOOKING_CREATED", "WHATSAPP");
             }
         }
-        Booking saved = bookingRepository.save(booking);
+        Booking saved = saveHoldingSlot(booking);
+        publishStatusChange(saved, saved.getDate(), saved.getTime(), null);
         // Optionally notify customer that request is pending
         notificationService.notifyBookingEvent(user, "BOOKING_CREATED", "EMAIL");
         return toResponse(saved);
     }
 
+    // Free groomer with the fewest active bookings on that date, its slot already reserved; the
+    // fleet planner rebalances later. Without any groomers the booking stays unassigned.
+    private User leastLoadedFreeGroomer(LocalDate date, LocalTime time, int duration, String holder, Long zoneId) {
+        List<User> byLoad = groomersByLoad(date, zoneId);
+        if (byLoad.isEmpty()) {
+            reserveSlot(null, date, time, duration, null, holder);
+            return null;
+        }
+        for (User g : byLoad) {
+            if (tryReserveSlot(g.getId(), date, time, duration, null, holder)) return g;
+        }
+        throw new IllegalStateException(SLOT_TAKEN);
+    }
+
+    // Groomers serving the zone (every groomer if it has none assigned), least busy first
+    private List<User> groomersByLoad(LocalDate date, Long zoneId) {
+        var groomers = userRepository.findByRole("GROOMER");
+        if (groomers == null || groomers.isEmpty()) return List.of();
+        groomers = groomers.stream().filter(g -> serviceZones.serves(zoneId, g.getId())).toList();
+        java.util.Map<Long, Long> load = bookingRepository.findByDate(date).stream()
+                .filter(b -> b.getAssignedGroomer() != null && b.getStatus() != BookingStatus.REJECTED)
+                .collect(Collectors.groupingBy(b -> b.getAssignedGroomer().getId(), Collectors.counting()));
+        return groomers.stream()
+                .sorted(java.util.Comparator.comparingLong(g -> load.getOrDefault(g.getId(), 0L)))
+                .toList();
+    }
+
+    /**
+     * Holds a free slot for a few minutes (app.booking.holdTtlSeconds) while the customer checks out:
+     * other customers see it as taken, and create() with the hold token books it. The groomer is the
+     * selected one, otherwise the least loaded free one serving the zone of the address, if given.
+     */
+    @Transactional(readOnly = true)
+    public com.cobamovil.backend.dto.SlotHoldDTO holdSlot(com.cobamovil.backend.dto.SlotHoldDTO dto, String username) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+        Pet pet = petRepository.findById(dto.getPetId())
+                .orElseThrow(() -> new EntityNotFoundException("Pet not found"));
+        if (!pet.getOwner().getId().equals(user.getId())) {
+            throw new IllegalArgumentException("Pet does not belong to user");
+        }
+        if (LocalDateTime.of(dto.getDate(), dto.getTime()).isBefore(LocalDateTime.now())) {
+            throw new IllegalArgumentException("Slot is in the past");
+        }
+        int duration = serviceCatalog.blockedMinutes(dto.getServiceType(), pet);
+        List<Long> candidates;
+        if (dto.getGroomerId() != null) {
+            User g = userRepository.findById(dto.getGroomerId()).orElseThrow(() -> new EntityNotFoundException("Groomer not found"));
+            if (!"GROOMER".equalsIgnoreCase(g.getRole())) throw new IllegalArgumentException("Selected user is not a groomer");
+            candidates = List.of(g.getId());
+        } else {
+            Long zoneId = serviceZones.zoneOf(dto.getLatitude(), dto.getLongitude());
+            candidates = groomersByLoad(dto.getDate(), zoneId).stream().map(User::getId).toList();
+            if (candidates.isEmpty()) candidates = java.util.Collections.singletonList(null);
+        }
+        for (Long g : candidates) {
+            // Check and hold as one step; the lock is not kept since nothing is written
+            ReentrantLock lock = slotLocks.lock(g, dto.getDate());
+            try {
+                if (slotTaken(g, dto.getDate(), dto.getTime(), duration, null, username)) continue;
+                SlotHoldService.Hold h = slotHolds.hold(username, g, dto.getDate(), dto.getTime(), duration, dto.getServiceType());
+                com.cobamovil.backend.dto.SlotHoldDTO out = new com.cobamovil.backend.dto.SlotHoldDTO();
+                out.setToken(h.getToken());
+                out.setPetId(pet.getId());
+                out.setServiceType(h.getServiceType());
+                out.setGroomerId(h.getGroomerId());
+                out.setDate(h.getDate());
+                out.setTime(h.getTime());
+                out.setExpiresAt(LocalDateTime.ofInstant(java.time.Instant.ofEpochMilli(h.getExpiresAtMillis()), java.time.ZoneId.systemDefault()));
+                return out;
+            } finally {
+                lock.unlock();
+            }
+        }
+        throw new IllegalStateException(SLOT_TAKEN);
+    }
+
+    public void releaseHold(String token, String username) {
+        SlotHoldService.Hold h = slotHolds.find(token);
+        if (h != null && h.getHolder().equals(username)) slotHolds.release(token);
+    }
+
+    private void releaseHoldAfterCommit(String token) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() { slotHolds.release(token); }
+        });
+    }
+
     @Transactional(readOnly = true)
     public List<BookingResponseDTO> listForUser(String username) {
         User user = userRepository.findByUsername(username)
@@ -126,82 +262,132 @@ public class BookingService {
 
     @Transactional(readOnly = true)
     public List<Long> optimizedIdsForDay(LocalDate date) {
-        var approved = bookingRepository.findByDateAndStatus(date, BookingStatus.APPROVED);
-        // If a manual plan exists, honor it
-        var planOpt = routePlanRepository.findByDate(date);
-        if (planOpt.isPresent() && planOpt.get().getOrderCsv() != null && !planOpt.get().getOrderCsv().isBlank()) {
-            var map = approved.stream().collect(Collectors.toMap(Booking::getId, b -> b));
-            var ids = List.of(planOpt.get().getOrderCsv().split(","))
-                    .stream().filter(s -> !s.isBlank()).map(Long::valueOf).toList();
-            // Only include those still approved
-            return ids.stream().filter(map::containsKey).collect(Collectors.toList());
-        }
-        var ordered = routeOptimizationService.orderByNearest(approved);
-        return ordered.stream().map(Booking::getId).collect(Collectors.toList());
+        var stops = approvedStops(date, null);
+        return orderedStops(date, null, stops, null).stream().map(Booking::getId).collect(Collectors.toList());
     }
 
     @Transactional(readOnly = true)
     public List<Long> optimizedIdsForDayAndGroomer(LocalDate date, Long groomerId) {
-        var list = bookingRepository.findByDateAndStatus(date, BookingStatus.APPROVED)
-                .stream().filter(b -> b.getAssignedGroomer() != null &&
-                        b.getAssignedGroomer().getId().equals(groomerId)).toList();
-        var ordered = routeOptimizationService.orderByNearest(list);
-        return ordered.stream().map(Booking::getId).collect(Collectors.toList());
+        var stops = approvedStops(date, groomerId);
+        return orderedStops(date, groomerId, stops, null).stream().map(Booking::getId).collect(Collectors.toList());
+    }
+
+    /**
+     * Ordered route plus cumulative drive ETAs for a day (optionally a single groomer). A saved plan
+     * whose stops are all still approved is returned with its stored ETAs; otherwise one travel-time
+     * matrix is fetched for the day's stops and shared by the optimizer and the ETA computation.
+     */
+    @Transactional(readOnly = true)
+    public com.cobamovil.backend.dto.RoutePlanDTO routeForDay(LocalDate date, Long groomerId) {
+        var stops = approvedStops(date, groomerId);
+        var plan = savedPlan(date, groomerId);
+        if (plan.isPresent() && plan.get().getEtas() != null) {
+            var ordered = stopsStillApproved(plan.get(), stops);
+            var etas = plan.get().getEtas();
+            if (etas.size() == ordered.size() && ordered.size() == stops.size()) {
+                var ids = ordered.stream().map(Booking::getId).collect(Collectors.toList());
+                return new com.cobamovil.backend.dto.RoutePlanDTO(date.toString(), ids, etas);
+            }
+        }
+        double[][] minutes = routeOptimizationService.travelMinutes(stops);
+        var ordered = orderedStops(date, groomerId, stops, minutes);
+        java.util.Map<Long, Integer> index = new java.util.HashMap<>();
+        for (int i = 0; i < stops.size(); i++) index.put(stops.get(i).getId(), i);
+        int[] order = ordered.stream().mapToInt(b -> index.get(b.getId())).toArray();
+        var ids = ordered.stream().map(Booking::getId).collect(Collectors.toList());
+        var etas = groomerId == null ? RouteOptimizationService.cumulativeEtas(order, minutes)
+                : routeOptimizationService.scheduledEtas(stops, order, minutes);
+        return new com.cobamovil.backend.dto.RoutePlanDTO(date.toString(), ids, etas);
+    }
+
+    @Transactional(readOnly = true)
+    public com.cobamovil.backend.dto.RouteScheduleDTO scheduleForDay(LocalDate date, Long groomerId) {
+        var schedule = routeOptimizationService.schedule(approvedStops(date, groomerId));
+        var dto = new com.cobamovil.backend.dto.RouteScheduleDTO();
+        dto.setDate(date.toString());
+        dto.setGroomerId(groomerId);
+        dto.setBookingIdsInOrder(schedule.getOrdered().stream().map(Booking::getId).collect(Collectors.toList()));
+        dto.setPlannedStartTimes(schedule.getStartTimes());
+        dto.setInfeasibleBookingIds(schedule.getInfeasible().stream().map(Booking::getId).collect(Collectors.toList()));
+        dto.setDriveMinutes((int) Math.round(schedule.getDriveMinutes()));
+        return dto;
+    }
+
+    // Saved plan (manual or fleet planner) if any, otherwise a freshly optimized order.
+    // minutes may be null: the travel matrix is then fetched only if optimization is needed.
+    private List<Booking> orderedStops(LocalDate date, Long groomerId, List<Booking> stops, double[][] minutes) {
+        var planOpt = savedPlan(date, groomerId);
+        if (planOpt.isPresent()) {
+            return stopsStillApproved(planOpt.get(), stops);
+        }
+        if (minutes == null) minutes = routeOptimizationService.travelMinutes(stops);
+        if (groomerId == null) return routeOptimizationService.optimize(stops, minutes);
+        var schedule = routeOptimizationService.schedule(stops, minutes);
+        // Stops that cannot be served on time go last so the admin still sees them in the route
+        List<Booking> ordered = new java.util.ArrayList<>(schedule.getOrdered());
+        ordered.addAll(schedule.getInfeasible());
+        return ordered;
+    }
+
+    // Saved plan with at least one stop for the day-wide route (groomerId null) or one groomer
+    private java.util.Optional<com.cobamovil.backend.entity.RoutePlan> savedPlan(LocalDate date, Long groomerId) {
+        java.util.Optional<com.cobamovil.backend.entity.RoutePlan> planOpt;
+        if (groomerId == null) {
+            planOpt = routePlanRepository.findByDateAndGroomerIsNull(date);
+        } else {
+            planOpt = userRepository.findById(groomerId)
+                    .flatMap(g -> routePlanRepository.findByDateAndGroomer(date, g));
+        }
+        return planOpt.filter(p -> !p.getStops().isEmpty());
+    }
+
+    private static List<Booking> stopsStillApproved(com.cobamovil.backend.entity.RoutePlan plan, List<Booking> approved) {
+        var map = approved.stream().collect(Collectors.toMap(Booking::getId, b -> b));
+        // Only include those still approved
+        return plan.getBookingIds().stream().filter(map::containsKey).map(map::get).collect(Collectors.toList());
+    }
+
+    private List<Booking> approvedStops(LocalDate date, Long groomerId) {
+        var approved = bookingRepository.findByDateAndStatus(date, BookingStatus.APPROVED);
+        if (groomerId == null) return approved;
+        return approved.stream().filter(b -> b.getAssignedGroomer() != null &&
+                b.getAssignedGroomer().getId().equals(groomerId)).toList();
     }
 
     @Transactional(readOnly = true)
     public java.util.List<Integer> etasForOrderedIds(java.util.List<Long> ids) {
-        java.util.List<Integer> etas = new java.util.ArrayList<>();
-        int cum = 0;
-        if (ids == null || ids.size() < 2) { if (ids != null) for (int i=0;i<ids.size();i++) etas.add(cum); return etas; }
+        List<Booking> ordered = bookingsInOrder(ids);
+        int[] order = new int[ordered.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        return RouteOptimizationService.cumulativeEtas(order, routeOptimizationService.travelMinutes(ordered));
+    }
+
+    // Bookings for the given ids in that order; unknown ids are skipped
+    private List<Booking> bookingsInOrder(java.util.List<Long> ids) {
+        if (ids == null || ids.isEmpty()) return new java.util.ArrayList<>();
         java.util.Map<Long, Booking> map = bookingRepository.findAllById(ids).stream().collect(java.util.stream.Collectors.toMap(Booking::getId, b -> b));
-        for (int i=0;i<ids.size();i++) {
-            if (i==0) { etas.add(cum); continue; }
-            Booking prev = map.get(ids.get(i-1));
-            Booking curr = map.get(ids.get(i));
-            Integer minutes = distanceMatrixService.durationMinutes(s(prev.getLatitude()), s(prev.getLongitude()), s(curr.getLatitude()), s(curr.getLongitude()));
-            if (minutes == null) minutes = approxMinutes(prev, curr);
-            cum += minutes;
-            etas.add(cum);
-        }
-        return etas;
-    }
-
-    private static double s(Double v) { return v == null ? 0.0 : v; }
-    private static int approxMinutes(Booking a, Booking b) {
-        double lat1 = s(a.getLatitude()), lon1 = s(a.getLongitude());
-        double lat2 = s(b.getLatitude()), lon2 = s(b.getLongitude());
-        // haversine distance in km
-        double dLat = Math.toRadians(lat2 - lat1);
-        double dLon = Math.toRadians(lon2 - lon1);
-        double aa = Math.sin(dLat/2)*Math.sin(dLat/2) + Math.cos(Math.toRadians(lat1))*Math.cos(Math.toRadians(lat2))*Math.sin(dLon/2)*Math.sin(dLon/2);
-        double c = 2 * Math.atan2(Math.sqrt(aa), Math.sqrt(1-aa));
-        double km = 6371 * c;
-        return (int)Math.round((km / 30.0) * 60.0); // assume 30km/h avg
+        return ids.stream().map(map::get).filter(java.util.Objects::nonNull).toList();
     }
 
     @Transactional
     public BookingResponseDTO updateStatus(Long id, BookingStatus status) {
         Booking booking = bookingRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Booking not found"));
-        // Si el usuario autenticado es un peluquero, solo puede modificar reservas asignadas a �l.
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth != null && auth.isAuthenticated()) {
-            String username = auth.getName();
-            User user = userRepository.findByUsername(username).orElse(null);
-            if (user != null && "GROOMER".equalsIgnoreCase(user.getRole())) {
-                if (booking.getAssignedGroomer() == null || !booking.getAssignedGroomer().getId().equals(user.getId())) {
-                    throw new IllegalStateException("No puedes modificar reservas que no est�n asignadas a tu perfil de peluquero.");
-                }
-            }
+        // Si el usuario autenticado es un peluquero, solo puede modificar reservas asignadas a él.
+        User groomer = currentGroomer();
+        if (groomer != null && !assignedTo(booking, groomer)) throw new IllegalStateException(NOT_YOUR_BOOKING);
+        BookingStatus previous = booking.getStatus();
+        if (!BookingIntervalIndex.HOLDS_SLOT.contains(previous) && BookingIntervalIndex.HOLDS_SLOT.contains(status)) {
+            reserveSlot(groomerIdOf(booking), booking.getDate(), booking.getTime(), booking.getDurationMinutes(), booking.getId(), null);
         }
         booking.setStatus(status);
-        Booking saved = bookingRepository.save(booking);
+        Booking saved = saveHoldingSlot(booking);
+        publishStatusChange(saved, saved.getDate(), saved.getTime(), previous);
         User user = saved.getCustomer();
         switch (status) {
             case APPROVED -> notificationService.notifyBookingEvent(user, "BOOKING_APPROVED", "WHATSAPP");
             case REJECTED -> notificationService.notifyBookingEvent(user, "BOOKING_REJECTED", "WHATSAPP");
-            case ON_ROUTE -> notificationService.notifyBookingEvent(user, "BOOKING_ON_ROUTE", "WHATSAPP");
+            // ON_ROUTE is announced by LiveEtaService once the commit lands, with the live arrival estimate
             case COMPLETED -> {
                 notificationService.notifyBookingEvent(user, "BOOKING_COMPLETED", "EMAIL");
                 // Create a cut record for groomer
@@ -221,6 +407,99 @@ public class BookingService {
         return toResponse(saved);
     }
 
+    /**
+     * Applies several status changes in one transaction, all or nothing: one permission lookup,
+     * one query for the bookings, batched updates and one batch insert for the cut records of
+     * completed bookings. Customer notifications go out asynchronously once the commit lands.
+     */
+    @Transactional
+    public List<BookingResponseDTO> updateStatuses(List<com.cobamovil.backend.dto.BookingStatusBatchDTO.Change> changes) {
+        if (changes.size() > MAX_STATUS_BATCH) {
+            throw new IllegalArgumentException("At most " + MAX_STATUS_BATCH + " changes per request");
+        }
+        java.util.Map<Long, BookingStatus> target = new java.util.LinkedHashMap<>();
+        for (var c : changes) {
+            if (target.put(c.getId(), c.getStatus()) != null) throw new IllegalArgumentException("Duplicate booking id " + c.getId());
+        }
+        java.util.Map<Long, Booking> byId = bookingRepository.findByIdIn(target.keySet()).stream()
+                .collect(Collectors.toMap(Booking::getId, b -> b));
+        User groomer = currentGroomer();
+        List<Booking> bookings = new java.util.ArrayList<>(target.size());
+        for (Long id : target.keySet()) {
+            Booking b = byId.get(id);
+            if (b == null) throw new EntityNotFoundException("Booking not found: " + id);
+            if (groomer != null && !assignedTo(b, groomer)) throw new IllegalStateException(NOT_YOUR_BOOKING);
+            bookings.add(b);
+        }
+
+        BookingStatus[] previous = new BookingStatus[bookings.size()];
+        for (int i = 0; i < bookings.size(); i++) {
+            Booking b = bookings.get(i);
+            previous[i] = b.getStatus();
+            BookingStatus status = target.get(b.getId());
+            // Back to holding a slot: checked here, and by the overlap constraint on flush.
+            // Slot locks are not taken, since a batch would need several at once.
+            if (!BookingIntervalIndex.HOLDS_SLOT.contains(previous[i]) && BookingIntervalIndex.HOLDS_SLOT.contains(status)
+                    && slotTaken(groomerIdOf(b), b.getDate(), b.getTime(), b.getDurationMinutes(), b.getId(), null)) {
+                throw new IllegalStateException(SLOT_TAKEN);
+            }
+            b.setStatus(status);
+        }
+        try {
+            bookingRepository.saveAllAndFlush(bookings);
+        } catch (DataIntegrityViolationException ex) {
+            if (isSlotConflict(ex)) throw new IllegalStateException(SLOT_TAKEN);
+            throw ex;
+        }
+
+        List<SqlParameterSource> cuts = new java.util.ArrayList<>();
+        List<NotificationService.Notice> notices = new java.util.ArrayList<>();
+        java.util.Set<RouteChangedEvent> routes = new java.util.LinkedHashSet<>();
+        for (int i = 0; i < bookings.size(); i++) {
+            Booking b = bookings.get(i);
+            // A re-submitted row changes nothing: no event (listeners would re-send on-route notices) and no re-plan
+            if (b.getStatus() == previous[i]) continue;
+            publishBookingEvent(b, b.getDate(), b.getTime(), previous[i]);
+            routes.addAll(routesOf(b, b.getDate()));
+            switch (b.getStatus()) {
+                case APPROVED -> notices.add(new NotificationService.Notice(b.getCustomer(), "BOOKING_APPROVED", "WHATSAPP"));
+                case REJECTED -> notices.add(new NotificationService.Notice(b.getCustomer(), "BOOKING_REJECTED", "WHATSAPP"));
+                case COMPLETED -> {
+                    notices.add(new NotificationService.Notice(b.getCustomer(), "BOOKING_COMPLETED", "EMAIL"));
+                    if (b.getAssignedGroomer() != null) cuts.add(new MapSqlParameterSource()
+                            .addValue("groomer", b.getAssignedGroomer().getId())
+                            .addValue("service", b.getServiceType().name())
+                            .addValue("pet", b.getPet().getName())
+                            .addValue("date", java.sql.Date.valueOf(b.getDate()))
+                            .addValue("time", java.sql.Time.valueOf(b.getTime()))
+                            .addValue("notes", b.getNotes()));
+                }
+                default -> {}
+            }
+        }
+        if (!cuts.isEmpty()) {
+            // cut_records ids are IDENTITY, which Hibernate does not batch
+            jdbc.batchUpdate("INSERT INTO cut_records (groomer_id, service_type, pet_name, date, time, notes) " +
+                    "VALUES (:groomer, :service, :pet, :date, :time, :notes)", cuts.toArray(SqlParameterSource[]::new));
+        }
+        // One re-plan per route however many of its bookings changed
+        routes.forEach(events::publishEvent);
+        notificationService.notifyBookingEvents(notices);
+        return bookings.stream().map(this::toResponse).collect(Collectors.toList());
+    }
+
+    // The authenticated user when it is a groomer (who may only touch their own bookings), else null
+    private User currentGroomer() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated()) return null;
+        User user = userRepository.findByUsername(auth.getName()).orElse(null);
+        return user != null && "GROOMER".equalsIgnoreCase(user.getRole()) ? user : null;
+    }
+
+    private static boolean assignedTo(Booking b, User groomer) {
+        return b.getAssignedGroomer() != null && b.getAssignedGroomer().getId().equals(groomer.getId());
+    }
+
     @Transactional
     public BookingResponseDTO reschedule(Long id, String username, LocalDate date, java.time.LocalTime time, ServiceType serviceType) {
         User user = userRepository.findByUsername(username).orElseThrow(() -> new EntityNotFoundException("User not found"));
@@ -231,13 +510,21 @@ public class BookingService {
         if (b.getStatus() == BookingStatus.COMPLETED || b.getStatus() == BookingStatus.REJECTED) {
             throw new IllegalStateException("Cannot reschedule completed or rejected booking");
         }
-        validateAvailability(date, time, serviceType != null ? serviceType : b.getServiceType());
-        if (serviceType != null) b.setServiceType(serviceType);
+        int duration = serviceType != null ? serviceCatalog.blockedMinutes(serviceType, b.getPet()) : b.getDurationMinutes();
+        reserveSlot(groomerIdOf(b), date, time, duration, b.getId(), username);
+        LocalDate previousDate = b.getDate();
+        LocalTime previousTime = b.getTime();
+        BookingStatus previous = b.getStatus();
+        if (serviceType != null) {
+            b.setServiceType(serviceType);
+            b.setDurationMinutes(duration);
+        }
         b.setDate(date);
         b.setTime(time);
         // After rescheduling, booking should go back to pending approval
         b.setStatus(BookingStatus.PENDING);
-        Booking saved = bookingRepository.save(b);
+        Booking saved = saveHoldingSlot(b);
+        publishStatusChange(saved, previousDate, previousTime, previous);
         notificationService.notifyBookingEvent(saved.getCustomer(), "BOOKING_RESCHEDULED", "EMAIL");
         return toResponse(saved);
     }
@@ -257,19 +544,53 @@ public class BookingService {
         }
         b.setStatus(BookingStatus.REJECTED);
         bookingRepository.save(b);
+        publishStatusChange(b, b.getDate(), b.getTime(), BookingStatus.PENDING);
         notificationService.notifyBookingEvent(b.getCustomer(), "BOOKING_CANCELED", "WHATSAPP");
     }
 
+    private void publishStatusChange(Booking b, LocalDate previousDate, LocalTime previousTime, BookingStatus previous) {
+        publishBookingEvent(b, previousDate, previousTime, previous);
+        routesOf(b, previousDate).forEach(events::publishEvent);
+    }
+
+    private void publishBookingEvent(Booking b, LocalDate previousDate, LocalTime previousTime, BookingStatus previous) {
+        events.publishEvent(new BookingStatusChangedEvent(b.getId(), groomerIdOf(b), b.getDate(), previousDate, previousTime, previous, b.getStatus()));
+    }
+
+    // The booking's route, and the one it left when it moved to another day
+    static List<RouteChangedEvent> routesOf(Booking b, LocalDate previousDate) {
+        RouteChangedEvent route = new RouteChangedEvent(b.getDate(), groomerIdOf(b));
+        return previousDate == null || previousDate.equals(b.getDate())
+                ? List.of(route)
+                : List.of(route, new RouteChangedEvent(previousDate, groomerIdOf(b)));
+    }
+
     @Transactional
     public void saveRoutePlan(LocalDate date, java.util.List<Long> idsInOrder) {
-        var plan = routePlanRepository.findByDate(date).orElseGet(() -> { var p = new com.cobamovil.backend.entity.RoutePlan(); p.setDate(date); return p; });
-        String csv = idsInOrder == null ? "" : idsInOrder.stream().map(String::valueOf).collect(java.util.stream.Collectors.joining(","));
-        plan.setOrderCsv(csv);
+        saveRoutePlan(date, null, idsInOrder);
+    }
+
+    @Transactional
+    public void saveRoutePlan(LocalDate date, Long groomerId, java.util.List<Long> idsInOrder) {
+        User groomer = groomerId == null ? null
+                : userRepository.findById(groomerId).orElseThrow(() -> new EntityNotFoundException("Groomer not found"));
+        var existing = groomer == null
+                ? routePlanRepository.findByDateAndGroomerIsNull(date)
+                : routePlanRepository.findByDateAndGroomer(date, groomer);
+        var plan = existing.orElseGet(() -> { var p = new com.cobamovil.backend.entity.RoutePlan(); p.setDate(date); p.setGroomer(groomer); return p; });
+        List<Booking> ordered = bookingsInOrder(idsInOrder);
+        int[] order = new int[ordered.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        double[][] minutes = routeOptimizationService.travelMinutes(ordered);
+        // A groomer's route is timed, so its ETAs include service and waits like the planners' ones
+        plan.replaceStops(ordered, groomer == null ? RouteOptimizationService.cumulativeEtas(order, minutes)
+                        : routeOptimizationService.scheduledEtas(ordered, order, minutes),
+                RouteOptimizationService.legDistancesKm(ordered));
         routePlanRepository.save(plan);
     }
 
     @Transactional(readOnly = true)
-    public com.cobamovil.backend.dto.AvailabilityResponseDTO checkAvailability(LocalDate date, LocalTime time, ServiceType serviceType) {
+    public com.cobamovil.backend.dto.AvailabilityResponseDTO checkAvailability(LocalDate date, LocalTime time, ServiceType serviceType, Double lat, Double lng) {
         com.cobamovil.backend.dto.AvailabilityResponseDTO dto = new com.cobamovil.backend.dto.AvailabilityResponseDTO();
         // Date/time in the past
         LocalDateTime now = LocalDateTime.now();
@@ -280,47 +601,77 @@ public class BookingService {
             dto.setGroomerIds(java.util.Collections.emptyList());
             return dto;
         }
-        try {
-            validateAvailability(date, time, serviceType);
-        } catch (IllegalStateException ex) {
+        // With an address, only the groomers serving its zone count
+        Long zoneId = serviceZones.zoneOf(lat, lng);
+        var groomers = userRepository.findByRole("GROOMER").stream()
+                .filter(g -> serviceZones.serves(zoneId, g.getId())).toList();
+        if (groomers.isEmpty()) {
             dto.setAvailable(false);
-            dto.setMessage("Ese horario ya ha sido reservado. Por favor, elige otro.");
+            dto.setMessage("No hay peluqueros disponibles en ese horario. Intenta otra fecha u hora.");
             dto.setGroomerIds(java.util.Collections.emptyList());
             return dto;
         }
-        var groomers = userRepository.findByRole("GROOMER");
-        if (groomers == null || groomers.isEmpty()) {
+        // Slots held by other customers during checkout count as taken
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        String holder = auth != null && auth.isAuthenticated() ? auth.getName() : null;
+        List<Long> free = groomers.stream().map(User::getId)
+                .filter(id -> !slotTaken(id, date, time, serviceCatalog.blockedMinutes(serviceType), null, holder))
+                .collect(java.util.stream.Collectors.toList());
+        if (free.isEmpty()) {
             dto.setAvailable(false);
-            dto.setMessage("No hay peluqueros disponibles en ese horario. Intenta otra fecha u hora.");
+            dto.setMessage(SLOT_TAKEN);
             dto.setGroomerIds(java.util.Collections.emptyList());
             return dto;
         }
         dto.setAvailable(true);
         dto.setMessage("Horario disponible.");
-        dto.setGroomerIds(groomers.stream().map(User::getId).collect(java.util.stream.Collectors.toList()));
+        dto.setGroomerIds(free);
         return dto;
     }
 
-    private void validateAvailability(LocalDate date, java.time.LocalTime time, ServiceType serviceType) {
-        int duration = switch (serviceType) {
-            case BATH -> 45; // minutes
-            case HAIRCUT -> 60;
-            case NAIL_TRIM -> 20;
-            case FULL_GROOMING -> 90;
-        };
-        java.time.LocalDateTime start = java.time.LocalDateTime.of(date, time);
-        java.time.LocalDateTime end = start.plusMinutes(duration);
-        var approved = bookingRepository.findByDateAndStatus(date, BookingStatus.APPROVED);
-        for (Booking other : approved) {
-            java.time.LocalDateTime oStart = java.time.LocalDateTime.of(other.getDate(), other.getTime());
-            int oDur = switch (other.getServiceType()) {
-                case BATH -> 45; case HAIRCUT -> 60; case NAIL_TRIM -> 20; case FULL_GROOMING -> 90; };
-            java.time.LocalDateTime oEnd = oStart.plusMinutes(oDur);
-            boolean overlap = !end.isBefore(oStart) && !start.isAfter(oEnd);
-            if (overlap) throw new IllegalStateException("Selected time overlaps with another approved booking");
+    // Unassigned bookings may still go to anyone, so they block every groomer. Live holds count as
+    // bookings except those of holder (null: every hold counts).
+    private boolean slotTaken(Long groomerId, LocalDate date, LocalTime time, int duration, Long ignoreBookingId, String holder) {
+        int start = time.getHour() * 60 + time.getMinute();
+        return intervalIndex.overlaps(date, groomerId, time, duration, ignoreBookingId)
+                || (groomerId != null && intervalIndex.overlaps(date, null, time, duration, ignoreBookingId))
+                || slotHolds.overlaps(date, groomerId, start, start + duration, holder);
+    }
+
+    // Locks the groomer-day and checks the slot; on success the lock is held until the transaction ends
+    private boolean tryReserveSlot(Long groomerId, LocalDate date, LocalTime time, int duration, Long ignoreBookingId, String holder) {
+        ReentrantLock lock = slotLocks.lock(groomerId, date);
+        if (slotTaken(groomerId, date, time, duration, ignoreBookingId, holder)) {
+            lock.unlock();
+            return false;
+        }
+        slotLocks.keepUntilCompletion(lock);
+        return true;
+    }
+
+    private void reserveSlot(Long groomerId, LocalDate date, LocalTime time, int duration, Long ignoreBookingId, String holder) {
+        if (!tryReserveSlot(groomerId, date, time, duration, ignoreBookingId, holder)) throw new IllegalStateException(SLOT_TAKEN);
+    }
+
+    // Flushes right away so another instance winning the same slot surfaces here as a 409
+    private Booking saveHoldingSlot(Booking booking) {
+        try {
+            return bookingRepository.saveAndFlush(booking);
+        } catch (DataIntegrityViolationException ex) {
+            if (isSlotConflict(ex)) throw new IllegalStateException(SLOT_TAKEN);
+            throw ex;
         }
     }
 
+    static boolean isSlotConflict(DataIntegrityViolationException ex) {
+        String message = ex.getMostSpecificCause().getMessage();
+        return message != null && message.contains("bookings_groomer_no_overlap");
+    }
+
+    private static Long groomerIdOf(Booking b) {
+        return b.getAssignedGroomer() != null ? b.getAssignedGroomer().getId() : null;
+    }
+
     private BookingResponseDTO toResponse(Booking b) {
         BookingResponseDTO r = new BookingResponseDTO();
         r.setId(b.getId());
@@ -0,0 +1,48 @@
+package com.cobamovil.backend.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped locks keyed by groomer and day, so the overlap check and the insert of a booking happen
+ * as one step within this instance. A lock that is kept is released only when the surrounding
+ * transaction completes, after the interval index has seen the commit. Across instances the
+ * bookings_groomer_no_overlap constraint is the final guard.
+ */
+@Component
+public class BookingSlotLocks {
+    private static final int STRIPES = 64;
+
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    public BookingSlotLocks() {
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new ReentrantLock();
+    }
+
+    /**
+     * Blocks until the groomer-day is free. The caller either keeps it with
+     * {@link #keepUntilCompletion} or hands it back right away with {@link ReentrantLock#unlock}.
+     * Hold at most one such lock at a time.
+     */
+    public ReentrantLock lock(Long groomerId, LocalDate date) {
+        int h = 31 * Long.hashCode(groomerId != null ? groomerId : 0L) + date.hashCode();
+        ReentrantLock lock = stripes[Math.floorMod(h ^ (h >>> 16), STRIPES)];
+        lock.lock();
+        return lock;
+    }
+
+    public void keepUntilCompletion(ReentrantLock lock) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            lock.unlock();
+            throw new IllegalStateException("Slot locks must be taken inside a transaction");
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) { lock.unlock(); }
+        });
+    }
+}
@@ -0,0 +1,39 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.entity.BookingStatus;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Published by {@link BookingService} whenever a booking is created or changes status, date or time. Listeners that
+ * touch the database should run after the publishing transaction commits.
+ */
+public class BookingStatusChangedEvent {
+    private final Long bookingId;
+    private final Long groomerId;
+    private final LocalDate date;
+    private final LocalDate previousDate;
+    private final LocalTime previousTime;
+    private final BookingStatus previousStatus;
+    private final BookingStatus status;
+
+    public BookingStatusChangedEvent(Long bookingId, Long groomerId, LocalDate date, LocalDate previousDate,
+                                     LocalTime previousTime, BookingStatus previousStatus, BookingStatus status) {
+        this.bookingId = bookingId;
+        this.groomerId = groomerId;
+        this.date = date;
+        this.previousDate = previousDate;
+        this.previousTime = previousTime;
+        this.previousStatus = previousStatus;
+        this.status = status;
+    }
+
+    public Long getBookingId() { return bookingId; }
+    public Long getGroomerId() { return groomerId; }
+    public LocalDate getDate() { return date; }
+    public LocalDate getPreviousDate() { return previousDate; }
+    public LocalTime getPreviousTime() { return previousTime; }
+    public BookingStatus getPreviousStatus() { return previousStatus; }
+    public BookingStatus getStatus() { return status; }
+}
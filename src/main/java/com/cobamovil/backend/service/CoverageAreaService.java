@@ -3,19 +3,25 @@ package com.cobamovil.backend.service;
 import com.cobamovil.backend.config.CoverageProperties;
 import org.springframework.stereotype.Service;
 
+/**
+ * Whether an address is served. Once service zones are defined the address must fall in one of
+ * them; until then the app.coverage bounding box applies, if enabled.
+ */
 @Service
 public class CoverageAreaService {
     private final CoverageProperties props;
+    private final ServiceZones serviceZones;
 
-    public CoverageAreaService(CoverageProperties props) {
+    public CoverageAreaService(CoverageProperties props, ServiceZones serviceZones) {
         this.props = props;
+        this.serviceZones = serviceZones;
     }
 
     public boolean isWithinCoverage(Double lat, Double lng) {
+        if (serviceZones.isDefined()) return serviceZones.zoneOf(lat, lng) != null;
         if (!props.isEnabled()) return true; // if disabled, accept all
         if (lat == null || lng == null) return false;
         return lat >= props.getMinLat() && lat <= props.getMaxLat()
                 && lng >= props.getMinLng() && lng <= props.getMaxLng();
     }
 }
-
@@ -0,0 +1,240 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.config.BookingProperties;
+import com.cobamovil.backend.config.ForecastProperties;
+import com.cobamovil.backend.dto.DemandForecastDTO;
+import com.cobamovil.backend.entity.BookingStatus;
+import com.cobamovil.backend.entity.ServiceType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Demand forecast per day, zone (geohash cell) and service type, for deciding how many groomers to
+ * schedule. A nightly job streams the booking history through a server-side cursor into one
+ * array of daily counts per zone and service, fits a weekly Holt-Winters model to each and
+ * stores the predictions; memory is bounded by the number of zones in the coverage area times the
+ * history length, not by the number of bookings.
+ */
+@Service
+public class DemandForecastService {
+    private static final Logger log = LoggerFactory.getLogger(DemandForecastService.class);
+    static final String POOLED_ZONE = "*";
+    private static final List<String> DEMAND_STATUSES = List.of(BookingStatus.PENDING.name(), BookingStatus.APPROVED.name(),
+            BookingStatus.ON_ROUTE.name(), BookingStatus.COMPLETED.name());
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final ForecastProperties props;
+    private final BookingProperties bookingProps;
+
+    public DemandForecastService(DataSource dataSource, ForecastProperties props, BookingProperties bookingProps) {
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.setFetchSize(1000); // Postgres streams with a cursor inside a transaction
+        this.jdbc = new NamedParameterJdbcTemplate(template);
+        this.props = props;
+        this.bookingProps = bookingProps;
+    }
+
+    @Scheduled(cron = "0 40 2 * * *")
+    @Transactional
+    public void train() {
+        LocalDate today = LocalDate.now();
+        LocalDate start = today.minusDays(props.getHistoryDays());
+        int days = props.getHistoryDays();
+        if (days < 2 * HoltWinters.SEASON) {
+            log.warn("Demand forecast needs at least {} days of history, got {}", 2 * HoltWinters.SEASON, days);
+            return;
+        }
+        Map<String, Series> series = new HashMap<>();
+        jdbc.query("SELECT date, service_type, latitude, longitude, duration_minutes FROM bookings " +
+                        "WHERE date >= :from AND date < :to AND status IN (:statuses)",
+                new MapSqlParameterSource("from", Date.valueOf(start)).addValue("to", Date.valueOf(today))
+                        .addValue("statuses", DEMAND_STATUSES),
+                rs -> {
+                    int day = (int) ChronoUnit.DAYS.between(start, rs.getDate(1).toLocalDate());
+                    double lat = rs.getDouble(3);
+                    boolean located = !rs.wasNull();
+                    double lng = rs.getDouble(4);
+                    located &= !rs.wasNull();
+                    String zone = located ? TravelTimeCache.geohash(lat, lng, props.getZonePrecision()) : POOLED_ZONE;
+                    series.computeIfAbsent(zone + '|' + rs.getString(2), k -> new Series(days)).add(day, rs.getInt(5));
+                });
+
+        // Sparse zones say little on their own: pool them per service type
+        Map<String, Series> fitted = new HashMap<>();
+        series.forEach((key, s) -> {
+            String type = key.substring(key.indexOf('|') + 1);
+            String target = s.bookings < props.getMinSeriesBookings() ? POOLED_ZONE + '|' + type : key;
+            fitted.merge(target, s, Series::plus);
+        });
+
+        int horizon = props.getHorizonDays();
+        Timestamp trainedAt = Timestamp.valueOf(LocalDateTime.now());
+        List<SqlParameterSource> rows = new ArrayList<>();
+        fitted.forEach((key, s) -> {
+            int bar = key.indexOf('|');
+            double minutesPerBooking = s.bookings > 0 ? (double) s.minutes / s.bookings : 0;
+            HoltWinters model = HoltWinters.fit(s.counts);
+            for (int h = 1; h <= horizon; h++) {
+                double bookings = Math.max(0, model.forecast(h));
+                if (bookings < 0.01) continue;
+                rows.add(new MapSqlParameterSource()
+                        .addValue("date", Date.valueOf(today.plusDays(h - 1)))
+                        .addValue("zone", key.substring(0, bar))
+                        .addValue("service", key.substring(bar + 1))
+                        .addValue("bookings", bookings)
+                        .addValue("minutes", bookings * minutesPerBooking)
+                        .addValue("trainedAt", trainedAt));
+            }
+        });
+        jdbc.update("DELETE FROM demand_forecasts WHERE date >= :today", new MapSqlParameterSource("today", Date.valueOf(today)));
+        if (!rows.isEmpty()) {
+            jdbc.batchUpdate("INSERT INTO demand_forecasts (date, zone, service_type, bookings, minutes, trained_at) " +
+                    "VALUES (:date, :zone, :service, :bookings, :minutes, :trainedAt)", rows.toArray(SqlParameterSource[]::new));
+        }
+        log.info("Demand forecast trained on {} series ({} before pooling), {} rows through {}",
+                fitted.size(), series.size(), rows.size(), today.plusDays(horizon - 1));
+    }
+
+    /**
+     * Stored predictions for [from, to], one entry per day with the zone breakdown and the groomers
+     * needed to cover the predicted service minutes within the workday.
+     */
+    @Transactional(readOnly = true)
+    public List<DemandForecastDTO> forecast(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) throw new IllegalArgumentException("'to' must not be before 'from'");
+        Map<LocalDate, DemandForecastDTO> byDate = new TreeMap<>();
+        jdbc.query("SELECT date, zone, service_type, bookings, minutes FROM demand_forecasts " +
+                        "WHERE date BETWEEN :from AND :to ORDER BY date, bookings DESC",
+                new MapSqlParameterSource("from", Date.valueOf(from)).addValue("to", Date.valueOf(to)),
+                rs -> {
+                    LocalDate date = rs.getDate(1).toLocalDate();
+                    DemandForecastDTO day = byDate.computeIfAbsent(date, d -> {
+                        DemandForecastDTO dto = new DemandForecastDTO();
+                        dto.setDate(d);
+                        dto.setDayOfWeek(d.getDayOfWeek());
+                        dto.setZones(new ArrayList<>());
+                        return dto;
+                    });
+                    double bookings = rs.getDouble(4), minutes = rs.getDouble(5);
+                    day.getZones().add(new DemandForecastDTO.Zone(rs.getString(2), ServiceType.valueOf(rs.getString(3)), bookings, minutes));
+                    day.setPredictedBookings(day.getPredictedBookings() + bookings);
+                    day.setPredictedMinutes(day.getPredictedMinutes() + minutes);
+                });
+        double capacity = Duration.between(bookingProps.getWorkdayStart(), bookingProps.getWorkdayEnd()).toMinutes()
+                * props.getGroomerUtilization();
+        for (DemandForecastDTO day : byDate.values()) {
+            day.setRecommendedGroomers(capacity > 0 ? (int) Math.ceil(day.getPredictedMinutes() / capacity - 1e-9) : 0);
+        }
+        return new ArrayList<>(byDate.values());
+    }
+
+    // Daily booking counts of one zone and service type over the history window
+    static final class Series {
+        final double[] counts;
+        long bookings;
+        long minutes;
+
+        Series(int days) {
+            counts = new double[days];
+        }
+
+        void add(int day, int durationMinutes) {
+            counts[day]++;
+            bookings++;
+            minutes += durationMinutes;
+        }
+
+        Series plus(Series other) {
+            Series s = new Series(counts.length);
+            for (int i = 0; i < counts.length; i++) s.counts[i] = counts[i] + other.counts[i];
+            s.bookings = bookings + other.bookings;
+            s.minutes = minutes + other.minutes;
+            return s;
+        }
+    }
+
+    /**
+     * Additive Holt-Winters with a weekly season and a damped trend. Smoothing factors are picked
+     * from a small grid by one-step-ahead squared error over the history.
+     */
+    static final class HoltWinters {
+        static final int SEASON = 7;
+        private static final double PHI = 0.9;
+        private static final double[] ALPHAS = {0.05, 0.1, 0.2, 0.4};
+        private static final double[] BETAS = {0.01, 0.05, 0.1};
+        private static final double[] GAMMAS = {0.05, 0.1, 0.3};
+
+        final double alpha, beta, gamma;
+        final int length;
+        double level;
+        double trend;
+        final double[] season = new double[SEASON];
+        double sse;
+
+        private HoltWinters(double alpha, double beta, double gamma, int length) {
+            this.alpha = alpha;
+            this.beta = beta;
+            this.gamma = gamma;
+            this.length = length;
+        }
+
+        /** y needs at least two seasons; day i of y falls in seasonal slot i % SEASON. */
+        static HoltWinters fit(double[] y) {
+            if (y.length < 2 * SEASON) throw new IllegalArgumentException("Need at least " + 2 * SEASON + " observations");
+            HoltWinters best = null;
+            for (double a : ALPHAS) {
+                for (double b : BETAS) {
+                    for (double g : GAMMAS) {
+                        HoltWinters m = new HoltWinters(a, b, g, y.length);
+                        m.run(y);
+                        if (best == null || m.sse < best.sse) best = m;
+                    }
+                }
+            }
+            return best;
+        }
+
+        private void run(double[] y) {
+            double first = 0, second = 0;
+            for (int i = 0; i < SEASON; i++) { first += y[i]; second += y[i + SEASON]; }
+            first /= SEASON;
+            second /= SEASON;
+            level = first;
+            trend = (second - first) / SEASON;
+            for (int i = 0; i < SEASON; i++) season[i] = y[i] - first;
+            sse = 0;
+            for (int t = SEASON; t < y.length; t++) {
+                int s = t % SEASON;
+                double err = y[t] - (level + PHI * trend + season[s]);
+                sse += err * err;
+                double previous = level;
+                level = alpha * (y[t] - season[s]) + (1 - alpha) * (level + PHI * trend);
+                trend = beta * (level - previous) + (1 - beta) * PHI * trend;
+                season[s] = gamma * (y[t] - level) + (1 - gamma) * season[s];
+            }
+        }
+
+        /** Prediction h >= 1 steps after the last observation. */
+        double forecast(int h) {
+            double damped = 0, p = 1;
+            for (int k = 1; k <= h; k++) { p *= PHI; damped += p; }
+            return level + damped * trend + season[(length + h - 1) % SEASON];
+        }
+    }
+}
@@ -1,41 +1,239 @@
 package com.cobamovil.backend.service;
 
+import com.cobamovil.backend.config.HttpClientProperties;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 @Service
 public class DistanceMatrixService {
     private static final Logger log = LoggerFactory.getLogger(DistanceMatrixService.class);
-    private final RestTemplate http = new RestTemplate();
-    private final String apiKey = System.getenv("GOOGLE_MAPS_API_KEY");
+    private static final String DEFAULT_BASE_URL = "https://maps.googleapis.com/maps/api/distancematrix/json";
+    // Provider limits per request: at most 25 origins or destinations and 100 elements (origins x destinations)
+    static final int MAX_PER_SIDE = 25;
+    static final int MAX_ELEMENTS = 100;
+
+    private final RestTemplate http;
+    private final String apiKey;
+    private final String baseUrl;
+    private final TravelTimeCache cache; // null: always ask the provider
+    private final RoadNetworkService roads; // null: no offline engine
+
+    @Autowired
+    public DistanceMatrixService(TravelTimeCache cache, RoadNetworkService roads, OutboundHttp outboundHttp,
+                                 HttpClientProperties httpProps) {
+        this(outboundHttp.restTemplate("google-maps", "maps.googleapis.com", Duration.ofMillis(httpProps.getReadTimeoutMillis()),
+                        httpProps.getMaxConcurrentCalls()),
+                System.getenv("GOOGLE_MAPS_API_KEY"), DEFAULT_BASE_URL, cache, roads);
+    }
+
+    DistanceMatrixService(RestTemplate http, String apiKey, String baseUrl) {
+        this(http, apiKey, baseUrl, null);
+    }
+
+    DistanceMatrixService(RestTemplate http, String apiKey, String baseUrl, TravelTimeCache cache) {
+        this(http, apiKey, baseUrl, cache, null);
+    }
+
+    DistanceMatrixService(RestTemplate http, String apiKey, String baseUrl, TravelTimeCache cache, RoadNetworkService roads) {
+        this.http = http;
+        this.apiKey = apiKey;
+        this.baseUrl = baseUrl;
+        this.cache = cache;
+        this.roads = roads;
+    }
+
+    public boolean isEnabled() {
+        return hasProvider() || (roads != null && roads.isAvailable());
+    }
+
+    private boolean hasProvider() {
+        return apiKey != null && !apiKey.isBlank();
+    }
 
     public Integer durationMinutes(double oLat, double oLng, double dLat, double dLng) {
+        if (!isEnabled()) return null;
+        if (hasProvider()) {
+            try {
+                int[][] block = fetchBlock(new double[]{oLat}, new double[]{oLng}, new double[]{dLat}, new double[]{dLng}, LocalDateTime.now());
+                if (block == null || block[0][0] < 0) return null;
+                return (int) Math.round(block[0][0] / 60.0);
+            } catch (CallNotPermittedException | BulkheadFullException ex) {
+                // Provider circuit open or saturated: the road engine answers instead, when loaded
+                log.debug("DistanceMatrix skipped: {}", ex.getMessage());
+                if (roads == null) return null;
+            }
+        }
+        int[][] m = roads.durationMatrixSeconds(new double[]{oLat, dLat}, new double[]{oLng, dLng});
+        return m == null || m[0][1] < 0 ? null : (int) Math.round(m[0][1] / 60.0);
+    }
+
+    /** {@link #durationMatrixSeconds(double[], double[], LocalDateTime)} for trips starting now. */
+    public int[][] durationMatrixSeconds(double[] lats, double[] lngs) {
+        return durationMatrixSeconds(lats, lngs, LocalDateTime.now());
+    }
+
+    /**
+     * Driving times in seconds between every pair of points (row = origin, column = destination)
+     * for trips starting at departure, which picks the cache's time-of-day bucket and, when still
+     * ahead, the provider's traffic forecast.
+     * Pairs already in the travel time cache are served from it; the remaining origins and
+     * destinations are fetched in as few requests as the provider's element limits allow.
+     * Without a provider key, or for pairs the provider could not answer, the offline road network
+     * is used when loaded. Unknown pairs are -1 and the diagonal is 0. Returns null when neither
+     * source is available.
+     */
+    public int[][] durationMatrixSeconds(double[] lats, double[] lngs, LocalDateTime departure) {
+        if (!isEnabled()) return null;
+        // Local graph queries are cheaper than a cache round trip, so they skip the cache entirely
+        if (!hasProvider()) return roads.durationMatrixSeconds(lats, lngs);
+        int n = lats.length;
+        int[][] out = new int[n][n];
+        for (int[] row : out) Arrays.fill(row, -1);
+        for (int i = 0; i < n; i++) out[i][i] = 0;
+        if (n < 2) return out;
+
+        String[] cells = null;
+        int bucket = 0;
+        if (cache != null) {
+            cells = new String[n];
+            for (int i = 0; i < n; i++) cells[i] = cache.cell(lats[i], lngs[i]);
+            bucket = cache.bucket(departure.toLocalTime());
+            if (cache.lookup(cells, bucket, out) == 0) return out;
+        }
+
+        // Only origins and destinations that still have an unknown pair go to the provider
+        boolean[] originMissing = new boolean[n], destMissing = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (out[i][j] < 0) { originMissing[i] = true; destMissing[j] = true; }
+            }
+        }
+        int[] origins = indicesOf(originMissing), dests = indicesOf(destMissing);
+        int[][] fetched = new int[n][n];
+        for (int[] row : fetched) Arrays.fill(row, -1);
+
+        int destChunk = Math.min(dests.length, MAX_PER_SIDE);
+        int originChunk = Math.max(1, Math.min(MAX_PER_SIDE, MAX_ELEMENTS / destChunk));
+        try {
+            for (int o = 0; o < origins.length; o += originChunk) {
+                int[] os = Arrays.copyOfRange(origins, o, Math.min(origins.length, o + originChunk));
+                for (int d = 0; d < dests.length; d += destChunk) {
+                    int[] ds = Arrays.copyOfRange(dests, d, Math.min(dests.length, d + destChunk));
+                    int[][] block = fetchBlock(pick(lats, os), pick(lngs, os), pick(lats, ds), pick(lngs, ds), departure);
+                    if (block == null) continue;
+                    for (int a = 0; a < os.length; a++) {
+                        for (int b = 0; b < ds.length; b++) {
+                            int i = os[a], j = ds[b];
+                            if (i != j && out[i][j] < 0) fetched[i][j] = out[i][j] = block[a][b];
+                        }
+                    }
+                }
+            }
+        } catch (CallNotPermittedException | BulkheadFullException ex) {
+            // Provider circuit open or saturated: the remaining blocks would be refused as well, so
+            // the road engine or the straight-line estimate fills in without asking for them
+            log.debug("DistanceMatrix skipped: {}", ex.getMessage());
+        }
+        if (cache != null) cache.store(cells, bucket, fetched);
+        if (roads != null) fillFromRoads(lats, lngs, out);
+        return out;
+    }
+
+    private void fillFromRoads(double[] lats, double[] lngs, int[][] out) {
+        boolean gaps = false;
+        for (int[] row : out) for (int v : row) if (v < 0) { gaps = true; break; }
+        if (!gaps) return;
+        int[][] road = roads.durationMatrixSeconds(lats, lngs);
+        if (road == null) return;
+        for (int i = 0; i < out.length; i++) {
+            for (int j = 0; j < out.length; j++) if (out[i][j] < 0) out[i][j] = road[i][j];
+        }
+    }
+
+    private static int[] indicesOf(boolean[] flags) {
+        int c = 0;
+        for (boolean f : flags) if (f) c++;
+        int[] out = new int[c];
+        for (int i = 0, k = 0; i < flags.length; i++) if (flags[i]) out[k++] = i;
+        return out;
+    }
+
+    private static double[] pick(double[] values, int[] idx) {
+        double[] out = new double[idx.length];
+        for (int k = 0; k < idx.length; k++) out[k] = values[idx[k]];
+        return out;
+    }
+
+    private int[][] fetchBlock(double[] oLat, double[] oLng, double[] dLat, double[] dLng, LocalDateTime departure) {
+        // The provider only forecasts traffic for departures ahead; a past one is asked as now
+        long departAt = departure.atZone(ZoneId.systemDefault()).toEpochSecond();
+        String departureTime = departAt > Instant.now().getEpochSecond() ? Long.toString(departAt) : "now";
         try {
-            if (apiKey == null || apiKey.isBlank()) return null;
-            String url = String.format(
-                    "https://maps.googleapis.com/maps/api/distancematrix/json?origins=%f,%f&destinations=%f,%f&mode=driving&departure_time=now&key=%s",
-                    oLat, oLng, dLat, dLng, apiKey);
-            ResponseEntity<java.util.Map> resp = http.getForEntity(url, java.util.Map.class);
+            String url = UriComponentsBuilder.fromUriString(baseUrl)
+                    .queryParam("origins", joinPoints(oLat, oLng))
+                    .queryParam("destinations", joinPoints(dLat, dLng))
+                    .queryParam("mode", "driving")
+                    .queryParam("departure_time", departureTime)
+                    .queryParam("key", apiKey)
+                    .build()
+                    .toUriString();
+            ResponseEntity<Map> resp = http.getForEntity(url, Map.class);
             var body = resp.getBody();
             if (body == null) return null;
-            var rows = (java.util.List<?>) body.get("rows");
-            if (rows == null || rows.isEmpty()) return null;
-            var elements = (java.util.List<?>) ((java.util.Map<?,?>)rows.get(0)).get("elements");
-            if (elements == null || elements.isEmpty()) return null;
-            var el = (java.util.Map<?,?>) elements.get(0);
-            var duration = (java.util.Map<?,?>) el.get("duration");
-            if (duration == null) duration = (java.util.Map<?,?>) el.get("duration_in_traffic");
-            if (duration == null) return null;
-            Number seconds = (Number) duration.get("value");
-            if (seconds == null) return null;
-            return (int) Math.round(seconds.doubleValue() / 60.0);
+            var rows = (List<?>) body.get("rows");
+            if (rows == null || rows.size() != oLat.length) return null;
+            int[][] block = new int[oLat.length][dLat.length];
+            for (int i = 0; i < oLat.length; i++) {
+                Arrays.fill(block[i], -1);
+                var elements = (List<?>) ((Map<?, ?>) rows.get(i)).get("elements");
+                if (elements == null) continue;
+                for (int j = 0; j < Math.min(dLat.length, elements.size()); j++) {
+                    block[i][j] = seconds((Map<?, ?>) elements.get(j));
+                }
+            }
+            return block;
+        } catch (CallNotPermittedException | BulkheadFullException ex) {
+            throw ex;
         } catch (Exception ex) {
             log.warn("DistanceMatrix error: {}", ex.getMessage());
             return null;
         }
     }
-}
 
+    private static int seconds(Map<?, ?> el) {
+        if (el == null) return -1;
+        Object status = el.get("status");
+        if (status != null && !"OK".equals(status)) return -1;
+        var duration = (Map<?, ?>) el.get("duration");
+        if (duration == null) duration = (Map<?, ?>) el.get("duration_in_traffic");
+        if (duration == null) return -1;
+        Number value = (Number) duration.get("value");
+        return value == null ? -1 : value.intValue();
+    }
+
+    // "lat,lng|lat,lng" with a fixed locale so decimals never come out with commas
+    private static String joinPoints(double[] lat, double[] lng) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lat.length; i++) {
+            if (i > 0) sb.append('|');
+            sb.append(String.format(Locale.ROOT, "%.6f,%.6f", lat[i], lng[i]));
+        }
+        return sb.toString();
+    }
+}
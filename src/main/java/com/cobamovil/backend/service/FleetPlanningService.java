@@ -0,0 +1,495 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.dto.FleetPlanDTO;
+import com.cobamovil.backend.dto.RouteScheduleDTO;
+import com.cobamovil.backend.entity.Booking;
+import com.cobamovil.backend.entity.BookingStatus;
+import com.cobamovil.backend.entity.RoutePlan;
+import com.cobamovil.backend.entity.User;
+import com.cobamovil.backend.repository.BookingRepository;
+import com.cobamovil.backend.repository.RoutePlanRepository;
+import com.cobamovil.backend.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Assigns a day's approved bookings to groomers and routes each groomer:
+ * capacity-balanced geographic clustering (cluster-first, route-second), time-window routing per
+ * cluster, then repair of stops that miss their window and workload balancing between groomers.
+ * With service zones defined, each zone is solved on its own with the groomers assigned to it, so
+ * every solve stays small and groomers stay local.
+ */
+@Service
+public class FleetPlanningService {
+    private static final Logger log = LoggerFactory.getLogger(FleetPlanningService.class);
+
+    private static final int CLUSTER_ITERATIONS = 10;
+    private static final double CAPACITY_SLACK = 1.2;     // a cluster may take 20% more than the fair share
+    private static final int BALANCE_ROUNDS = 20;
+    private static final int BALANCE_CANDIDATES = 5;
+    private static final double BALANCE_TOLERANCE_MIN = 30; // stop balancing once workloads are this close
+
+    private final BookingRepository bookingRepository;
+    private final UserRepository userRepository;
+    private final RoutePlanRepository routePlanRepository;
+    private final RouteOptimizationService routeOptimizationService;
+    private final BookingIntervalIndex intervalIndex;
+    private final ServiceZones serviceZones;
+
+    public FleetPlanningService(BookingRepository bookingRepository,
+                                UserRepository userRepository,
+                                RoutePlanRepository routePlanRepository,
+                                RouteOptimizationService routeOptimizationService,
+                                BookingIntervalIndex intervalIndex,
+                                ServiceZones serviceZones) {
+        this.bookingRepository = bookingRepository;
+        this.userRepository = userRepository;
+        this.routePlanRepository = routePlanRepository;
+        this.routeOptimizationService = routeOptimizationService;
+        this.intervalIndex = intervalIndex;
+        this.serviceZones = serviceZones;
+    }
+
+    @Transactional
+    public FleetPlanDTO planDay(LocalDate date) {
+        List<User> groomers = userRepository.findByRole("GROOMER");
+        if (groomers == null || groomers.isEmpty()) {
+            throw new IllegalStateException("No hay peluqueros registrados para planificar la ruta del día.");
+        }
+        List<Booking> approved = bookingRepository.findByDateAndStatus(date, BookingStatus.APPROVED);
+        // Pending and on-route bookings keep their groomer, but their slots are off limits to the plan
+        Map<Long, List<Booking>> busy = new HashMap<>();
+        for (Booking b : bookingRepository.findByDateAndStatusIn(date, BookingIntervalIndex.HOLDS_SLOT)) {
+            if (b.getStatus() == BookingStatus.APPROVED || b.getAssignedGroomer() == null) continue;
+            busy.computeIfAbsent(b.getAssignedGroomer().getId(), g -> new ArrayList<>()).add(b);
+        }
+
+        FleetPlanDTO out = new FleetPlanDTO();
+        out.setDate(date.toString());
+        List<RouteScheduleDTO> routes = new ArrayList<>(groomers.size());
+        List<Long> infeasible = new ArrayList<>();
+        List<Partition> partitions = partition(approved, groomers);
+        for (Partition p : partitions) solve(date, p.bookings, p.groomers, busy, routes, infeasible);
+        try {
+            bookingRepository.saveAllAndFlush(approved);
+        } catch (org.springframework.dao.DataIntegrityViolationException ex) {
+            if (!BookingService.isSlotConflict(ex)) throw ex;
+            throw new IllegalStateException("El plan asignaría a un peluquero dos reservas que se cruzan en horario. Ajusta las horas e inténtalo de nuevo.");
+        }
+        // Groomer reassignments do not publish booking events
+        intervalIndex.invalidate(date);
+        out.setRoutes(routes);
+        out.setInfeasibleBookingIds(infeasible);
+        log.info("Fleet plan for {}: {} bookings across {} groomers in {} partitions, {} infeasible",
+                date, approved.size(), groomers.size(), partitions.size(), infeasible.size());
+        return out;
+    }
+
+    /**
+     * Splits the day by zone. Zones take their assigned groomers busiest zone first, each groomer
+     * going to one zone only; the bookings of zones left without a groomer, and those outside every
+     * zone, are planned with the remaining groomers, or with the largest zone crew if none remain.
+     * Without zones this is a single partition of everything.
+     */
+    List<Partition> partition(List<Booking> bookings, List<User> groomers) {
+        Map<Long, List<Booking>> byZone = new HashMap<>();
+        List<Booking> rest = new ArrayList<>();
+        for (Booking b : bookings) {
+            Long zone = b.getZoneId() != null ? b.getZoneId() : serviceZones.zoneOf(b.getLatitude(), b.getLongitude());
+            if (zone == null) rest.add(b);
+            else byZone.computeIfAbsent(zone, z -> new ArrayList<>()).add(b);
+        }
+        List<Long> zones = new ArrayList<>(byZone.keySet());
+        zones.sort(Comparator.comparingInt((Long z) -> -byZone.get(z).stream().mapToInt(Booking::getDurationMinutes).sum())
+                .thenComparing(z -> z));
+        List<User> free = new ArrayList<>(groomers);
+        List<Partition> out = new ArrayList<>();
+        for (Long zone : zones) {
+            List<User> crew = new ArrayList<>();
+            for (Iterator<User> it = free.iterator(); it.hasNext(); ) {
+                User g = it.next();
+                if (serviceZones.assigned(zone, g.getId())) { crew.add(g); it.remove(); }
+            }
+            if (crew.isEmpty()) rest.addAll(byZone.get(zone));
+            else out.add(new Partition(byZone.get(zone), crew));
+        }
+        // Groomers idle in their zones still get a (possibly empty) plan for the day
+        if (!free.isEmpty()) out.add(new Partition(rest, free));
+        else if (!rest.isEmpty()) out.stream().max(Comparator.comparingInt(p -> p.groomers.size())).get().bookings.addAll(rest);
+        return out;
+    }
+
+    private void solve(LocalDate date, List<Booking> bookings, List<User> groomers, Map<Long, List<Booking>> busy,
+                       List<RouteScheduleDTO> routes, List<Long> infeasible) {
+        int k = groomers.size();
+        // One travel-time matrix for the partition; every trial route reads a sub-matrix of it
+        TravelTimes times = new TravelTimes(bookings, routeOptimizationService.travelMinutes(bookings));
+        List<List<Booking>> clusters = cluster(bookings, k);
+        RouteOptimizationService.Schedule[] schedules = new RouteOptimizationService.Schedule[k];
+        for (int i = 0; i < k; i++) schedules[i] = schedule(clusters.get(i), times);
+        repairInfeasible(clusters, schedules, times);
+        balance(clusters, schedules, times);
+
+        User[] owner = matchGroomers(clusters, groomers);
+        // A booking keeps its booked slot whatever the route says, and a groomer may not hold two
+        // overlapping slots: routed stops claim theirs first, then each late or clashing stop goes to
+        // a groomer of the partition free at that time, or is left unassigned. The groomer's pending
+        // and on-route bookings are held from the start
+        List<List<Booking>> routed = lists(k), late = lists(k), held = lists(k), taken = lists(k);
+        for (int i = 0; i < k; i++) taken.get(i).addAll(busy.getOrDefault(owner[i].getId(), List.of()));
+        List<List<LocalTime>> starts = lists(k);
+        for (int i = 0; i < k; i++) {
+            List<Booking> ordered = schedules[i].getOrdered();
+            for (int s = 0; s < ordered.size(); s++) {
+                Booking b = ordered.get(s);
+                if (overlapsAny(held.get(i), b) || overlapsAny(taken.get(i), b)) continue;
+                held.get(i).add(b);
+                routed.get(i).add(b);
+                starts.get(i).add(schedules[i].getStartTimes().get(s));
+            }
+        }
+        for (int i = 0; i < k; i++) {
+            List<Booking> displaced = new ArrayList<>(schedules[i].getInfeasible());
+            for (Booking b : schedules[i].getOrdered()) if (!routed.get(i).contains(b)) displaced.add(b);
+            for (Booking b : displaced) {
+                infeasible.add(b.getId());
+                int to = -1;
+                for (int d = 0; d < k && to < 0; d++) {
+                    int j = (i + d) % k;
+                    if (!overlapsAny(held.get(j), b) && !overlapsAny(taken.get(j), b)) to = j;
+                }
+                if (to < 0) {
+                    b.setAssignedGroomer(null);
+                    continue;
+                }
+                held.get(to).add(b);
+                late.get(to).add(b);
+            }
+        }
+
+        for (int i = 0; i < k; i++) {
+            User g = owner[i];
+            for (Booking b : held.get(i)) {
+                if (b.getAssignedGroomer() == null || !b.getAssignedGroomer().getId().equals(g.getId())) {
+                    b.setAssignedGroomer(g);
+                }
+            }
+            List<Long> ids = routed.get(i).stream().map(Booking::getId).collect(Collectors.toList());
+            List<Long> lateIds = late.get(i).stream().map(Booking::getId).collect(Collectors.toList());
+            savePlan(date, g, routed.get(i), late.get(i), times);
+
+            RouteScheduleDTO dto = new RouteScheduleDTO();
+            dto.setDate(date.toString());
+            dto.setGroomerId(g.getId());
+            dto.setBookingIdsInOrder(ids);
+            dto.setPlannedStartTimes(starts.get(i));
+            dto.setInfeasibleBookingIds(lateIds);
+            dto.setDriveMinutes((int) Math.round(schedules[i].getDriveMinutes()));
+            routes.add(dto);
+        }
+    }
+
+    // Closed intervals, like bookings_groomer_no_overlap; all bookings of a plan share the date
+    static boolean overlapsAny(List<Booking> held, Booking b) {
+        int start = b.getTime().toSecondOfDay() / 60, end = start + b.getDurationMinutes();
+        for (Booking h : held) {
+            int hs = h.getTime().toSecondOfDay() / 60;
+            if (hs <= end && start <= hs + h.getDurationMinutes()) return true;
+        }
+        return false;
+    }
+
+    private static <T> List<List<T>> lists(int k) {
+        List<List<T>> out = new ArrayList<>(k);
+        for (int i = 0; i < k; i++) out.add(new ArrayList<>());
+        return out;
+    }
+
+    private void savePlan(LocalDate date, User groomer, List<Booking> routed, List<Booking> late, TravelTimes times) {
+        RoutePlan plan = routePlanRepository.findByDateAndGroomer(date, groomer).orElseGet(() -> {
+            RoutePlan p = new RoutePlan();
+            p.setDate(date);
+            p.setGroomer(groomer);
+            return p;
+        });
+        // Late stops go last so the route still shows them
+        List<Booking> all = new ArrayList<>(routed);
+        all.addAll(late);
+        int[] order = new int[all.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        plan.replaceStops(all, routeOptimizationService.scheduledEtas(all, order, times.subMatrix(all)),
+                RouteOptimizationService.legDistancesKm(all));
+        routePlanRepository.save(plan);
+    }
+
+    /**
+     * Capacity-constrained k-means over booking coordinates, seeded farthest-first. Capacity is
+     * measured in service minutes so that a cluster of long grooming jobs holds fewer stops.
+     */
+    List<List<Booking>> cluster(List<Booking> bookings, int k) {
+        List<List<Booking>> clusters = new ArrayList<>(k);
+        for (int i = 0; i < k; i++) clusters.add(new ArrayList<>());
+        int n = bookings.size();
+        if (n == 0) return clusters;
+        if (k == 1) { clusters.get(0).addAll(bookings); return clusters; }
+
+        double[] lat = new double[n], lon = new double[n];
+        int[] work = new int[n];
+        double totalWork = 0;
+        for (int i = 0; i < n; i++) {
+            Booking b = bookings.get(i);
+            lat[i] = b.getLatitude() != null ? b.getLatitude() : 0;
+            lon[i] = b.getLongitude() != null ? b.getLongitude() : 0;
+            work[i] = b.getDurationMinutes();
+            totalWork += work[i];
+        }
+        double capacity = Math.ceil(totalWork / k * CAPACITY_SLACK);
+
+        GeoMath.Points points = GeoMath.Points.of(lat, lon);
+        double[] cLat = new double[k], cLon = new double[k];
+        seedFarthestFirst(lat, lon, points, cLat, cLon, Math.min(k, n));
+        GeoMath.Points centres = GeoMath.Points.of(cLat, cLon);
+
+        int[] assign = new int[n];
+        Arrays.fill(assign, -1);
+        double[][] dist = new double[n][k];
+        for (int iter = 0; iter < CLUSTER_ITERATIONS; iter++) {
+            Integer[] order = new Integer[n];
+            double[] regret = new double[n];
+            for (int i = 0; i < n; i++) {
+                order[i] = i;
+                double best = Double.POSITIVE_INFINITY, second = Double.POSITIVE_INFINITY;
+                for (int c = 0; c < k; c++) {
+                    dist[i][c] = GeoMath.distanceKm(centres, c, points, i);
+                    if (dist[i][c] < best) { second = best; best = dist[i][c]; }
+                    else if (dist[i][c] < second) second = dist[i][c];
+                }
+                regret[i] = second - best;
+            }
+            // Points that lose most by not getting their nearest centre choose first
+            Arrays.sort(order, (a, b) -> Double.compare(regret[b], regret[a]));
+            double[] load = new double[k];
+            boolean changed = false;
+            for (int i : order) {
+                int chosen = -1;
+                for (int c = 0; c < k; c++) {
+                    if (load[c] + work[i] > capacity) continue;
+                    if (chosen < 0 || dist[i][c] < dist[i][chosen]) chosen = c;
+                }
+                if (chosen < 0) chosen = argMin(load);
+                load[chosen] += work[i];
+                if (assign[i] != chosen) { assign[i] = chosen; changed = true; }
+            }
+            if (!changed) break;
+            double[] sumLat = new double[k], sumLon = new double[k];
+            int[] count = new int[k];
+            for (int i = 0; i < n; i++) { sumLat[assign[i]] += lat[i]; sumLon[assign[i]] += lon[i]; count[assign[i]]++; }
+            for (int c = 0; c < k; c++) {
+                if (count[c] > 0) {
+                    cLat[c] = sumLat[c] / count[c];
+                    cLon[c] = sumLon[c] / count[c];
+                    centres.set(c, cLat[c], cLon[c]);
+                }
+            }
+        }
+        for (int i = 0; i < n; i++) clusters.get(assign[i]).add(bookings.get(i));
+        return clusters;
+    }
+
+    private static void seedFarthestFirst(double[] lat, double[] lon, GeoMath.Points points,
+                                          double[] cLat, double[] cLon, int seeds) {
+        int n = lat.length;
+        double mLat = 0, mLon = 0;
+        for (int i = 0; i < n; i++) { mLat += lat[i]; mLon += lon[i]; }
+        mLat /= n;
+        mLon /= n;
+        double[] nearest = new double[n];
+        Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+        GeoMath.Points mean = GeoMath.Points.of(new double[]{mLat}, new double[]{mLon});
+        for (int s = 0; s < seeds; s++) {
+            int far = 0;
+            double farDist = -1;
+            for (int i = 0; i < n; i++) {
+                double d = s == 0 ? GeoMath.distanceKm(mean, 0, points, i) : nearest[i];
+                if (d > farDist) { farDist = d; far = i; }
+            }
+            cLat[s] = lat[far];
+            cLon[s] = lon[far];
+            for (int i = 0; i < n; i++) {
+                nearest[i] = Math.min(nearest[i], GeoMath.distanceKm(points, far, points, i));
+            }
+        }
+        // Fewer bookings than groomers: remaining centres sit on the mean and stay empty
+        for (int s = seeds; s < cLat.length; s++) { cLat[s] = mLat; cLon[s] = mLon; }
+    }
+
+    // Moves stops that miss their window into another groomer's route when they fit there
+    private void repairInfeasible(List<List<Booking>> clusters, RouteOptimizationService.Schedule[] schedules, TravelTimes times) {
+        int k = clusters.size();
+        for (int i = 0; i < k; i++) {
+            for (Booking stop : new ArrayList<>(schedules[i].getInfeasible())) {
+                for (int j = 0; j < k; j++) {
+                    if (j == i) continue;
+                    List<Booking> trial = new ArrayList<>(clusters.get(j));
+                    trial.add(stop);
+                    var trialSchedule = schedule(trial, times);
+                    if (trialSchedule.getInfeasible().size() == schedules[j].getInfeasible().size()) {
+                        clusters.get(i).remove(stop);
+                        clusters.set(j, trial);
+                        schedules[j] = trialSchedule;
+                        schedules[i] = schedule(clusters.get(i), times);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    // Shifts stops from the busiest to the idlest groomer while it lowers the peak workload
+    private void balance(List<List<Booking>> clusters, RouteOptimizationService.Schedule[] schedules, TravelTimes times) {
+        int k = clusters.size();
+        if (k < 2) return;
+        for (int round = 0; round < BALANCE_ROUNDS; round++) {
+            double[] work = new double[k];
+            for (int i = 0; i < k; i++) work[i] = workload(clusters.get(i), schedules[i]);
+            int heavy = argMax(work), light = argMin(work);
+            if (work[heavy] - work[light] < BALANCE_TOLERANCE_MIN) return;
+
+            double[] centre = centroid(clusters.get(light));
+            List<Booking> candidates = new ArrayList<>(clusters.get(heavy));
+            if (centre != null) {
+                GeoMath.Points c = GeoMath.Points.of(new double[]{centre[0]}, new double[]{centre[1]});
+                GeoMath.Points p = GeoMath.Points.of(candidates);
+                double[] d = new double[candidates.size()];
+                for (int i = 0; i < d.length; i++) d[i] = GeoMath.distanceKm(c, 0, p, i);
+                Integer[] idx = new Integer[d.length];
+                for (int i = 0; i < idx.length; i++) idx[i] = i;
+                Arrays.sort(idx, (x, y) -> Double.compare(d[x], d[y]));
+                List<Booking> sorted = new ArrayList<>(idx.length);
+                for (int i : idx) sorted.add(candidates.get(i));
+                candidates = sorted;
+            }
+            boolean moved = false;
+            int lateBefore = schedules[heavy].getInfeasible().size() + schedules[light].getInfeasible().size();
+            for (Booking stop : candidates.subList(0, Math.min(BALANCE_CANDIDATES, candidates.size()))) {
+                List<Booking> from = new ArrayList<>(clusters.get(heavy));
+                from.remove(stop);
+                List<Booking> to = new ArrayList<>(clusters.get(light));
+                to.add(stop);
+                var sFrom = schedule(from, times);
+                var sTo = schedule(to, times);
+                int lateAfter = sFrom.getInfeasible().size() + sTo.getInfeasible().size();
+                double peak = Math.max(workload(from, sFrom), workload(to, sTo));
+                if (lateAfter <= lateBefore && peak < work[heavy]) {
+                    clusters.set(heavy, from);
+                    clusters.set(light, to);
+                    schedules[heavy] = sFrom;
+                    schedules[light] = sTo;
+                    moved = true;
+                    break;
+                }
+            }
+            if (!moved) return;
+        }
+    }
+
+    /**
+     * Gives each cluster to the groomer that already holds most of its bookings, so a re-plan
+     * disturbs existing assignments as little as possible.
+     */
+    static User[] matchGroomers(List<List<Booking>> clusters, List<User> groomers) {
+        int k = clusters.size();
+        int[][] overlap = new int[k][groomers.size()];
+        Map<Long, Integer> index = new HashMap<>();
+        for (int g = 0; g < groomers.size(); g++) index.put(groomers.get(g).getId(), g);
+        for (int c = 0; c < k; c++) {
+            for (Booking b : clusters.get(c)) {
+                Integer g = b.getAssignedGroomer() == null ? null : index.get(b.getAssignedGroomer().getId());
+                if (g != null) overlap[c][g]++;
+            }
+        }
+        User[] owner = new User[k];
+        boolean[] taken = new boolean[groomers.size()];
+        Integer[] bySize = new Integer[k];
+        for (int c = 0; c < k; c++) bySize[c] = c;
+        Arrays.sort(bySize, (a, b) -> Integer.compare(clusters.get(b).size(), clusters.get(a).size()));
+        for (int c : bySize) {
+            int best = -1;
+            for (int g = 0; g < groomers.size(); g++) {
+                if (!taken[g] && (best < 0 || overlap[c][g] > overlap[c][best])) best = g;
+            }
+            taken[best] = true;
+            owner[c] = groomers.get(best);
+        }
+        return owner;
+    }
+
+    private RouteOptimizationService.Schedule schedule(List<Booking> route, TravelTimes times) {
+        return routeOptimizationService.schedule(route, times.subMatrix(route));
+    }
+
+    // Bookings planned together and the groomers they are shared among
+    static final class Partition {
+        final List<Booking> bookings;
+        final List<User> groomers;
+
+        Partition(List<Booking> bookings, List<User> groomers) {
+            this.bookings = bookings;
+            this.groomers = groomers;
+        }
+    }
+
+    private static final class TravelTimes {
+        private final double[][] minutes;
+        private final Map<Booking, Integer> index = new IdentityHashMap<>();
+
+        TravelTimes(List<Booking> bookings, double[][] minutes) {
+            this.minutes = minutes;
+            for (int i = 0; i < bookings.size(); i++) index.put(bookings.get(i), i);
+        }
+
+        double[][] subMatrix(List<Booking> route) {
+            int n = route.size();
+            int[] idx = new int[n];
+            for (int i = 0; i < n; i++) idx[i] = index.get(route.get(i));
+            double[][] sub = new double[n][n];
+            for (int i = 0; i < n; i++) for (int j = 0; j < n; j++) sub[i][j] = minutes[idx[i]][idx[j]];
+            return sub;
+        }
+    }
+
+    private static double workload(List<Booking> route, RouteOptimizationService.Schedule schedule) {
+        double minutes = schedule.getDriveMinutes();
+        for (Booking b : route) minutes += b.getDurationMinutes();
+        return minutes;
+    }
+
+    private static double[] centroid(List<Booking> list) {
+        if (list.isEmpty()) return null;
+        double lat = 0, lon = 0;
+        for (Booking b : list) {
+            lat += b.getLatitude() != null ? b.getLatitude() : 0;
+            lon += b.getLongitude() != null ? b.getLongitude() : 0;
+        }
+        return new double[]{lat / list.size(), lon / list.size()};
+    }
+
+    private static int argMin(double[] v) {
+        int best = 0;
+        for (int i = 1; i < v.length; i++) if (v[i] < v[best]) best = i;
+        return best;
+    }
+
+    private static int argMax(double[] v) {
+        int best = 0;
+        for (int i = 1; i < v.length; i++) if (v[i] > v[best]) best = i;
+        return best;
+    }
+}
@@ -0,0 +1,93 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.entity.Booking;
+
+import java.util.List;
+
+/**
+ * Great-circle distances for routing. Coordinates live in {@link Points}, primitive arrays holding
+ * cos(lat) and the sine/cosine of each half-angle, so the distance kernel needs no trigonometry
+ * beyond one asin: sin((b - a) / 2) expands to sin(b/2)cos(a/2) - cos(b/2)sin(a/2).
+ * A point at (0, 0) stands for "no coordinates" and is treated as zero distance from everything.
+ */
+final class GeoMath {
+
+    static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double HALF_RAD = Math.PI / 360; // degrees to half-angle radians
+
+    private GeoMath() {}
+
+    static final class Points {
+        final double[] cosLat;
+        final double[] sinHalfLat;
+        final double[] cosHalfLat;
+        final double[] sinHalfLng;
+        final double[] cosHalfLng;
+        final boolean[] missing;
+
+        Points(int n) {
+            cosLat = new double[n];
+            sinHalfLat = new double[n];
+            cosHalfLat = new double[n];
+            sinHalfLng = new double[n];
+            cosHalfLng = new double[n];
+            missing = new boolean[n];
+        }
+
+        static Points of(List<Booking> bookings) {
+            Points p = new Points(bookings.size());
+            for (int i = 0; i < bookings.size(); i++) {
+                Booking b = bookings.get(i);
+                p.set(i, b.getLatitude() != null ? b.getLatitude() : 0, b.getLongitude() != null ? b.getLongitude() : 0);
+            }
+            return p;
+        }
+
+        static Points of(double[] latDeg, double[] lngDeg) {
+            Points p = new Points(latDeg.length);
+            for (int i = 0; i < latDeg.length; i++) p.set(i, latDeg[i], lngDeg[i]);
+            return p;
+        }
+
+        void set(int i, double latDeg, double lngDeg) {
+            double hLat = latDeg * HALF_RAD, hLng = lngDeg * HALF_RAD;
+            sinHalfLat[i] = Math.sin(hLat);
+            cosHalfLat[i] = Math.cos(hLat);
+            sinHalfLng[i] = Math.sin(hLng);
+            cosHalfLng[i] = Math.cos(hLng);
+            // cos(lat) = cos^2(lat/2) - sin^2(lat/2)
+            cosLat[i] = cosHalfLat[i] * cosHalfLat[i] - sinHalfLat[i] * sinHalfLat[i];
+            missing[i] = latDeg == 0 && lngDeg == 0;
+        }
+
+        int size() { return cosLat.length; }
+    }
+
+    /**
+     * Distance (km) between point i of a and point j of b.
+     */
+    static double distanceKm(Points a, int i, Points b, int j) {
+        if (a.missing[i] || b.missing[j]) return 0;
+        double sLat = b.sinHalfLat[j] * a.cosHalfLat[i] - b.cosHalfLat[j] * a.sinHalfLat[i];
+        double sLng = b.sinHalfLng[j] * a.cosHalfLng[i] - b.cosHalfLng[j] * a.sinHalfLng[i];
+        double h = sLat * sLat + a.cosLat[i] * b.cosLat[j] * sLng * sLng;
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+
+    /**
+     * Symmetric all-pairs distance matrix (km) in one pass over the upper triangle.
+     */
+    static double[][] distanceMatrixKm(Points p) {
+        int n = p.size();
+        double[][] d = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            double[] row = d[i];
+            for (int j = i + 1; j < n; j++) {
+                double v = distanceKm(p, i, p, j);
+                row[j] = v;
+                d[j][i] = v;
+            }
+        }
+        return d;
+    }
+}
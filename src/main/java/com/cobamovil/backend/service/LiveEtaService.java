@@ -0,0 +1,317 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.config.RoutingProperties;
+import com.cobamovil.backend.dto.EtaUpdateDTO;
+import com.cobamovil.backend.dto.LocationPingDTO;
+import com.cobamovil.backend.dto.RoutePlanDTO;
+import com.cobamovil.backend.entity.Booking;
+import com.cobamovil.backend.entity.BookingStatus;
+import com.cobamovil.backend.entity.User;
+import com.cobamovil.backend.repository.BookingRepository;
+import com.cobamovil.backend.repository.UserRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Arrival estimates from live groomer positions. Each GPS ping only re-prices the leg from the
+ * current position to the next stop; the legs between later stops come from the saved route and
+ * are reused until the route changes (booking status events drop the cached route). Customers
+ * subscribed to a booking get a server-sent event when its estimate moves by more than the
+ * configured threshold.
+ */
+@Service
+public class LiveEtaService {
+    private static final Logger log = LoggerFactory.getLogger(LiveEtaService.class);
+    private static final double ARRIVAL_RADIUS_KM = 0.1;
+    private static final long SSE_TIMEOUT_MS = 30 * 60 * 1000L;
+    private static final long STALE_PING_MS = 15 * 60 * 1000L;
+
+    private final BookingService bookingService;
+    private final BookingRepository bookingRepository;
+    private final UserRepository userRepository;
+    private final NotificationService notificationService;
+    private final RoutingProperties props;
+
+    private final Map<Long, PingBuffer> pings = new ConcurrentHashMap<>();        // by groomer
+    private final Map<Long, LiveRoute> routes = new ConcurrentHashMap<>();        // by groomer
+    private final Map<Long, EtaUpdateDTO> current = new ConcurrentHashMap<>();    // by booking
+    private final Map<Long, EtaUpdateDTO> lastPushed = new ConcurrentHashMap<>(); // by booking
+    private final Map<Long, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+
+    public LiveEtaService(BookingService bookingService,
+                          BookingRepository bookingRepository,
+                          UserRepository userRepository,
+                          NotificationService notificationService,
+                          RoutingProperties props) {
+        this.bookingService = bookingService;
+        this.bookingRepository = bookingRepository;
+        this.userRepository = userRepository;
+        this.notificationService = notificationService;
+        this.props = props;
+    }
+
+    @Transactional(readOnly = true)
+    public List<EtaUpdateDTO> recordPing(String username, LocationPingDTO ping) {
+        User groomer = userRepository.findByUsername(username)
+                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+        if (!"GROOMER".equalsIgnoreCase(groomer.getRole())) {
+            throw new IllegalStateException("Solo los peluqueros pueden reportar su ubicación.");
+        }
+        long at = ping.getTimestamp() != null ? ping.getTimestamp() : System.currentTimeMillis();
+        pings.computeIfAbsent(groomer.getId(), id -> new PingBuffer(props.getLivePingBufferSize()))
+                .add(ping.getLatitude(), ping.getLongitude(), at);
+        List<EtaUpdateDTO> etas = recompute(groomer.getId(), ping.getLatitude(), ping.getLongitude(), at);
+        publish(etas);
+        return etas;
+    }
+
+    @Transactional(readOnly = true)
+    public SseEmitter subscribe(Long bookingId, String username) {
+        Booking booking = bookingRepository.findById(bookingId)
+                .orElseThrow(() -> new EntityNotFoundException("Booking not found"));
+        if (!booking.getCustomer().getUsername().equals(username)) {
+            throw new AccessDeniedException("You do not own this booking");
+        }
+        SseEmitter emitter = newEmitter();
+        List<SseEmitter> list = subscribers.computeIfAbsent(bookingId, id -> new CopyOnWriteArrayList<>());
+        list.add(emitter);
+        emitter.onCompletion(() -> list.remove(emitter));
+        emitter.onTimeout(() -> list.remove(emitter));
+        emitter.onError(ex -> list.remove(emitter));
+        EtaUpdateDTO eta = current.get(bookingId);
+        if (eta != null) send(bookingId, emitter, eta);
+        return emitter;
+    }
+
+    SseEmitter newEmitter() {
+        return new SseEmitter(SSE_TIMEOUT_MS);
+    }
+
+    /**
+     * Any status change can reorder or shorten a groomer's route, so the cached route is dropped
+     * and rebuilt on the next ping. A booking going ON_ROUTE gets its WhatsApp message here, with
+     * the live estimate when the groomer has reported a recent position.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onStatusChanged(BookingStatusChangedEvent event) {
+        if (event.getGroomerId() != null) routes.remove(event.getGroomerId());
+        if (event.getStatus() == BookingStatus.COMPLETED || event.getStatus() == BookingStatus.REJECTED) {
+            current.remove(event.getBookingId());
+            lastPushed.remove(event.getBookingId());
+            List<SseEmitter> list = subscribers.remove(event.getBookingId());
+            if (list != null) list.forEach(SseEmitter::complete);
+        }
+        if (event.getStatus() != BookingStatus.ON_ROUTE) return;
+
+        LocalTime eta = null;
+        PingBuffer buffer = event.getGroomerId() != null ? pings.get(event.getGroomerId()) : null;
+        if (buffer != null) {
+            double[] last = buffer.latest();
+            if (last != null && System.currentTimeMillis() - (long) last[2] < STALE_PING_MS) {
+                List<EtaUpdateDTO> etas = recompute(event.getGroomerId(), last[0], last[1], (long) last[2]);
+                publish(etas);
+                eta = etas.stream().filter(e -> e.getBookingId().equals(event.getBookingId()))
+                        .map(EtaUpdateDTO::getEstimatedArrival).findFirst().orElse(null);
+            }
+        }
+        LocalTime arrival = eta;
+        bookingRepository.findById(event.getBookingId())
+                .ifPresent(b -> notificationService.notifyOnRoute(b.getCustomer(), arrival));
+    }
+
+    private List<EtaUpdateDTO> recompute(Long groomerId, double lat, double lng, long atMillis) {
+        LocalDate today = LocalDate.now();
+        LiveRoute route = routes.get(groomerId);
+        if (route == null || !route.date.equals(today)) {
+            route = loadRoute(groomerId, today);
+            routes.put(groomerId, route);
+        }
+        List<EtaUpdateDTO> etas;
+        synchronized (route) {
+            etas = route.update(lat, lng, atMillis, 60.0 / props.getAverageSpeedKmh());
+        }
+        for (EtaUpdateDTO e : etas) current.put(e.getBookingId(), e);
+        return etas;
+    }
+
+    // Stops already on route come first, then the rest of the saved (or optimized) route
+    private LiveRoute loadRoute(Long groomerId, LocalDate date) {
+        List<Booking> stops = new ArrayList<>(bookingRepository.findByDateAndStatus(date, BookingStatus.ON_ROUTE).stream()
+                .filter(b -> b.getAssignedGroomer() != null && b.getAssignedGroomer().getId().equals(groomerId))
+                .filter(LiveEtaService::hasLocation)
+                .sorted(Comparator.comparing(Booking::getTime))
+                .toList());
+        int onRoute = stops.size();
+        RoutePlanDTO plan = bookingService.routeForDay(date, groomerId);
+        Map<Long, Booking> byId = bookingRepository.findAllById(plan.getBookingIdsInOrder()).stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+        List<Integer> planEtas = new ArrayList<>();
+        boolean skipped = false;
+        for (int i = 0; i < plan.getBookingIdsInOrder().size(); i++) {
+            Booking b = byId.get(plan.getBookingIdsInOrder().get(i));
+            if (b == null || !hasLocation(b)) { skipped = true; continue; }
+            stops.add(b);
+            // After a skipped stop the planned ETA difference no longer describes a single leg
+            planEtas.add(plan.getEtasMinutes() != null && !skipped ? plan.getEtasMinutes().get(i) : null);
+            skipped = false;
+        }
+        return new LiveRoute(date, stops, onRoute, planEtas, props);
+    }
+
+    private static boolean hasLocation(Booking b) {
+        return b.getLatitude() != null && b.getLongitude() != null;
+    }
+
+    private void publish(List<EtaUpdateDTO> etas) {
+        int threshold = props.getEtaShiftThresholdMinutes();
+        for (EtaUpdateDTO eta : etas) {
+            EtaUpdateDTO prev = lastPushed.get(eta.getBookingId());
+            if (prev != null && Math.abs(Duration.between(prev.getEstimatedArrival(), eta.getEstimatedArrival()).toMinutes()) < threshold) {
+                continue;
+            }
+            lastPushed.put(eta.getBookingId(), eta);
+            List<SseEmitter> list = subscribers.get(eta.getBookingId());
+            if (list != null) for (SseEmitter emitter : list) send(eta.getBookingId(), emitter, eta);
+        }
+    }
+
+    private void send(Long bookingId, SseEmitter emitter, EtaUpdateDTO eta) {
+        try {
+            emitter.send(SseEmitter.event().name("eta").data(eta));
+        } catch (IOException | IllegalStateException ex) {
+            log.debug("Dropping ETA subscriber for booking {}: {}", bookingId, ex.getMessage());
+            List<SseEmitter> list = subscribers.get(bookingId);
+            if (list != null) list.remove(emitter);
+        }
+    }
+
+    /**
+     * Fixed-size ring of the latest pings for one groomer, stored in primitive arrays.
+     */
+    static final class PingBuffer {
+        private final double[] lat;
+        private final double[] lng;
+        private final long[] at;
+        private int head; // next slot to write
+        private int size;
+
+        PingBuffer(int capacity) {
+            int c = Math.max(1, capacity);
+            lat = new double[c];
+            lng = new double[c];
+            at = new long[c];
+        }
+
+        synchronized void add(double latitude, double longitude, long atMillis) {
+            lat[head] = latitude;
+            lng[head] = longitude;
+            at[head] = atMillis;
+            head = (head + 1) % lat.length;
+            if (size < lat.length) size++;
+        }
+
+        // {lat, lng, epochMillis} of the newest ping, or null before the first one
+        synchronized double[] latest() {
+            if (size == 0) return null;
+            int i = (head - 1 + lat.length) % lat.length;
+            return new double[]{lat[i], lng[i], at[i]};
+        }
+    }
+
+    /**
+     * A groomer's remaining stops for the day with the drive minutes between consecutive stops.
+     */
+    static final class LiveRoute {
+        final LocalDate date;
+        private final long[] ids;
+        private final GeoMath.Points points;
+        private final GeoMath.Points position = new GeoMath.Points(1);
+        private final int[] ready;    // earliest service start, minutes from midnight
+        private final int[] service;  // service minutes
+        private final double[] leg;   // leg[k]: drive minutes from stop k-1 to stop k
+        private int next;             // first stop not yet served
+        private long arrivedAt = -1;  // when the groomer reached stop `next`, -1 while driving
+
+        LiveRoute(LocalDate date, List<Booking> stops, int onRoute, List<Integer> planEtas, RoutingProperties props) {
+            this.date = date;
+            int n = stops.size();
+            ids = new long[n];
+            points = GeoMath.Points.of(stops);
+            ready = new int[n];
+            service = new int[n];
+            leg = new double[n];
+            double perKm = 60.0 / props.getAverageSpeedKmh();
+            for (int k = 0; k < n; k++) {
+                Booking b = stops.get(k);
+                ids[k] = b.getId();
+                ready[k] = b.getTime().getHour() * 60 + b.getTime().getMinute() - props.getWindowEarlyMinutes();
+                service[k] = b.getDurationMinutes();
+                if (k == 0) continue;
+                // Consecutive planned stops reuse the route's drive times; anything else is estimated
+                int p = k - onRoute;
+                Integer prevEta = p >= 1 && p - 1 < planEtas.size() ? planEtas.get(p - 1) : null;
+                Integer eta = p >= 1 && p < planEtas.size() ? planEtas.get(p) : null;
+                leg[k] = prevEta != null && eta != null
+                        ? eta - prevEta
+                        : GeoMath.distanceKm(points, k - 1, points, k) * perKm;
+            }
+        }
+
+        List<EtaUpdateDTO> update(double posLat, double posLng, long atMillis, double perKm) {
+            int n = ids.length;
+            position.set(0, posLat, posLng);
+            double dist = next < n ? GeoMath.distanceKm(position, 0, points, next) : 0;
+            if (next < n && dist <= ARRIVAL_RADIUS_KM) {
+                if (arrivedAt < 0) arrivedAt = atMillis;
+            } else if (arrivedAt >= 0) {
+                // Left the stop: it is done even if the status update has not arrived yet
+                next++;
+                arrivedAt = -1;
+                dist = next < n ? GeoMath.distanceKm(position, 0, points, next) : 0;
+            }
+            double now = minuteOfDay(atMillis);
+            List<EtaUpdateDTO> out = new ArrayList<>(n - next);
+            double t = now;
+            for (int k = next; k < n; k++) {
+                double start;
+                if (k == next && arrivedAt >= 0) {
+                    start = Math.max(ready[k], minuteOfDay(arrivedAt));
+                    t = Math.max(now, start + service[k]);
+                } else {
+                    double drive = k == next ? dist * perKm : leg[k];
+                    start = Math.max(ready[k], t + drive);
+                    t = start + service[k];
+                }
+                out.add(new EtaUpdateDTO(ids[k], toLocalTime(start), (int) Math.max(0, Math.round(start - now))));
+            }
+            return out;
+        }
+
+        private static double minuteOfDay(long epochMillis) {
+            LocalTime time = Instant.ofEpochMilli(epochMillis).atZone(ZoneId.systemDefault()).toLocalTime();
+            return time.toSecondOfDay() / 60.0;
+        }
+
+        private static LocalTime toLocalTime(double minuteOfDay) {
+            long seconds = Math.min(24 * 3600 - 1, Math.max(0, Math.round(minuteOfDay * 60)));
+            return LocalTime.ofSecondOfDay(seconds).withSecond(0);
+        }
+    }
+}
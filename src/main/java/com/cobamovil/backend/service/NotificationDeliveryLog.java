@@ -0,0 +1,160 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.config.NotificationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Delivery audit in notification_logs, one row per send attempt. Senders only append to a
+ * lock-free queue bounded by a counter, so recording never blocks or fails a send; a record that
+ * finds the queue full is dropped and counted. One flusher thread writes the queue with JDBC batch
+ * inserts every app.notifications.logFlushMillis, or sooner once logBatchSize records wait. Queue
+ * depth and dropped records are published as notification_log.* metrics.
+ */
+@Service
+public class NotificationDeliveryLog {
+    private static final Logger log = LoggerFactory.getLogger(NotificationDeliveryLog.class);
+
+    private final ConcurrentLinkedQueue<Entry> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final Consumer<List<Entry>> writer;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushMillis;
+    private final Counter written;
+    private final Counter droppedFull;
+    private final Counter droppedFailed;
+    private volatile Thread flusher;
+    private volatile boolean running;
+
+    @Autowired
+    public NotificationDeliveryLog(NamedParameterJdbcTemplate jdbc, NotificationProperties props, MeterRegistry registry) {
+        this(props, registry, entries -> insert(jdbc, entries));
+    }
+
+    NotificationDeliveryLog(NotificationProperties props, MeterRegistry registry, Consumer<List<Entry>> writer) {
+        this.writer = writer;
+        this.capacity = Math.max(1, props.getLogQueueCapacity());
+        this.batchSize = Math.max(1, props.getLogBatchSize());
+        this.flushMillis = Math.max(1, props.getLogFlushMillis());
+        registry.gauge("notification_log.queue.depth", size, AtomicInteger::get);
+        this.written = registry.counter("notification_log.written");
+        this.droppedFull = registry.counter("notification_log.dropped", "reason", "queue_full");
+        this.droppedFailed = registry.counter("notification_log.dropped", "reason", "write_failed");
+    }
+
+    /** Queues one send attempt (status SENT or FAILED); never blocks. */
+    public void record(Long userId, String channel, String event, String destination, String status) {
+        int n = size.incrementAndGet();
+        if (n > capacity) {
+            size.decrementAndGet();
+            droppedFull.increment();
+            return;
+        }
+        queue.offer(new Entry(userId, channel, event, destination, status, LocalDateTime.now()));
+        if (n % batchSize == 0) {
+            Thread t = flusher;
+            if (t != null) LockSupport.unpark(t);
+        }
+    }
+
+    int depth() { return size.get(); }
+
+    /** Writes everything queued, batchSize records per insert; returns how many were taken. */
+    int flush() {
+        int total = 0;
+        while (true) {
+            List<Entry> batch = new ArrayList<>(Math.min(batchSize, Math.max(1, size.get())));
+            Entry e;
+            while (batch.size() < batchSize && (e = queue.poll()) != null) batch.add(e);
+            if (batch.isEmpty()) return total;
+            size.addAndGet(-batch.size());
+            total += batch.size();
+            try {
+                writer.accept(batch);
+                written.increment(batch.size());
+            } catch (RuntimeException ex) {
+                // Retrying would let a database outage grow the queue without bound
+                droppedFailed.increment(batch.size());
+                log.warn("Dropped {} notification log records: {}", batch.size(), ex.getMessage());
+            }
+            if (batch.size() < batchSize) return total;
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        Thread t = new Thread(this::run, "notification-log-flusher");
+        t.setDaemon(true);
+        flusher = t;
+        t.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        Thread t = flusher;
+        if (t != null) {
+            LockSupport.unpark(t);
+            t.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    private void run() {
+        while (running) {
+            if (size.get() < batchSize) LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(flushMillis));
+            flush();
+        }
+        flush(); // what is left at shutdown
+    }
+
+    private static void insert(NamedParameterJdbcTemplate jdbc, List<Entry> entries) {
+        SqlParameterSource[] batch = entries.stream().map(e -> new MapSqlParameterSource()
+                .addValue("user", e.userId)
+                .addValue("channel", e.channel)
+                .addValue("event", e.event)
+                .addValue("destination", e.destination)
+                .addValue("status", e.status)
+                .addValue("at", Timestamp.valueOf(e.at))).toArray(SqlParameterSource[]::new);
+        jdbc.batchUpdate("INSERT INTO notification_logs (user_id, channel, event, destination, status, created_at) " +
+                "VALUES (:user, :channel, :event, :destination, :status, :at)", batch);
+    }
+
+    static final class Entry {
+        final Long userId;
+        final String channel;
+        final String event;
+        final String destination;
+        final String status;
+        final LocalDateTime at;
+
+        Entry(Long userId, String channel, String event, String destination, String status, LocalDateTime at) {
+            this.userId = userId;
+            this.channel = channel;
+            this.event = event;
+            this.destination = destination;
+            this.status = status;
+            this.at = at;
+        }
+    }
+}
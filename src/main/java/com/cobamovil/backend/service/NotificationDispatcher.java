@@ -0,0 +1,175 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.config.NotificationProperties;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drains the notification outbox. Each poll claims as many due messages as there is room for
+ * (app.notifications.batchSize minus those still in flight), merges those to the same recipient
+ * and channel into one digest, and hands each send to a fixed pool of app.notifications.workers
+ * threads, so a slow provider holds a worker and never the scheduler or a request. A send without
+ * a token from NotificationThrottle goes back to the outbox until one is due, and so does one the
+ * provider's circuit breaker or bulkhead turned away (see OutboundHttp), without counting an attempt.
+ * A failed send is retried with exponential backoff and jitter until maxAttempts; a message the
+ * provider rejects outright (4xx other than 408 and 429) fails at once. Every attempt goes to the
+ * delivery log.
+ */
+@Service
+public class NotificationDispatcher {
+    private static final Logger log = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    private final NotificationOutbox outbox;
+    private final NotificationService notificationService;
+    private final NotificationProperties props;
+    private final NotificationDeliveryLog deliveryLog;
+    private final NotificationThrottle throttle;
+    private final ExecutorService workers;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public NotificationDispatcher(NotificationOutbox outbox, NotificationService notificationService, NotificationProperties props,
+                                  NotificationDeliveryLog deliveryLog, NotificationThrottle throttle) {
+        this.outbox = outbox;
+        this.notificationService = notificationService;
+        this.props = props;
+        this.deliveryLog = deliveryLog;
+        this.throttle = throttle;
+        AtomicInteger n = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, props.getWorkers()), r -> {
+            Thread t = new Thread(r, "notify-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.notifications.pollMillis:1000}")
+    public void dispatch() {
+        int room = props.getBatchSize() - inFlight.get();
+        if (room <= 0) return;
+        List<NotificationOutbox.Message> due;
+        try {
+            due = outbox.claim(room, props.getLeaseSeconds());
+        } catch (DataAccessException ex) {
+            log.warn("Notification outbox poll failed: {}", ex.getMessage());
+            return;
+        }
+        for (List<NotificationOutbox.Message> group : byRecipient(due)) {
+            NotificationOutbox.Message first = group.get(0);
+            long wait = throttle.acquire(first.channel, first.recipient);
+            if (wait > 0) {
+                try {
+                    outbox.defer(ids(group), wait);
+                } catch (DataAccessException ex) {
+                    log.warn("Could not defer notifications to {}: {}", first.recipient, ex.getMessage());
+                }
+                continue;
+            }
+            inFlight.addAndGet(group.size());
+            workers.execute(() -> {
+                try {
+                    send(group);
+                } finally {
+                    inFlight.addAndGet(-group.size());
+                }
+            });
+        }
+    }
+
+    private void send(List<NotificationOutbox.Message> group) {
+        NotificationOutbox.Message m = notificationService.digest(group);
+        int attempts = group.stream().mapToInt(g -> g.attempts).max().orElse(m.attempts);
+        Exception failure = null;
+        try {
+            notificationService.deliver(m);
+        } catch (Exception ex) {
+            failure = ex;
+        }
+        if (isRejected(failure)) {
+            try {
+                outbox.defer(ids(group), TimeUnit.SECONDS.toMillis(props.getBackoffSeconds()));
+            } catch (DataAccessException ex) {
+                log.warn("Could not defer notifications to {}: {}", m.recipient, ex.getMessage());
+            }
+            return;
+        }
+        for (NotificationOutbox.Message g : group) {
+            deliveryLog.record(g.userId, g.channel, g.event, g.recipient, failure == null ? "SENT" : "FAILED");
+        }
+        // If settling fails too, the lease runs out and the messages are claimed again
+        try {
+            if (failure == null) {
+                outbox.sent(ids(group));
+            } else if (isPermanent(failure) || attempts >= props.getMaxAttempts()) {
+                log.error("{} notification {} to {} failed for good after {} attempts: {}",
+                        m.channel, m.event, m.recipient, attempts, failure.getMessage());
+                outbox.failed(ids(group), failure.getMessage());
+            } else {
+                long delay = backoffSeconds(attempts, props.getBackoffSeconds(), props.getMaxBackoffSeconds());
+                log.warn("{} notification {} to {} failed (attempt {}), retrying in {}s: {}",
+                        m.channel, m.event, m.recipient, attempts, delay, failure.getMessage());
+                outbox.retry(ids(group), delay, failure.getMessage());
+            }
+        } catch (DataAccessException ex) {
+            log.warn("Could not settle notifications to {}: {}", m.recipient, ex.getMessage());
+        }
+    }
+
+    // Claimed messages per channel and recipient, in claim order
+    static Collection<List<NotificationOutbox.Message>> byRecipient(List<NotificationOutbox.Message> messages) {
+        Map<String, List<NotificationOutbox.Message>> groups = new LinkedHashMap<>();
+        for (NotificationOutbox.Message m : messages) {
+            groups.computeIfAbsent(m.channel + '|' + m.recipient, k -> new ArrayList<>()).add(m);
+        }
+        return groups.values();
+    }
+
+    private static List<Long> ids(List<NotificationOutbox.Message> group) {
+        return group.stream().map(g -> g.id).toList();
+    }
+
+    @Scheduled(cron = "0 15 3 * * *")
+    public void purge() {
+        int removed = outbox.purge(LocalDateTime.now().minusDays(props.getRetentionDays()));
+        if (removed > 0) log.info("Purged {} settled notifications", removed);
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        workers.shutdown();
+        // Unfinished messages keep their lease and go out again from the next instance
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /** Delay after the given failed attempt (1-based): base * 2^(attempt-1), capped, with +-20% jitter. */
+    static long backoffSeconds(int attempt, int baseSeconds, int maxSeconds) {
+        double delay = Math.min((double) maxSeconds, baseSeconds * Math.pow(2, Math.max(0, attempt - 1)));
+        return Math.max(1, Math.round(delay * ThreadLocalRandom.current().nextDouble(0.8, 1.2)));
+    }
+
+    // Never reached the provider: its circuit is open or too many sends to it are in flight
+    static boolean isRejected(Exception ex) {
+        return ex instanceof CallNotPermittedException || ex instanceof BulkheadFullException;
+    }
+
+    static boolean isPermanent(Exception ex) {
+        if (!(ex instanceof HttpClientErrorException http)) return false;
+        int status = http.getStatusCode().value();
+        return status != HttpStatus.REQUEST_TIMEOUT.value() && status != HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+}
@@ -0,0 +1,146 @@
+package com.cobamovil.backend.service;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The notification_outbox table. Messages are inserted in the caller's transaction, so nothing is
+ * sent for a change that rolls back, and the request never waits on Twilio or the mail provider.
+ * The dispatcher claims due messages with FOR UPDATE SKIP LOCKED, so several instances drain the
+ * table without claiming the same message, and settles each one after the send. A new message
+ * joins the open coalescing window of earlier unsent ones to the same recipient and channel (it
+ * gets their due time), so the dispatcher claims them together and sends one digest.
+ */
+@Service
+public class NotificationOutbox {
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public NotificationOutbox(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Adds the messages to the current transaction, if any; a repeated idempotency key is ignored.
+     * They are due after windowSeconds, or with the open window they join.
+     */
+    public void enqueue(List<Message> messages, int windowSeconds) {
+        if (messages.isEmpty()) return;
+        LocalDateTime at = LocalDateTime.now();
+        Timestamp now = Timestamp.valueOf(at);
+        Timestamp due = Timestamp.valueOf(at.plusSeconds(windowSeconds));
+        SqlParameterSource[] batch = messages.stream().map(m -> new MapSqlParameterSource()
+                .addValue("key", m.key)
+                .addValue("user", m.userId)
+                .addValue("channel", m.channel)
+                .addValue("recipient", m.recipient)
+                .addValue("event", m.event)
+                .addValue("subject", m.subject)
+                .addValue("body", m.body)
+                .addValue("now", now)
+                .addValue("due", due)).toArray(SqlParameterSource[]::new);
+        jdbc.batchUpdate("INSERT INTO notification_outbox (idempotency_key, user_id, channel, recipient, event, subject, body, " +
+                "next_attempt_at, created_at) VALUES (:key, :user, :channel, :recipient, :event, :subject, :body, " +
+                "COALESCE((SELECT MIN(p.next_attempt_at) FROM notification_outbox p WHERE p.status = 'PENDING' AND p.attempts = 0 " +
+                "AND p.channel = :channel AND p.recipient = :recipient AND p.next_attempt_at > :now), :due), :now) " +
+                "ON CONFLICT (idempotency_key) DO NOTHING", batch);
+    }
+
+    /**
+     * Marks up to limit due messages as being sent until now + leaseSeconds and returns them,
+     * oldest first and grouped by recipient. Messages whose lease ran out (the sender died) are due again.
+     */
+    List<Message> claim(int limit, int leaseSeconds) {
+        LocalDateTime now = LocalDateTime.now();
+        return jdbc.query("UPDATE notification_outbox o SET status = 'SENDING', attempts = o.attempts + 1, locked_until = :lease " +
+                        "FROM (SELECT id FROM notification_outbox " +
+                        "      WHERE (status = 'PENDING' AND next_attempt_at <= :now) OR (status = 'SENDING' AND locked_until < :now) " +
+                        "      ORDER BY next_attempt_at, channel, recipient LIMIT :limit FOR UPDATE SKIP LOCKED) due " +
+                        "WHERE o.id = due.id " +
+                        "RETURNING o.id, o.idempotency_key, o.user_id, o.channel, o.recipient, o.event, o.subject, o.body, o.attempts",
+                new MapSqlParameterSource("now", Timestamp.valueOf(now))
+                        .addValue("lease", Timestamp.valueOf(now.plusSeconds(leaseSeconds)))
+                        .addValue("limit", limit),
+                (rs, i) -> new Message(rs.getLong(1), rs.getString(2), rs.getObject(3, Long.class), rs.getString(4),
+                        rs.getString(5), rs.getString(6), rs.getString(7), rs.getString(8), rs.getInt(9)));
+    }
+
+    void sent(List<Long> ids) {
+        jdbc.update("UPDATE notification_outbox SET status = 'SENT', sent_at = :now, locked_until = NULL, last_error = NULL WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", ids).addValue("now", Timestamp.valueOf(LocalDateTime.now())));
+    }
+
+    void retry(List<Long> ids, long delaySeconds, String error) {
+        jdbc.update("UPDATE notification_outbox SET status = 'PENDING', next_attempt_at = :next, locked_until = NULL, " +
+                        "last_error = :error WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", ids)
+                        .addValue("next", Timestamp.valueOf(LocalDateTime.now().plusSeconds(delaySeconds)))
+                        .addValue("error", truncate(error)));
+    }
+
+    void failed(List<Long> ids, String error) {
+        jdbc.update("UPDATE notification_outbox SET status = 'FAILED', locked_until = NULL, last_error = :error WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", ids).addValue("error", truncate(error)));
+    }
+
+    /** Puts claimed messages back unsent, without counting the attempt, to be due after delayMillis. */
+    void defer(List<Long> ids, long delayMillis) {
+        jdbc.update("UPDATE notification_outbox SET status = 'PENDING', attempts = attempts - 1, next_attempt_at = :next, " +
+                        "locked_until = NULL WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", ids)
+                        .addValue("next", Timestamp.valueOf(LocalDateTime.now().plusNanos(delayMillis * 1_000_000))));
+    }
+
+    /** Deletes settled messages created before the cutoff; returns how many. */
+    int purge(LocalDateTime before) {
+        return jdbc.update("DELETE FROM notification_outbox WHERE status IN ('SENT', 'FAILED') AND created_at < :before",
+                new MapSqlParameterSource("before", Timestamp.valueOf(before)));
+    }
+
+    private static String truncate(String error) {
+        if (error == null) return null;
+        return error.length() > 500 ? error.substring(0, 500) : error;
+    }
+
+    /** One rendered message to one recipient; attempts counts the current one once claimed. */
+    public static final class Message {
+        final long id;
+        final String key;
+        final Long userId;
+        final String channel;
+        final String recipient;
+        final String event;
+        final String subject;
+        final String body;
+        final int attempts;
+
+        Message(long id, String key, Long userId, String channel, String recipient, String event, String subject, String body,
+                int attempts) {
+            this.id = id;
+            this.key = key;
+            this.userId = userId;
+            this.channel = channel;
+            this.recipient = recipient;
+            this.event = event;
+            this.subject = subject;
+            this.body = body;
+            this.attempts = attempts;
+        }
+
+        /** A new message with a fresh idempotency key. */
+        static Message of(Long userId, String channel, String recipient, String event, String subject, String body) {
+            return new Message(0, UUID.randomUUID().toString(), userId, channel, recipient, event, subject, body, 0);
+        }
+
+        public String getKey() { return key; }
+        public String getChannel() { return channel; }
+        public String getRecipient() { return recipient; }
+        public String getEvent() { return event; }
+    }
+}
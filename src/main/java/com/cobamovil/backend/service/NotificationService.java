@@ -1,5 +1,7 @@
 package com.cobamovil.backend.service;
 
+import com.cobamovil.backend.config.HttpClientProperties;
+import com.cobamovil.backend.config.NotificationProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpEntity;
@@ -12,6 +14,18 @@ import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Booking notifications over WhatsApp (Twilio) and email (Mailtrap SMTP, else Resend). The notify
+ * methods only render the message and add it to the notification outbox in the caller's
+ * transaction; NotificationDispatcher sends it once that commits, through deliver, merging the
+ * messages of one recipient and channel that fall in the same window into a digest.
+ */
 @Service
 public class NotificationService {
     private static final Logger log = LoggerFactory.getLogger(NotificationService.class);
@@ -20,12 +34,24 @@ public class NotificationService {
     private final String authToken = System.getenv("TWILIO_AUTH_TOKEN");
     private final String fromWhatsApp = System.getenv("TWILIO_WHATSAPP_FROM"); // e.g., +1415...
     private final boolean enabled;
-    private final RestTemplate http = new RestTemplate();
+    private final RestTemplate twilio;
+    private final RestTemplate resend;
 
     private final JavaMailSender mailtrapSender;
+    private final NotificationOutbox outbox;
+    private final NotificationProperties props;
 
-    public NotificationService(@org.springframework.beans.factory.annotation.Autowired(required = false) JavaMailSender mailtrapSender) {
+    public NotificationService(@org.springframework.beans.factory.annotation.Autowired(required = false) JavaMailSender mailtrapSender,
+                               NotificationOutbox outbox,
+                               NotificationProperties props,
+                               OutboundHttp outboundHttp,
+                               HttpClientProperties httpProps) {
         this.mailtrapSender = mailtrapSender;
+        this.outbox = outbox;
+        this.props = props;
+        Duration readTimeout = Duration.ofMillis(httpProps.getReadTimeoutMillis());
+        this.twilio = outboundHttp.restTemplate("twilio", "api.twilio.com", readTimeout, httpProps.getMaxConcurrentCalls());
+        this.resend = outboundHttp.restTemplate("resend", "api.resend.com", readTimeout, httpProps.getMaxConcurrentCalls());
         this.enabled = accountSid != null && authToken != null && fromWhatsApp != null;
         if (enabled) {
             log.info("Twilio REST configured for WhatsApp from {}", fromWhatsApp);
@@ -34,23 +60,20 @@ public class NotificationService {
         }
     }
 
-    public void sendWhatsApp(String toE164, String body) {
-        if (!enabled) { log.debug("Twilio disabled, skipping WhatsApp message to {}", toE164); return; }
-        try {
-            String url = String.format("https://api.twilio.com/2010-04-01/Accounts/%s/Messages.json", accountSid);
-            HttpHeaders headers = new HttpHeaders();
-            headers.setBasicAuth(accountSid, authToken);
-            headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-            MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
-            form.add("To", "whatsapp:" + toE164);
-            form.add("From", "whatsapp:" + fromWhatsApp);
-            form.add("Body", body);
-            HttpEntity<MultiValueMap<String, String>> req = new HttpEntity<>(form, headers);
-            http.postForEntity(url, req, String.class);
-            log.info("WhatsApp message sent to {}", toE164);
-        } catch (Exception ex) {
-            log.error("Failed to send WhatsApp message: {}", ex.getMessage());
-        }
+    // Failures propagate so the dispatcher can retry
+    private void sendWhatsApp(String toE164, String body) {
+        if (!enabled) throw new IllegalStateException("Twilio is not configured");
+        String url = String.format("https://api.twilio.com/2010-04-01/Accounts/%s/Messages.json", accountSid);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBasicAuth(accountSid, authToken);
+        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+        MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+        form.add("To", "whatsapp:" + toE164);
+        form.add("From", "whatsapp:" + fromWhatsApp);
+        form.add("Body", body);
+        HttpEntity<MultiValueMap<String, String>> req = new HttpEntity<>(form, headers);
+        twilio.postForEntity(url, req, String.class);
+        log.info("WhatsApp message sent to {}", toE164);
     }
 
     /**
@@ -58,45 +81,153 @@ public class NotificationService {
      * channel: "WHATSAPP" | "EMAIL" | "INTERNAL" (no-op)
      */
     public void notifyBookingEvent(com.cobamovil.backend.entity.User user, String event, String channel) {
-        try {
-            switch (channel == null ? "" : channel.toUpperCase()) {
-                case "WHATSAPP" -> {
-                    String to = (user != null && user.getPhone() != null && !user.getPhone().isBlank())
-                            ? user.getPhone()
-                            : System.getenv("TWILIO_TEST_TO");
-                    if (to == null || to.isBlank()) {
-                        log.warn("No phone or TWILIO_TEST_TO set; skipping WhatsApp notification for event {}", event);
-                        return;
-                    }
-                    String body = switch (event) {
-                        case "BOOKING_CREATED" -> "Tu reserva fue recibida y est\u00E1 pendiente de aprobaci\u00F3n.";
-                        case "BOOKING_RESCHEDULED" -> "Tu reserva fue reprogramada.";
-                        case "BOOKING_CANCELED" -> "Tu reserva fue cancelada.";
-                        case "BOOKING_APPROVED" -> "\u00A1Tu reserva fue aprobada!";
-                        case "BOOKING_REJECTED" -> "Lo sentimos, a\u00FAn no llegamos a tu zona.";
-                        case "BOOKING_ON_ROUTE" -> "Estamos en camino.";
-                        case "BOOKING_COMPLETED" -> "Servicio completado. \u00A1Gracias!";
-                        default -> "Actualizaci\u00F3n de tu reserva.";
-                    };
-                    sendWhatsApp(to, body);
-                }
-                case "EMAIL" -> {
-                    sendEmail(
-                            user != null ? user.getEmail() : null,
-                            subjectFor(event),
-                            htmlFor(event)
-                    );
-                }
-                default -> {
-                    // INTERNAL or unknown: no-op
-                    log.debug("INTERNAL notification for event {}", event);
-                }
+        NotificationOutbox.Message m = render(user, event, channel);
+        if (m != null) outbox.enqueue(List.of(m), props.getCoalesceSeconds());
+    }
+
+    /** Same as notifyBookingEvent for each notice, written to the outbox as one batch. */
+    public void notifyBookingEvents(List<Notice> notices) {
+        List<NotificationOutbox.Message> messages = new ArrayList<>(notices.size());
+        for (Notice n : notices) {
+            NotificationOutbox.Message m = render(n.getUser(), n.getEvent(), n.getChannel());
+            if (m != null) messages.add(m);
+        }
+        outbox.enqueue(messages, props.getCoalesceSeconds());
+    }
+
+    public static final class Notice {
+        private final com.cobamovil.backend.entity.User user;
+        private final String event;
+        private final String channel;
+
+        public Notice(com.cobamovil.backend.entity.User user, String event, String channel) {
+            this.user = user;
+            this.event = event;
+            this.channel = channel;
+        }
+
+        public com.cobamovil.backend.entity.User getUser() { return user; }
+        public String getEvent() { return event; }
+        public String getChannel() { return channel; }
+    }
+
+    /**
+     * "On route" WhatsApp message with the estimated arrival time; falls back to the generic
+     * BOOKING_ON_ROUTE text when no estimate is available yet.
+     */
+    public void notifyOnRoute(com.cobamovil.backend.entity.User user, java.time.LocalTime eta) {
+        if (eta == null) { notifyBookingEvent(user, "BOOKING_ON_ROUTE", "WHATSAPP"); return; }
+        enqueueWhatsApp(user, "BOOKING_ON_ROUTE",
+                String.format("Estamos en camino. Llegada estimada: %02d:%02d.", eta.getHour(), eta.getMinute()));
+    }
+
+    /**
+     * WhatsApp offer of a freed slot to a waitlisted customer.
+     */
+    public void notifyWaitlistOffer(com.cobamovil.backend.entity.User user, java.time.LocalDate date, java.time.LocalTime time) {
+        enqueueWhatsApp(user, "WAITLIST_OFFER",
+                String.format("\u00A1Se liber\u00F3 un horario! %s a las %02d:%02d. Res\u00E9rvalo en la app antes de que lo tome alguien m\u00E1s.",
+                        date, time.getHour(), time.getMinute()));
+    }
+
+    /**
+     * Sends one outbox message. Throws when the provider fails, so the dispatcher can retry; the
+     * idempotency key goes to providers that honour one.
+     */
+    void deliver(NotificationOutbox.Message m) throws Exception {
+        switch (m.channel) {
+            case "WHATSAPP" -> sendWhatsApp(m.recipient, m.body);
+            case "EMAIL" -> sendEmail(m.recipient, m.subject, m.body, m.key);
+            default -> throw new IllegalArgumentException("Unknown notification channel " + m.channel);
+        }
+    }
+
+    /**
+     * One message carrying several to the same recipient and channel, in order. Its idempotency key
+     * comes from the ids it carries, so a retry of the same group is recognised while a group that
+     * gained or lost a message is a new send.
+     */
+    NotificationOutbox.Message digest(List<NotificationOutbox.Message> messages) {
+        NotificationOutbox.Message first = messages.get(0);
+        if (messages.size() == 1) return first;
+        StringBuilder body = new StringBuilder();
+        if ("EMAIL".equals(first.channel)) {
+            for (NotificationOutbox.Message m : messages) body.append(m.body);
+            return new NotificationOutbox.Message(first.id, digestKey(messages), first.userId, first.channel, first.recipient, "DIGEST",
+                    String.format("Tienes %d novedades en tus reservas", messages.size()), body.toString(), first.attempts);
+        }
+        body.append(String.format("Tienes %d novedades:", messages.size()));
+        for (NotificationOutbox.Message m : messages) body.append("\n\u2022 ").append(m.body);
+        return new NotificationOutbox.Message(first.id, digestKey(messages), first.userId, first.channel, first.recipient, "DIGEST",
+                null, body.toString(), first.attempts);
+    }
+
+    static String digestKey(List<NotificationOutbox.Message> messages) {
+        StringBuilder ids = new StringBuilder("digest");
+        messages.stream().mapToLong(m -> m.id).sorted().forEach(id -> ids.append(':').append(id));
+        return UUID.nameUUIDFromBytes(ids.toString().getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    // The message for the outbox, or null when there is nothing to send or nobody to send it to
+    private NotificationOutbox.Message render(com.cobamovil.backend.entity.User user, String event, String channel) {
+        switch (channel == null ? "" : channel.toUpperCase()) {
+            case "WHATSAPP" -> {
+                String to = whatsAppRecipient(user, event);
+                if (to == null) return null;
+                String body = switch (event) {
+                    case "BOOKING_CREATED" -> "Tu reserva fue recibida y est\u00E1 pendiente de aprobaci\u00F3n.";
+                    case "BOOKING_RESCHEDULED" -> "Tu reserva fue reprogramada.";
+                    case "BOOKING_CANCELED" -> "Tu reserva fue cancelada.";
+                    case "BOOKING_APPROVED" -> "\u00A1Tu reserva fue aprobada!";
+                    case "BOOKING_REJECTED" -> "Lo sentimos, a\u00FAn no llegamos a tu zona.";
+                    case "BOOKING_ON_ROUTE" -> "Estamos en camino.";
+                    case "BOOKING_COMPLETED" -> "Servicio completado. \u00A1Gracias!";
+                    case "BOOKING_SERIES_CREATED" -> "Tus reservas recurrentes fueron programadas y est\u00E1n pendientes de aprobaci\u00F3n.";
+                    case "BOOKING_SERIES_CANCELED" -> "Tu serie de reservas fue cancelada.";
+                    default -> "Actualizaci\u00F3n de tu reserva.";
+                };
+                return NotificationOutbox.Message.of(idOf(user), "WHATSAPP", to, event, null, body);
+            }
+            case "EMAIL" -> {
+                String to = user != null ? user.getEmail() : null;
+                if (to == null || to.isBlank()) { log.warn("Recipient email missing; skipping email."); return null; }
+                if (!mailConfigured()) { log.warn("No mail provider configured (Mailtrap/Resend)"); return null; }
+                return NotificationOutbox.Message.of(idOf(user), "EMAIL", to, event, subjectFor(event), htmlFor(event));
+            }
+            default -> {
+                // INTERNAL or unknown: no-op
+                log.debug("INTERNAL notification for event {}", event);
+                return null;
             }
-        } catch (Exception ex) {
-            log.error("Notification dispatch failed: {}", ex.getMessage());
         }
     }
 
+    private void enqueueWhatsApp(com.cobamovil.backend.entity.User user, String event, String body) {
+        String to = whatsAppRecipient(user, event);
+        if (to != null) outbox.enqueue(List.of(NotificationOutbox.Message.of(idOf(user), "WHATSAPP", to, event, null, body)), props.getCoalesceSeconds());
+    }
+
+    private static Long idOf(com.cobamovil.backend.entity.User user) {
+        return user != null ? user.getId() : null;
+    }
+
+    private String whatsAppRecipient(com.cobamovil.backend.entity.User user, String event) {
+        if (!enabled) { log.debug("Twilio disabled, skipping WhatsApp notification for event {}", event); return null; }
+        String to = (user != null && user.getPhone() != null && !user.getPhone().isBlank())
+                ? user.getPhone()
+                : System.getenv("TWILIO_TEST_TO");
+        if (to == null || to.isBlank()) {
+            log.warn("No phone or TWILIO_TEST_TO set; skipping WhatsApp notification for event {}", event);
+            return null;
+        }
+        return to;
+    }
+
+    private boolean mailConfigured() {
+        String apiKey = System.getenv("RESEND_API_KEY");
+        return (mailtrapSender != null && System.getenv("MAILTRAP_HOST") != null) || (apiKey != null && !apiKey.isBlank());
+    }
+
     private String subjectFor(String event) {
         return switch (event) {
             case "BOOKING_CREATED" -> "Reserva recibida";
@@ -106,6 +237,8 @@ public class NotificationService {
             case "BOOKING_COMPLETED" -> "Servicio completado";
             case "BOOKING_RESCHEDULED" -> "Reserva reprogramada";
             case "BOOKING_CANCELED" -> "Reserva cancelada";
+            case "BOOKING_SERIES_CREATED" -> "Reservas recurrentes programadas";
+            case "BOOKING_SERIES_CANCELED" -> "Serie de reservas cancelada";
             default -> "Actualizaci\u00F3n de tu reserva";
         };
     }
@@ -119,14 +252,17 @@ public class NotificationService {
             case "BOOKING_COMPLETED" -> "Servicio completado. \u00A1Gracias!";
             case "BOOKING_RESCHEDULED" -> "Tu reserva fue reprogramada.";
             case "BOOKING_CANCELED" -> "Tu reserva fue cancelada.";
+            case "BOOKING_SERIES_CREATED" -> "Tus reservas recurrentes fueron programadas y est\u00E1n pendientes de aprobaci\u00F3n.";
+            case "BOOKING_SERIES_CANCELED" -> "Tu serie de reservas fue cancelada.";
             default -> "Actualizaci\u00F3n de tu reserva.";
         };
         return "<p>" + body + "</p>";
     }
 
-    private void sendEmail(String to, String subject, String html) {
-        if (to == null || to.isBlank()) { log.warn("Recipient email missing; skipping email."); return; }
+    // Mailtrap SMTP first, Resend as fallback; throws when neither delivers
+    private void sendEmail(String to, String subject, String html, String idempotencyKey) {
         // 1) Try Mailtrap via SMTP (if configured)
+        Exception smtpFailure = null;
         try {
             String host = System.getenv("MAILTRAP_HOST");
             if (mailtrapSender != null && host != null) {
@@ -143,25 +279,25 @@ public class NotificationService {
             }
         } catch (Exception ex) {
             log.error("Failed to send email via Mailtrap SMTP: {}", ex.getMessage());
+            smtpFailure = ex;
         }
 
         // 2) Fallback to Resend API if available
         String apiKey = System.getenv("RESEND_API_KEY");
-        if (apiKey == null || apiKey.isBlank()) { log.warn("No mail provider configured (Mailtrap/Resend)"); return; }
-        try {
-            String url = "https://api.resend.com/emails";
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.setBearerAuth(apiKey);
-            String from = System.getenv().getOrDefault("RESEND_FROM_EMAIL", "Coba M\u00F3vil <notifications@resend.dev>");
-            String payload = String.format("{\"from\":\"%s\",\"to\":[\"%s\"],\"subject\":\"%s\",\"html\":\"%s\"}",
-                    from.replace("\"","'"), to.replace("\"","'"), subject.replace("\"","'"), html.replace("\"","'"));
-            HttpEntity<String> req = new HttpEntity<>(payload, headers);
-            http.postForEntity(url, req, String.class);
-            log.info("Email sent to {} via Resend", to);
-        } catch (Exception ex) {
-            log.error("Failed to send email via Resend: {}", ex.getMessage());
+        if (apiKey == null || apiKey.isBlank()) {
+            if (smtpFailure != null) throw new IllegalStateException("Mailtrap SMTP failed: " + smtpFailure.getMessage(), smtpFailure);
+            throw new IllegalStateException("No mail provider configured (Mailtrap/Resend)");
         }
+        String url = "https://api.resend.com/emails";
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(apiKey);
+        headers.set("Idempotency-Key", idempotencyKey);
+        String from = System.getenv().getOrDefault("RESEND_FROM_EMAIL", "Coba M\u00F3vil <notifications@resend.dev>");
+        String payload = String.format("{\"from\":\"%s\",\"to\":[\"%s\"],\"subject\":\"%s\",\"html\":\"%s\"}",
+                from.replace("\"","'"), to.replace("\"","'"), subject.replace("\"","'"), html.replace("\"","'"));
+        HttpEntity<String> req = new HttpEntity<>(payload, headers);
+        resend.postForEntity(url, req, String.class);
+        log.info("Email sent to {} via Resend", to);
     }
 }
-
@@ -0,0 +1,101 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.config.NotificationProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets for outgoing notifications: one per channel, sized to the provider quota, and one
+ * per recipient so nobody gets a burst of messages. A send needs a token from both. Buckets are
+ * per instance, so with several instances the channel rates add up.
+ */
+@Component
+public class NotificationThrottle {
+    private final NotificationProperties props;
+    private final LongSupplier nanoClock;
+    private final Map<String, TokenBucket> channels = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> recipients = new ConcurrentHashMap<>();
+
+    @Autowired
+    public NotificationThrottle(NotificationProperties props) {
+        this(props, System::nanoTime);
+    }
+
+    NotificationThrottle(NotificationProperties props, LongSupplier nanoClock) {
+        this.props = props;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Takes a token for one send to recipient over channel and returns 0, or, when either bucket
+     * is empty, takes nothing and returns the milliseconds until both could have one.
+     */
+    public long acquire(String channel, String recipient) {
+        long now = nanoClock.getAsLong();
+        TokenBucket perChannel = channels.computeIfAbsent(channel, c -> "EMAIL".equals(c)
+                ? new TokenBucket(props.getEmailBurst(), props.getEmailPerSecond(), now)
+                : new TokenBucket(props.getWhatsappBurst(), props.getWhatsappPerSecond(), now));
+        TokenBucket perRecipient = recipients.computeIfAbsent(channel + '|' + recipient,
+                r -> new TokenBucket(props.getRecipientBurst(), props.getRecipientPerHour() / 3600, now));
+        synchronized (perRecipient) {
+            long wait = Math.max(perRecipient.waitNanos(now), perChannel.waitNanos(now));
+            if (wait > 0 || !perChannel.tryTake(now)) return Math.max(1, TimeUnit.NANOSECONDS.toMillis(Math.max(wait, 1_000_000)));
+            perRecipient.tryTake(now);
+            return 0;
+        }
+    }
+
+    int trackedRecipients() { return recipients.size(); }
+
+    // A full bucket holds no state worth keeping
+    @Scheduled(fixedDelay = 60_000)
+    public void evictIdle() {
+        long now = nanoClock.getAsLong();
+        recipients.values().removeIf(b -> b.isFull(now));
+    }
+
+    static final class TokenBucket {
+        private final double capacity;
+        private final double perNano;
+        private double tokens;
+        private long last;
+
+        TokenBucket(double capacity, double perSecond, long nowNanos) {
+            this.capacity = Math.max(1, capacity);
+            this.perNano = Math.max(perSecond, 1e-9) / 1e9;
+            this.tokens = this.capacity;
+            this.last = nowNanos;
+        }
+
+        synchronized boolean tryTake(long nowNanos) {
+            refill(nowNanos);
+            if (tokens < 1) return false;
+            tokens -= 1;
+            return true;
+        }
+
+        /** Nanoseconds until a token is available, 0 if one is now. */
+        synchronized long waitNanos(long nowNanos) {
+            refill(nowNanos);
+            return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / perNano);
+        }
+
+        synchronized boolean isFull(long nowNanos) {
+            refill(nowNanos);
+            return tokens >= capacity;
+        }
+
+        private void refill(long nowNanos) {
+            if (nowNanos > last) {
+                tokens = Math.min(capacity, tokens + (nowNanos - last) * perNano);
+                last = nowNanos;
+            }
+        }
+    }
+}
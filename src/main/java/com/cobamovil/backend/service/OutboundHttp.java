@@ -0,0 +1,169 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.config.HttpClientProperties;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.common.KeyValue;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.pool.PoolStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.observation.ClientRequestObservationContext;
+import org.springframework.http.client.observation.DefaultClientRequestObservationConvention;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.function.ToIntFunction;
+
+/**
+ * RestTemplates for the external providers, all over the shared pooled client from HttpClientConfig.
+ * Each integration gets its own read timeout and its own metrics: http.client.requests tagged with
+ * client.name (latency, status and exception per call) and http.client.pool.{leased,pending,available,max}
+ * for the connections to its host.
+ * <p>
+ * Every call also passes a circuit breaker and a bulkhead of its integration. While a provider keeps
+ * failing or answering slowly the breaker is open and calls throw CallNotPermittedException at once;
+ * past maxConcurrentCalls in flight they throw BulkheadFullException. Either way the caller falls
+ * back right away instead of holding a request thread until the read timeout.
+ */
+@Component
+public class OutboundHttp {
+    private static final Logger log = LoggerFactory.getLogger(OutboundHttp.class);
+
+    private final CloseableHttpClient client;
+    private final PoolingHttpClientConnectionManager pool;
+    private final ObservationRegistry observations;
+    private final MeterRegistry registry;
+    private final CircuitBreakerRegistry breakers;
+    private final BulkheadRegistry bulkheads;
+    private final HttpClientProperties props;
+
+    public OutboundHttp(CloseableHttpClient outboundHttpClient, PoolingHttpClientConnectionManager outboundConnectionManager,
+                        ObservationRegistry observations, MeterRegistry registry, CircuitBreakerRegistry outboundCircuitBreakers,
+                        BulkheadRegistry outboundBulkheads, HttpClientProperties props) {
+        this.client = outboundHttpClient;
+        this.pool = outboundConnectionManager;
+        this.observations = observations;
+        this.registry = registry;
+        this.breakers = outboundCircuitBreakers;
+        this.bulkheads = outboundBulkheads;
+        this.props = props;
+    }
+
+    /**
+     * A RestTemplate for calls named integration to host, giving up on a response after readTimeout
+     * and allowing at most maxConcurrentCalls at a time.
+     */
+    public RestTemplate restTemplate(String integration, String host, Duration readTimeout, int maxConcurrentCalls) {
+        HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory(client);
+        factory.setReadTimeout(readTimeout);
+        RestTemplate template = new RestTemplate(factory);
+        template.getInterceptors().add(guard(circuitBreaker(integration, readTimeout),
+                bulkheads.bulkhead(integration, BulkheadConfig.custom()
+                        .maxConcurrentCalls(Math.max(1, maxConcurrentCalls))
+                        .maxWaitDuration(Duration.ZERO)
+                        .build())));
+        template.setObservationRegistry(observations);
+        template.setObservationConvention(new DefaultClientRequestObservationConvention() {
+            @Override
+            protected KeyValue clientName(ClientRequestObservationContext context) {
+                return KeyValue.of("client.name", integration);
+            }
+        });
+        gauge("http.client.pool.leased", integration, host, PoolStats::getLeased);
+        gauge("http.client.pool.pending", integration, host, PoolStats::getPending);
+        gauge("http.client.pool.available", integration, host, PoolStats::getAvailable);
+        gauge("http.client.pool.max", integration, host, PoolStats::getMax);
+        return template;
+    }
+
+    private CircuitBreaker circuitBreaker(String integration, Duration readTimeout) {
+        CircuitBreaker breaker = breakers.circuitBreaker(integration, circuitBreakerConfig(props, readTimeout));
+        breaker.getEventPublisher().onStateTransition(e -> {
+            log.warn("Circuit breaker {} went {}", integration, e.getStateTransition());
+            registry.counter("http.client.circuit.transitions", "client.name", integration,
+                    "from", e.getStateTransition().getFromState().name(), "to", e.getStateTransition().getToState().name()).increment();
+        });
+        return breaker;
+    }
+
+    /**
+     * Opens once failureRatePercent of the last windowSize calls failed (5xx, 429 or no response) or
+     * slowCallRatePercent took more than half the read timeout.
+     */
+    static CircuitBreakerConfig circuitBreakerConfig(HttpClientProperties props, Duration readTimeout) {
+        return CircuitBreakerConfig.custom()
+                .slidingWindowSize(Math.max(1, props.getWindowSize()))
+                .minimumNumberOfCalls(Math.max(1, props.getMinimumCalls()))
+                .failureRateThreshold(props.getFailureRatePercent())
+                .slowCallRateThreshold(props.getSlowCallRatePercent())
+                .slowCallDurationThreshold(readTimeout.dividedBy(2))
+                .waitDurationInOpenState(Duration.ofSeconds(props.getOpenSeconds()))
+                .permittedNumberOfCallsInHalfOpenState(Math.max(1, props.getHalfOpenCalls()))
+                .recordResult(OutboundHttp::isFailure)
+                .build();
+    }
+
+    static ClientHttpRequestInterceptor guard(CircuitBreaker breaker, Bulkhead bulkhead) {
+        return (request, body, execution) -> {
+            breaker.acquirePermission();
+            if (!bulkhead.tryAcquirePermission()) {
+                breaker.releasePermission();
+                throw BulkheadFullException.createBulkheadFullException(bulkhead);
+            }
+            long start = breaker.getCurrentTimestamp();
+            try {
+                ClientHttpResponse response = execution.execute(request, body);
+                breaker.onResult(breaker.getCurrentTimestamp() - start, breaker.getTimestampUnit(), response);
+                return response;
+            } catch (IOException | RuntimeException ex) {
+                breaker.onError(breaker.getCurrentTimestamp() - start, breaker.getTimestampUnit(), ex);
+                throw ex;
+            } finally {
+                bulkhead.onComplete();
+            }
+        };
+    }
+
+    // The provider is down or throttling; other client errors are the request's fault
+    private static boolean isFailure(Object result) {
+        if (!(result instanceof ClientHttpResponse response)) return false;
+        try {
+            return response.getStatusCode().is5xxServerError()
+                    || response.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value();
+        } catch (IOException ex) {
+            return true;
+        }
+    }
+
+    private void gauge(String name, String integration, String host, ToIntFunction<PoolStats> stat) {
+        Gauge.builder(name, pool, p -> routeStat(p, host, stat))
+                .tag("client.name", integration)
+                .register(registry);
+    }
+
+    // A host has one route per scheme and proxy; the pool only knows routes it has connected
+    private static double routeStat(PoolingHttpClientConnectionManager pool, String host, ToIntFunction<PoolStats> stat) {
+        int total = 0;
+        for (HttpRoute route : pool.getRoutes()) {
+            if (host.equalsIgnoreCase(route.getTargetHost().getHostName())) total += stat.applyAsInt(pool.getStats(route));
+        }
+        return total;
+    }
+}
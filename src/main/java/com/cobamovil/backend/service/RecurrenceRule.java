@@ -0,0 +1,148 @@
+package com.cobamovil.backend.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+
+/**
+ * The subset of RFC 5545 RRULE that booking series use: FREQ=DAILY|WEEKLY|MONTHLY, INTERVAL,
+ * BYDAY (weekly only, e.g. MO,TH), COUNT and UNTIL (yyyyMMdd), for example
+ * "FREQ=WEEKLY;INTERVAL=3". Occurrences are dates counted from the series start, which is
+ * always the first one.
+ */
+public final class RecurrenceRule {
+    enum Frequency { DAILY, WEEKLY, MONTHLY }
+
+    private static final Map<String, DayOfWeek> DAYS = Map.of(
+            "MO", DayOfWeek.MONDAY, "TU", DayOfWeek.TUESDAY, "WE", DayOfWeek.WEDNESDAY, "TH", DayOfWeek.THURSDAY,
+            "FR", DayOfWeek.FRIDAY, "SA", DayOfWeek.SATURDAY, "SU", DayOfWeek.SUNDAY);
+    private static final int MAX_INTERVAL = 52;
+    private static final int MAX_COUNT = 520;
+
+    final Frequency frequency;
+    final int interval;
+    final EnumSet<DayOfWeek> byDay; // empty: the weekday of the start date
+    final Integer count;
+    final LocalDate until;
+
+    private RecurrenceRule(Frequency frequency, int interval, EnumSet<DayOfWeek> byDay, Integer count, LocalDate until) {
+        this.frequency = frequency;
+        this.interval = interval;
+        this.byDay = byDay;
+        this.count = count;
+        this.until = until;
+    }
+
+    public static RecurrenceRule parse(String rule) {
+        if (rule == null || rule.isBlank()) throw invalid(rule);
+        String text = rule.trim();
+        if (text.regionMatches(true, 0, "RRULE:", 0, 6)) text = text.substring(6);
+        Frequency frequency = null;
+        int interval = 1;
+        EnumSet<DayOfWeek> byDay = EnumSet.noneOf(DayOfWeek.class);
+        Integer count = null;
+        LocalDate until = null;
+        try {
+            for (String part : text.split(";")) {
+                int eq = part.indexOf('=');
+                if (eq <= 0) throw invalid(rule);
+                String value = part.substring(eq + 1).trim().toUpperCase(Locale.ROOT);
+                switch (part.substring(0, eq).trim().toUpperCase(Locale.ROOT)) {
+                    case "FREQ" -> frequency = Frequency.valueOf(value);
+                    case "INTERVAL" -> interval = Integer.parseInt(value);
+                    case "COUNT" -> count = Integer.parseInt(value);
+                    case "UNTIL" -> until = LocalDate.parse(value.length() > 8 ? value.substring(0, 8) : value, DateTimeFormatter.BASIC_ISO_DATE);
+                    case "BYDAY" -> {
+                        for (String d : value.split(",")) {
+                            DayOfWeek day = DAYS.get(d.trim());
+                            if (day == null) throw invalid(rule);
+                            byDay.add(day);
+                        }
+                    }
+                    default -> throw invalid(rule);
+                }
+            }
+        } catch (IllegalArgumentException | DateTimeParseException ex) { // includes unknown FREQ values
+            throw invalid(rule);
+        }
+        if (frequency == null || interval < 1 || interval > MAX_INTERVAL) throw invalid(rule);
+        if (count != null && (count < 1 || count > MAX_COUNT)) throw invalid(rule);
+        if (count != null && until != null) throw invalid(rule);
+        if (!byDay.isEmpty() && frequency != Frequency.WEEKLY) throw invalid(rule);
+        return new RecurrenceRule(frequency, interval, byDay, count, until);
+    }
+
+    /**
+     * Occurrences of a series starting on start that fall within [from, to], in order.
+     */
+    public List<LocalDate> occurrences(LocalDate start, LocalDate from, LocalDate to) {
+        List<LocalDate> out = new ArrayList<>();
+        LocalDate last = until != null && until.isBefore(to) ? until : to;
+        int seen = 0;
+        for (long period = 0; ; period++) {
+            LocalDate first = periodStart(start, period);
+            if (first.isAfter(last)) break;
+            for (LocalDate d : inPeriod(start, first)) {
+                if (d.isBefore(start)) continue;
+                if (d.isAfter(last) || (count != null && seen >= count)) return out;
+                seen++;
+                if (!d.isBefore(from)) out.add(d);
+            }
+            // Jump ahead to the period holding from when nothing before it has to be counted
+            if (count == null && period == 0 && from.isAfter(first)) {
+                period = Math.max(period, periodsBetween(start, from) - 1);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Last occurrence of a series starting on start, or null when it never ends.
+     */
+    public LocalDate lastOccurrence(LocalDate start) {
+        if (count == null && until == null) return null;
+        LocalDate bound = until != null ? until : start.plusYears(MAX_COUNT);
+        List<LocalDate> all = occurrences(start, start, bound);
+        return all.isEmpty() ? start : all.get(all.size() - 1);
+    }
+
+    private LocalDate periodStart(LocalDate start, long period) {
+        return switch (frequency) {
+            case DAILY -> start.plusDays(period * interval);
+            case WEEKLY -> start.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).plusWeeks(period * interval);
+            // Months without that day (the 31st, say) are skipped, as RFC 5545 does
+            case MONTHLY -> start.withDayOfMonth(1).plusMonths(period * interval);
+        };
+    }
+
+    private List<LocalDate> inPeriod(LocalDate start, LocalDate first) {
+        switch (frequency) {
+            case WEEKLY -> {
+                if (byDay.isEmpty()) return List.of(first.with(TemporalAdjusters.nextOrSame(start.getDayOfWeek())));
+                List<LocalDate> days = new ArrayList<>(byDay.size());
+                for (DayOfWeek d : byDay) days.add(first.with(TemporalAdjusters.nextOrSame(d)));
+                return days;
+            }
+            case MONTHLY -> {
+                return start.getDayOfMonth() <= first.lengthOfMonth() ? List.of(first.withDayOfMonth(start.getDayOfMonth())) : List.of();
+            }
+            default -> { return List.of(first); }
+        }
+    }
+
+    private long periodsBetween(LocalDate start, LocalDate from) {
+        return switch (frequency) {
+            case DAILY -> ChronoUnit.DAYS.between(start, from) / interval;
+            case WEEKLY -> ChronoUnit.WEEKS.between(start.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)), from) / interval;
+            case MONTHLY -> ChronoUnit.MONTHS.between(start.withDayOfMonth(1), from) / interval;
+        };
+    }
+
+    private static IllegalArgumentException invalid(String rule) {
+        return new IllegalArgumentException("Invalid recurrence rule: " + rule);
+    }
+}
@@ -0,0 +1,440 @@
+package com.cobamovil.backend.service;
+
+import crosby.binary.BinaryParser;
+import crosby.binary.Osmformat;
+import crosby.binary.file.BlockInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Car road graph in compressed sparse row form: the outgoing edges of node v are
+ * edgeTarget[firstEdge[v] .. firstEdge[v + 1]) with travel times in edgeSeconds. Everything is
+ * held in primitive arrays, so a city extract of a few million nodes stays compact. Points are
+ * snapped to the nearest road node through a uniform lat/lng grid.
+ */
+final class RoadNetwork {
+
+    private static final double GRID_DEG = 0.005;  // ~550 m cells
+    private static final int MAX_SNAP_RINGS = 4;   // give up beyond ~2 km from any road
+    private static final int UNREACHED = Integer.MAX_VALUE;
+    private static final int NODE_BITS = 24;       // grid sort packs the node index below the cell key
+
+    // Free-flow urban speeds (km/h) per highway class when the way has no usable maxspeed
+    private static final Map<String, Integer> SPEEDS = Map.ofEntries(
+            Map.entry("motorway", 80), Map.entry("motorway_link", 50),
+            Map.entry("trunk", 60), Map.entry("trunk_link", 40),
+            Map.entry("primary", 45), Map.entry("primary_link", 35),
+            Map.entry("secondary", 40), Map.entry("secondary_link", 30),
+            Map.entry("tertiary", 35), Map.entry("tertiary_link", 25),
+            Map.entry("unclassified", 25), Map.entry("residential", 25),
+            Map.entry("living_street", 10), Map.entry("service", 15));
+
+    private final float[] lat;
+    private final float[] lng;
+    private final int[] firstEdge;
+    private final int[] edgeTarget;
+    private final int[] edgeSeconds;
+    private final long[] cellKeys;  // sorted distinct grid cells
+    private final int[] cellStart;  // nodes of cellKeys[c] are cellNodes[cellStart[c] .. cellStart[c + 1])
+    private final int[] cellNodes;
+
+    private RoadNetwork(float[] lat, float[] lng, int[] from, int[] to, int[] seconds, int edges) {
+        int n = requireIndexable(lat.length);
+        this.lat = lat;
+        this.lng = lng;
+        firstEdge = new int[n + 1];
+        for (int e = 0; e < edges; e++) firstEdge[from[e] + 1]++;
+        for (int v = 0; v < n; v++) firstEdge[v + 1] += firstEdge[v];
+        edgeTarget = new int[edges];
+        edgeSeconds = new int[edges];
+        int[] fill = Arrays.copyOf(firstEdge, n);
+        for (int e = 0; e < edges; e++) {
+            int slot = fill[from[e]]++;
+            edgeTarget[slot] = to[e];
+            edgeSeconds[slot] = seconds[e];
+        }
+
+        // Grid: sort node indices by cell key, then record where each cell starts
+        long[] keyed = new long[n];
+        int used = 0;
+        for (int v = 0; v < n; v++) {
+            if (firstEdge[v + 1] == firstEdge[v]) continue; // dead ends with no way out are useless snap targets
+            keyed[used++] = (cellKey(lat[v], lng[v]) << NODE_BITS) | v;
+        }
+        keyed = Arrays.copyOf(keyed, used);
+        Arrays.sort(keyed);
+        cellNodes = new int[used];
+        long[] keys = new long[used];
+        int[] starts = new int[used + 1];
+        int cells = 0;
+        for (int i = 0; i < used; i++) {
+            long key = keyed[i] >>> NODE_BITS;
+            cellNodes[i] = (int) (keyed[i] & ((1 << NODE_BITS) - 1));
+            if (cells == 0 || keys[cells - 1] != key) {
+                keys[cells] = key;
+                starts[cells++] = i;
+            }
+        }
+        starts[cells] = used;
+        cellKeys = Arrays.copyOf(keys, cells);
+        cellStart = Arrays.copyOf(starts, cells + 1);
+    }
+
+    int nodeCount() { return lat.length; }
+
+    static int requireIndexable(int nodes) {
+        if (nodes >= 1 << NODE_BITS) {
+            throw new IllegalArgumentException("Road network has " + nodes + " nodes; at most " + ((1 << NODE_BITS) - 1)
+                    + " are supported, use a smaller extract or coverage box");
+        }
+        return nodes;
+    }
+
+    int edgeCount() { return edgeTarget.length; }
+
+    static RoadNetwork fromEdges(double[] latDeg, double[] lngDeg, int[] from, int[] to, int[] seconds) {
+        float[] la = new float[latDeg.length], lo = new float[lngDeg.length];
+        for (int i = 0; i < la.length; i++) { la[i] = (float) latDeg[i]; lo[i] = (float) lngDeg[i]; }
+        return new RoadNetwork(la, lo, from, to, seconds, from.length);
+    }
+
+    /**
+     * Driving seconds between every pair of points (row = origin). Each point is snapped to its
+     * nearest road node; the straight-line hop to that node is charged at accessSecondsPerKm.
+     * Pairs with no road connection, or points too far from any road, are -1; the diagonal is 0.
+     */
+    int[][] durationMatrixSeconds(double[] lats, double[] lngs, double accessSecondsPerKm) {
+        int m = lats.length;
+        int[] node = new int[m];
+        int[] access = new int[m];
+        for (int i = 0; i < m; i++) {
+            node[i] = snap(lats[i], lngs[i]);
+            if (node[i] < 0) continue;
+            access[i] = (int) Math.round(km(lats[i], lngs[i], lat[node[i]], lng[node[i]]) * accessSecondsPerKm);
+        }
+
+        int[][] out = new int[m][m];
+        for (int[] row : out) Arrays.fill(row, -1);
+        Search search = new Search(lat.length);
+        for (int i = 0; i < m; i++) {
+            out[i][i] = 0;
+            if (node[i] < 0) continue;
+            search.run(node[i], node);
+            for (int j = 0; j < m; j++) {
+                if (j == i || node[j] < 0) continue;
+                int d = search.distance(node[j]);
+                if (d != UNREACHED) out[i][j] = access[i] + d + access[j];
+            }
+        }
+        return out;
+    }
+
+    // Nearest node with an outgoing edge, searching square rings of grid cells around the point
+    int snap(double la, double lo) {
+        long cLat = (long) Math.floor(la / GRID_DEG), cLng = (long) Math.floor(lo / GRID_DEG);
+        int best = -1;
+        double bestD = Double.POSITIVE_INFINITY;
+        double cosLat = Math.cos(Math.toRadians(la));
+        for (int r = 0; r <= MAX_SNAP_RINGS; r++) {
+            for (long y = cLat - r; y <= cLat + r; y++) {
+                for (long x = cLng - r; x <= cLng + r; x++) {
+                    if (Math.max(Math.abs(y - cLat), Math.abs(x - cLng)) != r) continue;
+                    int c = Arrays.binarySearch(cellKeys, pack(y, x));
+                    if (c < 0) continue;
+                    for (int k = cellStart[c]; k < cellStart[c + 1]; k++) {
+                        int v = cellNodes[k];
+                        double dy = lat[v] - la, dx = (lng[v] - lo) * cosLat;
+                        double d = dy * dy + dx * dx;
+                        if (d < bestD) { bestD = d; best = v; }
+                    }
+                }
+            }
+            // One extra ring: a node in a neighbouring cell can be closer than one in our own
+            if (best >= 0 && r >= 1) break;
+        }
+        return best;
+    }
+
+    private static long cellKey(double la, double lo) {
+        return pack((long) Math.floor(la / GRID_DEG), (long) Math.floor(lo / GRID_DEG));
+    }
+
+    // 19 + 20 bits cover the globe at GRID_DEG and leave 24 bits for a node index while sorting
+    private static long pack(long cellLat, long cellLng) {
+        return ((cellLat + (1 << 18)) << 20) | ((cellLng + (1 << 19)) & 0xFFFFF);
+    }
+
+    private static double km(double lat1, double lng1, double lat2, double lng2) {
+        GeoMath.Points p = GeoMath.Points.of(new double[]{lat1, lat2}, new double[]{lng1, lng2});
+        return GeoMath.distanceKm(p, 0, p, 1);
+    }
+
+    /**
+     * One-to-many Dijkstra with a lazy binary heap of (distance << 32 | node) longs. Arrays are
+     * reused across sources; a generation stamp marks which entries belong to the current run.
+     * The search stops once every target node is settled.
+     */
+    private final class Search {
+        private final int[] dist;
+        private final int[] reached;  // generation that set dist
+        private final int[] settled;  // generation that settled the node
+        private final int[] target;   // generation that marked the node as a target
+        private long[] heap = new long[1024];
+        private int size;
+        private int generation;
+
+        Search(int n) {
+            dist = new int[n];
+            reached = new int[n];
+            settled = new int[n];
+            target = new int[n];
+        }
+
+        void run(int source, int[] targets) {
+            generation++;
+            int remaining = 0;
+            for (int t : targets) {
+                if (t >= 0 && target[t] != generation) { target[t] = generation; remaining++; }
+            }
+            size = 0;
+            dist[source] = 0;
+            reached[source] = generation;
+            push(source, 0);
+            while (size > 0 && remaining > 0) {
+                long top = pop();
+                int v = (int) top;
+                int d = (int) (top >>> 32);
+                if (settled[v] == generation) continue;
+                settled[v] = generation;
+                if (target[v] == generation) remaining--;
+                for (int e = firstEdge[v]; e < firstEdge[v + 1]; e++) {
+                    int w = edgeTarget[e];
+                    int nd = d + edgeSeconds[e];
+                    if (reached[w] != generation || nd < dist[w]) {
+                        dist[w] = nd;
+                        reached[w] = generation;
+                        push(w, nd);
+                    }
+                }
+            }
+        }
+
+        int distance(int v) {
+            return settled[v] == generation ? dist[v] : UNREACHED;
+        }
+
+        private void push(int v, int d) {
+            if (size == heap.length) heap = Arrays.copyOf(heap, size * 2);
+            long item = ((long) d << 32) | v;
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] <= item) break;
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = item;
+        }
+
+        private long pop() {
+            long top = heap[0];
+            long last = heap[--size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && heap[child + 1] < heap[child]) child++;
+                if (heap[child] >= last) break;
+                heap[i] = heap[child];
+                i = child;
+            }
+            if (size > 0) heap[i] = last;
+            return top;
+        }
+    }
+
+    /**
+     * Reads the car-routable ways of a PBF extract in two passes (ways first, then only the nodes
+     * they reference) and keeps nodes inside the given bounding box.
+     */
+    static RoadNetwork load(Path pbf, double minLat, double maxLat, double minLng, double maxLng) throws IOException {
+        WayReader ways = new WayReader();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(pbf))) {
+            new BlockInputStream(in, ways).process();
+        }
+        long[] ids = Arrays.copyOf(ways.refs, ways.refCount);
+        Arrays.sort(ids);
+        int distinct = 0;
+        for (int i = 0; i < ids.length; i++) if (i == 0 || ids[i] != ids[i - 1]) ids[distinct++] = ids[i];
+        ids = Arrays.copyOf(ids, distinct);
+
+        NodeReader nodes = new NodeReader(ids, minLat, maxLat, minLng, maxLng);
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(pbf))) {
+            new BlockInputStream(in, nodes).process();
+        }
+
+        // Compact to the nodes that were found inside the box
+        int[] index = new int[ids.length];
+        int n = 0;
+        for (int i = 0; i < ids.length; i++) index[i] = nodes.found[i] ? n++ : -1;
+        requireIndexable(n);
+        double[] la = new double[n], lo = new double[n];
+        for (int i = 0; i < ids.length; i++) {
+            if (index[i] >= 0) { la[index[i]] = nodes.lat[i]; lo[index[i]] = nodes.lng[i]; }
+        }
+        GeoMath.Points points = GeoMath.Points.of(la, lo);
+
+        int cap = Math.max(16, ways.refCount * 2);
+        int[] from = new int[cap], to = new int[cap], secs = new int[cap];
+        int edges = 0;
+        for (int w = 0; w < ways.wayCount; w++) {
+            int speed = ways.speed[w];
+            byte dir = ways.direction[w];
+            for (int k = ways.start[w] + 1; k < ways.start[w + 1]; k++) {
+                int a = index[Arrays.binarySearch(ids, ways.refs[k - 1])];
+                int b = index[Arrays.binarySearch(ids, ways.refs[k])];
+                if (a < 0 || b < 0 || a == b) continue;
+                int s = (int) Math.max(1, Math.round(GeoMath.distanceKm(points, a, points, b) / speed * 3600));
+                if (edges + 2 > cap) {
+                    cap *= 2;
+                    from = Arrays.copyOf(from, cap);
+                    to = Arrays.copyOf(to, cap);
+                    secs = Arrays.copyOf(secs, cap);
+                }
+                if ((dir & WayReader.FORWARD) != 0) { from[edges] = a; to[edges] = b; secs[edges++] = s; }
+                if ((dir & WayReader.BACKWARD) != 0) { from[edges] = b; to[edges] = a; secs[edges++] = s; }
+            }
+        }
+        float[] fLat = new float[n], fLng = new float[n];
+        for (int i = 0; i < n; i++) { fLat[i] = (float) la[i]; fLng[i] = (float) lo[i]; }
+        return new RoadNetwork(fLat, fLng, from, to, secs, edges);
+    }
+
+    private static final class WayReader extends BinaryParser {
+        static final byte FORWARD = 1, BACKWARD = 2;
+
+        long[] refs = new long[1 << 16];
+        int refCount;
+        int[] start = new int[1 << 12];
+        int[] speed = new int[1 << 12];
+        byte[] direction = new byte[1 << 12];
+        int wayCount;
+
+        @Override
+        protected void parseWays(List<Osmformat.Way> list) {
+            for (Osmformat.Way way : list) {
+                String highway = null, oneway = null, maxspeed = null, access = null, junction = null;
+                for (int i = 0; i < way.getKeysCount(); i++) {
+                    String k = getStringById(way.getKeys(i));
+                    String v = getStringById(way.getVals(i));
+                    switch (k) {
+                        case "highway" -> highway = v;
+                        case "oneway" -> oneway = v;
+                        case "maxspeed" -> maxspeed = v;
+                        case "access", "motor_vehicle" -> access = v;
+                        case "junction" -> junction = v;
+                        default -> {}
+                    }
+                }
+                Integer defaultSpeed = highway != null ? SPEEDS.get(highway) : null;
+                if (defaultSpeed == null || "no".equals(access) || "private".equals(access)) continue;
+                if (way.getRefsCount() < 2) continue;
+
+                byte dir = (byte) (FORWARD | BACKWARD);
+                if ("-1".equals(oneway) || "reverse".equals(oneway)) dir = BACKWARD;
+                else if ("yes".equals(oneway) || "true".equals(oneway) || "1".equals(oneway)) dir = FORWARD;
+                else if (oneway == null && ("motorway".equals(highway) || "roundabout".equals(junction))) dir = FORWARD;
+
+                if (wayCount + 2 > start.length) {
+                    start = Arrays.copyOf(start, start.length * 2);
+                    speed = Arrays.copyOf(speed, speed.length * 2);
+                    direction = Arrays.copyOf(direction, direction.length * 2);
+                }
+                start[wayCount] = refCount;
+                speed[wayCount] = parseSpeed(maxspeed, defaultSpeed);
+                direction[wayCount] = dir;
+                wayCount++;
+                long id = 0;
+                for (int i = 0; i < way.getRefsCount(); i++) {
+                    id += way.getRefs(i); // delta coded
+                    if (refCount == refs.length) refs = Arrays.copyOf(refs, refs.length * 2);
+                    refs[refCount++] = id;
+                }
+                start[wayCount] = refCount;
+            }
+        }
+
+        private static int parseSpeed(String maxspeed, int fallback) {
+            if (maxspeed == null) return fallback;
+            int i = 0;
+            while (i < maxspeed.length() && Character.isDigit(maxspeed.charAt(i))) i++;
+            if (i == 0) return fallback;
+            int v = Integer.parseInt(maxspeed.substring(0, i));
+            if (maxspeed.contains("mph")) v = (int) Math.round(v * 1.609);
+            // Posted limits overstate city driving; never go faster than the class allows
+            return Math.max(5, Math.min(v, fallback));
+        }
+
+        @Override protected void parseRelations(List<Osmformat.Relation> list) {}
+        @Override protected void parseDense(Osmformat.DenseNodes nodes) {}
+        @Override protected void parseNodes(List<Osmformat.Node> list) {}
+        @Override protected void parse(Osmformat.HeaderBlock header) {}
+        @Override public void complete() {}
+    }
+
+    private static final class NodeReader extends BinaryParser {
+        private final long[] ids;
+        private final double minLat, maxLat, minLng, maxLng;
+        final double[] lat;
+        final double[] lng;
+        final boolean[] found;
+
+        NodeReader(long[] ids, double minLat, double maxLat, double minLng, double maxLng) {
+            this.ids = ids;
+            this.minLat = minLat;
+            this.maxLat = maxLat;
+            this.minLng = minLng;
+            this.maxLng = maxLng;
+            lat = new double[ids.length];
+            lng = new double[ids.length];
+            found = new boolean[ids.length];
+        }
+
+        private void accept(long id, double la, double lo) {
+            if (la < minLat || la > maxLat || lo < minLng || lo > maxLng) return;
+            int i = Arrays.binarySearch(ids, id);
+            if (i < 0) return;
+            lat[i] = la;
+            lng[i] = lo;
+            found[i] = true;
+        }
+
+        @Override
+        protected void parseDense(Osmformat.DenseNodes nodes) {
+            long id = 0, la = 0, lo = 0;
+            for (int i = 0; i < nodes.getIdCount(); i++) {
+                id += nodes.getId(i);
+                la += nodes.getLat(i);
+                lo += nodes.getLon(i);
+                accept(id, parseLat(la), parseLon(lo));
+            }
+        }
+
+        @Override
+        protected void parseNodes(List<Osmformat.Node> list) {
+            for (Osmformat.Node node : list) accept(node.getId(), parseLat(node.getLat()), parseLon(node.getLon()));
+        }
+
+        @Override protected void parseRelations(List<Osmformat.Relation> list) {}
+        @Override protected void parseWays(List<Osmformat.Way> list) {}
+        @Override protected void parse(Osmformat.HeaderBlock header) {}
+        @Override public void complete() {}
+    }
+}
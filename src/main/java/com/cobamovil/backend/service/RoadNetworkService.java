@@ -0,0 +1,76 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.config.CoverageProperties;
+import com.cobamovil.backend.config.RoutingProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Offline driving times from a local OpenStreetMap extract (app.routing.osmPbfPath). The graph is
+ * built once in a background thread after startup, clipped to the coverage area; until it is ready,
+ * or if loading fails, callers get null and fall back to the provider or straight-line estimates.
+ */
+@Service
+public class RoadNetworkService {
+    private static final Logger log = LoggerFactory.getLogger(RoadNetworkService.class);
+    // Keep roads a little outside the coverage box so edge addresses still have a way in and out
+    private static final double BOX_MARGIN_DEG = 0.02;
+
+    private final RoutingProperties routing;
+    private final CoverageProperties coverage;
+    private volatile RoadNetwork network;
+
+    public RoadNetworkService(RoutingProperties routing, CoverageProperties coverage) {
+        this.routing = routing;
+        this.coverage = coverage;
+    }
+
+    public boolean isAvailable() {
+        return network != null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadInBackground() {
+        String path = routing.getOsmPbfPath();
+        if (path == null || path.isBlank()) return;
+        Thread loader = new Thread(() -> load(Path.of(path)), "road-network-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private void load(Path pbf) {
+        if (!Files.isReadable(pbf)) {
+            log.warn("Road network extract {} not readable; offline routing disabled", pbf);
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            RoadNetwork loaded = coverage.isEnabled()
+                    ? RoadNetwork.load(pbf, coverage.getMinLat() - BOX_MARGIN_DEG, coverage.getMaxLat() + BOX_MARGIN_DEG,
+                            coverage.getMinLng() - BOX_MARGIN_DEG, coverage.getMaxLng() + BOX_MARGIN_DEG)
+                    : RoadNetwork.load(pbf, -90, 90, -180, 180);
+            network = loaded;
+            log.info("Road network loaded from {}: {} nodes, {} edges in {} ms", pbf, loaded.nodeCount(),
+                    loaded.edgeCount(), (System.nanoTime() - started) / 1_000_000);
+        } catch (Exception | OutOfMemoryError ex) {
+            log.warn("Road network load from {} failed; offline routing disabled: {}", pbf, ex.toString());
+        }
+    }
+
+    /**
+     * Driving seconds between every pair of points (row = origin); -1 where no road connects them.
+     * Returns null while no network is loaded.
+     */
+    public int[][] durationMatrixSeconds(double[] lats, double[] lngs) {
+        RoadNetwork net = network;
+        if (net == null) return null;
+        double accessSecondsPerKm = 3600.0 / Math.max(1.0, routing.getAverageSpeedKmh());
+        return net.durationMatrixSeconds(lats, lngs, accessSecondsPerKm);
+    }
+}
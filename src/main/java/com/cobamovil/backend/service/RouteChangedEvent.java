@@ -0,0 +1,31 @@
+package com.cobamovil.backend.service;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Published by {@link BookingService} for each route (day and groomer, null for unassigned bookings) whose stops may have
+ * changed, once per route and transaction even when a batch touches many of its bookings.
+ */
+public class RouteChangedEvent {
+    private final LocalDate date;
+    private final Long groomerId;
+
+    public RouteChangedEvent(LocalDate date, Long groomerId) {
+        this.date = date;
+        this.groomerId = groomerId;
+    }
+
+    public LocalDate getDate() { return date; }
+    public Long getGroomerId() { return groomerId; }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof RouteChangedEvent e && date.equals(e.date) && Objects.equals(groomerId, e.groomerId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(date, groomerId);
+    }
+}
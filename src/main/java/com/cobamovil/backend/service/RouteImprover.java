@@ -0,0 +1,189 @@
+package com.cobamovil.backend.service;
+
+/**
+ * Local search over open routes (the groomer does not return to a depot at the end of the day).
+ * A tour is an array of indices into a precomputed cost matrix. The matrix may be asymmetric
+ * (driving times usually are), so reversed segments are priced with prefix sums in both
+ * directions instead of assuming d[a][b] == d[b][a].
+ */
+final class RouteImprover {
+
+    private static final double EPS = 1e-9;
+
+    private RouteImprover() {}
+
+    static double tourCost(int[] tour, double[][] d) {
+        double total = 0;
+        for (int i = 1; i < tour.length; i++) total += d[tour[i - 1]][tour[i]];
+        return total;
+    }
+
+    /**
+     * Greedy nearest-neighbour tour over the matrix, starting at the given index.
+     */
+    static int[] nearestNeighbour(double[][] d, int start) {
+        int n = d.length;
+        int[] tour = new int[n];
+        if (n == 0) return tour;
+        boolean[] used = new boolean[n];
+        int current = start;
+        tour[0] = current;
+        used[current] = true;
+        for (int k = 1; k < n; k++) {
+            int best = -1;
+            double bestCost = Double.POSITIVE_INFINITY;
+            double[] row = d[current];
+            for (int j = 0; j < n; j++) {
+                if (!used[j] && row[j] < bestCost) { bestCost = row[j]; best = j; }
+            }
+            tour[k] = best;
+            used[best] = true;
+            current = best;
+        }
+        return tour;
+    }
+
+    /**
+     * Applies 2-opt and Or-opt moves (first improvement) until a local optimum is reached or the
+     * deadline passes. The tour is modified in place.
+     */
+    static void improve(int[] tour, double[][] d, int maxSegment, long deadlineNanos) {
+        improveWithin(tour, d, 0, tour.length - 1, maxSegment, deadlineNanos);
+    }
+
+    /**
+     * Same as {@link #improve} but only tries moves whose endpoints fall inside positions
+     * [lo, hi], so a local change (one inserted or removed stop) is repaired without searching
+     * the whole route.
+     */
+    static void improveWithin(int[] tour, double[][] d, int lo, int hi, int maxSegment, long deadlineNanos) {
+        int n = tour.length;
+        if (n < 3) return;
+        lo = Math.max(0, lo);
+        hi = Math.min(n - 1, hi);
+        double[] fwd = new double[n];
+        double[] bwd = new double[n];
+        boolean improved = true;
+        while (improved && System.nanoTime() < deadlineNanos) {
+            prefixSums(tour, d, fwd, bwd);
+            improved = twoOpt(tour, d, fwd, bwd, lo, hi, deadlineNanos);
+            prefixSums(tour, d, fwd, bwd);
+            improved |= orOpt(tour, d, fwd, bwd, lo, hi, maxSegment, deadlineNanos);
+        }
+    }
+
+    /**
+     * Cheapest gap to insert stop x into the open route held in the first len slots of tour:
+     * 0 is before the first stop, len after the last.
+     */
+    static int cheapestGap(int[] tour, int len, double[][] d, int x) {
+        if (len == 0) return 0;
+        int best = 0;
+        double bestCost = d[x][tour[0]];
+        for (int p = 1; p <= len; p++) {
+            int a = tour[p - 1];
+            double c = p < len ? d[a][x] + d[x][tour[p]] - d[a][tour[p]] : d[a][x];
+            if (c < bestCost - EPS) { bestCost = c; best = p; }
+        }
+        return best;
+    }
+
+    private static void prefixSums(int[] t, double[][] d, double[] fwd, double[] bwd) {
+        fwd[0] = 0;
+        bwd[0] = 0;
+        for (int k = 1; k < t.length; k++) {
+            fwd[k] = fwd[k - 1] + d[t[k - 1]][t[k]];
+            bwd[k] = bwd[k - 1] + d[t[k]][t[k - 1]];
+        }
+    }
+
+    private static boolean twoOpt(int[] t, double[][] d, double[] fwd, double[] bwd, int lo, int hi, long deadlineNanos) {
+        int n = t.length;
+        boolean any = false;
+        for (int i = lo; i < hi; i++) {
+            if (System.nanoTime() >= deadlineNanos) return any;
+            for (int j = i + 1; j <= hi; j++) {
+                double delta = (bwd[j] - bwd[i]) - (fwd[j] - fwd[i]);
+                if (i > 0) {
+                    double[] row = d[t[i - 1]];
+                    delta += row[t[j]] - row[t[i]];
+                }
+                if (j < n - 1) {
+                    int b = t[j + 1];
+                    delta += d[t[i]][b] - d[t[j]][b];
+                }
+                if (delta < -EPS) {
+                    reverse(t, i, j);
+                    prefixSums(t, d, fwd, bwd);
+                    any = true;
+                }
+            }
+        }
+        return any;
+    }
+
+    private static boolean orOpt(int[] t, double[][] d, double[] fwd, double[] bwd, int lo, int hi,
+                                 int maxSegment, long deadlineNanos) {
+        int n = t.length;
+        boolean any = false;
+        for (int len = 1; len <= maxSegment && len < n; len++) {
+            for (int i = lo; i + len <= hi + 1; i++) {
+                if (System.nanoTime() >= deadlineNanos) return any;
+                int last = i + len - 1;
+                int first = t[i], tail = t[last];
+                int prev = i > 0 ? t[i - 1] : -1;
+                int next = last < n - 1 ? t[last + 1] : -1;
+                double removeGain = (prev >= 0 ? d[prev][first] : 0) + (next >= 0 ? d[tail][next] : 0)
+                        - (prev >= 0 && next >= 0 ? d[prev][next] : 0);
+                double reversal = (bwd[last] - bwd[i]) - (fwd[last] - fwd[i]);
+                int rest = n - len;
+                // p is the insertion gap in the tour with the segment removed: between r[p-1] and r[p]
+                for (int p = lo; p <= Math.min(rest, hi + 1); p++) {
+                    if (p == i) continue;
+                    int a = p > 0 ? at(t, p - 1, i, len) : -1;
+                    int b = p < rest ? at(t, p, i, len) : -1;
+                    double joined = a >= 0 && b >= 0 ? d[a][b] : 0;
+                    double forward = (a >= 0 ? d[a][first] : 0) + (b >= 0 ? d[tail][b] : 0) - joined;
+                    double backward = len > 1
+                            ? (a >= 0 ? d[a][tail] : 0) + (b >= 0 ? d[first][b] : 0) - joined + reversal
+                            : Double.POSITIVE_INFINITY;
+                    boolean reversed = backward < forward;
+                    double delta = Math.min(forward, backward) - removeGain;
+                    if (delta < -EPS) {
+                        moveSegment(t, i, len, p, reversed);
+                        prefixSums(t, d, fwd, bwd);
+                        any = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return any;
+    }
+
+    // Element k of the tour once the segment [start, start + len) has been taken out
+    private static int at(int[] t, int k, int start, int len) {
+        return k < start ? t[k] : t[k + len];
+    }
+
+    private static void moveSegment(int[] t, int start, int len, int gap, boolean reversed) {
+        int n = t.length;
+        int[] seg = new int[len];
+        System.arraycopy(t, start, seg, 0, len);
+        if (reversed) reverse(seg, 0, len - 1);
+        int[] rest = new int[n - len];
+        System.arraycopy(t, 0, rest, 0, start);
+        System.arraycopy(t, start + len, rest, start, n - start - len);
+        System.arraycopy(rest, 0, t, 0, gap);
+        System.arraycopy(seg, 0, t, gap, len);
+        System.arraycopy(rest, gap, t, gap + len, rest.length - gap);
+    }
+
+    private static void reverse(int[] t, int i, int j) {
+        while (i < j) {
+            int tmp = t[i];
+            t[i++] = t[j];
+            t[j--] = tmp;
+        }
+    }
+}
@@ -1,47 +1,249 @@
 package com.cobamovil.backend.service;
 
+import com.cobamovil.backend.config.RoutingProperties;
 import com.cobamovil.backend.entity.Booking;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.*;
 
 @Service
 public class RouteOptimizationService {
 
-    private static double haversine(double lat1, double lon1, double lat2, double lon2) {
-        if (lat1 == 0 && lon1 == 0) return 0; // naive guard
-        final int R = 6371; // km
-        double dLat = Math.toRadians(lat2 - lat1);
-        double dLon = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(dLat/2)*Math.sin(dLat/2) + Math.cos(Math.toRadians(lat1))*Math.cos(Math.toRadians(lat2))*Math.sin(dLon/2)*Math.sin(dLon/2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1-a));
-        return R * c;
+    private final RoutingProperties props;
+    private final DistanceMatrixService distanceMatrixService;
+
+    public RouteOptimizationService(RoutingProperties props, DistanceMatrixService distanceMatrixService) {
+        this.props = props;
+        this.distanceMatrixService = distanceMatrixService;
     }
 
     /**
-     * Greedy nearest-neighbor ordering by lat/lng. Assumes all bookings have coordinates.
+     * Greedy nearest-neighbor ordering by lat/lng, starting at the first booking.
      */
     public List<Booking> orderByNearest(List<Booking> bookings) {
         if (bookings == null || bookings.size() <= 1) return bookings;
-        List<Booking> remaining = new ArrayList<>(bookings);
-        List<Booking> ordered = new ArrayList<>();
-        // Start at the first booking
-        Booking current = remaining.remove(0);
-        ordered.add(current);
-        while (!remaining.isEmpty()) {
-            final double latC = current.getLatitude() != null ? current.getLatitude() : 0;
-            final double lonC = current.getLongitude() != null ? current.getLongitude() : 0;
-            Booking next = remaining.stream()
-                .min(Comparator.comparingDouble(b -> haversine(
-                        latC,
-                        lonC,
-                        b.getLatitude() != null ? b.getLatitude() : 0,
-                        b.getLongitude() != null ? b.getLongitude() : 0)))
-                .orElse(remaining.get(0));
-            remaining.remove(next);
-            ordered.add(next);
+        GeoMath.Points points = GeoMath.Points.of(bookings);
+        int n = points.size();
+        boolean[] used = new boolean[n];
+        List<Booking> ordered = new ArrayList<>(n);
+        int current = 0;
+        used[0] = true;
+        ordered.add(bookings.get(0));
+        for (int k = 1; k < n; k++) {
+            int next = -1;
+            double best = Double.POSITIVE_INFINITY;
+            for (int j = 0; j < n; j++) {
+                if (used[j]) continue;
+                double d = GeoMath.distanceKm(points, current, points, j);
+                if (d < best) { best = d; next = j; }
+            }
+            used[next] = true;
+            ordered.add(bookings.get(next));
             current = next;
         }
         return ordered;
     }
+
+    /**
+     * Nearest-neighbour construction followed by 2-opt / Or-opt improvement within the configured
+     * time budget. The first stop is chosen by the search, not taken from the input order.
+     */
+    public List<Booking> optimize(List<Booking> bookings) {
+        if (bookings == null || bookings.size() <= 2) return bookings;
+        return optimize(bookings, distanceMatrix(bookings));
+    }
+
+    /**
+     * Same as {@link #optimize(List)} over a caller-supplied cost matrix (e.g. {@link #travelMinutes(List)}).
+     */
+    public List<Booking> optimize(List<Booking> bookings, double[][] cost) {
+        if (bookings == null || bookings.size() <= 2) return bookings;
+        int[] tour = optimizeTour(cost);
+        List<Booking> ordered = new ArrayList<>(tour.length);
+        for (int idx : tour) ordered.add(bookings.get(idx));
+        return ordered;
+    }
+
+    /**
+     * Optimizes a route over an arbitrary precomputed cost matrix; returns indices into the matrix.
+     */
+    public int[] optimizeTour(double[][] cost) {
+        int[] tour = RouteImprover.nearestNeighbour(cost, 0);
+        long deadline = System.nanoTime() + props.getTimeBudgetMs() * 1_000_000L;
+        RouteImprover.improve(tour, cost, props.getMaxOrOptSegment(), deadline);
+        return tour;
+    }
+
+    /**
+     * Pairwise haversine distances (km) between bookings, in input order.
+     */
+    public double[][] distanceMatrix(List<Booking> bookings) {
+        return GeoMath.distanceMatrixKm(GeoMath.Points.of(bookings));
+    }
+
+    /**
+     * Driving minutes between bookings (row = from, column = to). Uses the Distance Matrix API in
+     * batched requests when configured; pairs it cannot answer fall back to straight-line distance
+     * at the configured average speed.
+     */
+    public double[][] travelMinutes(List<Booking> bookings) {
+        int n = bookings.size();
+        double[] lat = new double[n];
+        double[] lon = new double[n];
+        for (int i = 0; i < n; i++) {
+            Booking b = bookings.get(i);
+            lat[i] = b.getLatitude() != null ? b.getLatitude() : 0;
+            lon[i] = b.getLongitude() != null ? b.getLongitude() : 0;
+        }
+        int[][] seconds = n > 1 ? distanceMatrixService.durationMatrixSeconds(lat, lon, departure(bookings)) : null;
+        double perKm = 60.0 / props.getAverageSpeedKmh();
+        // Straight-line estimate for every pair first, then overwrite with road times where known
+        double[][] minutes = GeoMath.distanceMatrixKm(GeoMath.Points.of(lat, lon));
+        for (int i = 0; i < n; i++) {
+            double[] row = minutes[i];
+            for (int j = 0; j < n; j++) {
+                if (i == j) continue;
+                row[j] = seconds != null && seconds[i][j] >= 0 ? seconds[i][j] / 60.0 : row[j] * perKm;
+            }
+        }
+        return minutes;
+    }
+
+    // Trips are priced for when the route starts, its earliest booking; now if none has a slot
+    private static LocalDateTime departure(List<Booking> bookings) {
+        LocalDateTime first = null;
+        for (Booking b : bookings) {
+            if (b.getDate() == null || b.getTime() == null) continue;
+            LocalDateTime at = b.getDate().atTime(b.getTime());
+            if (first == null || at.isBefore(first)) first = at;
+        }
+        return first != null ? first : LocalDateTime.now();
+    }
+
+    /**
+     * Straight-line distance (km) from the previous stop for each stop of an ordered route; 0 for the first.
+     */
+    public static List<Double> legDistancesKm(List<Booking> ordered) {
+        GeoMath.Points points = GeoMath.Points.of(ordered);
+        List<Double> out = new ArrayList<>(ordered.size());
+        for (int i = 0; i < ordered.size(); i++) out.add(i == 0 ? 0.0 : GeoMath.distanceKm(points, i - 1, points, i));
+        return out;
+    }
+
+    /**
+     * Cumulative drive minutes from the first stop to each stop of the given visiting order.
+     */
+    public static List<Integer> cumulativeEtas(int[] order, double[][] minutes) {
+        List<Integer> etas = new ArrayList<>(order.length);
+        int cum = 0;
+        for (int i = 0; i < order.length; i++) {
+            if (i > 0) cum += (int) Math.round(minutes[order[i - 1]][order[i]]);
+            etas.add(cum);
+        }
+        return etas;
+    }
+
+    /**
+     * Orders a groomer's approved bookings so that each one starts inside its time window
+     * (requested time minus/plus the configured tolerance) while minimising drive time.
+     * Bookings that cannot be served on time are reported instead of being forced into the route.
+     */
+    public Schedule schedule(List<Booking> bookings) {
+        if (bookings == null || bookings.isEmpty()) {
+            return new Schedule(List.of(), List.of(), List.of(), 0);
+        }
+        return schedule(bookings, travelMinutes(bookings));
+    }
+
+    /**
+     * Same as {@link #schedule(List)} over a caller-supplied travel-time matrix in minutes.
+     */
+    public Schedule schedule(List<Booking> bookings, double[][] minutes) {
+        if (bookings == null || bookings.isEmpty()) {
+            return new Schedule(List.of(), List.of(), List.of(), 0);
+        }
+        int[][] w = windows(bookings);
+        long deadline = System.nanoTime() + props.getTimeBudgetMs() * 1_000_000L;
+        TimeWindowScheduler.Result r = TimeWindowScheduler.solve(w[0], w[1], w[2], minutes, props.getMaxOrOptSegment(), deadline);
+
+        List<Booking> ordered = new ArrayList<>(r.route.length);
+        List<LocalTime> starts = new ArrayList<>(r.route.length);
+        for (int k = 0; k < r.route.length; k++) {
+            ordered.add(bookings.get(r.route[k]));
+            starts.add(LocalTime.ofSecondOfDay(Math.min(86_399L, Math.round(r.arrival[k] * 60))));
+        }
+        List<Booking> infeasible = new ArrayList<>(r.unscheduled.length);
+        for (int idx : r.unscheduled) infeasible.add(bookings.get(idx));
+        return new Schedule(ordered, starts, infeasible, r.travel);
+    }
+
+    /**
+     * Keeps a groomer's saved route current without breaking a booked time. The first kept bookings
+     * are the saved route in its order, the rest are new; lo..hi are the positions already changed
+     * in the saved route (hi -1 for none). Returns the visiting order over bookings, with those that
+     * can no longer be served on time last.
+     */
+    public int[] keepSchedule(List<Booking> bookings, int kept, int lo, int hi, double[][] minutes) {
+        int[] planned = new int[kept];
+        for (int i = 0; i < kept; i++) planned[i] = i;
+        int[] added = new int[bookings.size() - kept];
+        for (int i = 0; i < added.length; i++) added[i] = kept + i;
+        int[][] w = windows(bookings);
+        long deadline = System.nanoTime() + props.getTimeBudgetMs() * 1_000_000L;
+        TimeWindowScheduler.Result r = TimeWindowScheduler.keep(planned, added, lo, hi, props.getMaxOrOptSegment() + 1,
+                w[0], w[1], w[2], minutes, props.getMaxOrOptSegment(), deadline);
+        int[] order = Arrays.copyOf(r.route, bookings.size());
+        System.arraycopy(r.unscheduled, 0, order, r.route.length, r.unscheduled.length);
+        return order;
+    }
+
+    /**
+     * Minutes from the start of the first stop to the start of each stop of the given visiting
+     * order, counting service time and the wait when the groomer arrives before a booking's window.
+     */
+    public List<Integer> scheduledEtas(List<Booking> bookings, int[] order, double[][] minutes) {
+        if (order.length == 0) return new ArrayList<>();
+        int[][] w = windows(bookings);
+        double[] start = TimeWindowScheduler.startTimes(order, w[0], w[2], minutes);
+        List<Integer> etas = new ArrayList<>(order.length);
+        for (double t : start) etas.add((int) Math.round(t - start[0]));
+        return etas;
+    }
+
+    // Ready, due and service minutes per booking: the requested time minus/plus the tolerance
+    private int[][] windows(List<Booking> bookings) {
+        int n = bookings.size();
+        int[] ready = new int[n];
+        int[] due = new int[n];
+        int[] service = new int[n];
+        for (int i = 0; i < n; i++) {
+            Booking b = bookings.get(i);
+            int requested = b.getTime().toSecondOfDay() / 60;
+            ready[i] = Math.max(0, requested - props.getWindowEarlyMinutes());
+            due[i] = requested + props.getWindowLateMinutes();
+            service[i] = b.getDurationMinutes();
+        }
+        return new int[][] {ready, due, service};
+    }
+
+    public static final class Schedule {
+        private final List<Booking> ordered;
+        private final List<LocalTime> startTimes;
+        private final List<Booking> infeasible;
+        private final double driveMinutes;
+
+        public Schedule(List<Booking> ordered, List<LocalTime> startTimes, List<Booking> infeasible, double driveMinutes) {
+            this.ordered = ordered;
+            this.startTimes = startTimes;
+            this.infeasible = infeasible;
+            this.driveMinutes = driveMinutes;
+        }
+
+        public List<Booking> getOrdered() { return ordered; }
+        public List<LocalTime> getStartTimes() { return startTimes; }
+        public List<Booking> getInfeasible() { return infeasible; }
+        public double getDriveMinutes() { return driveMinutes; }
+    }
 }
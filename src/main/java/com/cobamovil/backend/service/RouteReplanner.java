@@ -0,0 +1,211 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.config.RoutingProperties;
+import com.cobamovil.backend.entity.Booking;
+import com.cobamovil.backend.entity.BookingStatus;
+import com.cobamovil.backend.entity.RoutePlan;
+import com.cobamovil.backend.repository.BookingRepository;
+import com.cobamovil.backend.repository.RoutePlanRepository;
+import com.cobamovil.backend.repository.UserRepository;
+import org.slf4j.Logger;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps saved route plans current as bookings change status. Instead of re-optimizing the whole
+ * day, stops that are no longer approved are dropped, newly approved stops are inserted at their
+ * cheapest position, and local search only runs around the positions that changed. A groomer's
+ * route is timed, so there every insertion and move must keep each booking inside its window, a
+ * stop that no longer fits goes last, and ETAs count service time and waits.
+ * <p>
+ * Re-plans run after commit on one background thread, since travel times may come from the
+ * Distance Matrix API. A route already waiting is not queued again, so a burst of changes to the
+ * same groomer and day costs one re-plan (a bulk status update already publishes one event per
+ * route); past app.routing.replanQueueCapacity waiting routes new ones are dropped, and the route
+ * is re-planned on its next change.
+ */
+@Service
+public class RouteReplanner {
+    private static final Logger log = LoggerFactory.getLogger(RouteReplanner.class);
+
+    private final BookingRepository bookingRepository;
+    private final RoutePlanRepository routePlanRepository;
+    private final UserRepository userRepository;
+    private final RouteOptimizationService routeOptimizationService;
+    private final RoutingProperties props;
+    private final TransactionOperations tx;
+    private final Executor executor;
+    private final Set<Route> pending = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public RouteReplanner(BookingRepository bookingRepository,
+                          RoutePlanRepository routePlanRepository,
+                          UserRepository userRepository,
+                          RouteOptimizationService routeOptimizationService,
+                          RoutingProperties props,
+                          PlatformTransactionManager transactionManager) {
+        this(bookingRepository, routePlanRepository, userRepository, routeOptimizationService, props,
+                newTransaction(transactionManager), singleThread(props.getReplanQueueCapacity()));
+    }
+
+    RouteReplanner(BookingRepository bookingRepository,
+                   RoutePlanRepository routePlanRepository,
+                   UserRepository userRepository,
+                   RouteOptimizationService routeOptimizationService,
+                   RoutingProperties props,
+                   TransactionOperations tx,
+                   Executor executor) {
+        this.bookingRepository = bookingRepository;
+        this.routePlanRepository = routePlanRepository;
+        this.userRepository = userRepository;
+        this.routeOptimizationService = routeOptimizationService;
+        this.props = props;
+        this.tx = tx;
+        this.executor = executor;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onRouteChanged(RouteChangedEvent event) {
+        schedule(new Route(event.getDate(), event.getGroomerId()));
+    }
+
+    private void schedule(Route route) {
+        if (!pending.add(route)) return;
+        try {
+            executor.execute(() -> {
+                // Changes committed from here on queue the route again
+                pending.remove(route);
+                try {
+                    tx.executeWithoutResult(status -> replan(route.date, route.groomerId));
+                } catch (RuntimeException ex) {
+                    log.warn("Re-plan of {} for groomer {} failed: {}", route.date, route.groomerId, ex.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            pending.remove(route);
+            log.warn("Re-plan queue full, skipped {} for groomer {}", route.date, route.groomerId);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor instanceof ExecutorService service) service.shutdownNow();
+    }
+
+    void replan(LocalDate date, Long groomerId) {
+        List<Booking> approved = bookingRepository.findByDateAndStatus(date, BookingStatus.APPROVED);
+        routePlanRepository.findByDateAndGroomerIsNull(date).ifPresent(plan -> update(plan, approved));
+        if (groomerId == null) return;
+        List<Booking> own = approved.stream()
+                .filter(b -> b.getAssignedGroomer() != null && b.getAssignedGroomer().getId().equals(groomerId))
+                .toList();
+        userRepository.findById(groomerId)
+                .flatMap(g -> routePlanRepository.findByDateAndGroomer(date, g))
+                .ifPresent(plan -> update(plan, own));
+    }
+
+    private void update(RoutePlan plan, List<Booking> approved) {
+        // Without a saved plan the route is optimized on demand, so there is nothing to keep current
+        if (plan.getStops().isEmpty()) return;
+        Map<Long, Booking> byId = approved.stream().collect(Collectors.toMap(Booking::getId, b -> b));
+        List<Long> planned = plan.getBookingIds();
+
+        List<Booking> stops = new ArrayList<>(approved.size());
+        int lo = Integer.MAX_VALUE, hi = -1;
+        for (Long id : planned) {
+            Booking b = byId.get(id);
+            if (b != null) {
+                stops.add(b);
+            } else {
+                // Removed stop: its former neighbours are now adjacent
+                lo = Math.min(lo, stops.size() - 1);
+                hi = Math.max(hi, stops.size());
+            }
+        }
+        int kept = stops.size();
+        Set<Long> plannedIds = new HashSet<>(planned);
+        for (Booking b : approved) if (!plannedIds.contains(b.getId())) stops.add(b);
+        if (hi < 0 && stops.size() == kept && plan.getEtas() != null) return;
+
+        double[][] minutes = routeOptimizationService.travelMinutes(stops);
+        if (plan.getGroomer() != null) {
+            // A groomer's route is timed: no insertion or move may make a booked time late
+            int[] order = routeOptimizationService.keepSchedule(stops, kept, lo, hi, minutes);
+            List<Booking> ordered = Arrays.stream(order).mapToObj(stops::get).toList();
+            plan.replaceStops(ordered, routeOptimizationService.scheduledEtas(stops, order, minutes),
+                    RouteOptimizationService.legDistancesKm(ordered));
+        } else {
+            int[] tour = new int[stops.size()];
+            for (int i = 0; i < kept; i++) tour[i] = i;
+            int len = kept;
+            for (int x = kept; x < stops.size(); x++) {
+                int gap = RouteImprover.cheapestGap(tour, len, minutes, x);
+                System.arraycopy(tour, gap, tour, gap + 1, len - gap);
+                tour[gap] = x;
+                len++;
+                if (hi >= gap) hi++;
+                lo = Math.min(lo, gap - 1);
+                hi = Math.max(hi, gap + 1);
+            }
+            if (hi >= 0) {
+                int radius = props.getMaxOrOptSegment() + 1;
+                long deadline = System.nanoTime() + props.getTimeBudgetMs() * 1_000_000L;
+                RouteImprover.improveWithin(tour, minutes, lo - radius, hi + radius, props.getMaxOrOptSegment(), deadline);
+            }
+
+            List<Booking> ordered = Arrays.stream(tour).mapToObj(stops::get).toList();
+            plan.replaceStops(ordered, RouteOptimizationService.cumulativeEtas(tour, minutes),
+                    RouteOptimizationService.legDistancesKm(ordered));
+        }
+        routePlanRepository.save(plan);
+        log.debug("Re-planned route {} for {}: {} stops ({} kept)", plan.getId(), plan.getDate(), stops.size(), kept);
+    }
+
+    private static TransactionOperations newTransaction(PlatformTransactionManager transactionManager) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+
+    private static ExecutorService singleThread(int capacity) {
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(Math.max(1, capacity)), r -> {
+            Thread t = new Thread(r, "route-replanner");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // A groomer's day; groomerId null is the day-wide plan only
+    private static final class Route {
+        final LocalDate date;
+        final Long groomerId;
+
+        Route(LocalDate date, Long groomerId) {
+            this.date = date;
+            this.groomerId = groomerId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Route r && date.equals(r.date) && Objects.equals(groomerId, r.groomerId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(date, groomerId);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.dto.ServiceCatalogDTO;
+import com.cobamovil.backend.entity.Pet;
+import com.cobamovil.backend.entity.ServiceCatalogEntry;
+import com.cobamovil.backend.entity.ServiceDurationModifier;
+import com.cobamovil.backend.entity.ServiceType;
+import com.cobamovil.backend.repository.ServiceCatalogRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Durations, buffers and prices per service, read from an immutable snapshot of the service_catalog
+ * tables. Lookups are array reads by enum ordinal plus a hash lookup for breed modifiers; the
+ * snapshot is rebuilt after every catalog change commits, and periodically to pick up changes made
+ * by other instances. Until the tables are readable the ServiceType defaults apply.
+ */
+@Service
+public class ServiceCatalog {
+    private static final Logger log = LoggerFactory.getLogger(ServiceCatalog.class);
+
+    private final ServiceCatalogRepository repository;
+    private volatile Snapshot snapshot;
+
+    public ServiceCatalog(ServiceCatalogRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Minutes the job keeps a groomer busy for this pet: base duration, matching breed/weight
+     * modifiers and the buffer. This is what bookings block on the calendar.
+     */
+    public int blockedMinutes(ServiceType type, Pet pet) {
+        return snapshot().blockedMinutes(type, pet);
+    }
+
+    public int blockedMinutes(ServiceType type) {
+        return snapshot().blockedMinutes(type, null);
+    }
+
+    public BigDecimal price(ServiceType type) {
+        return snapshot().price[type.ordinal()];
+    }
+
+    @Transactional(readOnly = true)
+    public List<ServiceCatalogDTO> list() {
+        List<ServiceCatalogDTO> out = new ArrayList<>();
+        for (ServiceCatalogEntry e : repository.findAllBy()) out.add(toDto(e));
+        out.sort(Comparator.comparing(ServiceCatalogDTO::getServiceType));
+        return out;
+    }
+
+    @Transactional
+    public ServiceCatalogDTO update(ServiceType type, ServiceCatalogDTO dto) {
+        ServiceCatalogEntry entry = repository.findById(type)
+                .orElseThrow(() -> new EntityNotFoundException("Service not found"));
+        entry.setDurationMinutes(dto.getDurationMinutes());
+        entry.setBufferMinutes(dto.getBufferMinutes());
+        if (dto.getPrice() != null) entry.setPrice(dto.getPrice());
+        if (dto.getModifiers() != null) {
+            entry.getModifiers().clear();
+            for (ServiceCatalogDTO.Modifier m : dto.getModifiers()) {
+                ServiceDurationModifier mod = new ServiceDurationModifier();
+                mod.setService(entry);
+                mod.setBreed(m.getBreed() == null || m.getBreed().isBlank() ? null : m.getBreed().trim());
+                mod.setMinWeightKg(m.getMinWeightKg());
+                mod.setMaxWeightKg(m.getMaxWeightKg());
+                mod.setExtraMinutes(m.getExtraMinutes());
+                entry.getModifiers().add(mod);
+            }
+        }
+        entry.setUpdatedAt(LocalDateTime.now());
+        ServiceCatalogEntry saved = repository.save(entry);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() { refresh(); }
+        });
+        return toDto(saved);
+    }
+
+    @Scheduled(fixedDelay = 300_000, initialDelay = 300_000)
+    @Transactional(readOnly = true)
+    public void refresh() {
+        try {
+            snapshot = Snapshot.of(repository.findAllBy());
+        } catch (DataAccessException ex) {
+            log.warn("Service catalog refresh failed, keeping previous durations: {}", ex.getMessage());
+        }
+    }
+
+    private Snapshot snapshot() {
+        Snapshot s = snapshot;
+        if (s == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    refresh();
+                    if (snapshot == null) return Snapshot.of(List.of());
+                }
+                s = snapshot;
+            }
+        }
+        return s;
+    }
+
+    private static ServiceCatalogDTO toDto(ServiceCatalogEntry e) {
+        ServiceCatalogDTO dto = new ServiceCatalogDTO();
+        dto.setServiceType(e.getServiceType());
+        dto.setDurationMinutes(e.getDurationMinutes());
+        dto.setBufferMinutes(e.getBufferMinutes());
+        dto.setPrice(e.getPrice());
+        List<ServiceCatalogDTO.Modifier> mods = new ArrayList<>();
+        for (ServiceDurationModifier m : e.getModifiers()) {
+            ServiceCatalogDTO.Modifier md = new ServiceCatalogDTO.Modifier();
+            md.setBreed(m.getBreed());
+            md.setMinWeightKg(m.getMinWeightKg());
+            md.setMaxWeightKg(m.getMaxWeightKg());
+            md.setExtraMinutes(m.getExtraMinutes());
+            mods.add(md);
+        }
+        dto.setModifiers(mods);
+        return dto;
+    }
+
+    /**
+     * Immutable read model indexed by ServiceType ordinal. Breed modifiers are pre-summed per
+     * lower-cased breed when they have no weight range; the rest (few per service) are scanned.
+     */
+    static final class Snapshot {
+        final int[] duration;
+        final int[] buffer;
+        final BigDecimal[] price;
+        final Map<String, Integer>[] breedExtra;
+        final double[][] rangeMin;
+        final double[][] rangeMax;
+        final String[][] rangeBreed;
+        final int[][] rangeExtra;
+
+        @SuppressWarnings("unchecked")
+        private Snapshot(int n) {
+            duration = new int[n];
+            buffer = new int[n];
+            price = new BigDecimal[n];
+            breedExtra = new Map[n];
+            rangeMin = new double[n][];
+            rangeMax = new double[n][];
+            rangeBreed = new String[n][];
+            rangeExtra = new int[n][];
+        }
+
+        static Snapshot of(List<ServiceCatalogEntry> entries) {
+            ServiceType[] types = ServiceType.values();
+            Snapshot s = new Snapshot(types.length);
+            for (ServiceType t : types) {
+                s.duration[t.ordinal()] = t.getDurationMinutes();
+                s.price[t.ordinal()] = BigDecimal.ZERO;
+                s.breedExtra[t.ordinal()] = Map.of();
+                s.rangeMin[t.ordinal()] = new double[0];
+                s.rangeMax[t.ordinal()] = new double[0];
+                s.rangeBreed[t.ordinal()] = new String[0];
+                s.rangeExtra[t.ordinal()] = new int[0];
+            }
+            for (ServiceCatalogEntry e : entries) {
+                int i = e.getServiceType().ordinal();
+                s.duration[i] = e.getDurationMinutes();
+                s.buffer[i] = e.getBufferMinutes();
+                s.price[i] = e.getPrice();
+                Map<String, Integer> breeds = new HashMap<>();
+                List<ServiceDurationModifier> ranged = new ArrayList<>();
+                for (ServiceDurationModifier m : e.getModifiers()) {
+                    if (m.getMinWeightKg() == null && m.getMaxWeightKg() == null && m.getBreed() != null) {
+                        breeds.merge(m.getBreed().toLowerCase(Locale.ROOT), m.getExtraMinutes(), Integer::sum);
+                    } else {
+                        ranged.add(m);
+                    }
+                }
+                s.breedExtra[i] = Map.copyOf(breeds);
+                int r = ranged.size();
+                s.rangeMin[i] = new double[r];
+                s.rangeMax[i] = new double[r];
+                s.rangeBreed[i] = new String[r];
+                s.rangeExtra[i] = new int[r];
+                for (int k = 0; k < r; k++) {
+                    ServiceDurationModifier m = ranged.get(k);
+                    s.rangeMin[i][k] = m.getMinWeightKg() != null ? m.getMinWeightKg() : Double.NEGATIVE_INFINITY;
+                    s.rangeMax[i][k] = m.getMaxWeightKg() != null ? m.getMaxWeightKg() : Double.POSITIVE_INFINITY;
+                    s.rangeBreed[i][k] = m.getBreed() != null ? m.getBreed().toLowerCase(Locale.ROOT) : null;
+                    s.rangeExtra[i][k] = m.getExtraMinutes();
+                }
+            }
+            return s;
+        }
+
+        int blockedMinutes(ServiceType type, Pet pet) {
+            int i = type.ordinal();
+            int minutes = duration[i] + buffer[i];
+            if (pet == null) return minutes;
+            String breed = pet.getBreed() != null ? pet.getBreed().trim().toLowerCase(Locale.ROOT) : null;
+            if (breed != null) minutes += breedExtra[i].getOrDefault(breed, 0);
+            Double weight = pet.getWeight();
+            for (int k = 0; k < rangeExtra[i].length; k++) {
+                if (rangeBreed[i][k] != null && !rangeBreed[i][k].equals(breed)) continue;
+                boolean bounded = rangeMin[i][k] != Double.NEGATIVE_INFINITY || rangeMax[i][k] != Double.POSITIVE_INFINITY;
+                if (bounded && (weight == null || weight < rangeMin[i][k] || weight >= rangeMax[i][k])) continue;
+                minutes += rangeExtra[i][k];
+            }
+            return Math.max(1, minutes);
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.dto.ServiceZoneDTO;
+import com.cobamovil.backend.entity.ServiceZone;
+import com.cobamovil.backend.entity.User;
+import com.cobamovil.backend.repository.ServiceZoneRepository;
+import com.cobamovil.backend.repository.UserRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Polygon service zones and their groomers, read from an immutable snapshot. Point lookups go
+ * through a uniform grid over the zones' bounding box: the cell holds the few zones whose bounds
+ * touch it, and only those get the point-in-polygon test. The snapshot is rebuilt after every zone
+ * change commits, and periodically to pick up changes made by other instances. Where zones
+ * overlap, the oldest one wins.
+ */
+@Service
+public class ServiceZones {
+    private static final Logger log = LoggerFactory.getLogger(ServiceZones.class);
+
+    private final ServiceZoneRepository repository;
+    private final UserRepository userRepository;
+    private final NamedParameterJdbcTemplate jdbc;
+    private volatile Snapshot snapshot;
+
+    public ServiceZones(ServiceZoneRepository repository, UserRepository userRepository, NamedParameterJdbcTemplate jdbc) {
+        this.repository = repository;
+        this.userRepository = userRepository;
+        this.jdbc = jdbc;
+    }
+
+    /** Id of the active zone containing the point, or null outside every zone. */
+    public Long zoneOf(Double lat, Double lng) {
+        if (lat == null || lng == null) return null;
+        return snapshot().zoneOf(lat, lng);
+    }
+
+    /** Whether any active zone is defined; until then the whole fleet serves everywhere. */
+    public boolean isDefined() {
+        return snapshot().ids.length > 0;
+    }
+
+    /** Whether the groomer is assigned to the zone. */
+    public boolean assigned(Long zoneId, Long groomerId) {
+        return zoneId != null && groomerId != null && snapshot().assigned(zoneId, groomerId);
+    }
+
+    /**
+     * Whether the groomer may take work in the zone: they are assigned to it, or nobody is (or
+     * there is no zone), in which case any groomer may.
+     */
+    public boolean serves(Long zoneId, Long groomerId) {
+        return zoneId == null || snapshot().serves(zoneId, groomerId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ServiceZoneDTO> list() {
+        List<ServiceZoneDTO> out = new ArrayList<>();
+        for (ServiceZone z : repository.findAllByOrderByIdAsc()) out.add(toDto(z));
+        return out;
+    }
+
+    @Transactional
+    public ServiceZoneDTO create(ServiceZoneDTO dto) {
+        return save(new ServiceZone(), dto);
+    }
+
+    @Transactional
+    public ServiceZoneDTO update(Long id, ServiceZoneDTO dto) {
+        ServiceZone zone = repository.findById(id).orElseThrow(() -> new EntityNotFoundException("Zone not found"));
+        return save(zone, dto);
+    }
+
+    @Transactional
+    public void delete(Long id) {
+        ServiceZone zone = repository.findById(id).orElseThrow(() -> new EntityNotFoundException("Zone not found"));
+        repository.delete(zone);
+        repository.flush();
+        changed();
+    }
+
+    private ServiceZoneDTO save(ServiceZone zone, ServiceZoneDTO dto) {
+        String name = dto.getName().trim();
+        repository.findByNameIgnoreCase(name).filter(other -> !other.getId().equals(zone.getId())).ifPresent(other -> {
+            throw new IllegalArgumentException("Zone name already in use");
+        });
+        double[][] ring = new double[2][dto.getVertices().size()];
+        for (int i = 0; i < ring[0].length; i++) {
+            ring[0][i] = dto.getVertices().get(i).getLat();
+            ring[1][i] = dto.getVertices().get(i).getLng();
+        }
+        if (Math.abs(area(ring[0], ring[1])) < 1e-12) throw new IllegalArgumentException("Zone polygon has no area");
+        zone.setName(name);
+        zone.setPolygon(formatPolygon(ring[0], ring[1]));
+        zone.setActive(dto.isActive());
+        if (dto.getGroomerIds() != null) {
+            Set<Long> ids = new HashSet<>(dto.getGroomerIds());
+            List<User> groomers = userRepository.findAllById(ids);
+            if (groomers.size() != ids.size()) throw new EntityNotFoundException("Groomer not found");
+            for (User g : groomers) {
+                if (!"GROOMER".equalsIgnoreCase(g.getRole())) throw new IllegalArgumentException("User " + g.getId() + " is not a groomer");
+            }
+            zone.getGroomers().clear();
+            zone.getGroomers().addAll(groomers);
+        }
+        zone.setUpdatedAt(LocalDateTime.now());
+        ServiceZone saved = repository.saveAndFlush(zone);
+        changed();
+        return toDto(saved);
+    }
+
+    // Upcoming bookings follow the new zones, so planning them splits the day the new way
+    private void changed() {
+        Snapshot next = Snapshot.of(repository.findAllByOrderByIdAsc());
+        List<SqlParameterSource> moves = new ArrayList<>();
+        jdbc.query("SELECT id, latitude, longitude, zone_id FROM bookings " +
+                        "WHERE date >= :today AND latitude IS NOT NULL AND longitude IS NOT NULL",
+                new MapSqlParameterSource("today", Date.valueOf(LocalDate.now())),
+                rs -> {
+                    Long zone = next.zoneOf(rs.getDouble(2), rs.getDouble(3));
+                    long current = rs.getLong(4);
+                    Long before = rs.wasNull() ? null : current;
+                    if (!Objects.equals(zone, before)) {
+                        moves.add(new MapSqlParameterSource("id", rs.getLong(1)).addValue("zone", zone));
+                    }
+                });
+        if (!moves.isEmpty()) {
+            jdbc.batchUpdate("UPDATE bookings SET zone_id = :zone WHERE id = :id", moves.toArray(SqlParameterSource[]::new));
+            log.info("Service zones changed: {} upcoming bookings moved zone", moves.size());
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() { snapshot = next; }
+        });
+    }
+
+    @Scheduled(fixedDelay = 300_000, initialDelay = 300_000)
+    @Transactional(readOnly = true)
+    public void refresh() {
+        try {
+            snapshot = Snapshot.of(repository.findAllByOrderByIdAsc());
+        } catch (DataAccessException ex) {
+            log.warn("Service zone refresh failed, keeping previous zones: {}", ex.getMessage());
+        }
+    }
+
+    private Snapshot snapshot() {
+        Snapshot s = snapshot;
+        if (s == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    refresh();
+                    if (snapshot == null) return Snapshot.of(List.of());
+                }
+                s = snapshot;
+            }
+        }
+        return s;
+    }
+
+    private static ServiceZoneDTO toDto(ServiceZone z) {
+        ServiceZoneDTO dto = new ServiceZoneDTO();
+        dto.setId(z.getId());
+        dto.setName(z.getName());
+        dto.setActive(z.isActive());
+        double[][] ring = parsePolygon(z.getPolygon());
+        List<ServiceZoneDTO.Vertex> vertices = new ArrayList<>(ring[0].length);
+        for (int i = 0; i < ring[0].length; i++) vertices.add(new ServiceZoneDTO.Vertex(ring[0][i], ring[1][i]));
+        dto.setVertices(vertices);
+        dto.setGroomerIds(z.getGroomers().stream().map(User::getId).sorted().toList());
+        return dto;
+    }
+
+    /** Latitudes and longitudes of a stored polygon, "lat lng, lat lng, ...". */
+    static double[][] parsePolygon(String text) {
+        String[] pairs = text.split(",");
+        double[][] ring = new double[2][pairs.length];
+        for (int i = 0; i < pairs.length; i++) {
+            String[] ll = pairs[i].trim().split("\\s+");
+            ring[0][i] = Double.parseDouble(ll[0]);
+            ring[1][i] = Double.parseDouble(ll[1]);
+        }
+        return ring;
+    }
+
+    static String formatPolygon(double[] lat, double[] lng) {
+        StringJoiner out = new StringJoiner(", ");
+        for (int i = 0; i < lat.length; i++) out.add(lat[i] + " " + lng[i]);
+        return out.toString();
+    }
+
+    // Shoelace area in square degrees, signed by winding
+    private static double area(double[] lat, double[] lng) {
+        double sum = 0;
+        for (int i = 0, j = lat.length - 1; i < lat.length; j = i++) sum += (lng[j] + lng[i]) * (lat[j] - lat[i]);
+        return sum / 2;
+    }
+
+    /**
+     * Immutable read model: active zones by position, their bounds, a GRID x GRID grid of zone
+     * candidates over the union of the bounds, and each zone's groomer ids sorted for binary search.
+     */
+    static final class Snapshot {
+        static final int GRID = 64;
+        private static final int[] NONE = new int[0];
+
+        final long[] ids;
+        final double[][] lat;
+        final double[][] lng;
+        final double[][] bounds; // minLat, maxLat, minLng, maxLng per zone
+        final long[][] groomers;
+        final Map<Long, Integer> position = new HashMap<>();
+        final double minLat, minLng, cellLat, cellLng;
+        final int[][] cells;
+
+        private Snapshot(List<ServiceZone> zones) {
+            int n = zones.size();
+            ids = new long[n];
+            lat = new double[n][];
+            lng = new double[n][];
+            bounds = new double[n][];
+            groomers = new long[n][];
+            double loLat = Double.MAX_VALUE, hiLat = -Double.MAX_VALUE, loLng = Double.MAX_VALUE, hiLng = -Double.MAX_VALUE;
+            for (int z = 0; z < n; z++) {
+                ServiceZone zone = zones.get(z);
+                ids[z] = zone.getId();
+                position.put(zone.getId(), z);
+                double[][] ring = parsePolygon(zone.getPolygon());
+                lat[z] = ring[0];
+                lng[z] = ring[1];
+                bounds[z] = new double[]{min(ring[0]), max(ring[0]), min(ring[1]), max(ring[1])};
+                groomers[z] = zone.getGroomers().stream().mapToLong(User::getId).sorted().toArray();
+                loLat = Math.min(loLat, bounds[z][0]);
+                hiLat = Math.max(hiLat, bounds[z][1]);
+                loLng = Math.min(loLng, bounds[z][2]);
+                hiLng = Math.max(hiLng, bounds[z][3]);
+            }
+            minLat = loLat;
+            minLng = loLng;
+            cellLat = n > 0 ? Math.max(hiLat - loLat, 1e-9) / GRID : 1;
+            cellLng = n > 0 ? Math.max(hiLng - loLng, 1e-9) / GRID : 1;
+            List<List<Integer>> lists = new ArrayList<>(GRID * GRID);
+            for (int i = 0; i < GRID * GRID; i++) lists.add(null);
+            for (int z = 0; z < n; z++) {
+                for (int r = cell(bounds[z][0], minLat, cellLat); r <= cell(bounds[z][1], minLat, cellLat); r++) {
+                    for (int c = cell(bounds[z][2], minLng, cellLng); c <= cell(bounds[z][3], minLng, cellLng); c++) {
+                        int i = r * GRID + c;
+                        if (lists.get(i) == null) lists.set(i, new ArrayList<>(2));
+                        lists.get(i).add(z);
+                    }
+                }
+            }
+            cells = new int[GRID * GRID][];
+            for (int i = 0; i < cells.length; i++) {
+                List<Integer> l = lists.get(i);
+                cells[i] = l == null ? NONE : l.stream().mapToInt(Integer::intValue).toArray();
+            }
+        }
+
+        static Snapshot of(List<ServiceZone> all) {
+            List<ServiceZone> active = new ArrayList<>();
+            for (ServiceZone z : all) if (z.isActive()) active.add(z);
+            active.sort(Comparator.comparing(ServiceZone::getId));
+            return new Snapshot(active);
+        }
+
+        Long zoneOf(double y, double x) {
+            if (ids.length == 0) return null;
+            if (y < minLat || x < minLng || y > minLat + cellLat * GRID || x > minLng + cellLng * GRID) return null;
+            for (int z : cells[cell(y, minLat, cellLat) * GRID + cell(x, minLng, cellLng)]) {
+                double[] b = bounds[z];
+                if (y < b[0] || y > b[1] || x < b[2] || x > b[3]) continue;
+                if (contains(lat[z], lng[z], y, x)) return ids[z];
+            }
+            return null;
+        }
+
+        boolean assigned(long zoneId, long groomerId) {
+            Integer z = position.get(zoneId);
+            return z != null && Arrays.binarySearch(groomers[z], groomerId) >= 0;
+        }
+
+        boolean serves(long zoneId, Long groomerId) {
+            Integer z = position.get(zoneId);
+            return z == null || groomers[z].length == 0 || (groomerId != null && Arrays.binarySearch(groomers[z], groomerId) >= 0);
+        }
+
+        // Points on the upper edge of the grid fall in the last cell
+        private static int cell(double v, double min, double size) {
+            return Math.min(GRID - 1, Math.max(0, (int) ((v - min) / size)));
+        }
+
+        // Even-odd ray casting towards +longitude
+        static boolean contains(double[] lat, double[] lng, double y, double x) {
+            boolean inside = false;
+            for (int i = 0, j = lat.length - 1; i < lat.length; j = i++) {
+                if ((lat[i] > y) != (lat[j] > y)
+                        && x < (lng[j] - lng[i]) * (y - lat[i]) / (lat[j] - lat[i]) + lng[i]) {
+                    inside = !inside;
+                }
+            }
+            return inside;
+        }
+
+        private static double min(double[] v) {
+            double m = v[0];
+            for (double d : v) m = Math.min(m, d);
+            return m;
+        }
+
+        private static double max(double[] v) {
+            double m = v[0];
+            for (double d : v) m = Math.max(m, d);
+            return m;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.config.BookingProperties;
+import com.cobamovil.backend.entity.ServiceType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Short-lived holds on a groomer's time while a customer checks out. Holds live only in memory,
+ * indexed by token and by day; expiry goes through a hashed timing wheel, so each tick looks only
+ * at the holds due in that slot of the wheel instead of scanning them all. Expired holds stop
+ * blocking right away, whether or not the wheel has reached them yet. Holds are per instance:
+ * behind a load balancer they only narrow the race, and the booking overlap checks still decide.
+ */
+@Service
+public class SlotHoldService {
+    static final long UNASSIGNED = BookingIntervalIndex.UNASSIGNED;
+
+    private final BookingProperties props;
+    private final LongSupplier clock;
+    private final Map<String, Hold> byToken = new ConcurrentHashMap<>();
+    private final Map<LocalDate, Set<Hold>> byDate = new ConcurrentHashMap<>();
+    private final Map<String, Deque<Hold>> byHolder = new ConcurrentHashMap<>();
+    private final TimingWheel wheel;
+
+    @Autowired
+    public SlotHoldService(BookingProperties props) {
+        this(props, System::currentTimeMillis);
+    }
+
+    SlotHoldService(BookingProperties props, LongSupplier clock) {
+        this.props = props;
+        this.clock = clock;
+        this.wheel = new TimingWheel(TimingWheel.SLOTS, clock.getAsLong() / TimingWheel.TICK_MILLIS);
+    }
+
+    /**
+     * Places a hold on [start, start + duration] minutes of the groomer's day (null: unassigned).
+     * The caller checks the slot is free first, under the groomer-day slot lock. A holder keeps at
+     * most app.booking.maxHoldsPerUser holds; the oldest goes when a new one would exceed it.
+     */
+    public Hold hold(String holder, Long groomerId, LocalDate date, LocalTime time, int durationMinutes, ServiceType serviceType) {
+        long now = clock.getAsLong();
+        Hold h = newHold(holder, groomerId, date, time, durationMinutes, serviceType, now + props.getHoldTtlSeconds() * 1000L, null);
+        Deque<Hold> mine = byHolder.computeIfAbsent(holder, k -> new ArrayDeque<>());
+        Hold evicted = null;
+        synchronized (mine) {
+            mine.removeIf(x -> !x.isActive(now));
+            if (mine.size() >= props.getMaxHoldsPerUser()) evicted = mine.pollFirst();
+            mine.addLast(h);
+        }
+        if (evicted != null) remove(evicted);
+        return place(h);
+    }
+
+    /**
+     * Places a hold for ttlSeconds that does not count towards the holder's checkout holds. onEnd
+     * runs once, on the thread that releases the hold or on the expiry tick.
+     */
+    public Hold hold(String holder, Long groomerId, LocalDate date, LocalTime time, int durationMinutes, ServiceType serviceType,
+                     long ttlSeconds, Consumer<Hold> onEnd) {
+        long expires = clock.getAsLong() + ttlSeconds * 1000L;
+        return place(newHold(holder, groomerId, date, time, durationMinutes, serviceType, expires, onEnd));
+    }
+
+    private static Hold newHold(String holder, Long groomerId, LocalDate date, LocalTime time, int durationMinutes,
+                                ServiceType serviceType, long expiresAtMillis, Consumer<Hold> onEnd) {
+        int start = time.getHour() * 60 + time.getMinute();
+        return new Hold(UUID.randomUUID().toString(), holder, groomerId != null ? groomerId : UNASSIGNED, date, time,
+                start, start + durationMinutes, serviceType, expiresAtMillis, onEnd);
+    }
+
+    private Hold place(Hold h) {
+        byToken.put(h.token, h);
+        byDate.computeIfAbsent(h.date, d -> ConcurrentHashMap.newKeySet()).add(h);
+        wheel.schedule(h, h.expiresAtMillis / TimingWheel.TICK_MILLIS);
+        return h;
+    }
+
+    /** The live hold for token, or null if it never existed, expired or was released. */
+    public Hold find(String token) {
+        Hold h = token != null ? byToken.get(token) : null;
+        return h != null && h.isActive(clock.getAsLong()) ? h : null;
+    }
+
+    public void release(String token) {
+        Hold h = token != null ? byToken.get(token) : null;
+        if (h != null) remove(h);
+    }
+
+    /**
+     * Whether a live hold of someone other than ignoreHolder overlaps [start, end] (closed) for this
+     * groomer. As with bookings, unassigned holds block every groomer.
+     */
+    public boolean overlaps(LocalDate date, Long groomerId, int start, int end, String ignoreHolder) {
+        Set<Hold> day = byDate.get(date);
+        if (day == null || day.isEmpty()) return false;
+        long key = groomerId != null ? groomerId : UNASSIGNED;
+        long now = clock.getAsLong();
+        for (Hold h : day) {
+            if (h.groomerId != key && (h.groomerId != UNASSIGNED || groomerId == null)) continue;
+            if (ignoreHolder != null && ignoreHolder.equals(h.holder)) continue;
+            if (h.isActive(now) && h.start <= end && start <= h.end) return true;
+        }
+        return false;
+    }
+
+    /** Live holds on date, for marking slots busy in searches. */
+    public List<Hold> onDate(LocalDate date) {
+        Set<Hold> day = byDate.get(date);
+        if (day == null) return List.of();
+        long now = clock.getAsLong();
+        List<Hold> out = new ArrayList<>();
+        for (Hold h : day) if (h.isActive(now)) out.add(h);
+        return out;
+    }
+
+    int size() { return byToken.size(); }
+
+    @Scheduled(fixedRate = TimingWheel.TICK_MILLIS)
+    public void expire() {
+        wheel.advance(clock.getAsLong() / TimingWheel.TICK_MILLIS, this::remove);
+    }
+
+    private void remove(Hold h) {
+        if (!byToken.remove(h.token, h)) return;
+        byDate.computeIfPresent(h.date, (d, set) -> {
+            set.remove(h);
+            return set.isEmpty() ? null : set;
+        });
+        Deque<Hold> mine = byHolder.get(h.holder);
+        if (mine != null) {
+            synchronized (mine) {
+                mine.remove(h);
+                if (mine.isEmpty()) byHolder.remove(h.holder, mine);
+            }
+        }
+        if (h.onEnd != null) h.onEnd.accept(h);
+    }
+
+    public static final class Hold {
+        final String token;
+        final String holder;
+        final long groomerId;
+        final LocalDate date;
+        final LocalTime time;
+        final int start;
+        final int end;
+        final ServiceType serviceType;
+        final long expiresAtMillis;
+        final Consumer<Hold> onEnd;
+
+        Hold(String token, String holder, long groomerId, LocalDate date, LocalTime time, int start, int end,
+             ServiceType serviceType, long expiresAtMillis, Consumer<Hold> onEnd) {
+            this.token = token;
+            this.holder = holder;
+            this.groomerId = groomerId;
+            this.date = date;
+            this.time = time;
+            this.start = start;
+            this.end = end;
+            this.serviceType = serviceType;
+            this.expiresAtMillis = expiresAtMillis;
+            this.onEnd = onEnd;
+        }
+
+        boolean isActive(long nowMillis) { return nowMillis < expiresAtMillis; }
+
+        public String getToken() { return token; }
+        public String getHolder() { return holder; }
+        public Long getGroomerId() { return groomerId != UNASSIGNED ? groomerId : null; }
+        public LocalDate getDate() { return date; }
+        public LocalTime getTime() { return time; }
+        public int getDurationMinutes() { return end - start; }
+        public ServiceType getServiceType() { return serviceType; }
+        public long getExpiresAtMillis() { return expiresAtMillis; }
+    }
+
+    /**
+     * Hashed timing wheel of one-second ticks. An entry sits in slot deadline % slots and is handed
+     * out when the wheel passes that slot in the tick of its deadline; entries due in a later lap
+     * stay put. Advancing visits only the slots of the ticks that elapsed.
+     */
+    static final class TimingWheel {
+        static final long TICK_MILLIS = 1000;
+        static final int SLOTS = 512;
+
+        private final Queue<Entry>[] slots;
+        private volatile long processedTick;
+
+        @SuppressWarnings("unchecked")
+        TimingWheel(int size, long startTick) {
+            slots = new Queue[size];
+            for (int i = 0; i < size; i++) slots[i] = new ConcurrentLinkedQueue<>();
+            processedTick = startTick;
+        }
+
+        void schedule(Hold h, long deadlineTick) {
+            // An entry for a tick already processed goes in the next slot to be visited
+            long tick = Math.max(deadlineTick, processedTick + 1);
+            slots[(int) Math.floorMod(tick, (long) slots.length)].add(new Entry(h, deadlineTick));
+        }
+
+        synchronized void advance(long nowTick, Consumer<Hold> expired) {
+            // After a long pause one full lap visits every slot once
+            long from = Math.max(processedTick + 1, nowTick - slots.length + 1);
+            for (long tick = from; tick <= nowTick; tick++) {
+                Iterator<Entry> it = slots[(int) Math.floorMod(tick, (long) slots.length)].iterator();
+                while (it.hasNext()) {
+                    Entry e = it.next();
+                    if (e.deadlineTick > nowTick) continue;
+                    it.remove();
+                    expired.accept(e.hold);
+                }
+            }
+            if (nowTick > processedTick) processedTick = nowTick;
+        }
+
+        private static final class Entry {
+            final Hold hold;
+            final long deadlineTick;
+
+            Entry(Hold hold, long deadlineTick) {
+                this.hold = hold;
+                this.deadlineTick = deadlineTick;
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.config.BookingProperties;
+import com.cobamovil.backend.dto.FreeSlotsDTO;
+import com.cobamovil.backend.entity.Booking;
+import com.cobamovil.backend.entity.ServiceType;
+import com.cobamovil.backend.entity.User;
+import com.cobamovil.backend.repository.BookingRepository;
+import com.cobamovil.backend.repository.UserRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Free start times per groomer over a date range. Each groomer-day is a bitmap of 5-minute slots
+ * marked busy by the bookings holding them (all loaded with one range query); free starts come out of a
+ * single backwards pass that tracks the run of free slots ahead of each position.
+ */
+@Service
+public class SlotSearchService {
+    static final int SLOT_MINUTES = 5;
+    private static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+    private static final int WORDS = SLOTS_PER_DAY / 64 + 1; // one spare bit for a booking touching midnight
+
+    private final BookingRepository bookingRepository;
+    private final UserRepository userRepository;
+    private final BookingProperties props;
+    private final ServiceCatalog serviceCatalog;
+    private final SlotHoldService slotHolds;
+    private final ServiceZones serviceZones;
+
+    public SlotSearchService(BookingRepository bookingRepository, UserRepository userRepository,
+                             BookingProperties props, ServiceCatalog serviceCatalog, SlotHoldService slotHolds,
+                             ServiceZones serviceZones) {
+        this.bookingRepository = bookingRepository;
+        this.userRepository = userRepository;
+        this.props = props;
+        this.serviceCatalog = serviceCatalog;
+        this.slotHolds = slotHolds;
+        this.serviceZones = serviceZones;
+    }
+
+    /**
+     * Free starts per groomer and day. Slots held during checkout by anyone but holder count as busy.
+     * With an address (lat, lng) only the groomers serving its zone are searched.
+     */
+    @Transactional(readOnly = true)
+    public List<FreeSlotsDTO> search(LocalDate from, LocalDate to, ServiceType serviceType, Long groomerId, Integer stepMinutes,
+                                     String holder, Double lat, Double lng) {
+        if (to.isBefore(from)) throw new IllegalArgumentException("'to' must not be before 'from'");
+        int days = (int) ChronoUnit.DAYS.between(from, to) + 1;
+        if (days > props.getSlotSearchMaxDays()) {
+            throw new IllegalArgumentException("Date range longer than " + props.getSlotSearchMaxDays() + " days");
+        }
+        int step = stepMinutes == null ? SLOT_MINUTES : stepMinutes;
+        if (step <= 0 || step % SLOT_MINUTES != 0) {
+            throw new IllegalArgumentException("stepMinutes must be a positive multiple of " + SLOT_MINUTES);
+        }
+
+        Long zoneId = serviceZones.zoneOf(lat, lng);
+        List<User> groomers = userRepository.findByRole("GROOMER").stream()
+                .filter(g -> groomerId == null || g.getId().equals(groomerId))
+                .filter(g -> serviceZones.serves(zoneId, g.getId()))
+                .toList();
+        if (groomers.isEmpty()) return List.of();
+        Map<Long, Integer> column = new HashMap<>();
+        for (int g = 0; g < groomers.size(); g++) column.put(groomers.get(g).getId(), g);
+
+        long[][][] busy = new long[days][groomers.size()][WORDS];
+        long[][] unassigned = new long[days][WORDS];
+        for (Booking b : bookingRepository.findByDateBetweenAndStatusIn(from, to, BookingIntervalIndex.HOLDS_SLOT)) {
+            int d = (int) ChronoUnit.DAYS.between(from, b.getDate());
+            int start = b.getTime().getHour() * 60 + b.getTime().getMinute();
+            long[] bits;
+            if (b.getAssignedGroomer() == null) {
+                bits = unassigned[d]; // could still go to anyone, so it blocks every groomer
+            } else {
+                Integer g = column.get(b.getAssignedGroomer().getId());
+                if (g == null) continue;
+                bits = busy[d][g];
+            }
+            markBusy(bits, start, start + b.getDurationMinutes());
+        }
+        for (int d = 0; d < days; d++) {
+            for (SlotHoldService.Hold h : slotHolds.onDate(from.plusDays(d))) {
+                if (holder != null && holder.equals(h.getHolder())) continue;
+                long[] bits;
+                if (h.getGroomerId() == null) {
+                    bits = unassigned[d];
+                } else {
+                    Integer g = column.get(h.getGroomerId());
+                    if (g == null) continue;
+                    bits = busy[d][g];
+                }
+                markBusy(bits, h.start, h.end);
+            }
+        }
+
+        int open = minuteOf(props.getWorkdayStart());
+        int close = minuteOf(props.getWorkdayEnd());
+        int duration = serviceCatalog.blockedMinutes(serviceType);
+        LocalDateTime now = LocalDateTime.now();
+        List<FreeSlotsDTO> out = new ArrayList<>();
+        for (int d = 0; d < days; d++) {
+            LocalDate date = from.plusDays(d);
+            if (date.isBefore(now.toLocalDate())) continue;
+            int earliest = date.equals(now.toLocalDate()) ? now.getHour() * 60 + now.getMinute() + 1 : 0;
+            for (int g = 0; g < groomers.size(); g++) {
+                long[] bits = busy[d][g];
+                for (int w = 0; w < WORDS; w++) bits[w] |= unassigned[d][w];
+                List<LocalTime> starts = new ArrayList<>();
+                for (int m : freeStarts(bits, open, close, duration, step, earliest)) starts.add(LocalTime.of(m / 60, m % 60));
+                if (!starts.isEmpty()) out.add(new FreeSlotsDTO(date, groomers.get(g).getId(), starts));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Marks the slots touched by the closed minute interval [start, end]; a booking ending at 10:00
+     * also blocks a start at 10:00, as in the booking overlap check.
+     */
+    static void markBusy(long[] bits, int start, int end) {
+        int last = Math.min(end / SLOT_MINUTES, WORDS * 64 - 1);
+        for (int s = start / SLOT_MINUTES; s <= last; s++) bits[s >>> 6] |= 1L << s;
+    }
+
+    /**
+     * Start minutes, every step minutes from opening, at which [start, start + duration] touches
+     * no busy slot, fits within [open, close] and is not before earliest.
+     */
+    static int[] freeStarts(long[] bits, int open, int close, int duration, int step, int earliest) {
+        int need = duration / SLOT_MINUTES + 1;  // slots touched by a closed interval starting on a slot boundary
+        int first = (open + SLOT_MINUTES - 1) / SLOT_MINUTES;
+        int last = (close - duration) / SLOT_MINUTES;  // latest start that still finishes by close
+        if (last < first) return new int[0];
+        int[] found = new int[last - first + 1];
+        int count = 0;
+        int run = 0;
+        int s = Math.min(last + need - 1, WORDS * 64 - 1);
+        for (; s > last; s--) run = (bits[s >>> 6] & (1L << s)) != 0 ? 0 : run + 1;
+        for (; s >= first; s--) {
+            run = (bits[s >>> 6] & (1L << s)) != 0 ? 0 : run + 1;
+            int minute = s * SLOT_MINUTES;
+            if (run >= need && minute >= earliest && (s - first) * SLOT_MINUTES % step == 0) found[count++] = minute;
+        }
+        int[] out = new int[count];
+        for (int i = 0; i < count; i++) out[i] = found[count - 1 - i];
+        return out;
+    }
+
+    private static int minuteOf(LocalTime t) {
+        return t.getHour() * 60 + t.getMinute();
+    }
+}
@@ -0,0 +1,239 @@
+package com.cobamovil.backend.service;
+
+import java.util.Arrays;
+
+/**
+ * Single-vehicle routing with time windows (VRPTW) over a travel-time matrix in minutes.
+ * Stop i may start no earlier than ready[i] (the groomer waits otherwise) and no later than due[i];
+ * it then occupies service[i] minutes. The route is open and starts at the first stop's ready time.
+ * Construction is a cheapest-feasible-insertion in order of due time, followed by relocate and
+ * 2-opt moves that are only accepted when they shorten the drive and keep every window.
+ * {@link #keep} applies the same insertion and moves to a saved route instead of building one.
+ */
+final class TimeWindowScheduler {
+
+    private static final double EPS = 1e-9;
+
+    static final class Result {
+        final int[] route;        // stop indices in visiting order
+        final double[] arrival;   // service start per route position (minutes from midnight)
+        final int[] unscheduled;  // stops that could not be placed without breaking a window
+        final double travel;      // total drive minutes
+
+        Result(int[] route, double[] arrival, int[] unscheduled, double travel) {
+            this.route = route;
+            this.arrival = arrival;
+            this.unscheduled = unscheduled;
+            this.travel = travel;
+        }
+    }
+
+    private final int[] ready;
+    private final int[] due;
+    private final int[] service;
+    private final double[][] travel;
+    private final int maxSegment;
+
+    private int[] route;
+    private int len;
+    private int[] scratch;
+    // Positions the improving moves may touch
+    private int lo = 0;
+    private int hi = Integer.MAX_VALUE;
+
+    private TimeWindowScheduler(int[] ready, int[] due, int[] service, double[][] travel, int maxSegment) {
+        this.ready = ready;
+        this.due = due;
+        this.service = service;
+        this.travel = travel;
+        this.maxSegment = maxSegment;
+        this.route = new int[ready.length];
+        this.scratch = new int[ready.length];
+    }
+
+    static Result solve(int[] ready, int[] due, int[] service, double[][] travel, int maxSegment, long deadlineNanos) {
+        return new TimeWindowScheduler(ready, due, service, travel, maxSegment).run(deadlineNanos);
+    }
+
+    /**
+     * Keeps a saved route current without giving up a window. Planned stops stay in their order,
+     * except those that can no longer start on time; added stops go to their cheapest feasible
+     * position; then relocate and 2-opt only touch positions within radius of a change, where
+     * lo..hi are the positions already changed in planned (hi -1 for none). Stops that fit nowhere
+     * are unscheduled, planned ones first.
+     */
+    static Result keep(int[] planned, int[] added, int lo, int hi, int radius, int[] ready, int[] due, int[] service,
+                       double[][] travel, int maxSegment, long deadlineNanos) {
+        TimeWindowScheduler s = new TimeWindowScheduler(ready, due, service, travel, maxSegment);
+        int[] unscheduled = new int[planned.length + added.length];
+        int u = 0;
+        for (int stop : planned) {
+            s.route[s.len] = stop;
+            if (s.feasible(s.route, s.len + 1)) {
+                s.len++;
+            } else {
+                // Dropped like a removed stop: its neighbours become adjacent
+                unscheduled[u++] = stop;
+                lo = Math.min(lo, s.len - 1);
+                hi = Math.max(hi, s.len);
+            }
+        }
+        for (int stop : added) {
+            int at = s.insertCheapest(stop);
+            if (at < 0) { unscheduled[u++] = stop; continue; }
+            if (hi >= at) hi++;
+            lo = Math.min(lo, at - 1);
+            hi = Math.max(hi, at + 1);
+        }
+        if (hi >= 0) {
+            s.lo = Math.max(0, lo - radius);
+            s.hi = hi + radius;
+            s.improve(deadlineNanos);
+        }
+        int[] finalRoute = Arrays.copyOf(s.route, s.len);
+        return new Result(finalRoute, startTimes(finalRoute, ready, service, travel), Arrays.copyOf(unscheduled, u),
+                s.cost(finalRoute, s.len));
+    }
+
+    /**
+     * Service start of each stop when visited in order: the first at its ready time, every other
+     * after the previous service and the drive, waiting for its ready time if early. Due times are
+     * not checked.
+     */
+    static double[] startTimes(int[] order, int[] ready, int[] service, double[][] travel) {
+        double[] out = new double[order.length];
+        double t = 0;
+        for (int k = 0; k < order.length; k++) {
+            int s = order[k];
+            out[k] = k == 0 ? ready[s] : Math.max(ready[s], t + travel[order[k - 1]][s]);
+            t = out[k] + service[s];
+        }
+        return out;
+    }
+
+    private Result run(long deadlineNanos) {
+        int n = ready.length;
+        Integer[] byDue = new Integer[n];
+        for (int i = 0; i < n; i++) byDue[i] = i;
+        Arrays.sort(byDue, (a, b) -> due[a] != due[b] ? Integer.compare(due[a], due[b]) : Integer.compare(ready[a], ready[b]));
+
+        boolean[] placed = new boolean[n];
+        for (int idx : byDue) placed[idx] = insertCheapest(idx) >= 0;
+
+        improve(deadlineNanos);
+        // A shorter route can open room for stops that did not fit during construction
+        for (int idx : byDue) if (!placed[idx]) placed[idx] = insertCheapest(idx) >= 0;
+
+        int[] unscheduled = new int[n - len];
+        int u = 0;
+        for (int idx : byDue) if (!placed[idx]) unscheduled[u++] = idx;
+        int[] finalRoute = Arrays.copyOf(route, len);
+        return new Result(finalRoute, startTimes(finalRoute, ready, service, travel), unscheduled, cost(finalRoute, len));
+    }
+
+    // The position the stop went to, or -1 when every position breaks a window
+    private int insertCheapest(int stop) {
+        int bestPos = -1;
+        double bestCost = Double.POSITIVE_INFINITY;
+        for (int p = 0; p <= len; p++) {
+            System.arraycopy(route, 0, scratch, 0, p);
+            scratch[p] = stop;
+            System.arraycopy(route, p, scratch, p + 1, len - p);
+            if (!feasible(scratch, len + 1)) continue;
+            double c = cost(scratch, len + 1);
+            if (c < bestCost - EPS) { bestCost = c; bestPos = p; }
+        }
+        if (bestPos < 0) return -1;
+        System.arraycopy(route, bestPos, route, bestPos + 1, len - bestPos);
+        route[bestPos] = stop;
+        len++;
+        return bestPos;
+    }
+
+    private void improve(long deadlineNanos) {
+        boolean improved = true;
+        while (improved && System.nanoTime() < deadlineNanos) {
+            improved = relocate(deadlineNanos) | twoOpt(deadlineNanos);
+        }
+    }
+
+    private boolean relocate(long deadlineNanos) {
+        boolean any = false;
+        double current = cost(route, len);
+        for (int segLen = 1; segLen <= maxSegment && segLen < len; segLen++) {
+            for (int i = lo; i + segLen <= len && i <= hi; i++) {
+                if (System.nanoTime() >= deadlineNanos) return any;
+                int rest = len - segLen;
+                for (int gap = lo; gap <= rest && gap <= hi; gap++) {
+                    if (gap == i) continue;
+                    buildRelocation(i, segLen, gap);
+                    double c = cost(scratch, len);
+                    if (c < current - EPS && feasible(scratch, len)) {
+                        swapBuffers();
+                        current = c;
+                        any = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return any;
+    }
+
+    private boolean twoOpt(long deadlineNanos) {
+        boolean any = false;
+        double current = cost(route, len);
+        for (int i = lo; i < len - 1 && i <= hi; i++) {
+            if (System.nanoTime() >= deadlineNanos) return any;
+            for (int j = i + 1; j < len && j <= hi; j++) {
+                System.arraycopy(route, 0, scratch, 0, len);
+                for (int a = i, b = j; a < b; a++, b--) { int t = scratch[a]; scratch[a] = scratch[b]; scratch[b] = t; }
+                double c = cost(scratch, len);
+                if (c < current - EPS && feasible(scratch, len)) {
+                    swapBuffers();
+                    current = c;
+                    any = true;
+                }
+            }
+        }
+        return any;
+    }
+
+    // scratch := route with [start, start + segLen) moved into the given gap of the remaining stops
+    private void buildRelocation(int start, int segLen, int gap) {
+        int k = 0, taken = 0;
+        for (int r = 0; r < len; r++) {
+            if (r >= start && r < start + segLen) continue;
+            if (taken == gap) {
+                System.arraycopy(route, start, scratch, k, segLen);
+                k += segLen;
+            }
+            scratch[k++] = route[r];
+            taken++;
+        }
+        if (gap == taken) System.arraycopy(route, start, scratch, k, segLen);
+    }
+
+    private void swapBuffers() {
+        int[] t = route;
+        route = scratch;
+        scratch = t;
+    }
+
+    private boolean feasible(int[] r, int n) {
+        double t = 0;
+        for (int k = 0; k < n; k++) {
+            int s = r[k];
+            double arrive = k == 0 ? ready[s] : Math.max(ready[s], t + travel[r[k - 1]][s]);
+            if (arrive > due[s] + EPS) return false;
+            t = arrive + service[s];
+        }
+        return true;
+    }
+
+    private double cost(int[] r, int n) {
+        double c = 0;
+        for (int k = 1; k < n; k++) c += travel[r[k - 1]][r[k]];
+        return c;
+    }
+}
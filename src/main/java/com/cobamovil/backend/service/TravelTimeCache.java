@@ -0,0 +1,224 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.config.RoutingProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Two-tier cache of driving times. Keys are the geohash cells of origin and destination plus a
+ * time-of-day bucket, so customers at the same address (or a few metres apart) share entries.
+ * Tier 1 is a bounded in-memory LRU map; tier 2 is the travel_time_cache table. Entries of both
+ * tiers expire after app.routing.cacheTtlDays. Hit/miss counters per tier are published as
+ * travel_time_cache.lookups.
+ */
+@Service
+public class TravelTimeCache {
+    private static final Logger log = LoggerFactory.getLogger(TravelTimeCache.class);
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    private final NamedParameterJdbcTemplate jdbc; // null: memory tier only
+    private final RoutingProperties props;
+    private final LongSupplier clock; // epoch millis
+    private final Map<String, Cached> memory;
+    private final Counter memoryHits;
+    private final Counter memoryMisses;
+    private final Counter dbHits;
+    private final Counter dbMisses;
+
+    @Autowired
+    public TravelTimeCache(NamedParameterJdbcTemplate jdbc, RoutingProperties props, MeterRegistry registry) {
+        this(jdbc, props, registry, System::currentTimeMillis);
+    }
+
+    TravelTimeCache(NamedParameterJdbcTemplate jdbc, RoutingProperties props, MeterRegistry registry, LongSupplier clock) {
+        this.jdbc = jdbc;
+        this.props = props;
+        this.clock = clock;
+        int max = props.getCacheMaxEntries();
+        this.memory = Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+                return size() > max;
+            }
+        });
+        this.memoryHits = registry.counter("travel_time_cache.lookups", "tier", "memory", "result", "hit");
+        this.memoryMisses = registry.counter("travel_time_cache.lookups", "tier", "memory", "result", "miss");
+        this.dbHits = registry.counter("travel_time_cache.lookups", "tier", "database", "result", "hit");
+        this.dbMisses = registry.counter("travel_time_cache.lookups", "tier", "database", "result", "miss");
+        registry.gauge("travel_time_cache.size", memory, Map::size);
+    }
+
+    public String cell(double lat, double lng) {
+        return geohash(lat, lng, props.getCacheGeohashPrecision());
+    }
+
+    /** Time-of-day bucket of a trip starting at time. */
+    public int bucket(LocalTime time) {
+        return (time.getHour() * 60 + time.getMinute()) / Math.max(1, props.getCacheBucketMinutes());
+    }
+
+    /**
+     * Fills every unknown (negative) off-diagonal entry of out that either tier knows for the given
+     * cells. Returns how many entries are still unknown afterwards.
+     */
+    public int lookup(String[] cells, int bucket, int[][] out) {
+        int n = cells.length;
+        long now = clock.getAsLong();
+        Map<String, List<int[]>> missing = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (i == j || out[i][j] >= 0) continue;
+                String key = key(cells[i], cells[j], bucket);
+                Cached cached = memory.get(key);
+                if (cached != null && cached.expiresAt > now) {
+                    out[i][j] = cached.seconds;
+                    memoryHits.increment();
+                } else {
+                    missing.computeIfAbsent(key, k -> new ArrayList<>()).add(new int[]{i, j});
+                    memoryMisses.increment();
+                }
+            }
+        }
+        if (missing.isEmpty() || jdbc == null) return countPairs(missing);
+
+        Set<String> origins = new HashSet<>(), destinations = new HashSet<>();
+        for (List<int[]> pairs : missing.values()) {
+            int[] p = pairs.get(0);
+            origins.add(cells[p[0]]);
+            destinations.add(cells[p[1]]);
+        }
+        try {
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("bucket", bucket)
+                    .addValue("origins", origins)
+                    .addValue("destinations", destinations)
+                    .addValue("now", new Timestamp(now));
+            jdbc.query("SELECT origin_hash, dest_hash, seconds, expires_at FROM travel_time_cache " +
+                            "WHERE time_bucket = :bucket AND expires_at > :now " +
+                            "AND origin_hash IN (:origins) AND dest_hash IN (:destinations)",
+                    params, rs -> {
+                        String key = key(rs.getString(1), rs.getString(2), bucket);
+                        List<int[]> pairs = missing.remove(key);
+                        if (pairs == null) return;
+                        int seconds = rs.getInt(3);
+                        memory.put(key, new Cached(seconds, rs.getTimestamp(4).getTime()));
+                        dbHits.increment(pairs.size());
+                        for (int[] p : pairs) out[p[0]][p[1]] = seconds;
+                    });
+        } catch (DataAccessException ex) {
+            log.warn("Travel time cache read failed, using memory tier only: {}", ex.getMessage());
+        }
+        int left = countPairs(missing);
+        dbMisses.increment(left);
+        return left;
+    }
+
+    /**
+     * Stores the known (non-negative) off-diagonal entries of seconds in both tiers.
+     */
+    public void store(String[] cells, int bucket, int[][] seconds) {
+        long expiresAt = clock.getAsLong() + TimeUnit.DAYS.toMillis(props.getCacheTtlDays());
+        Map<String, Integer> fresh = new LinkedHashMap<>();
+        Map<String, String[]> parts = new HashMap<>();
+        for (int i = 0; i < cells.length; i++) {
+            for (int j = 0; j < cells.length; j++) {
+                if (i == j || seconds[i][j] < 0) continue;
+                String key = key(cells[i], cells[j], bucket);
+                if (fresh.putIfAbsent(key, seconds[i][j]) == null) parts.put(key, new String[]{cells[i], cells[j]});
+            }
+        }
+        if (fresh.isEmpty()) return;
+        fresh.forEach((key, value) -> memory.put(key, new Cached(value, expiresAt)));
+        if (jdbc == null) return;
+        Timestamp expires = new Timestamp(expiresAt);
+        SqlParameterSource[] batch = fresh.entrySet().stream().map(e -> new MapSqlParameterSource()
+                .addValue("o", parts.get(e.getKey())[0])
+                .addValue("d", parts.get(e.getKey())[1])
+                .addValue("b", bucket)
+                .addValue("s", e.getValue())
+                .addValue("e", expires)).toArray(SqlParameterSource[]::new);
+        try {
+            jdbc.batchUpdate("INSERT INTO travel_time_cache (origin_hash, dest_hash, time_bucket, seconds, expires_at) " +
+                    "VALUES (:o, :d, :b, :s, :e) ON CONFLICT (origin_hash, dest_hash, time_bucket) " +
+                    "DO UPDATE SET seconds = EXCLUDED.seconds, expires_at = EXCLUDED.expires_at", batch);
+        } catch (DataAccessException ex) {
+            log.warn("Travel time cache write failed: {}", ex.getMessage());
+        }
+    }
+
+    // Expired entries are already ignored on read; this only keeps the map and the table small
+    @Scheduled(cron = "0 30 3 * * *")
+    public void purgeExpired() {
+        long now = clock.getAsLong();
+        synchronized (memory) {
+            memory.values().removeIf(c -> c.expiresAt <= now);
+        }
+        if (jdbc == null) return;
+        try {
+            int removed = jdbc.update("DELETE FROM travel_time_cache WHERE expires_at <= :now",
+                    new MapSqlParameterSource("now", new Timestamp(now)));
+            if (removed > 0) log.info("Purged {} expired travel time cache rows", removed);
+        } catch (DataAccessException ex) {
+            log.warn("Travel time cache purge failed: {}", ex.getMessage());
+        }
+    }
+
+    int memorySize() { return memory.size(); }
+
+    private static String key(String origin, String dest, int bucket) {
+        return origin + '|' + dest + '|' + bucket;
+    }
+
+    private static int countPairs(Map<String, List<int[]>> missing) {
+        int c = 0;
+        for (List<int[]> pairs : missing.values()) c += pairs.size();
+        return c;
+    }
+
+    private static final class Cached {
+        final int seconds;
+        final long expiresAt;
+
+        Cached(int seconds, long expiresAt) {
+            this.seconds = seconds;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    static String geohash(double lat, double lng, int precision) {
+        double[] latRange = {-90, 90};
+        double[] lngRange = {-180, 180};
+        StringBuilder sb = new StringBuilder(precision);
+        boolean even = true;
+        int bit = 0, ch = 0;
+        while (sb.length() < precision) {
+            double[] range = even ? lngRange : latRange;
+            double value = even ? lng : lat;
+            double mid = (range[0] + range[1]) / 2;
+            ch <<= 1;
+            if (value >= mid) { ch |= 1; range[0] = mid; } else { range[1] = mid; }
+            even = !even;
+            if (++bit == 5) {
+                sb.append(BASE32[ch]);
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return sb.toString();
+    }
+}
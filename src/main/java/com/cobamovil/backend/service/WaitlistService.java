@@ -0,0 +1,469 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.config.BookingProperties;
+import com.cobamovil.backend.dto.WaitlistEntryDTO;
+import com.cobamovil.backend.entity.*;
+import com.cobamovil.backend.repository.BookingRepository;
+import com.cobamovil.backend.repository.PetRepository;
+import com.cobamovil.backend.repository.UserRepository;
+import com.cobamovil.backend.repository.WaitlistEntryRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntPredicate;
+import java.util.stream.Collectors;
+
+/**
+ * Waitlist for full days. When a booking gives up its slot, the free stretch of that groomer's day
+ * is matched against the waiting entries of the date, held in memory as arrays sorted by window
+ * start, and the candidate that adds the least detour between the neighbouring stops gets an offer.
+ * Only entries whose address lies in a zone the groomer serves are considered.
+ * <p>
+ * The offered slot is held for the customer for app.booking.waitlistOfferMinutes. When the hold
+ * expires, or is released by cancelling the entry, the entry goes back to waiting (unless the
+ * customer booked the slot) and the slot is offered to the next candidate.
+ */
+@Service
+public class WaitlistService {
+    private static final Logger log = LoggerFactory.getLogger(WaitlistService.class);
+    private static final int START_STEP_MINUTES = 5;
+
+    private final WaitlistEntryRepository waitlistRepository;
+    private final UserRepository userRepository;
+    private final PetRepository petRepository;
+    private final BookingRepository bookingRepository;
+    private final BookingIntervalIndex intervalIndex;
+    private final ServiceCatalog serviceCatalog;
+    private final CoverageAreaService coverageAreaService;
+    private final NotificationService notificationService;
+    private final BookingProperties bookingProps;
+    private final ServiceZones serviceZones;
+    private final SlotHoldService slotHolds;
+    private final TransactionOperations tx;
+    private final Map<LocalDate, Candidates> days = new ConcurrentHashMap<>();
+    // Hold token of each open offer made by this instance
+    private final Map<Long, String> offers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public WaitlistService(WaitlistEntryRepository waitlistRepository,
+                           UserRepository userRepository,
+                           PetRepository petRepository,
+                           BookingRepository bookingRepository,
+                           BookingIntervalIndex intervalIndex,
+                           ServiceCatalog serviceCatalog,
+                           CoverageAreaService coverageAreaService,
+                           NotificationService notificationService,
+                           BookingProperties bookingProps,
+                           ServiceZones serviceZones,
+                           SlotHoldService slotHolds,
+                           PlatformTransactionManager transactionManager) {
+        this(waitlistRepository, userRepository, petRepository, bookingRepository, intervalIndex, serviceCatalog,
+                coverageAreaService, notificationService, bookingProps, serviceZones, slotHolds, newTransaction(transactionManager));
+    }
+
+    WaitlistService(WaitlistEntryRepository waitlistRepository,
+                           UserRepository userRepository,
+                           PetRepository petRepository,
+                           BookingRepository bookingRepository,
+                           BookingIntervalIndex intervalIndex,
+                           ServiceCatalog serviceCatalog,
+                           CoverageAreaService coverageAreaService,
+                           NotificationService notificationService,
+                           BookingProperties bookingProps,
+                           ServiceZones serviceZones,
+                           SlotHoldService slotHolds,
+                           TransactionOperations tx) {
+        this.waitlistRepository = waitlistRepository;
+        this.userRepository = userRepository;
+        this.petRepository = petRepository;
+        this.bookingRepository = bookingRepository;
+        this.intervalIndex = intervalIndex;
+        this.serviceCatalog = serviceCatalog;
+        this.coverageAreaService = coverageAreaService;
+        this.notificationService = notificationService;
+        this.bookingProps = bookingProps;
+        this.serviceZones = serviceZones;
+        this.slotHolds = slotHolds;
+        this.tx = tx;
+    }
+
+    @Transactional
+    public WaitlistEntryDTO register(String username, WaitlistEntryDTO dto) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+        Pet pet = petRepository.findById(dto.getPetId())
+                .orElseThrow(() -> new EntityNotFoundException("Pet not found"));
+        if (!pet.getOwner().getId().equals(user.getId())) {
+            throw new IllegalArgumentException("Pet does not belong to user");
+        }
+        if (dto.getWindowEnd().isBefore(dto.getWindowStart())) {
+            throw new IllegalArgumentException("windowEnd must not be before windowStart");
+        }
+        if (dto.getLatitude() != null && dto.getLongitude() != null &&
+                !coverageAreaService.isWithinCoverage(dto.getLatitude(), dto.getLongitude())) {
+            throw new IllegalArgumentException("Address out of coverage area");
+        }
+        WaitlistEntry e = new WaitlistEntry();
+        e.setCustomer(user);
+        e.setPet(pet);
+        e.setServiceType(dto.getServiceType());
+        e.setDate(dto.getDate());
+        e.setWindowStart(dto.getWindowStart());
+        e.setWindowEnd(dto.getWindowEnd());
+        e.setDurationMinutes(serviceCatalog.blockedMinutes(dto.getServiceType(), pet));
+        e.setAddress(dto.getAddress());
+        e.setLatitude(dto.getLatitude());
+        e.setLongitude(dto.getLongitude());
+        WaitlistEntry saved = waitlistRepository.save(e);
+        Candidates.Entry added = Candidates.Entry.of(saved);
+        afterCommit(() -> days.computeIfPresent(saved.getDate(), (d, c) -> c.with(added)));
+        return toDto(saved);
+    }
+
+    @Transactional(readOnly = true)
+    public List<WaitlistEntryDTO> mine(String username) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+        return waitlistRepository.findByCustomerAndDateGreaterThanEqualOrderByDateAscWindowStartAsc(user, LocalDate.now())
+                .stream().map(this::toDto).collect(Collectors.toList());
+    }
+
+    @Transactional
+    public void cancel(Long id, String username) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+        WaitlistEntry e = waitlistRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Waitlist entry not found"));
+        if (!e.getCustomer().getId().equals(user.getId())) {
+            throw new org.springframework.security.access.AccessDeniedException("You do not own this waitlist entry");
+        }
+        e.setStatus(WaitlistStatus.CANCELLED);
+        waitlistRepository.save(e);
+        afterCommit(() -> days.computeIfPresent(e.getDate(), (d, c) -> c.without(id)));
+        // Its offered slot goes to the next candidate once the hold is gone
+        String offer = offers.get(id);
+        if (offer != null) afterCommit(() -> slotHolds.release(offer));
+    }
+
+    // After the interval index (order 0) so the freed slot is already gone from it
+    @Order(10)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onStatusChanged(BookingStatusChangedEvent event) {
+        var holds = BookingIntervalIndex.HOLDS_SLOT;
+        if (event.getPreviousStatus() == null || !holds.contains(event.getPreviousStatus())) return;
+        if (event.getGroomerId() == null || event.getPreviousTime() == null) return;
+        boolean released = !holds.contains(event.getStatus());
+        boolean moved = !event.getPreviousDate().equals(event.getDate());
+        if (!released && !moved) {
+            // Same day: the old time is free only if the booking moved off it
+            Booking b = bookingRepository.findById(event.getBookingId()).orElse(null);
+            if (b == null || b.getTime().equals(event.getPreviousTime())) return;
+        }
+        LocalTime t = event.getPreviousTime();
+        offerFreedSlot(event.getPreviousDate(), event.getGroomerId(), t.getHour() * 60 + t.getMinute());
+    }
+
+    void offerFreedSlot(LocalDate date, Long groomerId, int minute) {
+        offerFreedSlot(date, groomerId, minute, null);
+    }
+
+    // declined: an entry whose offer of this slot just ended, not to be offered it again
+    private void offerFreedSlot(LocalDate date, Long groomerId, int minute, Long declined) {
+        LocalDateTime now = LocalDateTime.now();
+        if (date.isBefore(now.toLocalDate())) return;
+        BookingIntervalIndex.Gap gap = intervalIndex.gapAround(date, groomerId, minute);
+        if (gap == null) return;
+        int from = Math.max(gap.afterMinute + 1, minuteOf(bookingProps.getWorkdayStart()));
+        int to = Math.min(gap.beforeMinute - 1, minuteOf(bookingProps.getWorkdayEnd()));
+        if (date.equals(now.toLocalDate())) from = Math.max(from, now.getHour() * 60 + now.getMinute() + 1);
+
+        Candidates candidates = days.computeIfAbsent(date, this::load);
+        if (candidates.size() == 0 || from > to) return;
+        Map<Long, Booking> neighbours = bookingRepository.findAllById(
+                        List.of(gap.previousBookingId, gap.nextBookingId)).stream()
+                .collect(Collectors.toMap(Booking::getId, b -> b));
+        Booking prev = neighbours.get(gap.previousBookingId);
+        Booking next = neighbours.get(gap.nextBookingId);
+        GeoMath.Points ends = GeoMath.Points.of(
+                new double[]{coord(prev, true), coord(next, true)},
+                new double[]{coord(prev, false), coord(next, false)});
+
+        User groomer = userRepository.findById(groomerId).orElse(null);
+        while (groomer != null) {
+            Candidates current = candidates;
+            long[] match = current.best(from, to, ends,
+                    i -> (declined == null || current.id[i] != declined) && servedBy(current, i, groomerId));
+            if (match == null) return;
+            long id = match[0];
+            Candidates after = candidates.without(id);
+            days.computeIfPresent(date, (d, c) -> c.without(id));
+            candidates = after;
+            WaitlistEntry e = waitlistRepository.findById(id).orElse(null);
+            if (e == null || e.getStatus() != WaitlistStatus.WAITING) continue; // changed since it was indexed
+            LocalTime start = LocalTime.of((int) match[1] / 60, (int) match[1] % 60);
+            e.setStatus(WaitlistStatus.OFFERED);
+            e.setOfferedGroomer(groomer);
+            e.setOfferedTime(start);
+            e.setOfferedAt(LocalDateTime.now());
+            waitlistRepository.save(e);
+            SlotHoldService.Hold hold = slotHolds.hold(e.getCustomer().getUsername(), groomerId, date, start, e.getDurationMinutes(),
+                    e.getServiceType(), bookingProps.getWaitlistOfferMinutes() * 60L,
+                    h -> offerEnded(id, h.getDate(), h.getGroomerId(), h.getTime()));
+            offers.put(id, hold.getToken());
+            notificationService.notifyWaitlistOffer(e.getCustomer(), date, start);
+            log.info("Offered {} {} to waitlist entry {} (groomer {})", date, start, id, groomerId);
+            return;
+        }
+    }
+
+    /**
+     * The offer of entry's slot ended: the entry is booked if the customer took the slot, else it
+     * waits again and the slot goes to the next candidate. Runs in its own transaction.
+     */
+    void offerEnded(long entryId, LocalDate date, Long groomerId, LocalTime time) {
+        offers.remove(entryId);
+        try {
+            tx.executeWithoutResult(status -> {
+                WaitlistEntry e = waitlistRepository.findById(entryId).orElse(null);
+                if (e != null && e.getStatus() == WaitlistStatus.OFFERED) {
+                    if (tookOffer(e)) {
+                        e.setStatus(WaitlistStatus.BOOKED);
+                        waitlistRepository.save(e);
+                        return;
+                    }
+                    e.setStatus(WaitlistStatus.WAITING);
+                    e.setOfferedGroomer(null);
+                    e.setOfferedTime(null);
+                    e.setOfferedAt(null);
+                    waitlistRepository.save(e);
+                } else if (e != null && e.getStatus() != WaitlistStatus.CANCELLED) {
+                    return; // settled elsewhere
+                }
+                if (groomerId != null && time != null) offerFreedSlot(date, groomerId, minuteOf(time), entryId);
+                if (e != null && e.getStatus() == WaitlistStatus.WAITING) {
+                    // A day loaded meanwhile already has it
+                    Candidates.Entry back = Candidates.Entry.of(e);
+                    afterCommit(() -> days.computeIfPresent(date, (d, c) -> c.without(entryId).with(back)));
+                }
+            });
+        } catch (RuntimeException ex) {
+            log.warn("Ending waitlist offer {} failed: {}", entryId, ex.getMessage());
+        }
+    }
+
+    // Offers whose hold was lost with a restart would otherwise stay OFFERED for good
+    @Scheduled(fixedDelay = 60_000)
+    public void endStaleOffers() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(bookingProps.getWaitlistOfferMinutes());
+        List<WaitlistEntry> stale = tx.execute(status ->
+                waitlistRepository.findByStatusAndOfferedAtBefore(WaitlistStatus.OFFERED, cutoff).stream()
+                        .filter(e -> !offers.containsKey(e.getId()))
+                        .toList());
+        if (stale == null) return;
+        for (WaitlistEntry e : stale) {
+            Long groomerId = e.getOfferedGroomer() != null ? e.getOfferedGroomer().getId() : null;
+            offerEnded(e.getId(), e.getDate(), groomerId, e.getOfferedTime());
+        }
+    }
+
+    private boolean tookOffer(WaitlistEntry e) {
+        Long customerId = e.getCustomer().getId();
+        return bookingRepository.findByDateAndStatusIn(e.getDate(), BookingIntervalIndex.HOLDS_SLOT).stream()
+                .anyMatch(b -> b.getCustomer().getId().equals(customerId) && b.getTime().equals(e.getOfferedTime()));
+    }
+
+    private static TransactionOperations newTransaction(PlatformTransactionManager transactionManager) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+
+    // Past days are never matched again
+    @Scheduled(cron = "0 10 0 * * *")
+    public void evictPastDays() {
+        days.keySet().removeIf(d -> d.isBefore(LocalDate.now()));
+    }
+
+    private Candidates load(LocalDate date) {
+        List<Candidates.Entry> list = new ArrayList<>();
+        for (WaitlistEntry e : waitlistRepository.findByDateAndStatus(date, WaitlistStatus.WAITING)) {
+            list.add(Candidates.Entry.of(e));
+        }
+        return Candidates.of(list);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) { action.run(); return; }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() { action.run(); }
+        });
+    }
+
+    // Entries without coordinates (stored as 0, 0) are in no zone
+    private boolean servedBy(Candidates c, int i, Long groomerId) {
+        Long zoneId = c.lat[i] == 0 && c.lng[i] == 0 ? null : serviceZones.zoneOf(c.lat[i], c.lng[i]);
+        return serviceZones.serves(zoneId, groomerId);
+    }
+
+    private static double coord(Booking b, boolean lat) {
+        if (b == null) return 0; // (0, 0) is "no coordinates" for GeoMath
+        Double v = lat ? b.getLatitude() : b.getLongitude();
+        return v != null ? v : 0;
+    }
+
+    private static int minuteOf(LocalTime t) {
+        return t.getHour() * 60 + t.getMinute();
+    }
+
+    private WaitlistEntryDTO toDto(WaitlistEntry e) {
+        WaitlistEntryDTO dto = new WaitlistEntryDTO();
+        dto.setId(e.getId());
+        dto.setPetId(e.getPet().getId());
+        dto.setServiceType(e.getServiceType());
+        dto.setDate(e.getDate());
+        dto.setWindowStart(e.getWindowStart());
+        dto.setWindowEnd(e.getWindowEnd());
+        dto.setAddress(e.getAddress());
+        dto.setLatitude(e.getLatitude());
+        dto.setLongitude(e.getLongitude());
+        dto.setStatus(e.getStatus());
+        dto.setOfferedGroomerId(e.getOfferedGroomer() != null ? e.getOfferedGroomer().getId() : null);
+        dto.setOfferedTime(e.getOfferedTime());
+        return dto;
+    }
+
+    /**
+     * Waiting entries of one day, immutable, sorted by window start. Only entries whose window
+     * opens before the free stretch closes are looked at, found by binary search.
+     */
+    static final class Candidates {
+        final long[] id;
+        final int[] windowStart;
+        final int[] windowEnd;
+        final int[] duration;
+        final double[] lat;
+        final double[] lng;
+        final GeoMath.Points points;
+
+        private Candidates(List<Entry> sorted) {
+            int n = sorted.size();
+            id = new long[n];
+            windowStart = new int[n];
+            windowEnd = new int[n];
+            duration = new int[n];
+            lat = new double[n];
+            lng = new double[n];
+            for (int i = 0; i < n; i++) {
+                Entry e = sorted.get(i);
+                id[i] = e.id;
+                windowStart[i] = e.windowStart;
+                windowEnd[i] = e.windowEnd;
+                duration[i] = e.duration;
+                lat[i] = e.lat;
+                lng[i] = e.lng;
+            }
+            points = GeoMath.Points.of(lat, lng);
+        }
+
+        static Candidates of(List<Entry> entries) {
+            List<Entry> sorted = new ArrayList<>(entries);
+            sorted.sort(Comparator.comparingInt((Entry e) -> e.windowStart).thenComparingLong(e -> e.id));
+            return new Candidates(sorted);
+        }
+
+        int size() { return id.length; }
+
+        Candidates with(Entry e) {
+            List<Entry> list = entries();
+            list.add(e);
+            return of(list);
+        }
+
+        Candidates without(long entryId) {
+            List<Entry> list = entries();
+            if (!list.removeIf(e -> e.id == entryId)) return this;
+            return new Candidates(list);
+        }
+
+        /**
+         * Best eligible entry (by position) that can start within [from, to] and finish by to, as
+         * {id, start minute}: least detour between the stops before and after (ends holds them;
+         * (0, 0) when absent), oldest entry on ties. Null when nobody fits.
+         */
+        long[] best(int from, int to, GeoMath.Points ends, IntPredicate eligible) {
+            int lo = 0, hi = size();
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (windowStart[mid] <= to) lo = mid + 1; else hi = mid;
+            }
+            double direct = GeoMath.distanceKm(ends, 0, ends, 1);
+            int best = -1, bestStart = 0;
+            double bestDetour = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < lo; i++) {
+                int start = Math.max(windowStart[i], from);
+                start = (start + START_STEP_MINUTES - 1) / START_STEP_MINUTES * START_STEP_MINUTES;
+                if (start > windowEnd[i] || start + duration[i] > to || !eligible.test(i)) continue;
+                double detour = GeoMath.distanceKm(ends, 0, points, i) + GeoMath.distanceKm(points, i, ends, 1) - direct;
+                if (detour < bestDetour - 1e-9 || (Math.abs(detour - bestDetour) <= 1e-9 && id[i] < id[best])) {
+                    best = i;
+                    bestStart = start;
+                    bestDetour = detour;
+                }
+            }
+            return best < 0 ? null : new long[]{id[best], bestStart};
+        }
+
+        private List<Entry> entries() {
+            List<Entry> list = new ArrayList<>(size() + 1);
+            for (int i = 0; i < size(); i++) {
+                list.add(new Entry(id[i], windowStart[i], windowEnd[i], duration[i], lat[i], lng[i]));
+            }
+            return list;
+        }
+
+        static final class Entry {
+            final long id;
+            final int windowStart;
+            final int windowEnd;
+            final int duration;
+            final double lat;
+            final double lng;
+
+            Entry(long id, int windowStart, int windowEnd, int duration, double lat, double lng) {
+                this.id = id;
+                this.windowStart = windowStart;
+                this.windowEnd = windowEnd;
+                this.duration = duration;
+                this.lat = lat;
+                this.lng = lng;
+            }
+
+            static Entry of(WaitlistEntry e) {
+                return new Entry(e.getId(), minuteOf(e.getWindowStart()), minuteOf(e.getWindowEnd()), e.getDurationMinutes(),
+                        e.getLatitude() != null ? e.getLatitude() : 0, e.getLongitude() != null ? e.getLongitude() : 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,6 @@
+-- Route plans per groomer: one row per (date, groomer); groomer_id NULL keeps the day-wide plan
+ALTER TABLE route_plans ADD COLUMN IF NOT EXISTS groomer_id BIGINT;
+ALTER TABLE route_plans ADD CONSTRAINT fk_route_plans_groomer FOREIGN KEY (groomer_id) REFERENCES users(id) ON DELETE CASCADE;
+ALTER TABLE route_plans DROP CONSTRAINT IF EXISTS route_plans_date_key;
+CREATE UNIQUE INDEX IF NOT EXISTS ux_route_plans_date_groomer ON route_plans(date, groomer_id) WHERE groomer_id IS NOT NULL;
+CREATE UNIQUE INDEX IF NOT EXISTS ux_route_plans_date_daywide ON route_plans(date) WHERE groomer_id IS NULL;
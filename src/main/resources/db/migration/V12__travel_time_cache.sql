@@ -0,0 +1,10 @@
+-- Second-tier cache for Distance Matrix travel times, keyed by quantised origin/destination and time of day
+CREATE TABLE IF NOT EXISTS travel_time_cache (
+    origin_hash VARCHAR(12) NOT NULL,
+    dest_hash VARCHAR(12) NOT NULL,
+    time_bucket SMALLINT NOT NULL,
+    seconds INT NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (origin_hash, dest_hash, time_bucket)
+);
+CREATE INDEX IF NOT EXISTS idx_travel_time_cache_expires ON travel_time_cache(expires_at);
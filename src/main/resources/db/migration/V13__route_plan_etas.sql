@@ -0,0 +1,2 @@
+-- Cumulative drive minutes per stop, kept in step with order_csv
+ALTER TABLE route_plans ADD COLUMN IF NOT EXISTS eta_csv VARCHAR(4000);
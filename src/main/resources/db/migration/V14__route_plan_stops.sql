@@ -0,0 +1,41 @@
+-- One row per stop instead of comma-separated booking ids and ETAs on route_plans
+CREATE SEQUENCE IF NOT EXISTS route_plan_stops_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS route_plan_stops (
+    id BIGINT PRIMARY KEY,
+    plan_id BIGINT NOT NULL REFERENCES route_plans(id) ON DELETE CASCADE,
+    groomer_id BIGINT REFERENCES users(id) ON DELETE SET NULL,
+    seq INT NOT NULL,
+    booking_id BIGINT NOT NULL REFERENCES bookings(id) ON DELETE CASCADE,
+    eta_minutes INT,
+    distance_km DOUBLE PRECISION,
+    CONSTRAINT uq_route_plan_stops_plan_seq UNIQUE (plan_id, seq)
+);
+
+CREATE INDEX IF NOT EXISTS idx_route_plan_stops_booking ON route_plan_stops(booking_id);
+CREATE INDEX IF NOT EXISTS idx_route_plan_stops_groomer ON route_plan_stops(groomer_id);
+
+ALTER TABLE route_plans ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE route_plans ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP;
+
+-- Carry over saved routes; ids of bookings that no longer exist are dropped
+WITH raw AS (
+    SELECT p.id AS plan_id, p.groomer_id, o.ord, btrim(o.val) AS val,
+           btrim((string_to_array(p.eta_csv, ','))[o.ord]) AS eta
+    FROM route_plans p
+    CROSS JOIN LATERAL unnest(string_to_array(p.order_csv, ',')) WITH ORDINALITY AS o(val, ord)
+    WHERE p.order_csv IS NOT NULL AND p.order_csv <> ''
+), parsed AS (
+    SELECT plan_id, groomer_id, ord,
+           CASE WHEN val ~ '^[0-9]+$' THEN val::BIGINT END AS booking_id,
+           CASE WHEN eta ~ '^-?[0-9]+$' THEN eta::INT END AS eta_minutes
+    FROM raw
+)
+INSERT INTO route_plan_stops (id, plan_id, groomer_id, seq, booking_id, eta_minutes)
+SELECT nextval('route_plan_stops_seq'), x.plan_id, COALESCE(x.groomer_id, b.assigned_groomer_id),
+       (ROW_NUMBER() OVER (PARTITION BY x.plan_id ORDER BY x.ord)) - 1, x.booking_id, x.eta_minutes
+FROM parsed x
+JOIN bookings b ON b.id = x.booking_id;
+
+ALTER TABLE route_plans DROP COLUMN IF EXISTS order_csv;
+ALTER TABLE route_plans DROP COLUMN IF EXISTS eta_csv;
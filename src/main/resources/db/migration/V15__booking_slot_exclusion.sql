@@ -0,0 +1,27 @@
+-- How long each booking keeps its groomer busy; filled from the service type durations
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS duration_minutes INTEGER;
+UPDATE bookings SET duration_minutes = CASE service_type
+        WHEN 'BATH' THEN 45
+        WHEN 'HAIRCUT' THEN 60
+        WHEN 'NAIL_TRIM' THEN 20
+        WHEN 'FULL_GROOMING' THEN 90
+        ELSE 60
+    END
+WHERE duration_minutes IS NULL;
+ALTER TABLE bookings ALTER COLUMN duration_minutes SET NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_bookings_date_status ON bookings(date, status);
+
+-- No two slot-holding bookings of the same groomer may overlap (closed intervals, like the app check).
+-- btree_gist may be unavailable to this role, and old rows may already overlap: in either case the
+-- application-level slot locks still apply and the constraint can be added once the data is fixed.
+DO $$
+BEGIN
+    CREATE EXTENSION IF NOT EXISTS btree_gist;
+    ALTER TABLE bookings ADD CONSTRAINT bookings_groomer_no_overlap EXCLUDE USING gist (
+        assigned_groomer_id WITH =,
+        tsrange(date + time, date + time + duration_minutes * INTERVAL '1 minute', '[]') WITH &&
+    ) WHERE (assigned_groomer_id IS NOT NULL AND status IN ('PENDING', 'APPROVED', 'ON_ROUTE'));
+EXCEPTION WHEN OTHERS THEN
+    RAISE NOTICE 'bookings_groomer_no_overlap not created: %', SQLERRM;
+END $$;
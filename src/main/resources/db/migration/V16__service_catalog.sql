@@ -0,0 +1,27 @@
+-- Service catalog: job length, buffer and price per service type, replacing the fixed enum durations
+CREATE TABLE IF NOT EXISTS service_catalog (
+    service_type VARCHAR(30) PRIMARY KEY,
+    duration_minutes INTEGER NOT NULL CHECK (duration_minutes > 0),
+    buffer_minutes INTEGER NOT NULL DEFAULT 0 CHECK (buffer_minutes >= 0),
+    price NUMERIC(12, 2) NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Extra minutes by breed and/or weight range [min_weight_kg, max_weight_kg)
+CREATE TABLE IF NOT EXISTS service_duration_modifiers (
+    id BIGSERIAL PRIMARY KEY,
+    service_type VARCHAR(30) NOT NULL REFERENCES service_catalog(service_type) ON DELETE CASCADE,
+    breed VARCHAR(60),
+    min_weight_kg DOUBLE PRECISION,
+    max_weight_kg DOUBLE PRECISION,
+    extra_minutes INTEGER NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_service_duration_modifiers_service ON service_duration_modifiers(service_type);
+
+INSERT INTO service_catalog (service_type, duration_minutes) VALUES
+    ('BATH', 45),
+    ('HAIRCUT', 60),
+    ('NAIL_TRIM', 20),
+    ('FULL_GROOMING', 90)
+ON CONFLICT (service_type) DO NOTHING;
@@ -0,0 +1,23 @@
+-- Customers waiting for a slot to open on a given day and time window
+CREATE TABLE IF NOT EXISTS waitlist_entries (
+    id BIGSERIAL PRIMARY KEY,
+    customer_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    pet_id BIGINT NOT NULL REFERENCES pets(id) ON DELETE CASCADE,
+    service_type VARCHAR(30) NOT NULL,
+    date DATE NOT NULL,
+    window_start TIME NOT NULL,
+    window_end TIME NOT NULL,
+    duration_minutes INTEGER NOT NULL,
+    address VARCHAR(200),
+    latitude DOUBLE PRECISION,
+    longitude DOUBLE PRECISION,
+    status VARCHAR(20) NOT NULL DEFAULT 'WAITING',
+    offered_groomer_id BIGINT REFERENCES users(id) ON DELETE SET NULL,
+    offered_time TIME,
+    offered_at TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CHECK (window_end >= window_start)
+);
+
+CREATE INDEX IF NOT EXISTS idx_waitlist_date_status ON waitlist_entries(date, status);
+CREATE INDEX IF NOT EXISTS idx_waitlist_customer ON waitlist_entries(customer_id);
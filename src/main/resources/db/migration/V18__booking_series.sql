@@ -0,0 +1,33 @@
+-- Repeating bookings; their occurrences are materialized into bookings a few weeks ahead
+CREATE TABLE IF NOT EXISTS booking_series (
+    id BIGSERIAL PRIMARY KEY,
+    customer_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    pet_id BIGINT NOT NULL REFERENCES pets(id) ON DELETE CASCADE,
+    service_type VARCHAR(30) NOT NULL,
+    groomer_id BIGINT REFERENCES users(id) ON DELETE SET NULL,
+    rrule VARCHAR(200) NOT NULL,
+    start_date DATE NOT NULL,
+    time TIME NOT NULL,
+    address VARCHAR(200),
+    latitude DOUBLE PRECISION,
+    longitude DOUBLE PRECISION,
+    notes VARCHAR(500),
+    active BOOLEAN NOT NULL DEFAULT TRUE,
+    materialized_through DATE,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_booking_series_customer ON booking_series(customer_id);
+CREATE INDEX IF NOT EXISTS idx_booking_series_due ON booking_series(materialized_through) WHERE active;
+
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS series_id BIGINT REFERENCES booking_series(id) ON DELETE SET NULL;
+CREATE INDEX IF NOT EXISTS idx_bookings_series ON bookings(series_id) WHERE series_id IS NOT NULL;
+
+-- Occurrences that could not be booked, one row per series and date
+CREATE TABLE IF NOT EXISTS booking_series_conflicts (
+    series_id BIGINT NOT NULL REFERENCES booking_series(id) ON DELETE CASCADE,
+    date DATE NOT NULL,
+    reason VARCHAR(200) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (series_id, date)
+);
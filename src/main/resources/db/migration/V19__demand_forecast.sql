@@ -0,0 +1,11 @@
+-- Predicted demand per day, zone (geohash cell, '*' for pooled sparse zones) and service type.
+-- Rewritten from today on by every training run.
+CREATE TABLE IF NOT EXISTS demand_forecasts (
+    date DATE NOT NULL,
+    zone VARCHAR(12) NOT NULL,
+    service_type VARCHAR(30) NOT NULL,
+    bookings DOUBLE PRECISION NOT NULL,
+    minutes DOUBLE PRECISION NOT NULL,
+    trained_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (date, zone, service_type)
+);
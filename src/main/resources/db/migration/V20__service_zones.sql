@@ -0,0 +1,21 @@
+-- Service zones: polygons that split the coverage area; each groomer works the zones assigned to them
+CREATE TABLE IF NOT EXISTS service_zones (
+    id BIGSERIAL PRIMARY KEY,
+    name VARCHAR(80) NOT NULL UNIQUE,
+    -- Vertices as "lat lng" pairs separated by commas; the ring closes itself
+    polygon TEXT NOT NULL,
+    active BOOLEAN NOT NULL DEFAULT TRUE,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS groomer_zones (
+    zone_id BIGINT NOT NULL REFERENCES service_zones(id) ON DELETE CASCADE,
+    groomer_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    PRIMARY KEY (zone_id, groomer_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_groomer_zones_groomer ON groomer_zones(groomer_id);
+
+-- Zone the booking address fell in when it was made (null: outside every zone, or none defined)
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS zone_id BIGINT REFERENCES service_zones(id) ON DELETE SET NULL;
+CREATE INDEX IF NOT EXISTS idx_bookings_date_zone ON bookings(date, zone_id);
@@ -0,0 +1,22 @@
+-- Notifications written in the same transaction as the change they announce, sent by a background dispatcher
+CREATE TABLE IF NOT EXISTS notification_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    -- Unique per message; sent to the provider so a retried send is not delivered twice
+    idempotency_key VARCHAR(64) NOT NULL UNIQUE,
+    channel VARCHAR(20) NOT NULL,
+    recipient VARCHAR(200) NOT NULL,
+    event VARCHAR(60) NOT NULL,
+    subject VARCHAR(200),
+    body TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING', -- PENDING, SENDING, SENT, FAILED
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    locked_until TIMESTAMP,
+    last_error VARCHAR(500),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    sent_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_notification_outbox_due ON notification_outbox(next_attempt_at)
+    WHERE status IN ('PENDING', 'SENDING');
+CREATE INDEX IF NOT EXISTS idx_notification_outbox_created ON notification_outbox(created_at);
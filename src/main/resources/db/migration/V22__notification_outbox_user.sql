@@ -0,0 +1,2 @@
+-- Recipient user of each outbox message, for the delivery log
+ALTER TABLE notification_outbox ADD COLUMN IF NOT EXISTS user_id BIGINT REFERENCES users(id) ON DELETE SET NULL;
@@ -0,0 +1,3 @@
+-- Finds the open coalescing window of a recipient when a message is added
+CREATE INDEX IF NOT EXISTS idx_notification_outbox_recipient ON notification_outbox(channel, recipient, next_attempt_at)
+    WHERE status = 'PENDING';
@@ -0,0 +1,32 @@
+-- V15 skipped bookings_groomer_no_overlap when btree_gist was missing or rows already overlapped.
+-- Series inserts, batch status changes and other instances rely on it, so it is required now:
+-- without btree_gist this migration fails.
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+-- Overlapping slot-holding bookings of a groomer: the newest one loses its groomer, one at a time,
+-- until none overlap. Unassigned bookings go back to the fleet planner.
+DO $$
+DECLARE
+    victim BIGINT;
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'bookings_groomer_no_overlap') THEN
+        RETURN;
+    END IF;
+    LOOP
+        SELECT max(b2.id) INTO victim
+        FROM bookings b1
+        JOIN bookings b2 ON b2.assigned_groomer_id = b1.assigned_groomer_id AND b2.id > b1.id
+        WHERE b1.status IN ('PENDING', 'APPROVED', 'ON_ROUTE')
+          AND b2.status IN ('PENDING', 'APPROVED', 'ON_ROUTE')
+          AND tsrange(b1.date + b1.time, b1.date + b1.time + b1.duration_minutes * INTERVAL '1 minute', '[]')
+           && tsrange(b2.date + b2.time, b2.date + b2.time + b2.duration_minutes * INTERVAL '1 minute', '[]');
+        EXIT WHEN victim IS NULL;
+        UPDATE bookings SET assigned_groomer_id = NULL WHERE id = victim;
+        RAISE NOTICE 'Booking % overlapped another booking of its groomer and was unassigned', victim;
+    END LOOP;
+
+    ALTER TABLE bookings ADD CONSTRAINT bookings_groomer_no_overlap EXCLUDE USING gist (
+        assigned_groomer_id WITH =,
+        tsrange(date + time, date + time + duration_minutes * INTERVAL '1 minute', '[]') WITH &&
+    ) WHERE (assigned_groomer_id IS NOT NULL AND status IN ('PENDING', 'APPROVED', 'ON_ROUTE'));
+END $$;
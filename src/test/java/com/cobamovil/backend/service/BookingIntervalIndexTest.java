@@ -0,0 +1,48 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.service.BookingIntervalIndex.Intervals;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingIntervalIndexTest {
+
+    @Test
+    void overlapMatchesLinearScanIncludingTouchingEnds() {
+        Random rnd = new Random(7);
+        for (int round = 0; round < 50; round++) {
+            int n = rnd.nextInt(12);
+            int[] s = new int[n], e = new int[n];
+            long[] ids = new long[n];
+            int t = 420;
+            for (int i = 0; i < n; i++) {
+                t += rnd.nextInt(60);
+                s[i] = t;
+                e[i] = t + 30 + rnd.nextInt(90); // long services may span several later starts
+                ids[i] = i + 1;
+            }
+            Intervals in = new Intervals(s, e, ids);
+            for (int q = 360; q < 1200; q += 5) {
+                int qEnd = q + 45;
+                boolean expected = false;
+                for (int i = 0; i < n; i++) expected |= qEnd >= s[i] && q <= e[i];
+                assertEquals(expected, in.overlaps(q, qEnd), "round " + round + " at " + q);
+            }
+        }
+    }
+
+    @Test
+    void withAndWithoutKeepIntervalsSorted() {
+        Intervals in = new Intervals(new int[]{540, 720}, new int[]{600, 780}, new long[]{1, 2});
+        Intervals added = in.with(new Intervals(new int[]{630}, new int[]{690}, new long[]{3}));
+
+        assertArrayEquals(new int[]{540, 630, 720}, added.start);
+        assertArrayEquals(new long[]{1, 3, 2}, added.bookingId);
+        assertTrue(added.overlaps(650, 660));
+        assertFalse(added.without(3).overlaps(650, 660));
+        assertSame(added, added.without(99));
+        assertEquals(0, in.without(1).without(2).size());
+    }
+}
@@ -0,0 +1,47 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.config.BookingProperties;
+import com.cobamovil.backend.entity.Booking;
+import com.cobamovil.backend.entity.ServiceType;
+import com.cobamovil.backend.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingSeriesServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2030, 3, 4);
+
+    @Test
+    void checkoutHoldsAreBusyTimeForOccurrencesButNotLoad() {
+        SlotHoldService holds = new SlotHoldService(new BookingProperties(), () -> 0L);
+        holds.hold("ana", 7L, DAY, LocalTime.of(10, 0), 60, ServiceType.HAIRCUT);
+        holds.hold("bob", null, DAY, LocalTime.of(15, 0), 30, ServiceType.BATH);
+
+        BookingSeriesService.Days days = BookingSeriesService.Days.load(List.of(booking(8L, 9)), holds.onDate(DAY));
+
+        assertTrue(days.taken(DAY, 7L, 10 * 60 + 30, 11 * 60 + 30));
+        assertFalse(days.taken(DAY, 8L, 10 * 60 + 30, 11 * 60 + 30));
+        assertTrue(days.taken(DAY, 8L, 15 * 60, 16 * 60), "unassigned holds block every groomer");
+        assertFalse(days.taken(DAY.plusDays(1), 7L, 10 * 60, 11 * 60));
+        assertEquals(List.of(7L, 8L), days.byLoad(DAY, List.of(8L, 7L)));
+    }
+
+    private static Booking booking(Long groomerId, int hour) {
+        User groomer = new User();
+        groomer.setId(groomerId);
+        Booking b = new Booking();
+        ReflectionTestUtils.setField(b, "id", 100L + hour);
+        b.setAssignedGroomer(groomer);
+        b.setServiceType(ServiceType.BATH);
+        b.setDurationMinutes(45);
+        b.setDate(DAY);
+        b.setTime(LocalTime.of(hour, 0));
+        return b;
+    }
+}
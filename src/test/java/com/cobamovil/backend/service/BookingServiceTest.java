@@ -0,0 +1,212 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.dto.BookingCreateDTO;
+import com.cobamovil.backend.dto.BookingStatusBatchDTO;
+import com.cobamovil.backend.entity.Booking;
+import com.cobamovil.backend.entity.BookingStatus;
+import com.cobamovil.backend.entity.Pet;
+import com.cobamovil.backend.entity.ServiceType;
+import com.cobamovil.backend.entity.User;
+import com.cobamovil.backend.repository.PetRepository;
+import com.cobamovil.backend.repository.UserRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@RecordApplicationEvents
+class BookingServiceTest {
+    private static final AtomicInteger names = new AtomicInteger();
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        TestDatabase.register(registry);
+    }
+
+    @Autowired private BookingService bookingService;
+    @Autowired private ServiceCatalog serviceCatalog;
+    @Autowired private UserRepository users;
+    @Autowired private PetRepository pets;
+    @Autowired private JdbcTemplate jdbc;
+    @Autowired private ApplicationEvents events;
+
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void serviceTypeAndBlockedMinutesAreSetIndependently() {
+        Booking b = new Booking();
+        b.setDurationMinutes(75);
+        b.setServiceType(ServiceType.HAIRCUT);
+        assertEquals(75, b.getDurationMinutes());
+    }
+
+    @Test
+    void rescheduleKeepsTheBlockedMinutesUnlessTheServiceChanges() {
+        LocalDate day = LocalDate.now().plusDays(50);
+        User groomer = user("GROOMER");
+        Pet pet = pet(user("CUSTOMER"));
+        String owner = pet.getOwner().getUsername();
+        Long id = bookingService.create(request(pet, groomer, day, LocalTime.of(9, 0), ServiceType.BATH), owner).getId();
+        jdbc.update("UPDATE bookings SET duration_minutes = 75 WHERE id = ?", id);
+
+        bookingService.reschedule(id, owner, day, LocalTime.of(11, 0), null);
+        assertEquals(75, duration(id));
+
+        bookingService.reschedule(id, owner, day, LocalTime.of(14, 0), ServiceType.HAIRCUT);
+        assertEquals(serviceCatalog.blockedMinutes(ServiceType.HAIRCUT, pet), duration(id));
+    }
+
+    @Test
+    void statusBatchIsAllOrNothingWhenTheOverlapConstraintFires() {
+        LocalDate day = LocalDate.now().plusDays(51);
+        User groomer = user("GROOMER");
+        Long a = book(groomer, day, LocalTime.of(9, 0)), b = book(groomer, day, LocalTime.of(13, 0)), c = book(groomer, day, LocalTime.of(16, 0));
+        bookingService.updateStatuses(changes(a, BookingStatus.REJECTED, b, BookingStatus.REJECTED));
+        jdbc.update("UPDATE bookings SET time = ? WHERE id = ?", LocalTime.of(9, 15), b);
+
+        // Neither rejected booking holds a slot yet, so only the constraint sees them clash on flush
+        assertThrows(IllegalStateException.class, () -> bookingService.updateStatuses(
+                changes(c, BookingStatus.APPROVED, a, BookingStatus.PENDING, b, BookingStatus.PENDING)));
+
+        assertEquals("PENDING", status(c));
+        assertEquals("REJECTED", status(a));
+        assertEquals("REJECTED", status(b));
+    }
+
+    @Test
+    void groomersMayOnlyChangeTheirOwnBookings() {
+        LocalDate day = LocalDate.now().plusDays(52);
+        User groomer = user("GROOMER"), other = user("GROOMER");
+        Long own = book(groomer, day, LocalTime.of(9, 0)), theirs = book(other, day, LocalTime.of(9, 0));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(groomer.getUsername(), null, List.of()));
+
+        assertThrows(IllegalStateException.class,
+                () -> bookingService.updateStatuses(changes(own, BookingStatus.APPROVED, theirs, BookingStatus.APPROVED)));
+        assertEquals("PENDING", status(own));
+        assertEquals("PENDING", status(theirs));
+
+        bookingService.updateStatuses(changes(own, BookingStatus.APPROVED));
+        assertEquals("APPROVED", status(own));
+    }
+
+    @Test
+    void statusBatchRejectsDuplicateIdsAndMoreThanFiveHundredChanges() {
+        User groomer = user("GROOMER");
+        Long id = book(groomer, LocalDate.now().plusDays(53), LocalTime.of(9, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> bookingService.updateStatuses(changes(id, BookingStatus.APPROVED, id, BookingStatus.REJECTED)));
+        assertEquals("PENDING", status(id));
+
+        List<BookingStatusBatchDTO.Change> full = new ArrayList<>();
+        for (long i = 1; i <= 500; i++) full.add(change(-i, BookingStatus.APPROVED));
+        assertThrows(EntityNotFoundException.class, () -> bookingService.updateStatuses(full)); // past the cap
+        full.add(change(-501L, BookingStatus.APPROVED));
+        assertThrows(IllegalArgumentException.class, () -> bookingService.updateStatuses(full));
+    }
+
+    @Test
+    void onlyNewlyCompletedBookingsGetACutRecordAndEachRouteOneReplan() {
+        LocalDate day = LocalDate.now().plusDays(54);
+        User groomer = user("GROOMER"), other = user("GROOMER");
+        Long a = book(groomer, day, LocalTime.of(9, 0)), b = book(groomer, day, LocalTime.of(11, 0)),
+                c = book(groomer, day, LocalTime.of(13, 0)), d = book(other, day, LocalTime.of(9, 0));
+        bookingService.updateStatuses(changes(a, BookingStatus.COMPLETED));
+        events.clear();
+
+        bookingService.updateStatuses(changes(a, BookingStatus.COMPLETED, b, BookingStatus.COMPLETED,
+                c, BookingStatus.APPROVED, d, BookingStatus.REJECTED));
+
+        assertEquals(2, (int) jdbc.queryForObject("SELECT count(*) FROM cut_records WHERE groomer_id = ?", Integer.class, groomer.getId()));
+        assertEquals(0, (int) jdbc.queryForObject("SELECT count(*) FROM cut_records WHERE groomer_id = ?", Integer.class, other.getId()));
+        assertEquals(3, events.stream(BookingStatusChangedEvent.class).count(), "the already completed booking has no event");
+        assertEquals(List.of(new RouteChangedEvent(day, groomer.getId()), new RouteChangedEvent(day, other.getId())),
+                events.stream(RouteChangedEvent.class).toList());
+    }
+
+    @Test
+    void resubmittedUnchangedRowsPublishNothing() {
+        LocalDate day = LocalDate.now().plusDays(55);
+        User groomer = user("GROOMER");
+        Long a = book(groomer, day, LocalTime.of(9, 0)), b = book(groomer, day, LocalTime.of(11, 0));
+        bookingService.updateStatuses(changes(a, BookingStatus.ON_ROUTE, b, BookingStatus.APPROVED));
+        events.clear();
+
+        // LiveEtaService would send "Estamos en camino" again for a repeated ON_ROUTE event
+        bookingService.updateStatuses(changes(a, BookingStatus.ON_ROUTE, b, BookingStatus.APPROVED));
+
+        assertEquals(0, events.stream(BookingStatusChangedEvent.class).count());
+        assertEquals(0, events.stream(RouteChangedEvent.class).count());
+        assertEquals("ON_ROUTE", status(a));
+    }
+
+    private Long book(User groomer, LocalDate day, LocalTime time) {
+        Pet pet = pet(user("CUSTOMER"));
+        return bookingService.create(request(pet, groomer, day, time, ServiceType.BATH), pet.getOwner().getUsername()).getId();
+    }
+
+    private String status(Long bookingId) {
+        return jdbc.queryForObject("SELECT status FROM bookings WHERE id = ?", String.class, bookingId);
+    }
+
+    private static List<BookingStatusBatchDTO.Change> changes(Object... idsAndStatuses) {
+        List<BookingStatusBatchDTO.Change> out = new ArrayList<>();
+        for (int i = 0; i < idsAndStatuses.length; i += 2) {
+            out.add(change((Long) idsAndStatuses[i], (BookingStatus) idsAndStatuses[i + 1]));
+        }
+        return out;
+    }
+
+    private static BookingStatusBatchDTO.Change change(Long id, BookingStatus status) {
+        BookingStatusBatchDTO.Change c = new BookingStatusBatchDTO.Change();
+        c.setId(id);
+        c.setStatus(status);
+        return c;
+    }
+
+    private int duration(Long bookingId) {
+        return jdbc.queryForObject("SELECT duration_minutes FROM bookings WHERE id = ?", Integer.class, bookingId);
+    }
+
+    private User user(String role) {
+        String name = "booking-" + role.toLowerCase() + "-" + names.incrementAndGet();
+        return users.save(new User(name, name + "@example.com", "x", role));
+    }
+
+    private Pet pet(User owner) {
+        Pet pet = new Pet();
+        pet.setOwner(owner);
+        pet.setName("Toby");
+        return pets.save(pet);
+    }
+
+    private static BookingCreateDTO request(Pet pet, User groomer, LocalDate day, LocalTime time, ServiceType type) {
+        BookingCreateDTO dto = new BookingCreateDTO();
+        dto.setPetId(pet.getId());
+        dto.setServiceType(type);
+        dto.setGroomerId(groomer.getId());
+        dto.setDate(day);
+        dto.setTime(time);
+        return dto;
+    }
+}
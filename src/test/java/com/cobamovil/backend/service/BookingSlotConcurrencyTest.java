@@ -0,0 +1,175 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.dto.BookingCreateDTO;
+import com.cobamovil.backend.entity.Pet;
+import com.cobamovil.backend.entity.ServiceType;
+import com.cobamovil.backend.entity.User;
+import com.cobamovil.backend.repository.PetRepository;
+import com.cobamovil.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Competing requests for one groomer slot against the real schema: the slot locks serialize them
+ * within this instance, and bookings_groomer_no_overlap catches what another instance wrote.
+ */
+@SpringBootTest
+class BookingSlotConcurrencyTest {
+    private static final AtomicInteger names = new AtomicInteger();
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        TestDatabase.register(registry);
+    }
+
+    @Autowired private BookingService bookingService;
+    @Autowired private BookingIntervalIndex intervalIndex;
+    @Autowired private UserRepository users;
+    @Autowired private PetRepository pets;
+    @Autowired private JdbcTemplate jdbc;
+
+    @Test
+    void concurrentCreatesForTheSameSlotBookItOnce() throws Exception {
+        LocalDate day = LocalDate.now().plusDays(40);
+        User groomer = user("GROOMER");
+        List<Callable<Object>> calls = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Pet pet = pet(user("CUSTOMER"));
+            calls.add(() -> bookingService.create(request(pet, groomer, day, LocalTime.of(10, 0)), pet.getOwner().getUsername()));
+        }
+
+        assertEquals(1, succeeded(race(calls)));
+        assertEquals(1, activeBookings(groomer, day));
+    }
+
+    @Test
+    void concurrentReschedulesIntoTheSameSlotMoveOnlyOne() throws Exception {
+        LocalDate day = LocalDate.now().plusDays(41);
+        User groomer = user("GROOMER");
+        List<Callable<Object>> calls = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Pet pet = pet(user("CUSTOMER"));
+            String owner = pet.getOwner().getUsername();
+            Long id = bookingService.create(request(pet, groomer, day, LocalTime.of(8 + 2 * i, 0)), owner).getId();
+            calls.add(() -> bookingService.reschedule(id, owner, day, LocalTime.of(17, 0), null));
+        }
+
+        assertEquals(1, succeeded(race(calls)));
+        assertEquals(1, (int) jdbc.queryForObject("SELECT count(*) FROM bookings WHERE assigned_groomer_id = ? AND date = ? AND time = ?",
+                Integer.class, groomer.getId(), day, LocalTime.of(17, 0)));
+        assertEquals(4, activeBookings(groomer, day));
+    }
+
+    @Test
+    void bookingWrittenByAnotherInstanceIsCaughtByTheConstraint() {
+        LocalDate day = LocalDate.now().plusDays(42);
+        User groomer = user("GROOMER");
+        assertFalse(intervalIndex.overlaps(day, groomer.getId(), LocalTime.of(10, 0), 45, null)); // day now cached
+        Pet other = pet(user("CUSTOMER"));
+        jdbc.update("INSERT INTO bookings (customer_id, pet_id, service_type, date, time, duration_minutes, status, "
+                        + "assigned_groomer_id, created_at, updated_at) VALUES (?, ?, 'BATH', ?, ?, 45, 'APPROVED', ?, now(), now())",
+                other.getOwner().getId(), other.getId(), day, LocalTime.of(10, 0), groomer.getId());
+
+        Pet pet = pet(user("CUSTOMER"));
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> bookingService.create(request(pet, groomer, day, LocalTime.of(10, 30)), pet.getOwner().getUsername()));
+        assertTrue(ex.getMessage().contains("ya ha sido reservado"));
+        assertEquals(1, activeBookings(groomer, day));
+    }
+
+    @Test
+    void migrationUnassignsTheNewerOfOverlappingBookingsBeforeAddingTheConstraint() throws Exception {
+        LocalDate day = LocalDate.now().plusDays(43);
+        User groomer = user("GROOMER");
+        Pet pet = pet(user("CUSTOMER"));
+        jdbc.execute("ALTER TABLE bookings DROP CONSTRAINT bookings_groomer_no_overlap");
+        try {
+            for (int hour : new int[]{10, 10, 11, 14}) {
+                jdbc.update("INSERT INTO bookings (customer_id, pet_id, service_type, date, time, duration_minutes, status, "
+                                + "assigned_groomer_id, created_at, updated_at) VALUES (?, ?, 'BATH', ?, ?, 60, 'APPROVED', ?, now(), now())",
+                        pet.getOwner().getId(), pet.getId(), day, LocalTime.of(hour, 0), groomer.getId());
+            }
+        } finally {
+            jdbc.execute(new String(getClass().getResourceAsStream("/db/migration/V24__booking_slot_exclusion_required.sql").readAllBytes()));
+        }
+
+        // 10:00-11:00 keeps the first booking; the second 10:00 and the 11:00 (closed intervals) lose their groomer
+        assertEquals(List.of(LocalTime.of(10, 0), LocalTime.of(14, 0)), jdbc.queryForList(
+                "SELECT time FROM bookings WHERE assigned_groomer_id = ? AND date = ? ORDER BY time", LocalTime.class, groomer.getId(), day));
+        assertEquals(1, (int) jdbc.queryForObject(
+                "SELECT count(*) FROM pg_constraint WHERE conname = 'bookings_groomer_no_overlap'", Integer.class));
+    }
+
+    // Runs the calls together; each result is the return value or the exception thrown
+    private static List<Object> race(List<Callable<Object>> calls) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(calls.size());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Object>> futures = new ArrayList<>();
+        for (Callable<Object> call : calls) futures.add(pool.submit(() -> { start.await(); return call.call(); }));
+        start.countDown();
+        List<Object> results = new ArrayList<>();
+        for (Future<Object> f : futures) {
+            try {
+                results.add(f.get());
+            } catch (ExecutionException ex) {
+                results.add(ex.getCause());
+            }
+        }
+        pool.shutdown();
+        return results;
+    }
+
+    private static int succeeded(List<Object> results) {
+        int ok = 0;
+        for (Object r : results) {
+            if (r instanceof Throwable t) assertInstanceOf(IllegalStateException.class, t, t.toString());
+            else ok++;
+        }
+        return ok;
+    }
+
+    private int activeBookings(User groomer, LocalDate day) {
+        return jdbc.queryForObject("SELECT count(*) FROM bookings WHERE assigned_groomer_id = ? AND date = ? "
+                + "AND status IN ('PENDING', 'APPROVED', 'ON_ROUTE')", Integer.class, groomer.getId(), day);
+    }
+
+    private User user(String role) {
+        String name = "slot-" + role.toLowerCase() + "-" + names.incrementAndGet();
+        return users.save(new User(name, name + "@example.com", "x", role));
+    }
+
+    private Pet pet(User owner) {
+        Pet pet = new Pet();
+        pet.setOwner(owner);
+        pet.setName("Toby");
+        return pets.save(pet);
+    }
+
+    private static BookingCreateDTO request(Pet pet, User groomer, LocalDate day, LocalTime time) {
+        BookingCreateDTO dto = new BookingCreateDTO();
+        dto.setPetId(pet.getId());
+        dto.setServiceType(ServiceType.BATH);
+        dto.setGroomerId(groomer.getId());
+        dto.setDate(day);
+        dto.setTime(time);
+        return dto;
+    }
+}
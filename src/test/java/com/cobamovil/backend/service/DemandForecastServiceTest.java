@@ -0,0 +1,33 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.service.DemandForecastService.HoltWinters;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DemandForecastServiceTest {
+
+    @Test
+    void learnsTheWeeklyPattern() {
+        double[] week = {2, 3, 3, 4, 6, 9, 1};
+        double[] y = new double[12 * 7];
+        for (int i = 0; i < y.length; i++) y[i] = week[i % 7] + ((i * 7919) % 5 - 2) * 0.2; // small deterministic noise
+
+        HoltWinters model = HoltWinters.fit(y);
+
+        for (int h = 1; h <= 14; h++) {
+            assertEquals(week[(y.length + h - 1) % 7], model.forecast(h), 0.6, "day +" + h);
+        }
+    }
+
+    @Test
+    void followsARisingLevel() {
+        double[] y = new double[10 * 7];
+        for (int i = 0; i < y.length; i++) y[i] = 5 + i * 0.1 + (i % 7 == 5 ? 4 : 0);
+
+        HoltWinters model = HoltWinters.fit(y);
+
+        assertTrue(model.forecast(1) > 10.5, "level kept rising: " + model.forecast(1));
+        assertTrue(model.forecast(6) - model.forecast(5) > 3, "Saturday peak kept");
+    }
+}
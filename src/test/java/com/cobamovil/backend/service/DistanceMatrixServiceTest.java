@@ -0,0 +1,179 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.config.RoutingProperties;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs DistanceMatrixService against a local stub of the Distance Matrix API. The stub answers
+ * 60 s per degree of latitude between origin and destination and counts every request it gets.
+ */
+class DistanceMatrixServiceTest {
+
+    private HttpServer server;
+    private final AtomicInteger calls = new AtomicInteger();
+    private final List<Integer> elementsPerCall = new CopyOnWriteArrayList<>();
+    private final List<String> departures = new CopyOnWriteArrayList<>();
+    private DistanceMatrixService service;
+    private String baseUrl;
+
+    @BeforeEach
+    void startStub() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/distancematrix/json", exchange -> {
+            calls.incrementAndGet();
+            String query = URLDecoder.decode(exchange.getRequestURI().getRawQuery(), StandardCharsets.UTF_8);
+            String[] origins = param(query, "origins").split("\\|");
+            String[] destinations = param(query, "destinations").split("\\|");
+            elementsPerCall.add(origins.length * destinations.length);
+            departures.add(param(query, "departure_time"));
+            StringBuilder json = new StringBuilder("{\"status\":\"OK\",\"rows\":[");
+            for (int i = 0; i < origins.length; i++) {
+                if (i > 0) json.append(',');
+                json.append("{\"elements\":[");
+                double oLat = Double.parseDouble(origins[i].split(",")[0]);
+                for (int j = 0; j < destinations.length; j++) {
+                    if (j > 0) json.append(',');
+                    double dLat = Double.parseDouble(destinations[j].split(",")[0]);
+                    long seconds = Math.round(Math.abs(oLat - dLat) * 60);
+                    json.append("{\"status\":\"OK\",\"duration\":{\"value\":").append(seconds).append("}}");
+                }
+                json.append("]}");
+            }
+            json.append("]}");
+            byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) { os.write(body); }
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/distancematrix/json";
+        service = new DistanceMatrixService(new RestTemplate(), "test-key", baseUrl);
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+    }
+
+    @Test
+    void twentyStopMatrixIsFetchedInChunkedCallsWithinElementLimits() {
+        int n = 20;
+        double[] lat = new double[n];
+        double[] lng = new double[n];
+        for (int i = 0; i < n; i++) { lat[i] = i; lng[i] = -74.0; }
+
+        int[][] seconds = service.durationMatrixSeconds(lat, lng);
+
+        // 20 destinations per call leaves room for 5 origins under the 100-element cap
+        assertEquals(4, calls.get());
+        assertTrue(elementsPerCall.stream().allMatch(e -> e <= DistanceMatrixService.MAX_ELEMENTS));
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                assertEquals(60 * Math.abs(i - j), seconds[i][j], "pair " + i + "," + j);
+            }
+        }
+    }
+
+    @Test
+    void openCircuitStopsTheRemainingBlocks() {
+        CircuitBreaker breaker = CircuitBreaker.ofDefaults("google-maps");
+        AtomicInteger attempts = new AtomicInteger();
+        RestTemplate http = new RestTemplate();
+        http.getInterceptors().add((request, body, execution) -> {
+            if (attempts.incrementAndGet() > 1) breaker.transitionToOpenState();
+            breaker.acquirePermission();
+            return execution.execute(request, body);
+        });
+        DistanceMatrixService guarded = new DistanceMatrixService(http, "test-key", baseUrl);
+        int n = 20;
+        double[] lat = new double[n];
+        double[] lng = new double[n];
+        for (int i = 0; i < n; i++) { lat[i] = i; lng[i] = -74.0; }
+
+        int[][] seconds = guarded.durationMatrixSeconds(lat, lng);
+
+        assertEquals(1, calls.get());
+        assertEquals(2, attempts.get(), "no block is tried after the first refusal");
+        assertEquals(60 * 19, seconds[0][19]);
+        assertEquals(-1, seconds[19][0]);
+    }
+
+    @Test
+    void largeMatrixSplitsBothOriginsAndDestinations() {
+        int n = 30;
+        double[] lat = new double[n];
+        double[] lng = new double[n];
+        for (int i = 0; i < n; i++) { lat[i] = i * 0.5; lng[i] = -74.0; }
+
+        int[][] seconds = service.durationMatrixSeconds(lat, lng);
+
+        // 25 + 5 destination columns, 4 origins per call: ceil(30 / 4) * 2
+        assertEquals(16, calls.get());
+        assertEquals(Math.round(29 * 0.5 * 60), seconds[0][29]);
+    }
+
+    @Test
+    void cachedPairsAreNotRequestedAgain() {
+        TravelTimeCache cache = new TravelTimeCache(null, new RoutingProperties(), new SimpleMeterRegistry());
+        DistanceMatrixService cached = new DistanceMatrixService(new RestTemplate(), "test-key", baseUrl, cache);
+        double[] lat = {4.60, 4.61, 4.62, 4.63};
+        double[] lng = {-74.0, -74.0, -74.0, -74.0};
+
+        cached.durationMatrixSeconds(lat, lng);
+        int first = calls.get();
+        int[][] again = cached.durationMatrixSeconds(lat, lng);
+
+        assertEquals(1, first);
+        assertEquals(first, calls.get());
+        assertEquals(Math.round(0.03 * 60), again[0][3]);
+    }
+
+    @Test
+    void tripsArePricedAndCachedForTheirDepartureNotForNow() {
+        TravelTimeCache cache = new TravelTimeCache(null, new RoutingProperties(), new SimpleMeterRegistry());
+        DistanceMatrixService cached = new DistanceMatrixService(new RestTemplate(), "test-key", baseUrl, cache);
+        double[] lat = {4.60, 4.61};
+        double[] lng = {-74.0, -74.0};
+        LocalDateTime eight = LocalDate.now().plusDays(1).atTime(8, 0);
+
+        cached.durationMatrixSeconds(lat, lng, eight);
+        cached.durationMatrixSeconds(lat, lng, eight.plusMinutes(30));
+        assertEquals(1, calls.get());
+        cached.durationMatrixSeconds(lat, lng, eight.withHour(22));
+        assertEquals(2, calls.get());
+        assertEquals(Long.toString(eight.atZone(ZoneId.systemDefault()).toEpochSecond()), departures.get(0));
+    }
+
+    @Test
+    void disabledWithoutApiKey() {
+        DistanceMatrixService disabled = new DistanceMatrixService(new RestTemplate(), null, "http://127.0.0.1:1/unused");
+        assertNull(disabled.durationMatrixSeconds(new double[]{1, 2}, new double[]{1, 2}));
+        assertEquals(0, calls.get());
+    }
+
+    private static String param(String query, String name) {
+        for (String kv : query.split("&")) {
+            if (kv.startsWith(name + "=")) return kv.substring(name.length() + 1);
+        }
+        return "";
+    }
+}
@@ -0,0 +1,205 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.config.RoutingProperties;
+import com.cobamovil.backend.dto.FleetPlanDTO;
+import com.cobamovil.backend.entity.Booking;
+import com.cobamovil.backend.entity.BookingStatus;
+import com.cobamovil.backend.entity.ServiceType;
+import com.cobamovil.backend.entity.User;
+import com.cobamovil.backend.repository.BookingRepository;
+import com.cobamovil.backend.repository.RoutePlanRepository;
+import com.cobamovil.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * FleetPlanningService over mocked repositories and straight-line travel times. Two neighbourhoods
+ * about 11 km apart: north around (4.70, -74.05) and south around (4.60, -74.05).
+ */
+class FleetPlanningServiceTest {
+    private static final LocalDate DAY = LocalDate.now().plusDays(1);
+
+    private final BookingRepository bookings = mock(BookingRepository.class);
+    private final UserRepository users = mock(UserRepository.class);
+    private final RoutePlanRepository plans = mock(RoutePlanRepository.class);
+    private final ServiceZones zones = mock(ServiceZones.class);
+    private final FleetPlanningService planner = new FleetPlanningService(bookings, users, plans,
+            new RouteOptimizationService(new RoutingProperties(), new DistanceMatrixService(null, null, null)),
+            mock(BookingIntervalIndex.class), zones);
+
+    private final User ana = groomer(1L), ben = groomer(2L);
+
+    @Test
+    void clustersSplitByNeighbourhoodWithinCapacity() {
+        List<Booking> day = List.of(north(1, 9), south(2, 9), north(3, 11), south(4, 11), north(5, 14), south(6, 14));
+
+        List<List<Booking>> clusters = planner.cluster(day, 2);
+
+        assertEquals(2, clusters.size());
+        for (List<Booking> c : clusters) {
+            assertEquals(3, c.size());
+            assertEquals(1, c.stream().map(b -> b.getLatitude() > 4.65).distinct().count(), "mixed cluster " + ids(c));
+        }
+    }
+
+    @Test
+    void clashingStopIsRepairedIntoTheOtherRoute() {
+        // Both north stops are at 10:00; one of them has to go to the south groomer, who is free until 14:00
+        Booking a = north(1, 10), b = north(2, 10), c = south(3, 14), d = south(4, 15);
+        FleetPlanDTO plan = plan(List.of(ana, ben), a, b, c, d);
+
+        assertTrue(plan.getInfeasibleBookingIds().isEmpty());
+        assertNotEquals(a.getAssignedGroomer().getId(), b.getAssignedGroomer().getId());
+        assertNoGroomerHoldsOverlappingSlots(a, b, c, d);
+    }
+
+    @Test
+    void overlappingStopsNobodyCanTakeAreReportedAndLeftUnassigned() {
+        Booking a = north(1, 10), b = north(2, 10);
+        b.setAssignedGroomer(ana);
+
+        FleetPlanDTO plan = plan(List.of(ana), a, b);
+
+        assertEquals(1, plan.getInfeasibleBookingIds().size());
+        Booking dropped = plan.getInfeasibleBookingIds().get(0) == 1L ? a : b;
+        Booking kept = dropped == a ? b : a;
+        assertNull(dropped.getAssignedGroomer());
+        assertEquals(ana.getId(), kept.getAssignedGroomer().getId());
+        assertEquals(List.of(kept.getId()), plan.getRoutes().get(0).getBookingIdsInOrder());
+    }
+
+    @Test
+    void stopsStayClearOfTheGroomersPendingAndOnRouteBookings() {
+        Booking a = north(1, 10), b = south(2, 14), pending = north(3, 10), onRoute = south(4, 10);
+        a.setAssignedGroomer(ana);
+        b.setAssignedGroomer(ben);
+        pending.setStatus(BookingStatus.PENDING);
+        pending.setAssignedGroomer(ana);
+        onRoute.setStatus(BookingStatus.ON_ROUTE);
+        onRoute.setAssignedGroomer(ben);
+        when(bookings.findByDateAndStatusIn(DAY, BookingIntervalIndex.HOLDS_SLOT)).thenReturn(List.of(a, b, pending, onRoute));
+
+        FleetPlanDTO plan = plan(List.of(ana, ben), a, b);
+
+        // Both groomers are busy at 10:00, so the constraint would reject either assignment
+        assertEquals(List.of(1L), plan.getInfeasibleBookingIds());
+        assertNull(a.getAssignedGroomer());
+        assertEquals(ben.getId(), b.getAssignedGroomer().getId());
+        assertNoGroomerHoldsOverlappingSlots(pending, onRoute, a, b);
+    }
+
+    @Test
+    void pendingBookingOfOneGroomerSendsTheStopToTheOther() {
+        Booking a = north(1, 10), b = south(2, 14), pending = north(3, 10);
+        a.setAssignedGroomer(ana);
+        pending.setStatus(BookingStatus.PENDING);
+        pending.setAssignedGroomer(ana);
+        when(bookings.findByDateAndStatusIn(DAY, BookingIntervalIndex.HOLDS_SLOT)).thenReturn(List.of(a, b, pending));
+
+        plan(List.of(ana, ben), a, b);
+
+        assertEquals(ben.getId(), a.getAssignedGroomer().getId());
+        assertEquals(ana.getId(), pending.getAssignedGroomer().getId());
+        assertNoGroomerHoldsOverlappingSlots(pending, a, b);
+    }
+
+    @Test
+    void workloadIsBalancedAndGroomersKeepTheirBookings() {
+        List<Booking> day = new ArrayList<>();
+        for (int i = 0; i < 4; i++) day.add(north(i + 1, 8 + 2 * i));
+        for (int i = 0; i < 4; i++) day.add(south(i + 5, 8 + 2 * i));
+        day.forEach(b -> b.setAssignedGroomer(b.getLatitude() > 4.65 ? ben : ana));
+
+        FleetPlanDTO plan = plan(List.of(ana, ben), day.toArray(Booking[]::new));
+
+        assertTrue(plan.getInfeasibleBookingIds().isEmpty());
+        for (var route : plan.getRoutes()) assertEquals(4, route.getBookingIdsInOrder().size());
+        // Re-planning leaves each neighbourhood with the groomer who already had it
+        for (Booking b : day) assertEquals(b.getLatitude() > 4.65 ? ben.getId() : ana.getId(), b.getAssignedGroomer().getId());
+    }
+
+    @Test
+    void matchGroomersPrefersTheGroomerHoldingMostOfACluster() {
+        Booking n1 = north(1, 9), n2 = north(2, 10), s1 = south(3, 9);
+        n1.setAssignedGroomer(ben);
+        n2.setAssignedGroomer(ben);
+        s1.setAssignedGroomer(ben);
+
+        User[] owner = FleetPlanningService.matchGroomers(List.of(List.of(s1), List.of(n1, n2)), List.of(ana, ben));
+
+        assertSame(ana, owner[0]);
+        assertSame(ben, owner[1]);
+    }
+
+    @Test
+    void zonesArePlannedWithTheirOwnGroomersAndTheRestWithTheFreeOnes() {
+        User cid = groomer(3L);
+        Booking n = north(1, 9), s = south(2, 9), out = north(3, 12);
+        when(zones.zoneOf(any(), any())).thenReturn(null);
+        n.setZoneId(10L);
+        s.setZoneId(20L);
+        when(zones.assigned(10L, ana.getId())).thenReturn(true);
+        when(zones.assigned(20L, ben.getId())).thenReturn(true);
+
+        List<FleetPlanningService.Partition> parts = planner.partition(List.of(n, s, out), List.of(ana, ben, cid));
+
+        assertEquals(3, parts.size());
+        Map<Long, List<Long>> byGroomer = new HashMap<>();
+        for (var p : parts) byGroomer.put(p.groomers.get(0).getId(), ids(p.bookings));
+        assertEquals(List.of(1L), byGroomer.get(ana.getId()));
+        assertEquals(List.of(2L), byGroomer.get(ben.getId()));
+        assertEquals(List.of(3L), byGroomer.get(cid.getId()));
+    }
+
+    private FleetPlanDTO plan(List<User> groomers, Booking... day) {
+        when(users.findByRole("GROOMER")).thenReturn(groomers);
+        when(bookings.findByDateAndStatus(DAY, BookingStatus.APPROVED)).thenReturn(new ArrayList<>(List.of(day)));
+        when(plans.findByDateAndGroomer(any(), any())).thenReturn(Optional.empty());
+        return planner.planDay(DAY);
+    }
+
+    private static void assertNoGroomerHoldsOverlappingSlots(Booking... day) {
+        Map<Long, List<Booking>> byGroomer = new HashMap<>();
+        for (Booking b : day) {
+            if (b.getAssignedGroomer() == null) continue;
+            List<Booking> held = byGroomer.computeIfAbsent(b.getAssignedGroomer().getId(), g -> new ArrayList<>());
+            assertFalse(FleetPlanningService.overlapsAny(held, b), "booking " + b.getId() + " overlaps");
+            held.add(b);
+        }
+    }
+
+    private static Booking north(long id, int hour) { return booking(id, 4.70 + id * 0.001, hour); }
+
+    private static Booking south(long id, int hour) { return booking(id, 4.60 + id * 0.001, hour); }
+
+    private static Booking booking(long id, double lat, int hour) {
+        Booking b = new Booking();
+        ReflectionTestUtils.setField(b, "id", id);
+        b.setServiceType(ServiceType.HAIRCUT);
+        b.setDurationMinutes(60);
+        b.setDate(DAY);
+        b.setTime(LocalTime.of(hour, 0));
+        b.setLatitude(lat);
+        b.setLongitude(-74.05);
+        b.setStatus(BookingStatus.APPROVED);
+        return b;
+    }
+
+    private static User groomer(long id) {
+        User u = new User("groomer" + id, "groomer" + id + "@test", "x", "GROOMER");
+        u.setId(id);
+        return u;
+    }
+
+    private static List<Long> ids(List<Booking> list) {
+        return list.stream().map(Booking::getId).sorted().toList();
+    }
+}
@@ -0,0 +1,97 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.config.RoutingProperties;
+import com.cobamovil.backend.entity.Booking;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared GeoMath kernel vs. the per-pair haversine it replaced (Math.toRadians and Math.cos per
+ * call, boxed coordinates and a Comparator per greedy step).
+ * Run after mvn test-compile with the test classpath:
+ *   java -cp target/test-classes:target/classes:&lt;deps&gt; org.openjdk.jmh.Main GeoMathBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeoMathBenchmark {
+
+    @Param({"200", "500"})
+    public int stops;
+
+    private RouteOptimizationService service;
+    private List<Booking> bookings;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        service = new RouteOptimizationService(new RoutingProperties(), new DistanceMatrixService(null, null, null));
+        bookings = RouteOptimizationBenchmark.randomBookings(stops, 7L);
+    }
+
+    @Benchmark
+    public double[][] legacyMatrix() {
+        int n = bookings.size();
+        double[][] d = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (i != j) d[i][j] = legacyHaversine(bookings.get(i).getLatitude(), bookings.get(i).getLongitude(),
+                        bookings.get(j).getLatitude(), bookings.get(j).getLongitude());
+            }
+        }
+        return d;
+    }
+
+    @Benchmark
+    public double[][] geoMathMatrix() {
+        return service.distanceMatrix(bookings);
+    }
+
+    @Benchmark
+    public List<Booking> legacyNearest() {
+        List<Booking> remaining = new ArrayList<>(bookings);
+        List<Booking> ordered = new ArrayList<>();
+        Booking current = remaining.remove(0);
+        ordered.add(current);
+        while (!remaining.isEmpty()) {
+            final double latC = current.getLatitude();
+            final double lonC = current.getLongitude();
+            Booking next = remaining.stream()
+                    .min(Comparator.comparingDouble(b -> legacyHaversine(latC, lonC, b.getLatitude(), b.getLongitude())))
+                    .orElse(remaining.get(0));
+            remaining.remove(next);
+            ordered.add(next);
+            current = next;
+        }
+        return ordered;
+    }
+
+    @Benchmark
+    public List<Booking> geoMathNearest() {
+        return service.orderByNearest(bookings);
+    }
+
+    // RouteOptimizationService.haversine before GeoMath
+    static double legacyHaversine(double lat1, double lon1, double lat2, double lon2) {
+        if (lat1 == 0 && lon1 == 0) return 0;
+        final int R = 6371;
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat/2)*Math.sin(dLat/2) + Math.cos(Math.toRadians(lat1))*Math.cos(Math.toRadians(lat2))*Math.sin(dLon/2)*Math.sin(dLon/2);
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1-a));
+        return R * c;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(GeoMathBenchmark.class.getSimpleName()).build()).run();
+    }
+}
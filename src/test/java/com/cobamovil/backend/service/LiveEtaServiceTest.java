@@ -0,0 +1,177 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.config.RoutingProperties;
+import com.cobamovil.backend.dto.EtaUpdateDTO;
+import com.cobamovil.backend.dto.LocationPingDTO;
+import com.cobamovil.backend.dto.RoutePlanDTO;
+import com.cobamovil.backend.entity.Booking;
+import com.cobamovil.backend.entity.BookingStatus;
+import com.cobamovil.backend.entity.User;
+import com.cobamovil.backend.repository.BookingRepository;
+import com.cobamovil.backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class LiveEtaServiceTest {
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final long TEN_AM = TODAY.atTime(10, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+    private final BookingService bookingService = mock(BookingService.class);
+    private final BookingRepository bookings = mock(BookingRepository.class);
+    private final UserRepository users = mock(UserRepository.class);
+    private final NotificationService notifications = mock(NotificationService.class);
+    private final LiveEtaService service = new LiveEtaService(bookingService, bookings, users, notifications, new RoutingProperties()) {
+        @Override
+        SseEmitter newEmitter() {
+            return new RecordingEmitter();
+        }
+    };
+    private final User customer = new User("ana", "ana@example.com", "x", "CUSTOMER");
+
+    // Stop 1 at 09:00 and stop 2 at 11:00, 5.5 km apart on the same parallel
+    private final Booking first = stop(1, 9, -74.05);
+    private final Booking second = stop(2, 11, -74.00);
+
+    @BeforeEach
+    void groomerWithTwoStops() {
+        User groomer = new User("pedro", "pedro@example.com", "x", "GROOMER");
+        groomer.setId(5L);
+        when(users.findByUsername("pedro")).thenReturn(Optional.of(groomer));
+        when(bookings.findByDateAndStatus(TODAY, BookingStatus.ON_ROUTE)).thenReturn(List.of());
+        when(bookingService.routeForDay(TODAY, 5L)).thenReturn(new RoutePlanDTO(TODAY.toString(), List.of(1L, 2L)));
+        when(bookings.findAllById(List.of(1L, 2L))).thenReturn(List.of(first, second));
+        when(bookings.findById(1L)).thenReturn(Optional.of(first));
+    }
+
+    @Test
+    void pingBufferKeepsTheNewestPingsInARing() {
+        LiveEtaService.PingBuffer buffer = new LiveEtaService.PingBuffer(3);
+        assertNull(buffer.latest());
+        for (int i = 1; i <= 4; i++) buffer.add(i, -i, i * 1000L);
+        assertArrayEquals(new double[]{4, -4, 4000}, buffer.latest());
+    }
+
+    @Test
+    void onRouteMessageUsesTheLatestBufferedPing() {
+        long now = System.currentTimeMillis();
+        service.recordPing("pedro", ping(4.69, now - 60_000));
+        List<EtaUpdateDTO> etas = service.recordPing("pedro", ping(4.65, now));
+
+        service.onStatusChanged(event(BookingStatus.ON_ROUTE));
+
+        verify(notifications).notifyOnRoute(customer, etas.get(0).getEstimatedArrival());
+    }
+
+    @Test
+    void etasAreRecomputedFromEachPingAndTheServedStopDropsOut() {
+        // 10 km north of stop 1 at 2 min/km
+        List<EtaUpdateDTO> etas = service.recordPing("pedro", ping(4.69, TEN_AM));
+        assertEquals(LocalTime.of(10, 20), etas.get(0).getEstimatedArrival());
+        assertEquals(20, etas.get(0).getMinutesAway());
+        assertEquals(LocalTime.of(11, 31), etas.get(1).getEstimatedArrival());
+
+        etas = service.recordPing("pedro", ping(4.60, TEN_AM + 20 * 60_000));
+        assertEquals(LocalTime.of(10, 20), etas.get(0).getEstimatedArrival());
+        assertEquals(0, etas.get(0).getMinutesAway());
+        assertEquals(LocalTime.of(11, 31), etas.get(1).getEstimatedArrival());
+
+        // Leaves stop 1 halfway through the service time and is already on the way to stop 2
+        etas = service.recordPing("pedro", ping(4.60, -74.02, TEN_AM + 50 * 60_000));
+        assertEquals(1, etas.size());
+        assertEquals(2L, etas.get(0).getBookingId());
+        assertEquals(LocalTime.of(10, 54), etas.get(0).getEstimatedArrival());
+    }
+
+    @Test
+    void subscribersOnlyHearShiftsAboveTheThreshold() {
+        service.recordPing("pedro", ping(4.69, TEN_AM));
+        RecordingEmitter emitter = (RecordingEmitter) service.subscribe(1L, "ana");
+        assertEquals(1, emitter.sent); // current estimate on subscribe
+
+        service.recordPing("pedro", ping(4.68, TEN_AM)); // 10:17, three minutes off what was pushed
+        assertEquals(1, emitter.sent);
+        service.recordPing("pedro", ping(4.65, TEN_AM)); // 10:11
+        assertEquals(2, emitter.sent);
+        service.recordPing("pedro", ping(4.64, TEN_AM)); // 10:08, measured against 10:11 not 10:17
+        assertEquals(2, emitter.sent);
+    }
+
+    @Test
+    void brokenAndFinishedSubscriptionsAreDropped() {
+        RecordingEmitter broken = (RecordingEmitter) service.subscribe(1L, "ana");
+        RecordingEmitter open = (RecordingEmitter) service.subscribe(1L, "ana");
+        broken.broken = true;
+
+        service.recordPing("pedro", ping(4.69, TEN_AM));
+        broken.broken = false;
+        service.recordPing("pedro", ping(4.62, TEN_AM));
+        assertEquals(0, broken.sent);
+        assertEquals(2, open.sent);
+
+        service.onStatusChanged(event(BookingStatus.COMPLETED));
+        assertTrue(open.completed);
+        service.recordPing("pedro", ping(4.69, TEN_AM));
+        assertEquals(2, open.sent);
+        verify(notifications, never()).notifyOnRoute(any(), any());
+        verify(bookingService, times(2)).routeForDay(eq(TODAY), eq(5L)); // route reloaded after the event
+    }
+
+    private Booking stop(long id, int hour, double lng) {
+        Booking b = new Booking();
+        ReflectionTestUtils.setField(b, "id", id);
+        b.setCustomer(customer);
+        b.setDate(TODAY);
+        b.setTime(LocalTime.of(hour, 0));
+        b.setDurationMinutes(60);
+        b.setLatitude(4.60);
+        b.setLongitude(lng);
+        return b;
+    }
+
+    private static LocationPingDTO ping(double lat, long at) {
+        return ping(lat, -74.05, at);
+    }
+
+    private static LocationPingDTO ping(double lat, double lng, long at) {
+        LocationPingDTO p = new LocationPingDTO();
+        p.setLatitude(lat);
+        p.setLongitude(lng);
+        p.setTimestamp(at);
+        return p;
+    }
+
+    private static BookingStatusChangedEvent event(BookingStatus status) {
+        return new BookingStatusChangedEvent(1L, 5L, TODAY, TODAY, LocalTime.of(9, 0), BookingStatus.APPROVED, status);
+    }
+
+    static final class RecordingEmitter extends SseEmitter {
+        int sent;
+        boolean broken;
+        boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (broken) throw new IOException("Broken pipe");
+            sent++;
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.config.NotificationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotificationDeliveryLogTest {
+
+    @Test
+    void fullQueueDropsAndFlushWritesInBatches() {
+        NotificationProperties props = new NotificationProperties();
+        props.setLogQueueCapacity(5);
+        props.setLogBatchSize(2);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        List<Integer> batches = new ArrayList<>();
+        NotificationDeliveryLog log = new NotificationDeliveryLog(props, registry, entries -> batches.add(entries.size()));
+
+        for (int i = 0; i < 7; i++) log.record((long) i, "EMAIL", "BOOKING_CREATED", "a@b.c", "SENT");
+
+        assertEquals(5, log.depth());
+        assertEquals(5.0, registry.get("notification_log.queue.depth").gauge().value());
+        assertEquals(2.0, registry.get("notification_log.dropped").tag("reason", "queue_full").counter().count());
+        assertEquals(5, log.flush());
+        assertEquals(List.of(2, 2, 1), batches);
+        assertEquals(0, log.depth());
+        assertEquals(5.0, registry.get("notification_log.written").counter().count());
+    }
+
+    @Test
+    void failedWritesAreDroppedAndCounted() {
+        NotificationProperties props = new NotificationProperties();
+        props.setLogBatchSize(10);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        NotificationDeliveryLog log = new NotificationDeliveryLog(props, registry, entries -> {
+            throw new IllegalStateException("database down");
+        });
+
+        for (int i = 0; i < 3; i++) log.record(null, "WHATSAPP", "BOOKING_APPROVED", "+570000", "FAILED");
+
+        assertEquals(3, log.flush());
+        assertEquals(0, log.depth());
+        assertEquals(3.0, registry.get("notification_log.dropped").tag("reason", "write_failed").counter().count());
+    }
+}
@@ -0,0 +1,48 @@
+package com.cobamovil.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotificationDispatcherTest {
+
+    @Test
+    void backoffDoublesWithJitterUpToTheCap() {
+        for (int i = 0; i < 50; i++) {
+            long first = NotificationDispatcher.backoffSeconds(1, 30, 3600);
+            long third = NotificationDispatcher.backoffSeconds(3, 30, 3600);
+            long late = NotificationDispatcher.backoffSeconds(20, 30, 3600);
+            assertTrue(first >= 24 && first <= 36, "first retry " + first);
+            assertTrue(third >= 96 && third <= 144, "third retry " + third);
+            assertTrue(late >= 2880 && late <= 4320, "capped retry " + late);
+        }
+    }
+
+    @Test
+    void onlyClientErrorsOtherThanTimeoutAndThrottlingArePermanent() {
+        assertTrue(NotificationDispatcher.isPermanent(HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "", null, null, null)));
+        assertFalse(NotificationDispatcher.isPermanent(HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "", null, null, null)));
+        assertFalse(NotificationDispatcher.isPermanent(HttpClientErrorException.create(HttpStatus.REQUEST_TIMEOUT, "", null, null, null)));
+        assertFalse(NotificationDispatcher.isPermanent(HttpServerErrorException.create(HttpStatus.BAD_GATEWAY, "", null, null, null)));
+        assertFalse(NotificationDispatcher.isPermanent(new IllegalStateException("Twilio is not configured")));
+    }
+
+    @Test
+    void digestKeyDependsOnlyOnWhichMessagesAreGrouped() {
+        String key = NotificationService.digestKey(List.of(message(3), message(1), message(2)));
+        assertEquals(key, NotificationService.digestKey(List.of(message(1), message(2), message(3))));
+        assertNotEquals(key, NotificationService.digestKey(List.of(message(1), message(2))));
+        assertNotEquals(key, NotificationService.digestKey(List.of(message(3), message(1), message(2), message(4))));
+        assertTrue(key.length() <= 64);
+    }
+
+    private static NotificationOutbox.Message message(long id) {
+        return new NotificationOutbox.Message(id, "key-" + id, null, "EMAIL", "ana@example.com",
+                "BOOKING_CREATED", "Reserva", "<p>Hola</p>", 1);
+    }
+}
@@ -0,0 +1,103 @@
+package com.cobamovil.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotificationOutboxTest {
+    private final NamedParameterJdbcTemplate jdbc = new NamedParameterJdbcTemplate(TestDatabase.dataSource());
+    private final NotificationOutbox outbox = new NotificationOutbox(jdbc);
+
+    @BeforeEach
+    void empty() {
+        jdbc.update("DELETE FROM notification_outbox", new MapSqlParameterSource());
+    }
+
+    @Test
+    void claimLeasesDueMessagesUntilTheLeaseRunsOut() {
+        outbox.enqueue(List.of(message("a", "ana@example.com"), message("b", "bob@example.com")), 0);
+        outbox.enqueue(List.of(message("later", "carla@example.com")), 600);
+        outbox.enqueue(List.of(message("a", "ana@example.com")), 0); // repeated key
+
+        List<NotificationOutbox.Message> claimed = outbox.claim(10, 60);
+        assertEquals(List.of("a", "b"), keys(claimed));
+        assertEquals(1, claimed.get(0).attempts);
+        assertEquals("SENDING", status("a"));
+        assertTrue(outbox.claim(10, 60).isEmpty(), "leased and not yet due messages stay put");
+
+        jdbc.update("UPDATE notification_outbox SET locked_until = :past WHERE idempotency_key = 'b'",
+                new MapSqlParameterSource("past", Timestamp.valueOf(LocalDateTime.now().minusSeconds(1))));
+        List<NotificationOutbox.Message> again = outbox.claim(10, 60);
+        assertEquals(List.of("b"), keys(again));
+        assertEquals(2, again.get(0).attempts);
+    }
+
+    @Test
+    void claimSkipsMessagesLockedByAnotherDispatcher() throws Exception {
+        outbox.enqueue(List.of(message("a", "ana@example.com"), message("b", "bob@example.com")), 0);
+
+        try (Connection other = TestDatabase.dataSource().getConnection(); Statement st = other.createStatement()) {
+            other.setAutoCommit(false);
+            st.executeQuery("SELECT id FROM notification_outbox WHERE idempotency_key = 'a' FOR UPDATE");
+
+            assertEquals(List.of("b"), keys(outbox.claim(10, 60)));
+            other.rollback();
+        }
+        assertEquals(List.of("a"), keys(outbox.claim(10, 60)));
+    }
+
+    @Test
+    void deferredMessagesAreDueLaterWithoutSpendingTheAttempt() {
+        outbox.enqueue(List.of(message("a", "ana@example.com")), 0);
+        NotificationOutbox.Message claimed = outbox.claim(10, 60).get(0);
+
+        outbox.defer(List.of(claimed.id), 60_000);
+        assertEquals("PENDING", status("a"));
+        assertTrue(outbox.claim(10, 60).isEmpty());
+
+        jdbc.update("UPDATE notification_outbox SET next_attempt_at = :now WHERE idempotency_key = 'a'",
+                new MapSqlParameterSource("now", Timestamp.valueOf(LocalDateTime.now())));
+        assertEquals(1, outbox.claim(10, 60).get(0).attempts);
+    }
+
+    @Test
+    void newMessagesJoinTheOpenWindowOfTheirRecipient() {
+        outbox.enqueue(List.of(message("first", "ana@example.com")), 60);
+        outbox.enqueue(List.of(message("second", "ana@example.com"), message("other", "bob@example.com")), 300);
+
+        assertEquals(due("first"), due("second"));
+        assertTrue(due("other").isAfter(due("first").plusSeconds(200)), "another recipient opens its own window");
+
+        // A message waiting for its retry is no open window
+        jdbc.update("UPDATE notification_outbox SET attempts = 1 WHERE idempotency_key IN ('first', 'second')", new MapSqlParameterSource());
+        outbox.enqueue(List.of(message("third", "ana@example.com")), 300);
+        assertTrue(due("third").isAfter(due("first").plusSeconds(200)));
+    }
+
+    private String status(String key) {
+        return jdbc.queryForObject("SELECT status FROM notification_outbox WHERE idempotency_key = :key",
+                new MapSqlParameterSource("key", key), String.class);
+    }
+
+    private LocalDateTime due(String key) {
+        return jdbc.queryForObject("SELECT next_attempt_at FROM notification_outbox WHERE idempotency_key = :key",
+                new MapSqlParameterSource("key", key), LocalDateTime.class);
+    }
+
+    private static List<String> keys(List<NotificationOutbox.Message> messages) {
+        return messages.stream().map(NotificationOutbox.Message::getKey).toList();
+    }
+
+    private static NotificationOutbox.Message message(String key, String recipient) {
+        return new NotificationOutbox.Message(0, key, null, "EMAIL", recipient, "BOOKING_CREATED", "Reserva", "<p>Hola</p>", 0);
+    }
+}
@@ -0,0 +1,54 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.config.NotificationProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotificationThrottleTest {
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void channelBucketCapsTheRateAcrossRecipients() {
+        NotificationProperties props = new NotificationProperties();
+        props.setEmailPerSecond(2);
+        props.setEmailBurst(2);
+        AtomicLong now = new AtomicLong();
+        NotificationThrottle throttle = new NotificationThrottle(props, now::get);
+
+        assertEquals(0, throttle.acquire("EMAIL", "a@x.co"));
+        assertEquals(0, throttle.acquire("EMAIL", "b@x.co"));
+        long wait = throttle.acquire("EMAIL", "c@x.co");
+        assertTrue(wait > 0 && wait <= 500, "wait " + wait);
+        // WhatsApp has its own bucket
+        assertEquals(0, throttle.acquire("WHATSAPP", "+570001"));
+
+        now.addAndGet(SECOND / 2);
+        assertEquals(0, throttle.acquire("EMAIL", "c@x.co"));
+    }
+
+    @Test
+    void recipientBucketHoldsBackBurstsToOnePerson() {
+        NotificationProperties props = new NotificationProperties();
+        props.setWhatsappBurst(100);
+        props.setWhatsappPerSecond(100);
+        props.setRecipientBurst(2);
+        props.setRecipientPerHour(60);
+        AtomicLong now = new AtomicLong();
+        NotificationThrottle throttle = new NotificationThrottle(props, now::get);
+
+        assertEquals(0, throttle.acquire("WHATSAPP", "+570001"));
+        assertEquals(0, throttle.acquire("WHATSAPP", "+570001"));
+        long wait = throttle.acquire("WHATSAPP", "+570001");
+        assertEquals(60_000, wait, 1);
+        assertEquals(0, throttle.acquire("WHATSAPP", "+570002"));
+
+        now.addAndGet(60 * SECOND);
+        assertEquals(0, throttle.acquire("WHATSAPP", "+570001"));
+        now.addAndGet(3600 * SECOND);
+        throttle.evictIdle();
+        assertEquals(0, throttle.trackedRecipients());
+    }
+}
@@ -0,0 +1,114 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.config.HttpClientProperties;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.InterruptedIOException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class OutboundHttpTest {
+    private static final String URL = "https://provider.test/api";
+
+    private final Bulkhead bulkhead = Bulkhead.of("provider", BulkheadConfig.custom()
+            .maxConcurrentCalls(1).maxWaitDuration(Duration.ZERO).build());
+
+    @Test
+    void serverErrorsOpenTheCircuitAndLaterCallsFailFastWithoutReachingTheProvider() {
+        CircuitBreaker breaker = breaker(Duration.ofSeconds(10));
+        RestTemplate http = guarded(breaker);
+        MockRestServiceServer provider = MockRestServiceServer.bindTo(http).build();
+        provider.expect(ExpectedCount.twice(), requestTo(URL)).andRespond(withSuccess());
+        provider.expect(ExpectedCount.twice(), requestTo(URL)).andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+
+        http.getForEntity(URL, String.class);
+        http.getForEntity(URL, String.class);
+        assertThrows(HttpServerErrorException.class, () -> http.getForEntity(URL, String.class));
+        assertThrows(HttpServerErrorException.class, () -> http.getForEntity(URL, String.class));
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertThrows(CallNotPermittedException.class, () -> http.getForEntity(URL, String.class));
+        provider.verify();
+        assertEquals(1, bulkhead.getMetrics().getAvailableConcurrentCalls());
+    }
+
+    @Test
+    void throttlingCountsAsAFailureButOtherClientErrorsDoNot() {
+        CircuitBreaker breaker = breaker(Duration.ofSeconds(10));
+        RestTemplate http = guarded(breaker);
+        MockRestServiceServer provider = MockRestServiceServer.bindTo(http).build();
+        provider.expect(ExpectedCount.times(4), requestTo(URL)).andRespond(withStatus(HttpStatus.NOT_FOUND));
+        provider.expect(ExpectedCount.twice(), requestTo(URL)).andRespond(withStatus(HttpStatus.TOO_MANY_REQUESTS));
+
+        for (int i = 0; i < 4; i++) assertThrows(HttpClientErrorException.class, () -> http.getForEntity(URL, String.class));
+        assertEquals(0, breaker.getMetrics().getNumberOfFailedCalls());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        for (int i = 0; i < 2; i++) assertThrows(HttpClientErrorException.class, () -> http.getForEntity(URL, String.class));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        provider.verify();
+    }
+
+    @Test
+    void callsSlowerThanHalfTheReadTimeoutOpenTheCircuit() {
+        CircuitBreaker breaker = breaker(Duration.ofMillis(100));
+        RestTemplate http = guarded(breaker);
+        MockRestServiceServer provider = MockRestServiceServer.bindTo(http).build();
+        provider.expect(ExpectedCount.times(4), requestTo(URL)).andRespond(request -> {
+            try {
+                Thread.sleep(70);
+            } catch (InterruptedException ex) {
+                throw new InterruptedIOException();
+            }
+            return withSuccess().createResponse(request);
+        });
+
+        for (int i = 0; i < 4; i++) http.getForEntity(URL, String.class);
+
+        assertEquals(4, breaker.getMetrics().getNumberOfSlowSuccessfulCalls());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        provider.verify();
+    }
+
+    @Test
+    void aCallPastTheBulkheadIsRejectedAtOnceAndLeavesTheCircuitAlone() {
+        CircuitBreaker breaker = breaker(Duration.ofSeconds(10));
+        RestTemplate http = guarded(breaker);
+        MockRestServiceServer provider = MockRestServiceServer.bindTo(http).build();
+
+        assertTrue(bulkhead.tryAcquirePermission()); // another call in flight
+        assertThrows(BulkheadFullException.class, () -> http.getForEntity(URL, String.class));
+        provider.verify();
+        assertEquals(0, breaker.getMetrics().getNumberOfBufferedCalls());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    // The production breaker over a window of four calls
+    private static CircuitBreaker breaker(Duration readTimeout) {
+        HttpClientProperties props = new HttpClientProperties();
+        props.setWindowSize(4);
+        props.setMinimumCalls(4);
+        return CircuitBreaker.of("provider", OutboundHttp.circuitBreakerConfig(props, readTimeout));
+    }
+
+    private RestTemplate guarded(CircuitBreaker breaker) {
+        RestTemplate http = new RestTemplate();
+        http.getInterceptors().add(OutboundHttp.guard(breaker, bulkhead));
+        return http;
+    }
+}
@@ -0,0 +1,46 @@
+package com.cobamovil.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecurrenceRuleTest {
+
+    private static final LocalDate START = LocalDate.of(2026, 1, 5); // Monday
+
+    @Test
+    void everyThreeWeeksWithinAWindow() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=WEEKLY;INTERVAL=3");
+
+        assertEquals(List.of(LocalDate.of(2026, 3, 9), LocalDate.of(2026, 3, 30)),
+                rule.occurrences(START, LocalDate.of(2026, 3, 1), LocalDate.of(2026, 4, 10)));
+        assertNull(rule.lastOccurrence(START));
+    }
+
+    @Test
+    void countIsTakenFromTheStartEvenWhenTheWindowBeginsLater() {
+        RecurrenceRule rule = RecurrenceRule.parse("RRULE:FREQ=WEEKLY;BYDAY=MO,TH;COUNT=3");
+
+        assertEquals(List.of(LocalDate.of(2026, 1, 12)),
+                rule.occurrences(START, LocalDate.of(2026, 1, 9), LocalDate.of(2026, 3, 1)));
+        assertEquals(LocalDate.of(2026, 1, 12), rule.lastOccurrence(START));
+    }
+
+    @Test
+    void monthlySkipsMonthsWithoutTheDayAndStopsAtUntil() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=MONTHLY;UNTIL=20260601");
+
+        assertEquals(List.of(LocalDate.of(2026, 1, 31), LocalDate.of(2026, 3, 31), LocalDate.of(2026, 5, 31)),
+                rule.occurrences(LocalDate.of(2026, 1, 31), LocalDate.of(2026, 1, 1), LocalDate.of(2026, 12, 31)));
+    }
+
+    @Test
+    void rejectsUnsupportedRules() {
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("FREQ=YEARLY"));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("FREQ=DAILY;BYDAY=MO"));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("INTERVAL=2"));
+    }
+}
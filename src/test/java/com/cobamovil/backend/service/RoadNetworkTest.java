@@ -0,0 +1,47 @@
+package com.cobamovil.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoadNetworkTest {
+
+    // Four nodes on a street grid; 1 -> 2 is one-way, 3 is a slow detour back from 2 to 0
+    private final RoadNetwork network = RoadNetwork.fromEdges(
+            new double[]{4.650, 4.651, 4.652, 4.651},
+            new double[]{-74.050, -74.050, -74.050, -74.049},
+            new int[]{0, 1, 1, 2, 3},
+            new int[]{1, 0, 2, 3, 0},
+            new int[]{60, 60, 60, 200, 200});
+
+    @Test
+    void shortestTimesRespectOneWayStreets() {
+        double[] lats = {4.650, 4.652, 4.651};
+        double[] lngs = {-74.050, -74.050, -74.050};
+        int[][] m = network.durationMatrixSeconds(lats, lngs, 120);
+
+        assertEquals(0, m[0][0]);
+        assertEquals(120, m[0][1]);
+        assertEquals(400, m[1][0], "2 -> 1 is against the one-way, so the detour through 3 is taken");
+        assertEquals(460, m[1][2]);
+        assertEquals(60, m[2][0]);
+    }
+
+    @Test
+    void pointsAwayFromRoadsPayAccessTimeOrAreUnknown() {
+        double[] lats = {4.650, 4.6509, 10.0};
+        double[] lngs = {-74.050, -74.050, -70.0};
+        int[][] m = network.durationMatrixSeconds(lats, lngs, 120);
+
+        // The second point snaps to node 1, ~11 m away: 60 s of road plus ~1 s of access
+        assertEquals(61, m[0][1]);
+        assertEquals(-1, m[0][2]);
+        assertEquals(-1, m[2][0]);
+    }
+
+    @Test
+    void networksTooLargeForTheGridIndexAreRefused() {
+        assertEquals((1 << 24) - 1, RoadNetwork.requireIndexable((1 << 24) - 1));
+        assertThrows(IllegalArgumentException.class, () -> RoadNetwork.requireIndexable(1 << 24));
+    }
+}
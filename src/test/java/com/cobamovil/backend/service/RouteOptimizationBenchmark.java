@@ -0,0 +1,84 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.config.RoutingProperties;
+import com.cobamovil.backend.entity.Booking;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Greedy nearest-neighbour ordering vs. greedy + 2-opt/Or-opt.
+ * Run after mvn test-compile with the test classpath:
+ *   java -cp target/test-classes:target/classes:&lt;deps&gt; org.openjdk.jmh.Main RouteOptimizationBenchmark
+ * Tour lengths (km) for both strategies are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteOptimizationBenchmark {
+
+    @Param({"10", "50", "200"})
+    public int stops;
+
+    private RouteOptimizationService service;
+    private List<Booking> bookings;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        RoutingProperties props = new RoutingProperties();
+        props.setTimeBudgetMs(1000);
+        service = new RouteOptimizationService(props, new DistanceMatrixService(null, null, null));
+        bookings = randomBookings(stops, 42L);
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        double greedy = length(service.orderByNearest(bookings));
+        double optimized = length(service.optimize(bookings));
+        System.out.printf("%n[stops=%d] greedy=%.2f km optimized=%.2f km (%.1f%% shorter)%n",
+                stops, greedy, optimized, 100.0 * (greedy - optimized) / greedy);
+    }
+
+    @Benchmark
+    public List<Booking> greedy() {
+        return service.orderByNearest(bookings);
+    }
+
+    @Benchmark
+    public List<Booking> optimized() {
+        return service.optimize(bookings);
+    }
+
+    static List<Booking> randomBookings(int n, long seed) {
+        // Bogota bounding box, same as app.coverage in application-dev.yml
+        Random rnd = new Random(seed);
+        List<Booking> list = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Booking b = new Booking();
+            b.setLatitude(4.45 + rnd.nextDouble() * 0.45);
+            b.setLongitude(-74.30 + rnd.nextDouble() * 0.40);
+            list.add(b);
+        }
+        return list;
+    }
+
+    private double length(List<Booking> ordered) {
+        double[][] d = service.distanceMatrix(ordered);
+        double total = 0;
+        for (int i = 1; i < ordered.size(); i++) total += d[i - 1][i];
+        return total;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RouteOptimizationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
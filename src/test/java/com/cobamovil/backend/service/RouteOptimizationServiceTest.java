@@ -0,0 +1,105 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.config.RoutingProperties;
+import com.cobamovil.backend.entity.Booking;
+import com.cobamovil.backend.entity.ServiceType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteOptimizationServiceTest {
+
+    private final RouteOptimizationService service = new RouteOptimizationService(new RoutingProperties(), new DistanceMatrixService(null, null, null));
+
+    @Test
+    void optimizedRouteVisitsEveryStopAndIsNotLongerThanGreedy() {
+        for (int n : new int[]{3, 10, 50}) {
+            List<Booking> bookings = RouteOptimizationBenchmark.randomBookings(n, n);
+            List<Booking> greedy = service.orderByNearest(bookings);
+            List<Booking> optimized = service.optimize(bookings);
+
+            assertEquals(n, optimized.size());
+            assertEquals(new HashSet<>(bookings), new HashSet<>(optimized));
+            assertTrue(length(optimized) <= length(greedy) + 1e-9, "n=" + n);
+        }
+    }
+
+    @Test
+    void improverHandlesAsymmetricCosts() {
+        // Going "up" the index is cheap, going down is expensive: the optimum is 0,1,2,3
+        double[][] d = new double[4][4];
+        for (int i = 0; i < 4; i++)
+            for (int j = 0; j < 4; j++)
+                d[i][j] = i == j ? 0 : (j > i ? (j - i) : 10.0 * (i - j));
+        int[] tour = {3, 1, 0, 2};
+        RouteImprover.improve(tour, d, 3, System.nanoTime() + 1_000_000_000L);
+        assertArrayEquals(new int[]{0, 1, 2, 3}, tour);
+    }
+
+    @Test
+    void improveWithinOnlyRepairsTheGivenWindow() {
+        // Points on a line; both ends of the tour are out of order
+        double[][] d = new double[8][8];
+        for (int i = 0; i < 8; i++) for (int j = 0; j < 8; j++) d[i][j] = Math.abs(i - j);
+        int[] tour = {1, 0, 2, 3, 4, 5, 7, 6};
+
+        RouteImprover.improveWithin(tour, d, 5, 7, 3, System.nanoTime() + 1_000_000_000L);
+
+        assertArrayEquals(new int[]{1, 0, 2, 3, 4, 5, 6, 7}, tour);
+        RouteImprover.improveWithin(tour, d, 0, 2, 3, System.nanoTime() + 1_000_000_000L);
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4, 5, 6, 7}, tour);
+    }
+
+    @Test
+    void geoMathMatchesPlainHaversine() {
+        List<Booking> bookings = RouteOptimizationBenchmark.randomBookings(30, 5L);
+        double[][] d = service.distanceMatrix(bookings);
+        for (int i = 0; i < bookings.size(); i++) {
+            for (int j = 0; j < bookings.size(); j++) {
+                Booking a = bookings.get(i), b = bookings.get(j);
+                double expected = GeoMathBenchmark.legacyHaversine(a.getLatitude(), a.getLongitude(), b.getLatitude(), b.getLongitude());
+                assertEquals(expected, d[i][j], 1e-9);
+            }
+        }
+    }
+
+    private double length(List<Booking> ordered) {
+        double[][] d = service.distanceMatrix(ordered);
+        double total = 0;
+        for (int i = 1; i < ordered.size(); i++) total += d[i - 1][i];
+        return total;
+    }
+
+    @Test
+    void scheduleRespectsTimeWindowsAndReportsInfeasibleStops() {
+        Booking late = booking(4.60, -74.08, LocalTime.of(11, 0), ServiceType.BATH);
+        Booking early = booking(4.70, -74.05, LocalTime.of(9, 0), ServiceType.HAIRCUT);
+        Booking clash = booking(4.50, -74.20, LocalTime.of(9, 0), ServiceType.FULL_GROOMING);
+
+        RouteOptimizationService.Schedule schedule = service.schedule(List.of(late, early, clash));
+
+        // Two 9:00 bookings far apart cannot both start on time
+        assertEquals(2, schedule.getOrdered().size());
+        assertEquals(1, schedule.getInfeasible().size());
+        assertSame(late, schedule.getOrdered().get(1));
+        for (int k = 0; k < schedule.getOrdered().size(); k++) {
+            LocalTime requested = schedule.getOrdered().get(k).getTime();
+            LocalTime start = schedule.getStartTimes().get(k);
+            assertFalse(start.isAfter(requested.plusMinutes(15)));
+            assertFalse(start.isBefore(requested.minusMinutes(15)));
+        }
+    }
+
+    private static Booking booking(double lat, double lng, LocalTime time, ServiceType type) {
+        Booking b = new Booking();
+        b.setLatitude(lat);
+        b.setLongitude(lng);
+        b.setTime(time);
+        b.setServiceType(type);
+        return b;
+    }
+}
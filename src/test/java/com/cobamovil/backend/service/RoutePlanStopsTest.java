@@ -0,0 +1,120 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.entity.Booking;
+import com.cobamovil.backend.entity.Pet;
+import com.cobamovil.backend.entity.RoutePlan;
+import com.cobamovil.backend.entity.RoutePlanStop;
+import com.cobamovil.backend.entity.ServiceType;
+import com.cobamovil.backend.entity.User;
+import jakarta.persistence.OptimisticLockException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RoutePlan.replaceStops against the real (plan_id, seq) unique constraint and @Version column.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class RoutePlanStopsTest {
+    private static final LocalDate DAY = LocalDate.now().plusDays(1);
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        TestDatabase.register(registry);
+    }
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Test
+    void savedPlanShrinksGrowsAndReordersInPlace() {
+        User groomer = em.persist(new User("plan-groomer", "plan-groomer@example.com", "x", "GROOMER"));
+        Booking a = booking(9), b = booking(10), c = booking(11), d = booking(12);
+        RoutePlan plan = new RoutePlan();
+        plan.setDate(DAY);
+        plan.setGroomer(groomer);
+        plan.replaceStops(List.of(a, b, c), List.of(0, 10, 20), null);
+        Long id = em.persistAndFlush(plan).getId();
+        em.clear();
+
+        plan = em.find(RoutePlan.class, id);
+        long version = plan.getVersion();
+        List<Long> rowIds = plan.getStops().stream().map(RoutePlanStop::getId).toList();
+        plan.replaceStops(List.of(em.find(Booking.class, c.getId()), em.find(Booking.class, a.getId())), List.of(0, 25), null);
+        em.flush();
+        em.clear();
+
+        plan = em.find(RoutePlan.class, id);
+        assertEquals(List.of(c.getId(), a.getId()), plan.getBookingIds());
+        assertEquals(List.of(0, 25), plan.getEtas());
+        assertEquals(rowIds.subList(0, 2), plan.getStops().stream().map(RoutePlanStop::getId).toList());
+        assertEquals(version + 1, plan.getVersion());
+        assertEquals(2L, stopRows(id));
+
+        plan.replaceStops(List.of(em.find(Booking.class, d.getId()), em.find(Booking.class, c.getId()),
+                em.find(Booking.class, b.getId()), em.find(Booking.class, a.getId())), null, null);
+        em.flush();
+        em.clear();
+
+        plan = em.find(RoutePlan.class, id);
+        assertEquals(List.of(d.getId(), c.getId(), b.getId(), a.getId()), plan.getBookingIds());
+        assertNull(plan.getEtas());
+        assertEquals(List.of(0, 1, 2, 3), plan.getStops().stream().map(RoutePlanStop::getSeq).toList());
+        assertTrue(plan.getStops().stream().allMatch(s -> s.getGroomer().getId().equals(groomer.getId())));
+        assertEquals(version + 2, plan.getVersion());
+        assertEquals(4L, stopRows(id));
+    }
+
+    @Test
+    void replanFromAStaleCopyIsRejected() {
+        Booking a = booking(9), b = booking(10);
+        RoutePlan plan = new RoutePlan();
+        plan.setDate(DAY);
+        plan.replaceStops(List.of(a, b), null, null);
+        Long id = em.persistAndFlush(plan).getId();
+        em.clear();
+
+        RoutePlan stale = em.find(RoutePlan.class, id);
+        stale.getStops().size();
+        em.detach(stale);
+        em.find(RoutePlan.class, id).replaceStops(List.of(em.find(Booking.class, b.getId())), null, null);
+        em.flush();
+
+        stale.replaceStops(List.of(a, b), null, null);
+        assertThrows(OptimisticLockException.class, () -> em.getEntityManager().merge(stale));
+    }
+
+    private long stopRows(Long planId) {
+        return em.getEntityManager()
+                .createQuery("select count(s) from RoutePlanStop s where s.plan.id = :id", Long.class)
+                .setParameter("id", planId).getSingleResult();
+    }
+
+    private Booking booking(int hour) {
+        String name = "plan-customer-" + hour;
+        User customer = em.persist(new User(name, name + "@example.com", "x", "CUSTOMER"));
+        Pet pet = new Pet();
+        pet.setOwner(customer);
+        pet.setName("Luna");
+        em.persist(pet);
+        Booking booking = new Booking();
+        booking.setCustomer(customer);
+        booking.setPet(pet);
+        booking.setServiceType(ServiceType.BATH);
+        booking.setDurationMinutes(45);
+        booking.setDate(DAY);
+        booking.setTime(LocalTime.of(hour, 0));
+        return em.persistAndFlush(booking);
+    }
+}
@@ -0,0 +1,107 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.config.RoutingProperties;
+import com.cobamovil.backend.entity.Booking;
+import com.cobamovil.backend.entity.BookingStatus;
+import com.cobamovil.backend.entity.RoutePlan;
+import com.cobamovil.backend.entity.ServiceType;
+import com.cobamovil.backend.entity.User;
+import com.cobamovil.backend.repository.BookingRepository;
+import com.cobamovil.backend.repository.RoutePlanRepository;
+import com.cobamovil.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class RouteReplannerTest {
+    private static final LocalDate DAY = LocalDate.now().plusDays(1);
+
+    private final BookingRepository bookings = mock(BookingRepository.class);
+    private final RoutePlanRepository plans = mock(RoutePlanRepository.class);
+    private final UserRepository users = mock(UserRepository.class);
+    private final List<Runnable> queued = new ArrayList<>();
+    private final RouteReplanner replanner = new RouteReplanner(bookings, plans, users,
+            new RouteOptimizationService(new RoutingProperties(), new DistanceMatrixService(null, null, null)),
+            new RoutingProperties(), TransactionOperations.withoutTransaction(), queued::add);
+
+    @Test
+    void removedStopIsDroppedAndNewStopInsertedAtItsCheapestPosition() {
+        // Stops along one street, north to south
+        Booking a = stop(1, 4.60), b = stop(2, 4.61), c = stop(3, 4.62), d = stop(4, 4.63), e = stop(5, 4.625);
+        RoutePlan plan = new RoutePlan();
+        plan.setDate(DAY);
+        plan.replaceStops(List.of(a, b, c, d), null, null);
+        when(plans.findByDateAndGroomerIsNull(DAY)).thenReturn(Optional.of(plan));
+        when(bookings.findByDateAndStatus(DAY, BookingStatus.APPROVED)).thenReturn(List.of(a, c, d, e));
+
+        replanner.replan(DAY, null);
+
+        assertEquals(List.of(1L, 3L, 5L, 4L), plan.getBookingIds());
+        assertNotNull(plan.getEtas());
+        verify(plans).save(plan);
+    }
+
+    @Test
+    void groomerRouteKeepsBookedTimesWhereTheCheapestPositionWouldBreakOne() {
+        User groomer = new User();
+        ReflectionTestUtils.setField(groomer, "id", 7L);
+        // e lies between a and c, but is booked after c: visiting it on the way would make c late
+        Booking a = stop(1, 4.60), c = stop(3, 4.62), e = stop(5, 4.61);
+        c.setTime(LocalTime.of(11, 0));
+        e.setTime(LocalTime.of(12, 0));
+        for (Booking b : List.of(a, c, e)) b.setAssignedGroomer(groomer);
+        RoutePlan plan = new RoutePlan();
+        plan.setDate(DAY);
+        plan.setGroomer(groomer);
+        plan.replaceStops(List.of(a, c), null, null);
+        when(users.findById(7L)).thenReturn(Optional.of(groomer));
+        when(plans.findByDateAndGroomer(DAY, groomer)).thenReturn(Optional.of(plan));
+        when(bookings.findByDateAndStatus(DAY, BookingStatus.APPROVED)).thenReturn(List.of(a, c, e));
+
+        replanner.replan(DAY, 7L);
+
+        assertEquals(List.of(1L, 3L, 5L), plan.getBookingIds());
+        // Each stop starts when its window opens (15 min early), not right after the drive
+        assertEquals(List.of(0, 120, 180), plan.getEtas());
+        verify(plans).save(plan);
+    }
+
+    @Test
+    void eventsForTheSameRouteAreCoalescedUntilTheReplanStarts() {
+        when(bookings.findByDateAndStatus(any(), any())).thenReturn(List.of());
+        for (int i = 0; i < 3; i++) replanner.onRouteChanged(event(7L));
+        replanner.onRouteChanged(event(8L));
+        assertEquals(2, queued.size());
+
+        queued.remove(0).run();
+        replanner.onRouteChanged(event(7L)); // committed after that re-plan started
+        assertEquals(2, queued.size());
+        queued.forEach(Runnable::run);
+        verify(bookings, times(3)).findByDateAndStatus(DAY, BookingStatus.APPROVED);
+    }
+
+    private static RouteChangedEvent event(Long groomerId) {
+        return new RouteChangedEvent(DAY, groomerId);
+    }
+
+    private static Booking stop(long id, double lat) {
+        Booking b = new Booking();
+        ReflectionTestUtils.setField(b, "id", id);
+        b.setServiceType(ServiceType.BATH);
+        b.setDate(DAY);
+        b.setTime(LocalTime.of(9, 0));
+        b.setLatitude(lat);
+        b.setLongitude(-74.05);
+        return b;
+    }
+}
@@ -0,0 +1,52 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.entity.Pet;
+import com.cobamovil.backend.entity.ServiceCatalogEntry;
+import com.cobamovil.backend.entity.ServiceDurationModifier;
+import com.cobamovil.backend.entity.ServiceType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServiceCatalogTest {
+
+    @Test
+    void blockedMinutesAddBufferAndMatchingModifiers() {
+        ServiceCatalogEntry bath = new ServiceCatalogEntry();
+        bath.setServiceType(ServiceType.BATH);
+        bath.setDurationMinutes(40);
+        bath.setBufferMinutes(10);
+        bath.getModifiers().add(modifier(bath, "Poodle", null, null, 15));
+        bath.getModifiers().add(modifier(bath, null, 25.0, null, 20));
+        bath.getModifiers().add(modifier(bath, "poodle", null, 10.0, -5));
+
+        ServiceCatalog.Snapshot s = ServiceCatalog.Snapshot.of(List.of(bath));
+
+        assertEquals(50, s.blockedMinutes(ServiceType.BATH, null));
+        assertEquals(50, s.blockedMinutes(ServiceType.BATH, pet("Beagle", 12.0)));
+        assertEquals(70, s.blockedMinutes(ServiceType.BATH, pet("Beagle", 25.0)));
+        assertEquals(60, s.blockedMinutes(ServiceType.BATH, pet(" POODLE ", 4.0)));
+        assertEquals(65, s.blockedMinutes(ServiceType.BATH, pet("poodle", null)));
+        // Services missing from the table keep the enum default
+        assertEquals(ServiceType.HAIRCUT.getDurationMinutes(), s.blockedMinutes(ServiceType.HAIRCUT, null));
+    }
+
+    private static ServiceDurationModifier modifier(ServiceCatalogEntry e, String breed, Double min, Double max, int extra) {
+        ServiceDurationModifier m = new ServiceDurationModifier();
+        m.setService(e);
+        m.setBreed(breed);
+        m.setMinWeightKg(min);
+        m.setMaxWeightKg(max);
+        m.setExtraMinutes(extra);
+        return m;
+    }
+
+    private static Pet pet(String breed, Double weight) {
+        Pet p = new Pet();
+        p.setBreed(breed);
+        p.setWeight(weight);
+        return p;
+    }
+}
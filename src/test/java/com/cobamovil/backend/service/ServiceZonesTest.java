@@ -0,0 +1,59 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.entity.ServiceZone;
+import com.cobamovil.backend.entity.User;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServiceZonesTest {
+
+    @Test
+    void pointsResolveToTheZoneContainingThem() {
+        // An L-shaped zone whose notch is covered by a second zone, and an inactive one on top
+        ServiceZone west = zone(1L, "4.0 -74.2, 4.0 -74.0, 4.1 -74.0, 4.1 -74.1, 4.2 -74.1, 4.2 -74.2", true);
+        ServiceZone notch = zone(2L, "4.1 -74.1, 4.1 -74.0, 4.2 -74.0, 4.2 -74.1", true);
+        ServiceZone off = zone(3L, "3.0 -75.0, 3.0 -73.0, 5.0 -73.0, 5.0 -75.0", false);
+
+        ServiceZones.Snapshot s = ServiceZones.Snapshot.of(List.of(off, notch, west));
+
+        assertEquals(1L, s.zoneOf(4.05, -74.05));
+        assertEquals(1L, s.zoneOf(4.15, -74.15));
+        assertEquals(2L, s.zoneOf(4.15, -74.05));
+        assertNull(s.zoneOf(4.25, -74.05));
+        assertNull(s.zoneOf(3.5, -74.5));
+    }
+
+    @Test
+    void zonesWithoutGroomersAreServedByEveryone() {
+        ServiceZone north = zone(1L, "0 0, 0 1, 1 1, 1 0", true);
+        north.getGroomers().add(groomer(7L));
+        ServiceZone south = zone(2L, "-1 0, -1 1, 0 1, 0 0", true);
+
+        ServiceZones.Snapshot s = ServiceZones.Snapshot.of(List.of(north, south));
+
+        assertTrue(s.assigned(1L, 7L));
+        assertTrue(s.serves(1L, 7L));
+        assertFalse(s.serves(1L, 8L));
+        assertFalse(s.assigned(2L, 8L));
+        assertTrue(s.serves(2L, 8L));
+    }
+
+    private static ServiceZone zone(Long id, String polygon, boolean active) {
+        ServiceZone z = new ServiceZone();
+        z.setId(id);
+        z.setName("zone-" + id);
+        z.setPolygon(polygon);
+        z.setActive(active);
+        return z;
+    }
+
+    private static User groomer(Long id) {
+        User u = new User();
+        u.setId(id);
+        u.setRole("GROOMER");
+        return u;
+    }
+}
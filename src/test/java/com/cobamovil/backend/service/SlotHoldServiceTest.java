@@ -0,0 +1,77 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.config.BookingProperties;
+import com.cobamovil.backend.entity.ServiceType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlotHoldServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2030, 3, 4);
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+    private SlotHoldService service(int ttlSeconds) {
+        BookingProperties props = new BookingProperties();
+        props.setHoldTtlSeconds(ttlSeconds);
+        props.setMaxHoldsPerUser(2);
+        return new SlotHoldService(props, now::get);
+    }
+
+    @Test
+    void holdBlocksOthersUntilItExpiresAndTheWheelReclaimsIt() {
+        SlotHoldService holds = service(300);
+        SlotHoldService.Hold h = holds.hold("ana", 7L, DAY, LocalTime.of(10, 0), 60, ServiceType.HAIRCUT);
+
+        assertTrue(holds.overlaps(DAY, 7L, 11 * 60, 11 * 60 + 30, "bob"));   // touches the end at 11:00
+        assertFalse(holds.overlaps(DAY, 7L, 10 * 60, 11 * 60, "ana"));       // own hold
+        assertFalse(holds.overlaps(DAY, 8L, 10 * 60, 11 * 60, "bob"));       // other groomer
+        assertSame(h, holds.find(h.getToken()));
+
+        now.addAndGet(299_000);
+        holds.expire();
+        assertEquals(1, holds.size());
+
+        now.addAndGet(1_000);
+        assertFalse(holds.overlaps(DAY, 7L, 10 * 60, 11 * 60, "bob"));
+        assertNull(holds.find(h.getToken()));
+        holds.expire();
+        assertEquals(0, holds.size());
+    }
+
+    @Test
+    void holdsLongerThanOneLapWaitForTheirTurn() {
+        SlotHoldService holds = service(SlotHoldService.TimingWheel.SLOTS + 10);
+        holds.hold("ana", null, DAY, LocalTime.of(9, 0), 45, ServiceType.BATH);
+
+        for (int s = 0; s < SlotHoldService.TimingWheel.SLOTS + 9; s++) {
+            now.addAndGet(1_000);
+            holds.expire();
+        }
+        assertEquals(1, holds.size());
+        assertTrue(holds.overlaps(DAY, 3L, 9 * 60, 9 * 60 + 10, "bob")); // unassigned holds block everyone
+
+        now.addAndGet(1_000);
+        holds.expire();
+        assertEquals(0, holds.size());
+    }
+
+    @Test
+    void oldestHoldMakesRoomBeyondTheLimitAndReleaseFreesTheSlot() {
+        SlotHoldService holds = service(300);
+        SlotHoldService.Hold first = holds.hold("ana", 1L, DAY, LocalTime.of(8, 0), 30, ServiceType.NAIL_TRIM);
+        SlotHoldService.Hold second = holds.hold("ana", 1L, DAY, LocalTime.of(9, 0), 30, ServiceType.NAIL_TRIM);
+        holds.hold("ana", 1L, DAY, LocalTime.of(10, 0), 30, ServiceType.NAIL_TRIM);
+
+        assertNull(holds.find(first.getToken()));
+        assertEquals(2, holds.size());
+
+        holds.release(second.getToken());
+        assertFalse(holds.overlaps(DAY, 1L, 9 * 60, 9 * 60 + 30, "bob"));
+    }
+}
@@ -0,0 +1,94 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.config.BookingProperties;
+import com.cobamovil.backend.dto.FreeSlotsDTO;
+import com.cobamovil.backend.entity.ServiceType;
+import com.cobamovil.backend.entity.User;
+import com.cobamovil.backend.repository.BookingRepository;
+import com.cobamovil.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class SlotSearchServiceTest {
+
+    @Test
+    void freeStartsMatchPairwiseOverlapCheck() {
+        Random rnd = new Random(11);
+        for (int round = 0; round < 40; round++) {
+            long[] bits = new long[5];
+            List<int[]> booked = new ArrayList<>();
+            for (int i = 0; i < rnd.nextInt(6); i++) {
+                int start = 480 + 5 * rnd.nextInt(110);
+                int end = start + 30 + 15 * rnd.nextInt(8);
+                booked.add(new int[]{start, end});
+                SlotSearchService.markBusy(bits, start, end);
+            }
+            int duration = 45 + 15 * rnd.nextInt(4);
+            int[] free = SlotSearchService.freeStarts(bits, 480, 1080, duration, 5, 0);
+
+            List<Integer> expected = new ArrayList<>();
+            for (int t = 480; t + duration <= 1080; t += 5) {
+                boolean clash = false;
+                for (int[] b : booked) clash |= t + duration >= b[0] && t <= b[1];
+                if (!clash) expected.add(t);
+            }
+            assertEquals(expected, toList(free), "round " + round);
+        }
+    }
+
+    @Test
+    void stepAndEarliestLimitTheStarts() {
+        long[] bits = new long[5];
+        SlotSearchService.markBusy(bits, 600, 660); // 10:00-11:00
+        int[] free = SlotSearchService.freeStarts(bits, 480, 720, 60, 30, 500);
+
+        // 08:00 is before earliest, 09:00 would touch the 10:00 start and 11:00 its end
+        assertEquals(List.of(510), toList(free));
+    }
+
+    @Test
+    void addressLimitsTheSearchToGroomersServingItsZone() {
+        UserRepository users = mock(UserRepository.class);
+        User north = groomer(1L), south = groomer(2L);
+        when(users.findByRole("GROOMER")).thenReturn(List.of(north, south));
+        BookingRepository bookings = mock(BookingRepository.class);
+        when(bookings.findByDateBetweenAndStatusIn(any(), any(), any())).thenReturn(List.of());
+        ServiceCatalog catalog = mock(ServiceCatalog.class);
+        when(catalog.blockedMinutes(ServiceType.BATH)).thenReturn(45);
+        ServiceZones zones = mock(ServiceZones.class);
+        when(zones.zoneOf(4.70, -74.05)).thenReturn(10L);
+        when(zones.zoneOf(null, null)).thenReturn(null); // Mockito answers 0L for Long otherwise
+        when(zones.serves(eq(10L), anyLong())).thenAnswer(inv -> inv.getArgument(1).equals(1L));
+        when(zones.serves(eq(null), anyLong())).thenReturn(true);
+        BookingProperties props = new BookingProperties();
+        SlotSearchService search = new SlotSearchService(bookings, users, props, catalog, new SlotHoldService(props), zones);
+        LocalDate day = LocalDate.now().plusDays(1);
+
+        assertEquals(List.of(1L), search.search(day, day, ServiceType.BATH, null, 60, null, 4.70, -74.05).stream()
+                .map(FreeSlotsDTO::getGroomerId).toList());
+        assertEquals(List.of(1L, 2L), search.search(day, day, ServiceType.BATH, null, 60, null, null, null).stream()
+                .map(FreeSlotsDTO::getGroomerId).toList());
+    }
+
+    private static User groomer(Long id) {
+        User g = new User("g" + id, "g" + id + "@example.com", "x", "GROOMER");
+        g.setId(id);
+        return g;
+    }
+
+    private static List<Integer> toList(int[] values) {
+        List<Integer> out = new ArrayList<>();
+        for (int v : values) out.add(v);
+        return out;
+    }
+}
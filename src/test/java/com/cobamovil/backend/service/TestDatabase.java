@@ -0,0 +1,48 @@
+package com.cobamovil.backend.service;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * One embedded PostgreSQL for the whole test run, for tests that depend on Postgres behaviour
+ * (exclusion constraints, SKIP LOCKED, ON CONFLICT), migrated with the application's Flyway
+ * scripts. Spring tests point the datasource at it with {@link #register}.
+ */
+final class TestDatabase {
+    private static EmbeddedPostgres postgres;
+
+    private TestDatabase() {}
+
+    static synchronized EmbeddedPostgres postgres() {
+        if (postgres == null) {
+            try {
+                postgres = EmbeddedPostgres.start();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            Flyway.configure().dataSource(postgres.getPostgresDatabase()).locations("classpath:db/migration").load().migrate();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try { postgres.close(); } catch (IOException ignored) { }
+            }));
+        }
+        return postgres;
+    }
+
+    static DataSource dataSource() {
+        return postgres().getPostgresDatabase();
+    }
+
+    static void register(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres().getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("spring.jpa.show-sql", () -> "false");
+        // Cached contexts outlive their test class; their dispatcher must not claim other tests' outbox rows
+        registry.add("app.notifications.pollMillis", () -> "3600000");
+    }
+}
@@ -0,0 +1,70 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.config.RoutingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TravelTimeCacheTest {
+    private static final String[] CELLS = {"d2g6cq1", "d2g6cq4"};
+    private static final int BUCKET = 8;
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+
+    @Test
+    void memoryTierEvictsTheLeastRecentlyUsedAndExpiresOldEntries() {
+        RoutingProperties props = new RoutingProperties();
+        props.setCacheMaxEntries(2);
+        TravelTimeCache cache = new TravelTimeCache(null, props, new SimpleMeterRegistry(), now::get);
+        cache.store(CELLS, 1, new int[][]{{0, 100}, {-1, 0}});
+        cache.store(CELLS, 2, new int[][]{{0, 200}, {-1, 0}});
+        assertEquals(100, lookup(cache, 1)[0][1]); // touch bucket 1, so bucket 2 is now the eldest
+        cache.store(CELLS, 3, new int[][]{{0, 300}, {-1, 0}});
+
+        assertEquals(2, cache.memorySize());
+        assertEquals(-1, lookup(cache, 2)[0][1]);
+        assertEquals(100, lookup(cache, 1)[0][1]);
+
+        now.addAndGet(TimeUnit.DAYS.toMillis(props.getCacheTtlDays()) + 1);
+        assertEquals(-1, lookup(cache, 1)[0][1]);
+        cache.purgeExpired();
+        assertEquals(0, cache.memorySize());
+    }
+
+    @Test
+    void databaseTierServesOtherInstancesUntilItExpiresAndIsPurged() {
+        NamedParameterJdbcTemplate jdbc = new NamedParameterJdbcTemplate(TestDatabase.dataSource());
+        jdbc.update("DELETE FROM travel_time_cache", new MapSqlParameterSource());
+        RoutingProperties props = new RoutingProperties();
+        TravelTimeCache writer = new TravelTimeCache(jdbc, props, new SimpleMeterRegistry(), now::get);
+        writer.store(CELLS, BUCKET, new int[][]{{0, 420}, {480, 0}});
+        writer.store(CELLS, BUCKET, new int[][]{{0, 400}, {-1, 0}}); // upsert
+
+        TravelTimeCache reader = new TravelTimeCache(jdbc, props, new SimpleMeterRegistry(), now::get);
+        int[][] out = lookup(reader, BUCKET);
+        assertEquals(400, out[0][1]);
+        assertEquals(480, out[1][0]);
+        assertEquals(-1, lookup(reader, BUCKET + 1)[0][1]);
+
+        now.addAndGet(TimeUnit.DAYS.toMillis(props.getCacheTtlDays()) + 1);
+        TravelTimeCache later = new TravelTimeCache(jdbc, props, new SimpleMeterRegistry(), now::get);
+        assertEquals(-1, lookup(later, BUCKET)[0][1]);
+        later.purgeExpired();
+        assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM travel_time_cache", new MapSqlParameterSource(), Integer.class));
+    }
+
+    private static int[][] lookup(TravelTimeCache cache, int bucket) {
+        int[][] out = new int[2][2];
+        for (int[] row : out) Arrays.fill(row, -1);
+        out[0][0] = out[1][1] = 0;
+        cache.lookup(CELLS, bucket, out);
+        return out;
+    }
+}
@@ -0,0 +1,164 @@
+package com.cobamovil.backend.service;
+
+import com.cobamovil.backend.config.BookingProperties;
+import com.cobamovil.backend.entity.Booking;
+import com.cobamovil.backend.entity.ServiceType;
+import com.cobamovil.backend.entity.User;
+import com.cobamovil.backend.entity.WaitlistEntry;
+import com.cobamovil.backend.entity.WaitlistStatus;
+import com.cobamovil.backend.repository.BookingRepository;
+import com.cobamovil.backend.repository.UserRepository;
+import com.cobamovil.backend.repository.WaitlistEntryRepository;
+import com.cobamovil.backend.service.WaitlistService.Candidates;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntPredicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class WaitlistServiceTest {
+    private static final IntPredicate ANY = i -> true;
+
+    // Freed stretch 10:01-11:59 between stops at (4.60, -74.10) and (4.62, -74.08)
+    private final GeoMath.Points ends = GeoMath.Points.of(new double[]{4.60, 4.62}, new double[]{-74.10, -74.08});
+
+    @Test
+    void picksTheFittingCandidateWithTheSmallestDetour() {
+        Candidates c = Candidates.of(List.of(
+                new Candidates.Entry(1, 540, 660, 60, 4.70, -74.00),   // fits, far away
+                new Candidates.Entry(2, 600, 700, 60, 4.61, -74.09),   // fits, on the way
+                new Candidates.Entry(3, 690, 720, 60, 4.61, -74.09),   // would end after 11:59
+                new Candidates.Entry(4, 480, 590, 45, 4.61, -74.09))); // window closes before the gap
+
+        long[] match = c.best(601, 719, ends, ANY);
+
+        assertArrayEquals(new long[]{2, 605}, match);
+        assertArrayEquals(new long[]{1, 605}, c.without(2).best(601, 719, ends, ANY));
+        assertNull(c.without(1).without(2).best(601, 719, ends, ANY));
+    }
+
+    @Test
+    void oldestEntryWinsWhenDetoursTie() {
+        Candidates c = Candidates.of(List.of(
+                new Candidates.Entry(9, 600, 660, 30, 4.61, -74.09),
+                new Candidates.Entry(5, 630, 660, 30, 4.61, -74.09)));
+
+        assertEquals(5, c.best(601, 719, ends, ANY)[0]);
+        assertEquals(9, c.with(new Candidates.Entry(12, 600, 660, 30, 4.61, -74.09)).without(5).best(601, 719, ends, ANY)[0]);
+    }
+
+    @Test
+    void ineligibleEntriesAreSkipped() {
+        Candidates c = Candidates.of(List.of(
+                new Candidates.Entry(1, 540, 660, 60, 4.70, -74.00),
+                new Candidates.Entry(2, 600, 700, 60, 4.61, -74.09)));
+
+        // Entry 2 is at position 1 once sorted by window start
+        assertEquals(1, c.best(601, 719, ends, i -> i != 1)[0]);
+        assertNull(c.best(601, 719, ends, i -> false));
+    }
+
+    @Test
+    void expiredOfferWaitsAgainAndTheSlotGoesToTheNextCandidate() {
+        Offers o = new Offers();
+        o.service.offerFreedSlot(Offers.DAY, 7L, 600);
+
+        assertEquals(WaitlistStatus.OFFERED, o.ana.getStatus());
+        assertEquals(LocalTime.of(10, 0), o.ana.getOfferedTime());
+        assertTrue(o.holds.overlaps(Offers.DAY, 7L, 600, 660, "someone-else"), "the slot is held for the customer");
+        assertFalse(o.holds.overlaps(Offers.DAY, 7L, 600, 660, "ana"));
+
+        o.clock.addAndGet(TimeUnit.MINUTES.toMillis(new BookingProperties().getWaitlistOfferMinutes()) + 1000);
+        o.holds.expire();
+
+        assertEquals(WaitlistStatus.WAITING, o.ana.getStatus());
+        assertNull(o.ana.getOfferedTime());
+        assertEquals(WaitlistStatus.OFFERED, o.bob.getStatus());
+        assertEquals(List.of("bob"), o.holds.onDate(Offers.DAY).stream().map(SlotHoldService.Hold::getHolder).toList());
+        verify(o.notifications, times(2)).notifyWaitlistOffer(any(), eq(Offers.DAY), eq(LocalTime.of(10, 0)));
+    }
+
+    @Test
+    void cancellingAnOfferedEntryReleasesTheSlotToTheNextCandidate() {
+        Offers o = new Offers();
+        o.service.offerFreedSlot(Offers.DAY, 7L, 600);
+        when(o.users.findByUsername("ana")).thenReturn(Optional.of(o.ana.getCustomer()));
+
+        o.service.cancel(o.ana.getId(), "ana");
+
+        assertEquals(WaitlistStatus.CANCELLED, o.ana.getStatus());
+        assertEquals(WaitlistStatus.OFFERED, o.bob.getStatus());
+        assertEquals(List.of("bob"), o.holds.onDate(Offers.DAY).stream().map(SlotHoldService.Hold::getHolder).toList());
+    }
+
+    @Test
+    void releasedOfferTheCustomerBookedIsSettledWithoutReOffering() {
+        Offers o = new Offers();
+        o.service.offerFreedSlot(Offers.DAY, 7L, 600);
+        Booking booked = new Booking();
+        booked.setCustomer(o.ana.getCustomer());
+        booked.setTime(LocalTime.of(10, 0));
+        when(o.bookings.findByDateAndStatusIn(Offers.DAY, BookingIntervalIndex.HOLDS_SLOT)).thenReturn(List.of(booked));
+
+        o.holds.release(o.holds.onDate(Offers.DAY).get(0).getToken());
+
+        assertEquals(WaitlistStatus.BOOKED, o.ana.getStatus());
+        assertEquals(WaitlistStatus.WAITING, o.bob.getStatus());
+        assertTrue(o.holds.onDate(Offers.DAY).isEmpty());
+    }
+
+    // Two customers waiting for an hour starting 10:00-10:40, and groomer 7, whose 10:00-12:00 stretch frees up
+    private static final class Offers {
+        static final LocalDate DAY = LocalDate.now().plusDays(3);
+
+        final AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+        final SlotHoldService holds = new SlotHoldService(new BookingProperties(), clock::get);
+        final WaitlistEntryRepository waitlist = mock(WaitlistEntryRepository.class);
+        final UserRepository users = mock(UserRepository.class);
+        final BookingRepository bookings = mock(BookingRepository.class);
+        final BookingIntervalIndex intervals = mock(BookingIntervalIndex.class);
+        final NotificationService notifications = mock(NotificationService.class);
+        final ServiceZones zones = mock(ServiceZones.class);
+        final WaitlistEntry ana = entry(1L, "ana"), bob = entry(2L, "bob");
+        final WaitlistService service = new WaitlistService(waitlist, users, null, bookings, intervals, null, null,
+                notifications, new BookingProperties(), zones, holds, TransactionOperations.withoutTransaction());
+
+        Offers() {
+            User groomer = user(7L, "groomer");
+            when(users.findById(7L)).thenReturn(Optional.of(groomer));
+            when(intervals.gapAround(eq(DAY), eq(7L), anyInt())).thenReturn(new BookingIntervalIndex.Gap(599, 720, 1L, 2L));
+            when(zones.serves(any(), anyLong())).thenReturn(true);
+            when(waitlist.findByDateAndStatus(DAY, WaitlistStatus.WAITING)).thenReturn(List.of(ana, bob));
+            when(waitlist.findById(1L)).thenReturn(Optional.of(ana));
+            when(waitlist.findById(2L)).thenReturn(Optional.of(bob));
+        }
+
+        private static WaitlistEntry entry(long id, String customer) {
+            WaitlistEntry e = new WaitlistEntry();
+            ReflectionTestUtils.setField(e, "id", id);
+            e.setCustomer(user(10 + id, customer));
+            e.setServiceType(ServiceType.BATH);
+            e.setDate(DAY);
+            e.setWindowStart(LocalTime.of(10, 0));
+            e.setWindowEnd(LocalTime.of(10, 40));
+            e.setDurationMinutes(60);
+            return e;
+        }
+
+        private static User user(long id, String name) {
+            User u = new User(name, name + "@example.com", "x", "CUSTOMER");
+            u.setId(id);
+            return u;
+        }
+    }
+}